@@ -18,23 +18,27 @@
  */
 package fr.free.jchecs.ai;
 
-import static fr.free.jchecs.core.BoardFactory.State.EMPTY;
-import static fr.free.jchecs.core.BoardFactory.Type.FASTEST;
-
-import java.io.DataInputStream;
-import java.io.EOFException;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Pattern;
-import java.util.zip.GZIPInputStream;
 
-import fr.free.jchecs.core.BoardFactory;
 import fr.free.jchecs.core.Move;
 import fr.free.jchecs.core.MoveGenerator;
+import fr.free.jchecs.core.MoveList;
+import fr.free.jchecs.core.Piece;
+import fr.free.jchecs.core.SANUtils;
+import fr.free.jchecs.core.SearchBoard;
 
 /**
  * Implémentation de base des moteurs d'IA pour les échecs.
@@ -49,54 +53,199 @@ abstract class AbstractEngine implements Engine
   /** Valeur d'un Mat. */
   protected static final int MATE_VALUE = Integer.MIN_VALUE / 2;
 
+  /** Nombre de coups par défaut pendant lesquels la bibliothèque d'ouvertures est consultée. */
+  static final int DEFAULT_OPENINGS_DEPTH = 19;
+
+  /**
+   * Nombre de demi-coups (puissance de 2) entre deux contrôles de la durée de la recherche et des
+   * demandes d'interruption.
+   */
+  private static final int TIME_CHECK_INTERVAL = 1024;
+
+  /** Threads de recherche supplémentaires en cours d'utilisation, tous moteurs confondus. */
+  private static final AtomicInteger S_helperThreads = new AtomicInteger();
+
+  /** Nombre maximum de threads de recherche supplémentaires, tous moteurs confondus. */
+  private static volatile int S_helperThreadsLimit = defaultHelperThreadsLimit();
+
+  /**
+   * Marge de sécurité de l'élagage "delta" de la recherche de quiescence : une prise n'est pas
+   * examinée si, même augmentée de cette marge, elle ne peut ramener l'évaluation au niveau
+   * d'alpha.
+   */
+  private static final int DELTA_MARGIN = 200;
+
   /** Modèle de découpage des enregistrements des ouvertures suivant les ';'. */
   static final Pattern SPLITTER = Pattern.compile(";");
 
-  /** Buffer des ouvertures. */
-  private static Map<Integer, int []> S_openings;
+  /**
+   * Chargement de la bibliothèque d'ouvertures, partagée par tous les moteurs. Il est lancé en
+   * tâche de fond dès l'initialisation de la classe, pour en masquer la durée : seules les
+   * premières consultations peuvent avoir à en attendre la fin.
+   */
+  private static final FutureTask<OpeningBook> S_OPENINGS =
+      new FutureTask<OpeningBook>(new Callable<OpeningBook>()
+      {
+        /**
+         * Lit la bibliothèque d'ouvertures livrée avec jChecs.
+         * 
+         * @return Bibliothèque lue, ou null si elle est absente.
+         * @throws IOException En cas d'erreur de lecture.
+         */
+        public OpeningBook call() throws IOException
+        {
+          final InputStream is = Engine.class.getResourceAsStream("jchecs.opn");
+          if (is == null)
+          {
+            return null;
+          }
+
+          return OpeningBook.readJChecs(is);
+        }
+      });
   static
   {
-    final Thread preload = new Thread(new Runnable()
-    {
-      /**
-       * Tâche de fond pour masquer le temps de chargement...
-       */
-      public void run()
-      {
-        getFromOpenings(BoardFactory.valueOf(FASTEST, EMPTY));
-      }
-    });
+    final Thread preload = new Thread(S_OPENINGS, "jChecs openings loader");
+    preload.setDaemon(true);
     preload.setPriority(Thread.MIN_PRIORITY);
     preload.start();
   }
 
+  /**
+   * Exception interrompant une recherche en cours.
+   * <p>
+   * Propagée à travers les appels récursifs de la recherche, puis interceptée par
+   * {@link AbstractEngine#getMoveFor(MoveGenerator)}. Une seule instance, sans pile d'appels, est
+   * utilisée : la lever ne coûte rien.
+   * </p>
+   */
+  private static final class SearchAbortedException extends RuntimeException
+  {
+    /** Identifiant de la classe pour la sérialisation. */
+    private static final long serialVersionUID = 1L;
+
+    /** Instance unique. */
+    static final SearchAbortedException INSTANCE = new SearchAbortedException();
+
+    /**
+     * Crée l'instance unique.
+     */
+    private SearchAbortedException()
+    {
+      super("Search aborted");
+    }
+
+    /**
+     * Pas de pile d'appels : l'exception n'est qu'un moyen de sortir de la récursion.
+     * 
+     * @return Cette instance.
+     */
+    @Override
+    public synchronized Throwable fillInStackTrace()
+    {
+      return this;
+    }
+  }
+
   /** Limite basse de la profondeur de recherche. */
   private final int _minimalSearchDepth;
 
   /** Limite haute de la profondeur de recherche. */
   private final int _maximalSearchDepth;
 
+  /**
+   * Numéro de la dernière demande de recherche interrompue par {@link #abort()} : toutes les
+   * demandes de numéro inférieur ou égal sont interrompues.
+   */
+  private final AtomicLong _abortedRequest = new AtomicLong();
+
+  /** Drapeau signalant l'activation des fenêtres d'aspiration. */
+  private boolean _aspirationWindowsEnabled = true;
+
+  /** Meilleur mouvement de la dernière itération achevée de la recherche en cours (ou null). */
+  private Move _bestMove;
+
+  /** Date limite de la recherche en cours (en ms, 0 si aucune). */
+  private long _deadline;
+
   /** Temps total passé en traitement par le moteur. */
   private long _elapsedTime;
 
   /** Nombre total de demi-coups évalué par le moteur. */
   private int _halfmoveCount;
 
+  /** Moteurs secondaires, de même type, pour les threads de recherche supplémentaires. */
+  private AbstractEngine [] _helpers = new AbstractEngine [ 0 ];
+
+  /** Threads de recherche supplémentaires de la recherche en cours. */
+  private Thread [] _helperThreads = new Thread [ 0 ];
+
   /** Fonction d'évalutation utilisée par le moteur. */
   private Heuristic _heuristic;
 
   /** Fonction de tri des mouvements. */
   private Comparator<Move> _moveSorter;
 
+  /** Listes de mouvements réutilisées par la recherche, une par niveau de l'arbre. */
+  private MoveList [] _moveLists = new MoveList [ 0 ];
+
+  /** Sources de mouvements par étapes réutilisées par la recherche, une par niveau de l'arbre. */
+  private MovePicker [] _movePickers = new MovePicker [ 0 ];
+
+  /** Contexte d'ordenancement des mouvements de la recherche en cours. */
+  private final MoveScorer _moveScorer = new MoveScorer();
+
+  /** Taille de la table de transposition, en Mo. */
+  private int _hashSize = TranspositionTable.DEFAULT_SIZE;
+
+  /** Durée maximale d'une recherche, en ms (0 si aucune). */
+  private volatile long _hardTimeLimit;
+
+  /** Profondeur de l'itération en cours de la recherche (en demi-coups). */
+  private int _iterationDepth;
+
+  /** Drapeau signalant l'activation de la réduction des mouvements tardifs. */
+  private boolean _lateMoveReductionsEnabled = true;
+
+  /** Drapeau signalant l'activation de l'élagage par passage de trait. */
+  private boolean _nullMoveEnabled = true;
+
+  /** Bibliothèque d'ouvertures sélectionnée (null pour la bibliothèque livrée avec jChecs). */
+  private volatile OpeningsSource _openingsBook;
+
+  /** Statistiques de la dernière recherche achevée (ou null). */
+  private volatile SearchStatistics _lastStatistics;
+
+  /** Nombre de coups pendant lesquels la bibliothèque d'ouvertures est consultée. */
+  private int _openingsDepth = DEFAULT_OPENINGS_DEPTH;
+
   /** Drapeau signalant l'activation de la bibliothèque d'ouvertures. */
   private boolean _openingsEnabled;
 
+  /** Numéro de la demande de recherche en cours (propre au thread de la recherche). */
+  private long _request;
+
+  /** Numéro de la dernière demande de recherche, attribué avant l'attente du moniteur. */
+  private final AtomicLong _requests = new AtomicLong();
+
   /** Score du dernier mouvement. */
   private int _score;
 
   /** Limite de la profondeur de recherche (en demi-coups). */
   private int _searchDepthLimit;
 
+  /** Durée au-delà de laquelle une nouvelle itération de la recherche n'est pas entamée (en ms). */
+  private volatile long _softTimeLimit;
+
+  /** Statistiques de la recherche en cours. */
+  private SearchStatistics _statistics = new SearchStatistics();
+
+  /** Nombre de threads participant à une recherche (>= 1). */
+  private int _threads = 1;
+
+  /** Table de transposition partagée (créée à la première utilisation). */
+  private TranspositionTable _transpositions;
+
   /**
    * Instancie un nouveau moteur IA.
    * 
@@ -119,6 +268,49 @@ abstract class AbstractEngine implements Engine
     setOpeningsEnabled(true);
   }
 
+  /**
+   * Interrompt au plus vite la recherche en cours, s'il y en a une.
+   * <p>
+   * Peut être appelée depuis un autre thread que celui de la recherche :
+   * {@link #getMoveFor(MoveGenerator)} renvoie alors null. L'interruption vise toutes les demandes
+   * déjà faites, y compris celles dont la recherche n'a pas encore commencé (thread en attente du
+   * moniteur), mais aucune des demandes suivantes.
+   * </p>
+   */
+  public final void abort()
+  {
+    final long derniere = _requests.get();
+    while (true)
+    {
+      final long avant = _abortedRequest.get();
+      if ((avant >= derniere) || _abortedRequest.compareAndSet(avant, derniere))
+      {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Réserve des threads de recherche supplémentaires, dans la limite du plafond global.
+   * 
+   * @param pNombre Nombre de threads souhaités (>= 0).
+   * @return Nombre de threads effectivement réservés ([0, pNombre]).
+   */
+  private static int acquireHelperThreads(final int pNombre)
+  {
+    assert pNombre >= 0;
+
+    while (true)
+    {
+      final int enCours = S_helperThreads.get();
+      final int res = Math.max(0, Math.min(pNombre, S_helperThreadsLimit - enCours));
+      if ((res == 0) || S_helperThreads.compareAndSet(enCours, enCours + res))
+      {
+        return res;
+      }
+    }
+  }
+
   /**
    * Ajoute une durée (en ms) au temps total de traitement par le moteur.
    * 
@@ -133,6 +325,12 @@ abstract class AbstractEngine implements Engine
 
   /**
    * Ajoute un décompte de demi-coups au nombre de demi-coups évalués par le moteur.
+   * <p>
+   * Sert aussi de point de contrôle de la recherche : tous les {@link #TIME_CHECK_INTERVAL}
+   * demi-coups, si une interruption a été demandée ou si la durée maximale est dépassée, la
+   * recherche en cours est interrompue par une exception, interceptée par
+   * {@link #getMoveFor(MoveGenerator)}.
+   * </p>
    * 
    * @param pNombre Nombre de demi-coups à ajouter.
    */
@@ -140,7 +338,49 @@ abstract class AbstractEngine implements Engine
   {
     assert pNombre >= 0;
 
+    final int avant = _halfmoveCount;
     _halfmoveCount += pNombre;
+    if (((avant & -TIME_CHECK_INTERVAL) != (_halfmoveCount & -TIME_CHECK_INTERVAL))
+        && (isAborted() || ((_deadline != 0L) && (System.currentTimeMillis() >= _deadline))))
+    {
+      throw SearchAbortedException.INSTANCE;
+    }
+  }
+
+  /**
+   * Comptabilise une coupure beta dans les statistiques de la recherche en cours.
+   * 
+   * @param pPremier A "true" si la coupure est obtenue dès le premier mouvement examiné.
+   */
+  protected final void countCutoff(final boolean pPremier)
+  {
+    _statistics.countCutoff(pPremier);
+  }
+
+  /**
+   * Renvoi le nombre maximum de threads de recherche supplémentaires par défaut.
+   * 
+   * @return Nombre de processeurs moins un.
+   */
+  private static int defaultHelperThreadsLimit()
+  {
+    return Math.max(0, Runtime.getRuntime().availableProcessors() - 1);
+  }
+
+  /**
+   * Renvoi la profondeur de l'itération en cours de la recherche.
+   * <p>
+   * C'est la profondeur que doit atteindre {@link #searchMoveFor(SearchBoard, Move[])} : elle est
+   * égale à {@link #getSearchDepthLimit()}, sauf lors d'une recherche limitée en temps, qui procède
+   * par approfondissements successifs.
+   * </p>
+   * 
+   * @return Profondeur de recherche (en demi-coups).
+   */
+  protected final int getCurrentSearchDepth()
+  {
+    assert _iterationDepth >= 1;
+    return _iterationDepth;
   }
 
   /**
@@ -154,93 +394,42 @@ abstract class AbstractEngine implements Engine
     return _elapsedTime;
   }
 
+  /**
+   * Renvoi le taux de succès du cache des évaluations de la fonction d'évaluation du moteur.
+   * 
+   * @return Proportion des évaluations trouvées dans le cache ([0, 1], 0 sans cache).
+   */
+  public final double getEvaluationCacheHitRate()
+  {
+    final EvaluationCache cache = getHeuristicCache(false);
+    if (cache != null)
+    {
+      return cache.getHitRate();
+    }
+
+    return 0.0;
+  }
+
   /**
    * Renvoi le mouvement correspondant à une position dans la bibliothèque d'ouverture.
+   * <p>
+   * La bibliothèque étant immuable une fois chargée, la consultation se fait sans verrou.
+   * </p>
    * 
    * @param pEtat Etat du jeu.
    * @return Mouvement correspondant (ou null)
    */
-  static final synchronized Move getFromOpenings(final MoveGenerator pEtat)
+  static final Move getFromOpenings(final MoveGenerator pEtat)
   {
     assert pEtat != null;
 
-    Move res = null;
-
-    if (S_openings == null)
-    {
-      final InputStream is = Engine.class.getResourceAsStream("jchecs.opn");
-      if (is != null)
-      {
-        S_openings = new HashMap<Integer, int []>();
-        DataInputStream in = null;
-        try
-        {
-          in = new DataInputStream(new GZIPInputStream(is));
-          while (in.available() > 0)
-          {
-            final int nb = in.readByte();
-            assert (nb > 0) && (nb <= 5);
-            final int [] mvtsId = new int [ nb ];
-            final int cle = in.readInt();
-            for (int i = 0; i < nb; i++)
-            {
-              mvtsId[i] = (in.readUnsignedShort() << 8) + in.readUnsignedByte();
-              assert (mvtsId[i] & 0xFF000000) == 0;
-            }
-            S_openings.put(Integer.valueOf(cle), mvtsId);
-          }
-        }
-        catch (final EOFException e)
-        {
-          // Pas grave, le coup sera calculé...
-        }
-        catch (final IOException e)
-        {
-          // Pas grave, le coup sera calculé...
-          assert false;
-        }
-        finally
-        {
-          if (in != null)
-          {
-            try
-            {
-              in.close();
-            }
-            catch (final IOException e1)
-            {
-              // On aura essayé :-)
-            }
-          }
-        }
-      }
-    }
-
-    int [] ids = null;
-    if (S_openings != null)
+    final OpeningBook ouvertures = getOpenings();
+    if (ouvertures == null)
     {
-      ids = S_openings.get(Integer.valueOf(pEtat.hashCode()));
-    }
-    if (ids != null)
-    {
-      res = Move.valueOf(ids[RANDOMIZER.nextInt(ids.length)]);
-      // Les hashcodes n'étant pas infaïbles, il vaut mieux valider le mouvement obtenu...
-      boolean erreurHashcode = true;
-      for (final Move mvt : pEtat.getValidMoves(pEtat.isWhiteActive()))
-      {
-        if (mvt.equals(res))
-        {
-          erreurHashcode = false;
-          break;
-        }
-      }
-      if (erreurHashcode)
-      {
-        res = null;
-      }
+      return null;
     }
 
-    return res;
+    return ouvertures.getMove(pEtat, RANDOMIZER);
   }
 
   /**
@@ -254,6 +443,41 @@ abstract class AbstractEngine implements Engine
     return _halfmoveCount;
   }
 
+  /**
+   * Renvoi le nombre de threads de recherche supplémentaires en cours d'utilisation, tous moteurs
+   * confondus.
+   * 
+   * @return Nombre de threads réservés.
+   */
+  static int getHelperThreadsCount()
+  {
+    return S_helperThreads.get();
+  }
+
+  /**
+   * Renvoi l'un des caches de la fonction d'évaluation utilisée par le moteur.
+   * 
+   * @param pPions A "true" pour le cache de la structure de pions, "false" pour celui des
+   *          évaluations.
+   * @return Cache demandé, ou null si la fonction d'évaluation n'en utilise pas.
+   */
+  private EvaluationCache getHeuristicCache(final boolean pPions)
+  {
+    final Heuristic heuristique = getHeuristic();
+    if (!(heuristique instanceof AbstractHeuristic))
+    {
+      return null;
+    }
+
+    final AbstractHeuristic h = (AbstractHeuristic) heuristique;
+    if (pPions)
+    {
+      return h.getPawnHash();
+    }
+
+    return h.getEvaluationCache();
+  }
+
   /**
    * Renvoi la fonction d'évaluation utilisée par le moteur.
    * 
@@ -265,6 +489,19 @@ abstract class AbstractEngine implements Engine
     return _heuristic;
   }
 
+  /**
+   * Renvoi les statistiques de la dernière recherche achevée (ou interrompue).
+   * <p>
+   * Peut être appelée depuis un autre thread que celui de la recherche.
+   * </p>
+   * 
+   * @return Statistiques de la dernière recherche, ou null si aucune recherche n'a eu lieu.
+   */
+  public final SearchStatistics getLastSearchStatistics()
+  {
+    return _lastStatistics;
+  }
+
   /**
    * Renvoi la limite haute de la profondeur de recherche supportées par le moteur.
    * 
@@ -291,39 +528,165 @@ abstract class AbstractEngine implements Engine
    * Recherche un mouvement répondant à un état de l'échiquier.
    * 
    * @param pEtat Etat de l'échiquier.
-   * @return Mouvement trouvé.
+   * @return Mouvement trouvé, ou null si la recherche a été interrompue par {@link #abort()}.
+   */
+  public final Move getMoveFor(final MoveGenerator pEtat)
+  {
+    assert pEtat != null;
+
+    // Numéro attribué avant l'attente du moniteur, pour ne perdre aucune interruption...
+    return getMoveFor(pEtat, _requests.incrementAndGet());
+  }
+
+  /**
+   * Recherche un mouvement répondant à un état de l'échiquier, pour une demande numérotée.
+   * 
+   * @param pEtat Etat de l'échiquier.
+   * @param pDemande Numéro de la demande (> 0).
+   * @return Mouvement trouvé, ou null si la demande a été interrompue par {@link #abort()}.
    */
-  public final synchronized Move getMoveFor(final MoveGenerator pEtat)
+  private synchronized Move getMoveFor(final MoveGenerator pEtat, final long pDemande)
   {
     assert pEtat != null;
+    assert pDemande > 0;
 
     final long debut = System.currentTimeMillis();
+    final int noeuds = _halfmoveCount;
 
     Move res = null;
 
     setScore(0);
+    _request = pDemande;
+    _statistics = new SearchStatistics();
+    _statistics.addCacheCounters(getHeuristicCache(false), getHeuristicCache(true), -1);
 
-    if (_openingsEnabled && (pEtat.getFullmoveNumber() < 20))
+    if (!isAborted() && _openingsEnabled && (pEtat.getFullmoveNumber() <= _openingsDepth))
     {
-      res = getFromOpenings(pEtat);
+      final OpeningsSource livre = _openingsBook;
+      if (livre == null)
+      {
+        res = getFromOpenings(pEtat);
+      }
+      else
+      {
+        res = livre.getMove(pEtat, RANDOMIZER);
+      }
     }
+    final boolean ouverture = res != null;
 
-    if (res == null)
+    if ((res == null) && !isAborted())
     {
       // Calcul du meilleur coup...
       final Move [] coups = pEtat.getValidMoves(pEtat.isWhiteActive());
       assert coups.length > 0;
 
-      res = searchMoveFor(pEtat, coups);
+      final long souple = _softTimeLimit;
+      final long stricte = _hardTimeLimit;
+      _bestMove = null;
+      _moveScorer.clear();
+      if (isUsingTranspositionTable())
+      {
+        getTranspositionTable().newSearch();
+      }
+      final int aides = startHelpers(pEtat, coups);
+      try
+      {
+        if ((souple <= 0) && (stricte <= 0) && (aides == 0))
+        {
+          _iterationDepth = getSearchDepthLimit();
+          res = searchMoveFor(new SearchBoard(pEtat), coups);
+          _statistics.setDepth(_iterationDepth);
+        }
+        else
+        {
+          res = searchIteratively(pEtat, coups, debut, souple, stricte);
+        }
+      }
+      catch (final SearchAbortedException e)
+      {
+        // Interruption demandée : pas de mouvement...
+        res = null;
+      }
+      finally
+      {
+        stopHelpers(aides);
+      }
+      _bestMove = null;
     }
 
     final long duree = System.currentTimeMillis() - debut;
     addElapsedTime(duree);
+    publishStatistics(pEtat, res, _halfmoveCount - noeuds, duree, ouverture);
 
-    assert res != null;
+    assert (res != null) || isAborted();
     return res;
   }
 
+  /**
+   * Renvoi la liste de mouvements réservée à un niveau de l'arbre de recherche.
+   * <p>
+   * Les listes sont créées à la demande puis réutilisées d'une recherche à l'autre.
+   * </p>
+   * 
+   * @param pNiveau Niveau dans l'arbre de recherche (>= 0).
+   * @return Liste de mouvements du niveau.
+   */
+  protected final MoveList getMoveList(final int pNiveau)
+  {
+    assert pNiveau >= 0;
+
+    if (pNiveau >= _moveLists.length)
+    {
+      final MoveList [] extension = new MoveList [ pNiveau + 8 ];
+      System.arraycopy(_moveLists, 0, extension, 0, _moveLists.length);
+      for (int i = _moveLists.length; i < extension.length; i++)
+      {
+        extension[i] = new MoveList();
+      }
+      _moveLists = extension;
+    }
+
+    return _moveLists[pNiveau];
+  }
+
+  /**
+   * Renvoi la source de mouvements par étapes réservée à un niveau de l'arbre de recherche.
+   * <p>
+   * Les instances sont créées à la demande puis réutilisées d'une recherche à l'autre.
+   * </p>
+   * 
+   * @param pNiveau Niveau dans l'arbre de recherche (>= 0).
+   * @return Source de mouvements du niveau.
+   */
+  final MovePicker getMovePicker(final int pNiveau)
+  {
+    assert pNiveau >= 0;
+
+    if (pNiveau >= _movePickers.length)
+    {
+      final MovePicker [] extension = new MovePicker [ pNiveau + 8 ];
+      System.arraycopy(_movePickers, 0, extension, 0, _movePickers.length);
+      for (int i = _movePickers.length; i < extension.length; i++)
+      {
+        extension[i] = new MovePicker();
+      }
+      _movePickers = extension;
+    }
+
+    return _movePickers[pNiveau];
+  }
+
+  /**
+   * Renvoi le contexte d'ordenancement des mouvements ("killer moves", historique, réfutations) de
+   * la recherche en cours, effacé au début de chaque recherche.
+   * 
+   * @return Contexte d'ordenancement des mouvements.
+   */
+  final MoveScorer getMoveScorer()
+  {
+    return _moveScorer;
+  }
+
   /**
    * Renvoi la fonction de tri des mouvements.
    * 
@@ -335,6 +698,47 @@ abstract class AbstractEngine implements Engine
     return _moveSorter;
   }
 
+  /**
+   * Renvoi la bibliothèque d'ouvertures partagée, en attendant si nécessaire la fin de son
+   * chargement.
+   * 
+   * @return Bibliothèque d'ouvertures, ou null si elle n'a pu être chargée.
+   */
+  static OpeningBook getOpenings()
+  {
+    try
+    {
+      return S_OPENINGS.get();
+    }
+    catch (final InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+    }
+    catch (final ExecutionException e)
+    {
+      // Pas grave, les coups seront calculés...
+    }
+
+    return null;
+  }
+
+  /**
+   * Renvoi le taux de succès du cache de la structure de pions de la fonction d'évaluation du
+   * moteur.
+   * 
+   * @return Proportion des structures de pions trouvées dans le cache ([0, 1], 0 sans cache).
+   */
+  public final double getPawnHashHitRate()
+  {
+    final EvaluationCache pions = getHeuristicCache(true);
+    if (pions != null)
+    {
+      return pions.getHitRate();
+    }
+
+    return 0.0;
+  }
+
   /**
    * Renvoi le score obtenu par le dernier mouvement calculé.
    * 
@@ -358,23 +762,482 @@ abstract class AbstractEngine implements Engine
   }
 
   /**
-   * Indique si l'utilisation de la bibliothèque d'ouvertures est activée.
+   * Renvoi la table de transposition partagée correspondant à la taille demandée.
    * 
-   * @return "true" si les ouvertures sont utilisées, "false" sinon.
+   * @return Table de transposition.
    */
-  public final boolean isOpeningsEnabled()
+  final TranspositionTable getTranspositionTable()
   {
-    return _openingsEnabled;
+    if (_transpositions == null)
+    {
+      _transpositions = TranspositionTable.getShared(_hashSize);
+    }
+
+    assert _transpositions != null;
+    return _transpositions;
   }
 
   /**
-   * Corps de la recherche du "meilleur" demi-coup pour un état de l'échiquier.
+   * Indique si une itération de la recherche par approfondissements successifs en cours a déjà été
+   * achevée : {@link #getScore()} renvoie alors son score.
    * 
-   * @param pEtat Etat de l'échiquier.
-   * @param pCoups Liste des mouvement initiaux valides.
-   * @return Mouvement trouvé.
+   * @return Vrai si une itération précédente est disponible.
    */
-  protected abstract Move searchMoveFor(final MoveGenerator pEtat, final Move [] pCoups);
+  protected final boolean hasPreviousIteration()
+  {
+    return _bestMove != null;
+  }
+
+  /**
+   * Indique si la demande de recherche en cours a été interrompue par {@link #abort()}.
+   * 
+   * @return "true" si la recherche en cours doit être interrompue.
+   */
+  private boolean isAborted()
+  {
+    return _abortedRequest.get() >= _request;
+  }
+
+  /**
+   * Indique si la recherche utilise des fenêtres d'aspiration autour du score de l'itération
+   * précédente (moteurs concernés seulement).
+   * 
+   * @return "true" si les fenêtres d'aspiration sont utilisées, "false" sinon.
+   */
+  public final boolean isAspirationWindowsEnabled()
+  {
+    return _aspirationWindowsEnabled;
+  }
+
+  /**
+   * Indique si la recherche réduit la profondeur des mouvements examinés tardivement (moteurs
+   * concernés seulement).
+   * 
+   * @return "true" si les réductions sont utilisées, "false" sinon.
+   */
+  public final boolean isLateMoveReductionsEnabled()
+  {
+    return _lateMoveReductionsEnabled;
+  }
+
+  /**
+   * Indique si la recherche tente des passages de trait pour élaguer l'arbre (moteurs concernés
+   * seulement).
+   * 
+   * @return "true" si les passages de trait sont utilisés, "false" sinon.
+   */
+  public final boolean isNullMoveEnabled()
+  {
+    return _nullMoveEnabled;
+  }
+
+  /**
+   * Renvoi le nombre de coups pendant lesquels la bibliothèque d'ouvertures est consultée.
+   * 
+   * @return Nombre de coups (>= 0).
+   */
+  public final int getOpeningsDepth()
+  {
+    assert _openingsDepth >= 0;
+    return _openingsDepth;
+  }
+
+  /**
+   * Indique si l'utilisation de la bibliothèque d'ouvertures est activée.
+   * 
+   * @return "true" si les ouvertures sont utilisées, "false" sinon.
+   */
+  public final boolean isOpeningsEnabled()
+  {
+    return _openingsEnabled;
+  }
+
+  /**
+   * Indique si le moteur utilise la table de transposition partagée.
+   * <p>
+   * Si c'est le cas, la table est préparée à chaque nouvelle recherche, et des threads de
+   * recherche supplémentaires peuvent y participer (voir {@link #setThreads(int)}) : ils n'ont pas
+   * d'autre moyen de faire profiter la recherche principale de leurs évaluations.
+   * </p>
+   * 
+   * @return Vrai si le moteur utilise la table de transposition.
+   */
+  protected boolean isUsingTranspositionTable()
+  {
+    return false;
+  }
+
+  /**
+   * Déplace un mouvement en tête d'une liste, en conservant l'ordre des autres.
+   * 
+   * @param pCoups Liste de mouvements.
+   * @param pId Identifiant du mouvement (sans effet si 0 ou absent de la liste).
+   */
+  private static void moveToFront(final Move [] pCoups, final int pId)
+  {
+    assert pCoups != null;
+
+    for (int i = 1; (pId != 0) && (i < pCoups.length); i++)
+    {
+      if (pCoups[i].toId() == pId)
+      {
+        final Move mvt = pCoups[i];
+        System.arraycopy(pCoups, 0, pCoups, 1, i);
+        pCoups[0] = mvt;
+        break;
+      }
+    }
+  }
+
+  /**
+   * Renvoi une nouvelle instance du moteur, destinée à participer aux recherches en tant que
+   * thread supplémentaire (voir {@link #setThreads(int)}).
+   * <p>
+   * Les paramètres de recherche y sont ensuite recopiés par le moteur principal.
+   * </p>
+   * 
+   * @return Nouvelle instance du même type de moteur.
+   */
+  protected abstract AbstractEngine newHelper();
+
+  /**
+   * Consulte la table de transposition, en comptabilisant la consultation dans les statistiques
+   * de la recherche en cours.
+   * 
+   * @param pEtat Etat recherché.
+   * @param pProfondeur Profondeur du résulat.
+   * @param pAlpha Valeur alpha.
+   * @param pBeta Valeur beta.
+   * @return Valeur correspondante, ou null si inconnue ou insuffisante.
+   */
+  protected final Integer probeTranspositions(final SearchBoard pEtat, final int pProfondeur,
+      final int pAlpha, final int pBeta)
+  {
+    assert pEtat != null;
+
+    final long donnee = getTranspositionTable().getEntry(pEtat);
+    final Integer res = TranspositionTable.valueOf(donnee, pProfondeur, pAlpha, pBeta);
+    _statistics.countTranspositionProbe(donnee != 0L, res != null);
+
+    return res;
+  }
+
+  /**
+   * Complète les statistiques de la recherche achevée, puis les publie.
+   * <p>
+   * La variante principale part du mouvement trouvé et suit les meilleurs mouvements mémorisés
+   * dans la table de transposition (pour les moteurs en utilisant une), sans dépasser la
+   * profondeur atteinte. Chaque mouvement est vérifié avant d'être joué : la table est partagée,
+   * et ses entrées peuvent avoir été remplacées depuis.
+   * </p>
+   * 
+   * @param pEtat Etat de l'échiquier au début de la recherche.
+   * @param pMouvement Mouvement trouvé (ou null si la recherche a été interrompue).
+   * @param pNoeuds Nombre de demi-coups examinés.
+   * @param pDuree Durée de la recherche (en ms).
+   * @param pOuverture A "true" si le mouvement est tiré de la bibliothèque d'ouvertures.
+   */
+  private void publishStatistics(final MoveGenerator pEtat, final Move pMouvement,
+      final long pNoeuds, final long pDuree, final boolean pOuverture)
+  {
+    assert pEtat != null;
+
+    final SearchStatistics stats = _statistics;
+    final List<Move> variante = new ArrayList<Move>();
+    final StringBuilder san = new StringBuilder();
+    if (pMouvement != null)
+    {
+      final SearchBoard etat = new SearchBoard(pEtat);
+      final int limite = Math.max(1, stats.getDepth());
+      Move mvt = pMouvement;
+      while (mvt != null)
+      {
+        if (san.length() > 0)
+        {
+          san.append(' ');
+        }
+        san.append(SANUtils.toSAN(etat, mvt));
+        variante.add(mvt);
+        etat.makeMove(mvt);
+        mvt = null;
+        if ((variante.size() < limite) && !pOuverture && isUsingTranspositionTable())
+        {
+          final int id = getTranspositionTable().getMove(etat);
+          if ((id != 0) && etat.isValidMove(id))
+          {
+            mvt = Move.valueOf(id);
+          }
+        }
+      }
+    }
+    stats.addCacheCounters(getHeuristicCache(false), getHeuristicCache(true), 1);
+    stats.finish(Math.max(0L, pNoeuds), pDuree, getScore(),
+        variante.toArray(new Move [ variante.size() ]), san.toString(), pOuverture);
+    _lastStatistics = stats;
+  }
+
+  /**
+   * Corps de la recherche d'un moteur secondaire, exécutée par un thread de recherche
+   * supplémentaire.
+   * <p>
+   * Procède par approfondissements successifs jusqu'à la profondeur limite, ou jusqu'à
+   * l'interruption demandée par le moteur principal à la fin de sa propre recherche. Les
+   * mouvements trouvés sont sans importance : seules comptent les évaluations laissées dans la
+   * table de transposition partagée.
+   * </p>
+   * 
+   * @param pEtat Etat de l'échiquier.
+   * @param pCoups Liste des mouvement initiaux valides (propre à ce moteur).
+   * @param pDecalage Décalage de la profondeur initiale, pour diversifier les recherches.
+   */
+  private void searchAsHelper(final MoveGenerator pEtat, final Move [] pCoups,
+      final int pDecalage)
+  {
+    assert pEtat != null;
+    assert pCoups != null;
+    assert pDecalage >= 0;
+
+    try
+    {
+      for (int prof = 1 + pDecalage; prof <= getSearchDepthLimit(); prof++)
+      {
+        _iterationDepth = prof;
+        _bestMove = searchMoveFor(new SearchBoard(pEtat), pCoups);
+      }
+    }
+    catch (final SearchAbortedException e)
+    {
+      // Fin de la recherche principale...
+    }
+    finally
+    {
+      _bestMove = null;
+    }
+  }
+
+  /**
+   * Recherche de quiescence : prolonge la recherche au-delà de la profondeur nominale en
+   * n'examinant que les prises, jusqu'à obtenir une position calme, pour ne pas évaluer une
+   * position au beau milieu d'un échange ("effet d'horizon").
+   * <p>
+   * Le camp ayant le trait peut refuser toute prise et s'en tenir à l'évaluation statique
+   * ("stand pat"), qui sert donc de borne inférieure. Sont ignorées les prises qui ne peuvent
+   * ramener l'évaluation au niveau d'alpha ("delta pruning"), et celles dont la série d'échanges
+   * est perdante (voir {@link SearchBoard#isExchangeAtLeast(int, int)}). En échec, toutes les
+   * parades sont examinées, sans "stand pat".
+   * </p>
+   * 
+   * @param pEtat Etat de l'échiquier.
+   * @param pAlpha Seuil alpha.
+   * @param pBeta Seuil beta.
+   * @return Meilleure évaluation obtenue à ce niveau.
+   */
+  protected final int quiesce(final SearchBoard pEtat, final int pAlpha, final int pBeta)
+  {
+    assert pEtat != null;
+    assert pAlpha <= pBeta;
+
+    _statistics.countQuiescenceNode();
+    final boolean trait = pEtat.isWhiteActive();
+    final int statique = getHeuristic().evaluate(pEtat, trait);
+    final boolean echec = pEtat.isInCheck(trait);
+    if (!echec && (statique > pBeta))
+    {
+      return statique;
+    }
+
+    final MovePicker coups = getMovePicker(pEtat.getPly());
+    if (echec)
+    {
+      coups.init(pEtat, 0, _moveScorer);
+    }
+    else
+    {
+      coups.initCaptures(pEtat);
+    }
+    int res;
+    int alpha = pAlpha;
+    if (echec)
+    {
+      res = MATE_VALUE - 1;
+    }
+    else
+    {
+      res = statique;
+      if (statique > alpha)
+      {
+        alpha = statique;
+      }
+    }
+    boolean aucun = true;
+    for (int mvt = coups.next(); mvt != 0; mvt = coups.next())
+    {
+      aucun = false;
+      final Piece prise = Move.capturedOf(mvt);
+      if (!echec
+          && ((statique + prise.getType().getValue() + DELTA_MARGIN <= alpha)
+          || !pEtat.isExchangeAtLeast(mvt, 0)))
+      {
+        continue;
+      }
+      addHalfmove(1);
+      pEtat.makeMove(mvt);
+      final int note = -quiesce(pEtat, -pBeta, -alpha);
+      pEtat.unmakeMove();
+      if (note > res)
+      {
+        res = note;
+        if (res > alpha)
+        {
+          alpha = res;
+          if (alpha > pBeta)
+          {
+            break;
+          }
+        }
+      }
+    }
+    if (echec && aucun)
+    {
+      // Mat : l'évaluation statique le détecte.
+      res = statique;
+    }
+
+    return res;
+  }
+
+  /**
+   * Recherche le "meilleur" demi-coup par approfondissements successifs, dans une durée limitée.
+   * <p>
+   * Une nouvelle itération n'est pas entamée au-delà de la durée "souple", et l'itération en cours
+   * est interrompue au-delà de la durée "stricte" : le mouvement renvoyé est alors celui de la
+   * dernière itération achevée. La première itération (profondeur 1) n'est jamais interrompue,
+   * pour toujours disposer d'un mouvement.
+   * </p>
+   * 
+   * @param pEtat Etat de l'échiquier.
+   * @param pCoups Liste des mouvement initiaux valides.
+   * @param pDebut Date de début de la recherche (en ms).
+   * @param pSouple Durée au-delà de laquelle ne plus entamer d'itération (en ms, 0 si aucune).
+   * @param pStricte Durée au-delà de laquelle interrompre l'itération (en ms, 0 si aucune).
+   * @return Mouvement trouvé.
+   * @throws SearchAbortedException Si une interruption a été demandée via {@link #abort()}.
+   */
+  private Move searchIteratively(final MoveGenerator pEtat, final Move [] pCoups,
+      final long pDebut, final long pSouple, final long pStricte)
+  {
+    assert pEtat != null;
+    assert pCoups != null;
+
+    final long finSouple;
+    if (pSouple > 0)
+    {
+      finSouple = pDebut + pSouple;
+    }
+    else
+    {
+      finSouple = Long.MAX_VALUE;
+    }
+    final long finStricte;
+    if (pStricte > 0)
+    {
+      finStricte = pDebut + pStricte;
+    }
+    else
+    {
+      finStricte = 0L;
+    }
+
+    final int limite = getSearchDepthLimit();
+    Move res = null;
+    try
+    {
+      for (int prof = 1; prof <= limite; prof++)
+      {
+        _iterationDepth = prof;
+        res = searchMoveFor(new SearchBoard(pEtat), pCoups);
+        _bestMove = res;
+        _statistics.setDepth(prof);
+        _deadline = finStricte;
+        if (System.currentTimeMillis() >= finSouple)
+        {
+          break;
+        }
+      }
+    }
+    catch (final SearchAbortedException e)
+    {
+      if (isAborted())
+      {
+        throw e;
+      }
+      // Durée dépassée : on conserve le résultat de la dernière itération achevée...
+      assert res != null;
+    }
+    finally
+    {
+      _deadline = 0L;
+    }
+
+    assert res != null;
+    return res;
+  }
+
+  /**
+   * Corps de la recherche du "meilleur" demi-coup pour un état de l'échiquier.
+   * <p>
+   * L'état reçu est une copie modifiable propre à la recherche : les mouvements y sont joués puis
+   * annulés sur place, sans créer de nouvel état par noeud.
+   * </p>
+   * 
+   * @param pEtat Etat de l'échiquier.
+   * @param pCoups Liste des mouvement initiaux valides.
+   * @return Mouvement trouvé.
+   */
+  protected abstract Move searchMoveFor(final SearchBoard pEtat, final Move [] pCoups);
+
+  /**
+   * Active / désactive l'utilisation de fenêtres d'aspiration (moteurs concernés seulement).
+   * 
+   * @param pActif A "true" pour activer les fenêtres d'aspiration, à "false" sinon.
+   */
+  public final void setAspirationWindowsEnabled(final boolean pActif)
+  {
+    _aspirationWindowsEnabled = pActif;
+  }
+
+  /**
+   * Modifie la taille de la table de transposition utilisée par le moteur (s'il en utilise une).
+   * 
+   * @param pTaille Taille de la table, en Mo (>= 1).
+   */
+  public final void setHashSize(final int pTaille)
+  {
+    assert pTaille >= 1;
+
+    if (pTaille != _hashSize)
+    {
+      _hashSize = pTaille;
+      _transpositions = null;
+    }
+  }
+
+  /**
+   * Modifie le nombre maximum de threads de recherche supplémentaires, tous moteurs confondus.
+   * 
+   * @param pNombre Nombre maximum de threads (une valeur négative rétablit le réglage par défaut).
+   */
+  static void setHelperThreadsLimit(final int pNombre)
+  {
+    if (pNombre < 0)
+    {
+      S_helperThreadsLimit = defaultHelperThreadsLimit();
+    }
+    else
+    {
+      S_helperThreadsLimit = pNombre;
+    }
+  }
 
   /**
    * Modifie la fonction d'évaluation utilisée par le moteur.
@@ -388,6 +1251,16 @@ abstract class AbstractEngine implements Engine
     _heuristic = pHeuristique;
   }
 
+  /**
+   * Active / désactive la réduction des mouvements tardifs (moteurs concernés seulement).
+   * 
+   * @param pActif A "true" pour activer les réductions, à "false" sinon.
+   */
+  public final void setLateMoveReductionsEnabled(final boolean pActif)
+  {
+    _lateMoveReductionsEnabled = pActif;
+  }
+
   /**
    * Modifie la fonction d'ordenancement des mouvements.
    * 
@@ -400,6 +1273,56 @@ abstract class AbstractEngine implements Engine
     _moveSorter = pComparateur;
   }
 
+  /**
+   * Active / désactive l'élagage par passage de trait (moteurs concernés seulement).
+   * 
+   * @param pActif A "true" pour activer les passages de trait, à "false" sinon.
+   */
+  public final void setNullMoveEnabled(final boolean pActif)
+  {
+    _nullMoveEnabled = pActif;
+  }
+
+  /**
+   * Sélectionne la bibliothèque d'ouvertures à consulter.
+   * <p>
+   * Les fichiers ".bin" sont lus au format "Polyglot", les autres au format compact produit par
+   * {@link OpeningBookBuilder}. La bibliothèque est partagée avec tous les moteurs utilisant le
+   * même fichier. En cas d'erreur, la bibliothèque précédente reste utilisée.
+   * </p>
+   * 
+   * @param pFichier Fichier de la bibliothèque, ou null pour revenir à la bibliothèque livrée avec
+   *          jChecs.
+   * @throws IOException Si le fichier ne peut être lu.
+   */
+  public final void setOpeningsBook(final File pFichier) throws IOException
+  {
+    if (pFichier == null)
+    {
+      _openingsBook = null;
+    }
+    else if (pFichier.getName().toLowerCase().endsWith(".bin"))
+    {
+      _openingsBook = PolyglotBook.open(pFichier);
+    }
+    else
+    {
+      _openingsBook = OpeningBook.open(pFichier);
+    }
+  }
+
+  /**
+   * Modifie le nombre de coups pendant lesquels la bibliothèque d'ouvertures est consultée.
+   * 
+   * @param pCoups Nombre de coups (>= 0).
+   */
+  public final void setOpeningsDepth(final int pCoups)
+  {
+    assert pCoups >= 0;
+
+    _openingsDepth = pCoups;
+  }
+
   /**
    * Active / désactive l'utilisation de la bibliothèque d'ouvertures.
    * 
@@ -432,4 +1355,169 @@ abstract class AbstractEngine implements Engine
 
     _searchDepthLimit = pLimite;
   }
+
+  /**
+   * Modifie le nombre de threads participant aux recherches suivantes.
+   * 
+   * @param pNombre Nombre de threads (>= 1).
+   */
+  public final void setThreads(final int pNombre)
+  {
+    assert pNombre >= 1;
+
+    _threads = pNombre;
+  }
+
+  /**
+   * Modifie les durées limites des recherches suivantes.
+   * <p>
+   * Si au moins une durée est indiquée, la recherche procède par approfondissements successifs
+   * jusqu'à {@link #getSearchDepthLimit()} : aucune nouvelle itération n'est entamée au-delà de la
+   * durée "souple", et l'itération en cours est interrompue au-delà de la durée "stricte". Sans
+   * durée, la recherche est menée directement à la profondeur limite.
+   * </p>
+   * <p>
+   * Peut être appelée depuis un autre thread que celui de la recherche, et prend effet à la
+   * recherche suivante.
+   * </p>
+   * 
+   * @param pSouple Durée au-delà de laquelle ne plus entamer d'itération (en ms, 0 si aucune).
+   * @param pStricte Durée maximale d'une recherche (en ms, 0 si aucune).
+   */
+  public final void setTimeLimits(final long pSouple, final long pStricte)
+  {
+    assert pSouple >= 0;
+    assert pStricte >= 0;
+
+    _softTimeLimit = pSouple;
+    _hardTimeLimit = pStricte;
+  }
+
+  /**
+   * Trie les mouvements initiaux d'une recherche suivant la fonction d'ordenancement du moteur.
+   * <p>
+   * Un mouvement privilégié (typiquement celui d'une table de transposition) est placé en tête,
+   * devancé toutefois par le meilleur mouvement de l'itération précédente lors d'une recherche par
+   * approfondissements successifs.
+   * </p>
+   * 
+   * @param pCoups Mouvements initiaux, triés sur place.
+   * @param pPrefere Identifiant du mouvement privilégié (0 si aucun).
+   */
+  protected final void sortRootMoves(final Move [] pCoups, final int pPrefere)
+  {
+    assert pCoups != null;
+
+    Arrays.sort(pCoups, _moveSorter);
+    moveToFront(pCoups, pPrefere);
+    if (_bestMove != null)
+    {
+      moveToFront(pCoups, _bestMove.toId());
+    }
+  }
+
+  /**
+   * Démarre les threads de recherche supplémentaires d'une nouvelle recherche.
+   * <p>
+   * Chaque thread fait travailler un moteur secondaire, de même type et de mêmes réglages, sur sa
+   * propre copie de l'échiquier. Un moteur secondaire sur deux commence sa recherche un niveau
+   * plus profond, pour que les threads n'explorent pas tous les mêmes noeuds au même moment.
+   * </p>
+   * 
+   * @param pEtat Etat de l'échiquier.
+   * @param pCoups Liste des mouvement initiaux valides.
+   * @return Nombre de threads démarrés (à arrêter par {@link #stopHelpers(int)}).
+   */
+  private int startHelpers(final MoveGenerator pEtat, final Move [] pCoups)
+  {
+    assert pEtat != null;
+    assert pCoups != null;
+
+    if ((_threads <= 1) || !isUsingTranspositionTable())
+    {
+      return 0;
+    }
+
+    final int demandes = acquireHelperThreads(_threads - 1);
+    if (demandes > _helpers.length)
+    {
+      final AbstractEngine [] extension = new AbstractEngine [ demandes ];
+      System.arraycopy(_helpers, 0, extension, 0, _helpers.length);
+      _helpers = extension;
+      _helperThreads = new Thread [ demandes ];
+    }
+    int res = 0;
+    while (res < demandes)
+    {
+      if (_helpers[res] == null)
+      {
+        _helpers[res] = newHelper();
+      }
+      final AbstractEngine aide = _helpers[res];
+      aide.setHeuristic(getHeuristic());
+      aide.setMoveSorter(getMoveSorter());
+      aide.setHashSize(_hashSize);
+      aide.setSearchDepthLimit(getSearchDepthLimit());
+      aide.setAspirationWindowsEnabled(_aspirationWindowsEnabled);
+      aide.setLateMoveReductionsEnabled(_lateMoveReductionsEnabled);
+      aide.setNullMoveEnabled(_nullMoveEnabled);
+      aide._request = aide._requests.incrementAndGet();
+      aide._halfmoveCount = 0;
+      aide._statistics = new SearchStatistics();
+      final Move [] coups = pCoups.clone();
+      final int decalage = res & 1;
+      final Thread thread = new Thread(new Runnable()
+      {
+        public void run()
+        {
+          aide.searchAsHelper(pEtat, coups, decalage);
+        }
+      }, "jChecs helper");
+      thread.setDaemon(true);
+      thread.start();
+      _helperThreads[res++] = thread;
+    }
+
+    return res;
+  }
+
+  /**
+   * Arrête les threads de recherche supplémentaires à la fin de la recherche principale, attend
+   * leur terminaison puis les rend disponibles pour d'autres recherches.
+   * 
+   * @param pNombre Nombre de threads démarrés par {@link #startHelpers(MoveGenerator, Move[])}.
+   */
+  private void stopHelpers(final int pNombre)
+  {
+    assert pNombre >= 0;
+
+    for (int i = pNombre; --i >= 0; /* Pré-décrémenté */)
+    {
+      _helpers[i].abort();
+    }
+    boolean interrompu = false;
+    for (int i = pNombre; --i >= 0; /* Pré-décrémenté */)
+    {
+      while (_helperThreads[i].isAlive())
+      {
+        try
+        {
+          _helperThreads[i].join();
+        }
+        catch (final InterruptedException e)
+        {
+          // L'arrêt est imminent : on attend quand même, et on restituera l'interruption...
+          interrompu = true;
+        }
+      }
+      _helperThreads[i] = null;
+      _halfmoveCount += _helpers[i]._halfmoveCount;
+      _statistics.add(_helpers[i]._statistics);
+    }
+    S_helperThreads.addAndGet(-pNombre);
+    if (interrompu)
+    {
+      Thread.currentThread().interrupt();
+    }
+  }
 }
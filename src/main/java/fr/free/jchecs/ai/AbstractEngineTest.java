@@ -0,0 +1,218 @@
+/*
+ $Id$
+
+ Copyright (C) 2006-2007 by David Cotton
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU General Public License as published by the Free Software
+ Foundation; either version 2 of the License, or (at your option) any later
+ version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along with
+ this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package fr.free.jchecs.ai;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import fr.free.jchecs.core.BoardFactory;
+import fr.free.jchecs.core.Move;
+import fr.free.jchecs.core.MoveGenerator;
+
+/**
+ * Tests unitaires du contrôle des recherches des moteurs (interruption, durées, threads).
+ * 
+ * @author David Cotton
+ */
+public final class AbstractEngineTest
+{
+  /** Délai maximal accordé à une recherche interrompue pour rendre la main (en ms). */
+  private static final long ABORT_DELAY = 2000;
+
+  /** Marge tolérée au-delà de la durée maximale d'une recherche (en ms). */
+  private static final long TIME_MARGIN = 500;
+
+  /**
+   * Pour que JUnit puisse instancier les tests.
+   */
+  public AbstractEngineTest()
+  {
+    // Rien de spécifique...
+  }
+
+  /**
+   * Renvoi un moteur NegaScout sans bibliothèque d'ouvertures ni limite de durée, recherchant à
+   * sa profondeur maximale.
+   * 
+   * @return Moteur configuré.
+   */
+  private static Engine newLongSearchEngine()
+  {
+    final Engine res = EngineFactory.newInstance("jChecs.NegaScout");
+    res.setOpeningsEnabled(false);
+    res.setSearchDepthLimit(res.getMaximalSearchDepth());
+    res.setTimeLimits(0, 0);
+    return res;
+  }
+
+  /**
+   * Lance une recherche depuis la position initiale dans un nouveau thread.
+   * <p>
+   * La table de transposition est vidée au préalable : la recherche dure alors plusieurs centaines
+   * de ms, sans pouvoir profiter des évaluations laissées par les recherches précédentes.
+   * </p>
+   * 
+   * @param pMoteur Moteur effectuant la recherche.
+   * @param pResultat Reçoit le mouvement trouvé (ou null).
+   * @return Thread de la recherche, démarré.
+   */
+  private static Thread startSearch(final Engine pMoteur, final AtomicReference<Move> pResultat)
+  {
+    final MoveGenerator initial =
+        BoardFactory.valueOf(BoardFactory.Type.FASTEST, BoardFactory.State.STARTING);
+    final Thread res = new Thread(new Runnable()
+    {
+      public void run()
+      {
+        pResultat.set(pMoteur.getMoveFor(initial));
+      }
+    }, "jChecs test search");
+    res.setDaemon(true);
+    ((AbstractEngine) pMoteur).getTranspositionTable().clear();
+    pResultat.set(initial.getValidMoves(true)[0]);
+    res.start();
+    return res;
+  }
+
+  /**
+   * Teste l'interruption d'une recherche en cours, ou en attente de son tour.
+   * 
+   * @throws InterruptedException En cas d'erreur dans les tests.
+   */
+  @Test
+  public void testAbort() throws InterruptedException
+  {
+    final Engine moteur = newLongSearchEngine();
+    final AtomicReference<Move> resultat = new AtomicReference<Move>();
+
+    // Recherche en cours...
+    Thread recherche = startSearch(moteur, resultat);
+    Thread.sleep(20);
+    moteur.abort();
+    recherche.join(ABORT_DELAY);
+    assertFalse(recherche.isAlive());
+    assertNull(resultat.get());
+
+    // Recherche demandée, mais bloquée en attente du moniteur au moment de l'interruption...
+    synchronized (moteur)
+    {
+      recherche = startSearch(moteur, resultat);
+      while (recherche.getState() != Thread.State.BLOCKED)
+      {
+        Thread.sleep(1);
+      }
+      moteur.abort();
+    }
+    recherche.join(ABORT_DELAY);
+    assertFalse(recherche.isAlive());
+    assertNull(resultat.get());
+
+    // Une interruption sans recherche en cours est sans effet sur les recherches suivantes...
+    moteur.abort();
+    moteur.setSearchDepthLimit(moteur.getMinimalSearchDepth());
+    final MoveGenerator initial =
+        BoardFactory.valueOf(BoardFactory.Type.FASTEST, BoardFactory.State.STARTING);
+    final Move mvt = moteur.getMoveFor(initial);
+    assertNotNull(mvt);
+    assertTrue(initial.isValidMove(mvt.toId()));
+  }
+
+  /**
+   * Teste la recherche avec des threads supplémentaires, et leur libération à la fin de chaque
+   * recherche, même interrompue.
+   * 
+   * @throws InterruptedException En cas d'erreur dans les tests.
+   */
+  @Test
+  public void testThreads() throws InterruptedException
+  {
+    AbstractEngine.setHelperThreadsLimit(3);
+    try
+    {
+      final MoveGenerator initial =
+          BoardFactory.valueOf(BoardFactory.Type.FASTEST, BoardFactory.State.STARTING);
+      final Engine moteur = newLongSearchEngine();
+      moteur.setThreads(4);
+
+      // Recherche à profondeur fixe...
+      moteur.setSearchDepthLimit(moteur.getMinimalSearchDepth() + 1);
+      Move mvt = moteur.getMoveFor(initial);
+      assertNotNull(mvt);
+      assertTrue(initial.isValidMove(mvt.toId()));
+      assertEquals(0, AbstractEngine.getHelperThreadsCount());
+
+      // Recherche limitée en durée...
+      moteur.setSearchDepthLimit(moteur.getMaximalSearchDepth());
+      moteur.setTimeLimits(100, 200);
+      mvt = moteur.getMoveFor(initial);
+      assertNotNull(mvt);
+      assertTrue(initial.isValidMove(mvt.toId()));
+      assertEquals(0, AbstractEngine.getHelperThreadsCount());
+
+      // Recherche interrompue...
+      moteur.setTimeLimits(0, 0);
+      final AtomicReference<Move> resultat = new AtomicReference<Move>();
+      final Thread recherche = startSearch(moteur, resultat);
+      final long fin = System.currentTimeMillis() + ABORT_DELAY;
+      while ((AbstractEngine.getHelperThreadsCount() == 0) && (System.currentTimeMillis() < fin))
+      {
+        Thread.sleep(1);
+      }
+      assertEquals(3, AbstractEngine.getHelperThreadsCount());
+      moteur.abort();
+      recherche.join(ABORT_DELAY);
+      assertFalse(recherche.isAlive());
+      assertNull(resultat.get());
+      assertEquals(0, AbstractEngine.getHelperThreadsCount());
+    }
+    finally
+    {
+      AbstractEngine.setHelperThreadsLimit(-1);
+    }
+  }
+
+  /**
+   * Teste le respect de la durée maximale d'une recherche par approfondissements successifs.
+   */
+  @Test
+  public void testTimeLimits()
+  {
+    final Engine moteur = newLongSearchEngine();
+    final long stricte = 300;
+    moteur.setTimeLimits(stricte / 2, stricte);
+
+    final MoveGenerator initial =
+        BoardFactory.valueOf(BoardFactory.Type.FASTEST, BoardFactory.State.STARTING);
+    final long debut = System.currentTimeMillis();
+    final Move mvt = moteur.getMoveFor(initial);
+    final long duree = System.currentTimeMillis() - debut;
+    assertNotNull(mvt);
+    assertTrue(initial.isValidMove(mvt.toId()));
+    assertTrue("Search took " + duree + "ms", duree <= stricte + TIME_MARGIN);
+    final SearchStatistics stats = moteur.getLastSearchStatistics();
+    assertTrue(stats.getDepth() >= 1);
+  }
+}
@@ -0,0 +1,142 @@
+/*
+ $Id$
+
+ Copyright (C) 2006-2007 by David Cotton
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU General Public License as published by the Free Software
+ Foundation; either version 2 of the License, or (at your option) any later
+ version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along with
+ this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package fr.free.jchecs.ai;
+
+import fr.free.jchecs.core.MoveGenerator;
+import fr.free.jchecs.core.SearchBoard;
+
+/**
+ * Classe de base des fonctions d'évaluation dont les résultats sont mémorisés dans un cache.
+ * <p>
+ * Les mêmes positions sont évaluées de nombreuses fois au cours d'une recherche (transpositions,
+ * recherches successives) : le cache, partagé par tous les moteurs et threads utilisant l'instance,
+ * est indexé par la clé "Zobrist" de la position, combinée aux éléments de l'état qu'elle ne couvre
+ * pas mais dont l'évaluation peut dépendre (compteurs de demi-coups et de coups, roques effectués,
+ * point de vue de l'évaluation).
+ * </p>
+ * <p>
+ * Classe sûre vis-à-vis des threads.
+ * </p>
+ * 
+ * @author David Cotton
+ */
+abstract class AbstractHeuristic implements Heuristic
+{
+  /** Nombre d'entrées du cache des évaluations. */
+  private static final int EVALUATION_CACHE_SIZE = 1 << 16;
+
+  /** Multiplicateur de dispersion des éléments de l'état absents de la clé "Zobrist". */
+  private static final long CONTEXT_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+  /** Identifiant de la classe pour la sérialisation. */
+  private static final long serialVersionUID = -2204954327187290118L;
+
+  /** Cache des évaluations (créé à la première utilisation). */
+  private transient volatile EvaluationCache _evaluationCache;
+
+  /**
+   * Crée une nouvelle instance.
+   */
+  protected AbstractHeuristic()
+  {
+    // Rien de spécifique...
+  }
+
+  /**
+   * Calcule la valeur estimée d'un état du jeu, en l'absence de valeur dans le cache.
+   * 
+   * @param pEtat Etat du jeu.
+   * @param pTrait Positionné à "true" si l'on veut une évaluation du point de vue des blancs.
+   * @return Valeur estimée.
+   */
+  protected abstract int compute(final SearchBoard pEtat, final boolean pTrait);
+
+  /**
+   * Renvoi la valeur estimée d'un état du jeu, pour les fonctions de recherche du meilleur coup.
+   * 
+   * @param pEtat Etat du jeu.
+   * @param pTrait Positionné à "true" si l'on veut une évaluation du point de vue des blancs.
+   * @return Valeur estimée.
+   * @see Heuristic#evaluate(MoveGenerator,boolean)
+   */
+  public final int evaluate(final MoveGenerator pEtat, final boolean pTrait)
+  {
+    assert pEtat != null;
+
+    final SearchBoard etat = SearchBoard.valueOf(pEtat);
+    long contexte = etat.getHalfmoveCount() | ((long) etat.getFullmoveNumber() << 16);
+    if (etat.isCastled(true))
+    {
+      contexte |= 1L << 32;
+    }
+    if (etat.isCastled(false))
+    {
+      contexte |= 1L << 33;
+    }
+    if (pTrait)
+    {
+      contexte |= 1L << 34;
+    }
+    final long cle = etat.zobristKey() ^ (contexte * CONTEXT_MULTIPLIER);
+
+    final EvaluationCache cache = getEvaluationCache();
+    final long donnee = cache.get(cle);
+    if (donnee != 0L)
+    {
+      return EvaluationCache.valueOf(donnee);
+    }
+
+    final int res = compute(etat, pTrait);
+    cache.put(cle, res);
+
+    return res;
+  }
+
+  /**
+   * Renvoi le cache des évaluations, en le créant si nécessaire.
+   * <p>
+   * Deux threads peuvent le créer simultanément : l'un des deux caches est alors perdu, sans autre
+   * conséquence.
+   * </p>
+   * 
+   * @return Cache des évaluations.
+   */
+  final EvaluationCache getEvaluationCache()
+  {
+    EvaluationCache res = _evaluationCache;
+    if (res == null)
+    {
+      res = new EvaluationCache(EVALUATION_CACHE_SIZE);
+      _evaluationCache = res;
+    }
+
+    assert res != null;
+    return res;
+  }
+
+  /**
+   * Renvoi l'éventuel cache de la structure de pions de la fonction d'évaluation.
+   * 
+   * @return Cache de la structure de pions, ou null si la fonction d'évaluation n'en utilise pas.
+   */
+  EvaluationCache getPawnHash()
+  {
+    return null;
+  }
+}
@@ -18,14 +18,12 @@
  */
 package fr.free.jchecs.ai;
 
-import java.util.Arrays;
-import java.util.Comparator;
-
 import fr.free.jchecs.core.Move;
-import fr.free.jchecs.core.MoveGenerator;
+import fr.free.jchecs.core.SearchBoard;
 
 /**
- * Moteur d'IA basé sur un alpha/beta (façon NegaMax) sur 5 demi-coups.
+ * Moteur d'IA basé sur un alpha/beta (façon NegaMax) sur 5 demi-coups, prolongé par une recherche
+ * de quiescence.
  * 
  * @author David Cotton
  */
@@ -37,8 +35,6 @@ final class AlphaBetaEngine extends AbstractEngine
   AlphaBetaEngine()
   {
     super(3, 6, 5);
-
-    setMoveSorter(new KillerMoveSorter());
   }
 
   /**
@@ -50,45 +46,37 @@ final class AlphaBetaEngine extends AbstractEngine
    * @param pBeta Seuil beta.
    * @return Meilleure évaluation obtenue à ce niveau.
    */
-  private int alphabeta(final MoveGenerator pEtat, final int pProfondeur, final int pAlpha,
+  private int alphabeta(final SearchBoard pEtat, final int pProfondeur, final int pAlpha,
       final int pBeta)
   {
     assert pEtat != null;
     assert pProfondeur >= 0;
     assert pAlpha <= pBeta;
 
-    final boolean trait = pEtat.isWhiteActive();
-
     if (pProfondeur == 0)
     {
-      return getHeuristic().evaluate(pEtat, trait);
+      return quiesce(pEtat, pAlpha, pBeta);
     }
 
-    final Move [] coups = pEtat.getValidMoves(trait);
-    final int l = coups.length;
-    if (l == 0)
+    final boolean trait = pEtat.isWhiteActive();
+
+    final MovePicker coups = getMovePicker(pEtat.getPly());
+    coups.init(pEtat, 0, getMoveScorer());
+    int mvt = coups.next();
+    if (mvt == 0)
     {
       return getHeuristic().evaluate(pEtat, trait);
     }
 
     int res = MATE_VALUE - 1;
 
-    final Comparator<Move> tri = getMoveSorter();
-    final KillerMoveSorter killer;
-    if (tri instanceof KillerMoveSorter)
-    {
-      killer = (KillerMoveSorter) tri;
-    }
-    else
-    {
-      killer = null;
-    }
-    Arrays.sort(coups, tri);
-    addHalfmove(l);
     int alpha = pAlpha;
-    for (final Move mvt : coups)
+    for (int i = 0; mvt != 0; i++, mvt = coups.next())
     {
-      final int note = -alphabeta(pEtat.derive(mvt, true), pProfondeur - 1, -pBeta, -alpha);
+      addHalfmove(1);
+      pEtat.makeMove(mvt);
+      final int note = -alphabeta(pEtat, pProfondeur - 1, -pBeta, -alpha);
+      pEtat.unmakeMove();
       if (note > res)
       {
         res = note;
@@ -97,9 +85,10 @@ final class AlphaBetaEngine extends AbstractEngine
           alpha = res;
           if (alpha > pBeta)
           {
-            if (killer != null)
+            countCutoff(i == 0);
+            if (Move.capturedOf(mvt) == null)
             {
-              killer.put(mvt);
+              getMoveScorer().update(pEtat.getPly(), mvt, pEtat.getLastMove(), pProfondeur);
             }
             return res;
           }
@@ -110,6 +99,18 @@ final class AlphaBetaEngine extends AbstractEngine
     return res;
   }
 
+  /**
+   * Renvoi une nouvelle instance du moteur, destinée à participer aux recherches en tant que
+   * thread supplémentaire.
+   * 
+   * @return Nouvelle instance du moteur.
+   */
+  @Override
+  protected AbstractEngine newHelper()
+  {
+    return new AlphaBetaEngine();
+  }
+
   /**
    * Corps de la recherche du "meilleur" demi-coup pour un état de l'échiquier.
    * 
@@ -118,7 +119,7 @@ final class AlphaBetaEngine extends AbstractEngine
    * @return Mouvement trouvé.
    */
   @Override
-  protected Move searchMoveFor(final MoveGenerator pEtat, final Move [] pCoups)
+  protected Move searchMoveFor(final SearchBoard pEtat, final Move [] pCoups)
   {
     assert pEtat != null;
     assert pCoups != null;
@@ -126,14 +127,14 @@ final class AlphaBetaEngine extends AbstractEngine
     final int l = pCoups.length;
     assert l > 0;
     addHalfmove(l);
-    final Comparator<Move> tri = getMoveSorter();
-    Arrays.sort(pCoups, tri);
+    sortRootMoves(pCoups, 0);
     Move res = pCoups[0];
     int alpha = MATE_VALUE - 1;
     for (final Move mvt : pCoups)
     {
-      final MoveGenerator etat = pEtat.derive(mvt, true);
-      final int note = -alphabeta(etat, getSearchDepthLimit() - 1, MATE_VALUE, -alpha);
+      pEtat.makeMove(mvt);
+      final int note = -alphabeta(pEtat, getCurrentSearchDepth() - 1, MATE_VALUE, -alpha);
+      pEtat.unmakeMove();
       if ((note > alpha) || ((note == alpha) && RANDOMIZER.nextBoolean()))
       {
         // Un peu de hasard sert à partager les évaluations identiques : jeu plus agréable.
@@ -144,11 +145,6 @@ final class AlphaBetaEngine extends AbstractEngine
 
     setScore(alpha);
 
-    if (tri instanceof KillerMoveSorter)
-    {
-      ((KillerMoveSorter) tri).clear();
-    }
-
     assert res != null;
     return res;
   }
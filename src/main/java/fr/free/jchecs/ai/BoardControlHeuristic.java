@@ -19,13 +19,16 @@
 package fr.free.jchecs.ai;
 
 import static fr.free.jchecs.ai.AbstractEngine.MATE_VALUE;
-import static fr.free.jchecs.core.Constants.FILE_COUNT;
-import static fr.free.jchecs.core.Constants.RANK_COUNT;
+import static fr.free.jchecs.core.PieceType.BISHOP;
+import static fr.free.jchecs.core.PieceType.KNIGHT;
+import static fr.free.jchecs.core.PieceType.PAWN;
+import static fr.free.jchecs.core.PieceType.QUEEN;
+import static fr.free.jchecs.core.PieceType.ROOK;
 
-import fr.free.jchecs.core.MoveGenerator;
 import fr.free.jchecs.core.Piece;
+import fr.free.jchecs.core.PieceSquareTable;
 import fr.free.jchecs.core.PieceType;
-import fr.free.jchecs.core.Square;
+import fr.free.jchecs.core.SearchBoard;
 
 /**
  * Fonction d'évaluation basée sur le matériel et la position des pièces présentes sur le plateau.
@@ -35,11 +38,14 @@ import fr.free.jchecs.core.Square;
  * 
  * @author David Cotton
  */
-final class BoardControlHeuristic implements Heuristic
+final class BoardControlHeuristic extends AbstractHeuristic
 {
   /** Identifiant de la classe pour la sérialisation. */
   private static final long serialVersionUID = -7163145298434616262L;
 
+  /** Liste des pièces. */
+  private static final Piece [] PIECES = Piece.values();
+
   /**
    * Bonus/Malus d'un cavalier (blanc par défaut) en fonction de sa position.
    */
@@ -92,6 +98,19 @@ final class BoardControlHeuristic implements Heuristic
     assert DEFAULT_POSITIONS.length == 64;
   }
 
+  /** Bonus/Malus de position des pièces (pas de valeur de position pour le roi). */
+  private static final PieceSquareTable POSITIONS;
+  static
+  {
+    final int [][] positions = new int [ PieceType.values().length ] [];
+    positions[BISHOP.ordinal()] = DEFAULT_POSITIONS;
+    positions[KNIGHT.ordinal()] = KNIGHT_POSITIONS;
+    positions[PAWN.ordinal()] = PAWN_POSITIONS;
+    positions[QUEEN.ordinal()] = DEFAULT_POSITIONS;
+    positions[ROOK.ordinal()] = DEFAULT_POSITIONS;
+    POSITIONS = new PieceSquareTable(positions);
+  }
+
   /**
    * Crée une nouvelle instance.
    */
@@ -101,89 +120,47 @@ final class BoardControlHeuristic implements Heuristic
   }
 
   /**
-   * Renvoi la valeur estimée d'un état du jeu, pour les fonctions de recherche du meilleur coup.
+   * Calcule la valeur estimée d'un état du jeu, en l'absence de valeur dans le cache.
+   * <p>
+   * Le matériel et les bonus/malus de position sont maintenus au fil des mouvements par
+   * l'échiquier de recherche : l'évaluation ne parcourt pas l'échiquier.
+   * </p>
    * 
    * @param pEtat Etat du jeu.
    * @param pTrait Positionné à "true" si l'on veut une évaluation du point de vue des blancs.
    * @return Valeur estimée.
-   * @see Heuristic#evaluate(MoveGenerator,boolean)
+   * @see AbstractHeuristic#compute(SearchBoard,boolean)
    */
-  public int evaluate(final MoveGenerator pEtat, final boolean pTrait)
+  @Override
+  protected int compute(final SearchBoard pEtat, final boolean pTrait)
   {
     assert pEtat != null;
 
-    int res = -pEtat.getHalfmoveCount();
+    int res = -pEtat.getHalfmoveCount() + pEtat.getMaterial(pTrait) - pEtat.getMaterial(!pTrait);
+
+    for (final Piece p : PIECES)
+    {
+      if (p.isWhite() == pTrait)
+      {
+        res += pEtat.getPieceSquareSum(POSITIONS, p);
+      }
+      else
+      {
+        res -= pEtat.getPieceSquareSum(POSITIONS, p);
+      }
+    }
 
-    for (final Square s : Square.values())
+    if ((pEtat.getFullmoveNumber() > 10) && pEtat.isInCheck(!pTrait))
     {
-      final Piece piece = pEtat.getPieceAt(s);
-      if (piece != null)
+      if (pEtat.getValidMoves(!pTrait).length == 0)
+      {
+        // Malus pour un mat...
+        res -= MATE_VALUE;
+      }
+      else
       {
-        final boolean traitPiece = piece.isWhite();
-        final PieceType typePiece = piece.getType();
-        final int val = typePiece.getValue();
-        final int pos;
-        switch (typePiece)
-        {
-          case BISHOP :
-          case QUEEN :
-          case ROOK :
-            pos = DEFAULT_POSITIONS[s.getIndex()];
-            break;
-          case KING :
-            if ((traitPiece != pTrait) && (pEtat.getFullmoveNumber() > 10)
-                && pEtat.isInCheck(traitPiece))
-            {
-              if (pEtat.getValidMoves(traitPiece).length == 0)
-              {
-                // Malus pour un mat...
-                pos = MATE_VALUE;
-              }
-              else
-              {
-                // Malus pour un échec...
-                pos = -250;
-              }
-            }
-            else
-            {
-              // Pas de valeur de position pour le roi.
-              pos = 0;
-            }
-            break;
-          case KNIGHT :
-            if (traitPiece)
-            {
-              pos = KNIGHT_POSITIONS[s.getIndex()];
-            }
-            else
-            {
-              pos = KNIGHT_POSITIONS[((RANK_COUNT - 1) - s.getRank()) * FILE_COUNT + s.getFile()];
-            }
-            break;
-          case PAWN :
-            if (traitPiece)
-            {
-              pos = PAWN_POSITIONS[s.getIndex()];
-            }
-            else
-            {
-              pos = PAWN_POSITIONS[((RANK_COUNT - 1) - s.getRank()) * FILE_COUNT + s.getFile()];
-            }
-            break;
-          default :
-            assert false;
-            pos = 0;
-        }
-        final int score = val + pos;
-        if (traitPiece == pTrait)
-        {
-          res += score;
-        }
-        else
-        {
-          res -= score;
-        }
+        // Malus pour un échec...
+        res += 250;
       }
     }
 
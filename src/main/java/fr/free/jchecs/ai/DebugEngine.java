@@ -26,6 +26,7 @@ import java.util.Map;
 import fr.free.jchecs.core.Board;
 import fr.free.jchecs.core.Move;
 import fr.free.jchecs.core.MoveGenerator;
+import fr.free.jchecs.core.SearchBoard;
 
 /**
  * Moteur IA de debugage : recherche en dur le meilleur de l'ensemble des coups possibles avec une
@@ -43,6 +44,18 @@ final class DebugEngine extends AbstractEngine
     super(3, 3, 3);
   }
 
+  /**
+   * Renvoi une nouvelle instance du moteur, destinée à participer aux recherches en tant que
+   * thread supplémentaire.
+   * 
+   * @return Nouvelle instance du moteur.
+   */
+  @Override
+  protected AbstractEngine newHelper()
+  {
+    return new DebugEngine();
+  }
+
   /**
    * Corps de la recherche du "meilleur" demi-coup pour un état de l'échiquier.
    * 
@@ -51,7 +64,7 @@ final class DebugEngine extends AbstractEngine
    * @return Mouvement trouvé.
    */
   @Override
-  protected Move searchMoveFor(final MoveGenerator pEtat, final Move [] pCoups)
+  protected Move searchMoveFor(final SearchBoard pEtat, final Move [] pCoups)
   {
     assert pEtat != null;
     assert pCoups != null;
@@ -18,6 +18,8 @@
  */
 package fr.free.jchecs.ai;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.Comparator;
 
 import fr.free.jchecs.core.Move;
@@ -30,6 +32,16 @@ import fr.free.jchecs.core.MoveGenerator;
  */
 public interface Engine
 {
+  /**
+   * Interrompt au plus vite la recherche en cours, s'il y en a une.
+   * <p>
+   * Destinée à être appelée depuis un autre thread que celui de la recherche : celle-ci contrôle
+   * régulièrement la demande, et {@link #getMoveFor(MoveGenerator)} renvoie alors null. Vise aussi
+   * les appels en attente de leur tour, mais reste sans effet sur les recherches demandées après.
+   * </p>
+   */
+  void abort();
+
   /**
    * Renvoi le temps total passé en traitement par le moteur.
    * 
@@ -37,6 +49,17 @@ public interface Engine
    */
   long getElapsedTime();
 
+  /**
+   * Renvoi le taux de succès du cache des évaluations de la fonction d'évaluation du moteur.
+   * <p>
+   * Le cache appartient à la fonction d'évaluation : le taux porte sur toutes les évaluations
+   * qu'elle a effectuées, y compris pour d'autres moteurs la partageant.
+   * </p>
+   * 
+   * @return Proportion des évaluations trouvées dans le cache ([0, 1], 0 sans cache).
+   */
+  double getEvaluationCacheHitRate();
+
   /**
    * Renvoi le nombre total de demi-coups évalués par le moteur.
    * 
@@ -51,6 +74,19 @@ public interface Engine
    */
   Heuristic getHeuristic();
 
+  /**
+   * Renvoi les statistiques de la dernière recherche : nombre de demi-coups examinés, profondeur
+   * atteinte, consultations de la table de transposition, taux de coupures au premier mouvement,
+   * variante principale...
+   * <p>
+   * Peut être appelée depuis un autre thread que celui de la recherche : l'instance renvoyée n'est
+   * plus modifiée, chaque recherche en produisant une nouvelle.
+   * </p>
+   * 
+   * @return Statistiques de la dernière recherche, ou null si aucune recherche n'a eu lieu.
+   */
+  SearchStatistics getLastSearchStatistics();
+
   /**
    * Renvoi la limite haute de la profondeur de recherche supportées par le moteur.
    * 
@@ -69,7 +105,7 @@ public interface Engine
    * Recherche un mouvement répondant à un état de l'échiquier.
    * 
    * @param pEtat Etat de l'échiquier.
-   * @return Mouvement trouvé.
+   * @return Mouvement trouvé, ou null si la recherche a été interrompue par {@link #abort()}.
    */
   Move getMoveFor(final MoveGenerator pEtat);
 
@@ -80,6 +116,21 @@ public interface Engine
    */
   Comparator<Move> getMoveSorter();
 
+  /**
+   * Renvoi le nombre de coups pendant lesquels la bibliothèque d'ouvertures est consultée.
+   * 
+   * @return Nombre de coups (>= 0).
+   */
+  int getOpeningsDepth();
+
+  /**
+   * Renvoi le taux de succès du cache de la structure de pions de la fonction d'évaluation du
+   * moteur.
+   * 
+   * @return Proportion des structures de pions trouvées dans le cache ([0, 1], 0 sans cache).
+   */
+  double getPawnHashHitRate();
+
   /**
    * Renvoi le score obtenu par le dernier mouvement calculé.
    * 
@@ -95,6 +146,30 @@ public interface Engine
    */
   int getSearchDepthLimit();
 
+  /**
+   * Indique si la recherche utilise des fenêtres d'aspiration autour du score de l'itération
+   * précédente (moteurs concernés seulement).
+   * 
+   * @return "true" si les fenêtres d'aspiration sont utilisées, "false" sinon.
+   */
+  boolean isAspirationWindowsEnabled();
+
+  /**
+   * Indique si la recherche réduit la profondeur des mouvements examinés tardivement (moteurs
+   * concernés seulement).
+   * 
+   * @return "true" si les réductions sont utilisées, "false" sinon.
+   */
+  boolean isLateMoveReductionsEnabled();
+
+  /**
+   * Indique si la recherche tente des passages de trait pour élaguer l'arbre (moteurs concernés
+   * seulement).
+   * 
+   * @return "true" si les passages de trait sont utilisés, "false" sinon.
+   */
+  boolean isNullMoveEnabled();
+
   /**
    * Indique si l'utilisation de la bibliothèque d'ouvertures est activée.
    * 
@@ -102,6 +177,24 @@ public interface Engine
    */
   boolean isOpeningsEnabled();
 
+  /**
+   * Active / désactive l'utilisation de fenêtres d'aspiration (moteurs concernés seulement).
+   * 
+   * @param pActif A "true" pour activer les fenêtres d'aspiration, à "false" sinon.
+   */
+  void setAspirationWindowsEnabled(final boolean pActif);
+
+  /**
+   * Modifie la taille de la table de transposition utilisée par le moteur (s'il en utilise une).
+   * <p>
+   * La table est partagée avec tous les moteurs demandant la même taille, y compris ceux d'autres
+   * parties en cours.
+   * </p>
+   * 
+   * @param pTaille Taille de la table, en Mo (>= 1).
+   */
+  void setHashSize(final int pTaille);
+
   /**
    * Modifie la fonction d'évaluation utilisée par le moteur.
    * 
@@ -109,6 +202,13 @@ public interface Engine
    */
   void setHeuristic(final Heuristic pHeuristique);
 
+  /**
+   * Active / désactive la réduction des mouvements tardifs (moteurs concernés seulement).
+   * 
+   * @param pActif A "true" pour activer les réductions, à "false" sinon.
+   */
+  void setLateMoveReductionsEnabled(final boolean pActif);
+
   /**
    * Modifie la fonction d'ordenancement des mouvements.
    * 
@@ -116,6 +216,33 @@ public interface Engine
    */
   void setMoveSorter(final Comparator<Move> pComparateur);
 
+  /**
+   * Active / désactive l'élagage par passage de trait (moteurs concernés seulement).
+   * 
+   * @param pActif A "true" pour activer les passages de trait, à "false" sinon.
+   */
+  void setNullMoveEnabled(final boolean pActif);
+
+  /**
+   * Sélectionne la bibliothèque d'ouvertures à consulter à la place de celle livrée avec jChecs.
+   * <p>
+   * Deux formats sont reconnus : le format "Polyglot" (fichiers ".bin") et le format compact
+   * produit par {@link OpeningBookBuilder} (autres fichiers). Les mouvements sont tirés au hasard
+   * en proportion de leur poids.
+   * </p>
+   * 
+   * @param pFichier Fichier de la bibliothèque, ou null pour la bibliothèque de jChecs.
+   * @throws IOException Si le fichier ne peut être lu.
+   */
+  void setOpeningsBook(final File pFichier) throws IOException;
+
+  /**
+   * Modifie le nombre de coups pendant lesquels la bibliothèque d'ouvertures est consultée.
+   * 
+   * @param pCoups Nombre de coups (>= 0).
+   */
+  void setOpeningsDepth(final int pCoups);
+
   /**
    * Active / désactive l'utilisation de la bibliothèque d'ouvertures.
    * 
@@ -130,4 +257,29 @@ public interface Engine
    *          getMaximalSearchDepth()]).
    */
   void setSearchDepthLimit(final int pLimite);
+
+  /**
+   * Modifie le nombre de threads participant aux recherches suivantes.
+   * <p>
+   * Les threads supplémentaires explorent le même arbre que la recherche principale ("Lazy SMP")
+   * et ne lui profitent qu'au travers de la table de transposition partagée : le réglage est sans
+   * effet sur les moteurs n'en utilisant pas. Leur nombre total, toutes recherches confondues, est
+   * de plus plafonné (voir {@link EngineFactory#setHelperThreadsLimit(int)}).
+   * </p>
+   * 
+   * @param pNombre Nombre de threads (>= 1).
+   */
+  void setThreads(final int pNombre);
+
+  /**
+   * Modifie les durées limites des recherches suivantes.
+   * <p>
+   * Si au moins une durée est indiquée, la recherche procède par approfondissements successifs
+   * jusqu'à la profondeur limite et renvoie le meilleur mouvement de la dernière itération achevée.
+   * </p>
+   * 
+   * @param pSouple Durée au-delà de laquelle ne plus entamer d'itération (en ms, 0 si aucune).
+   * @param pStricte Durée maximale d'une recherche (en ms, 0 si aucune).
+   */
+  void setTimeLimits(final long pSouple, final long pStricte);
 }
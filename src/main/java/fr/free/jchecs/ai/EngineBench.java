@@ -42,8 +42,16 @@ public final class EngineBench
 
   /**
    * Teste l'efficacité des moteurs de recherche du meilleur mouvement.
+   * <p>
+   * Chaque argument désigne un moteur à confronter aux autres, sous la forme
+   * "Nom[:option,option...]". Les options désactivent des techniques de recherche, pour en mesurer
+   * l'apport : "-nullmove" (passage de trait), "-lmr" (réduction des mouvements tardifs) et
+   * "-aspiration" (fenêtres d'aspiration). Par exemple : "jChecs.NegaScout
+   * jChecs.NegaScout:-nullmove,-lmr".
+   * </p>
    * 
-   * @param pArgs Arguments de la ligne de commande : ignorés, aucun argument attendu.
+   * @param pArgs Arguments de la ligne de commande : moteurs à confronter (tous les moteurs
+   *          disponibles, sans option, si aucun argument).
    */
   public static void main(final String [] pArgs)
   {
@@ -51,14 +59,22 @@ public final class EngineBench
     final int nbCoups = 50;
     System.out.println("Parties croisées (en " + nbManches + " manches de " + nbCoups
         + " coups maximum) entre les moteurs :");
-    final String [] nomsMoteurs = EngineFactory.getNames();
+    final String [] nomsMoteurs;
+    if (pArgs.length > 0)
+    {
+      nomsMoteurs = pArgs;
+    }
+    else
+    {
+      nomsMoteurs = EngineFactory.getNames();
+    }
     final Engine [] listeMoteurs = new Engine [ nomsMoteurs.length ];
     final int nbMoteurs = listeMoteurs.length;
     final Map<String, Long> nbDemiCoups = new HashMap<String, Long>();
     final Map<String, Long> durees = new HashMap<String, Long>();
     for (int i = 0; i < nomsMoteurs.length; i++)
     {
-      listeMoteurs[i] = EngineFactory.newInstance(nomsMoteurs[i]);
+      listeMoteurs[i] = newEngine(nomsMoteurs[i]);
       nbDemiCoups.put(nomsMoteurs[i], Long.valueOf(0));
       durees.put(nomsMoteurs[i], Long.valueOf(0));
     }
@@ -69,7 +85,7 @@ public final class EngineBench
       for (int n = 0; n < nbMoteurs; n++)
       {
         joueurs.put(Boolean.FALSE, listeMoteurs[n]);
-        System.out.print(" - " + listeMoteurs[b] + " / " + listeMoteurs[n]);
+        System.out.print(" - " + nomsMoteurs[b] + " / " + nomsMoteurs[n]);
         int scoreBlancs = 0;
         int scoreNoirs = 0;
         for (int i = 0; i < nbManches; i++)
@@ -124,13 +140,69 @@ public final class EngineBench
       }
     }
     System.out.println("Performances atteintes :");
-    for (final Engine eng : listeMoteurs)
+    for (int i = 0; i < nbMoteurs; i++)
     {
-      final String nomMoteur = eng.toString();
+      final String nomMoteur = nomsMoteurs[i];
       final long demisCoups = nbDemiCoups.get(nomMoteur).longValue();
       final long duree = durees.get(nomMoteur).longValue();
       System.out.println(" - " + nomMoteur + " : " + demisCoups + " demi-coups évalués en " + duree
           + "ms, soit " + (int) (1000.0 / duree * demisCoups) + " demi-coups/s");
+      System.out.println("   succès des caches : "
+          + (int) (100 * listeMoteurs[i].getEvaluationCacheHitRate()) + "% (évaluations), "
+          + (int) (100 * listeMoteurs[i].getPawnHashHitRate()) + "% (structures de pions)");
+    }
+  }
+
+  /**
+   * Instancie un moteur décrit sous la forme "Nom[:option,option...]" (voir
+   * {@link #main(String[])}).
+   * 
+   * @param pDescription Description du moteur.
+   * @return Moteur correspondant.
+   * @throws IllegalArgumentException si le nom du moteur ou l'une des options est invalide.
+   */
+  private static Engine newEngine(final String pDescription)
+  {
+    assert pDescription != null;
+
+    final int sep = pDescription.indexOf(':');
+    final String nom;
+    if (sep < 0)
+    {
+      nom = pDescription;
+    }
+    else
+    {
+      nom = pDescription.substring(0, sep);
     }
+    final Engine res = EngineFactory.newInstance(nom);
+    if (res == null)
+    {
+      throw new IllegalArgumentException("Invalid engine [" + nom + ']');
+    }
+    if (sep >= 0)
+    {
+      for (final String option : pDescription.substring(sep + 1).split(","))
+      {
+        if ("-nullmove".equals(option))
+        {
+          res.setNullMoveEnabled(false);
+        }
+        else if ("-lmr".equals(option))
+        {
+          res.setLateMoveReductionsEnabled(false);
+        }
+        else if ("-aspiration".equals(option))
+        {
+          res.setAspirationWindowsEnabled(false);
+        }
+        else
+        {
+          throw new IllegalArgumentException("Invalid engine option [" + option + ']');
+        }
+      }
+    }
+
+    return res;
   }
 }
@@ -111,4 +111,20 @@ public final class EngineFactory
 
     return res;
   }
+
+  /**
+   * Modifie le nombre maximum de threads de recherche supplémentaires (voir
+   * {@link Engine#setThreads(int)}) pouvant fonctionner simultanément, tous moteurs confondus.
+   * <p>
+   * Une valeur négative correspond au réglage par défaut : le nombre de processeurs moins un, pour
+   * laisser un processeur libre au reste de l'application. Le nouveau plafond s'applique aux
+   * recherches suivantes.
+   * </p>
+   * 
+   * @param pNombre Nombre maximum de threads supplémentaires (0 pour n'en autoriser aucun).
+   */
+  public static void setHelperThreadsLimit(final int pNombre)
+  {
+    AbstractEngine.setHelperThreadsLimit(pNombre);
+  }
 }
@@ -18,10 +18,10 @@
  */
 package fr.free.jchecs.ai;
 
-import java.util.Arrays;
 
 import fr.free.jchecs.core.Move;
-import fr.free.jchecs.core.MoveGenerator;
+import fr.free.jchecs.core.MoveList;
+import fr.free.jchecs.core.SearchBoard;
 
 /**
  * Moteur d'IA basé sur un mini/max ammélioré par un élagae simple, sur 4 demi-coups.
@@ -52,7 +52,7 @@ final class EnhancedMiniMaxEngine extends AbstractEngine
    * @param pMax Valeur du max du noeud père (petite optimisation, en attendant un vrai Alpha/Béta).
    * @return Meilleure évaluation obtenue à ce niveau.
    */
-  private int findMin(final MoveGenerator pEtat, final int pProfondeur, final int pMax)
+  private int findMin(final SearchBoard pEtat, final int pProfondeur, final int pMax)
   {
     assert pEtat != null;
     assert pProfondeur >= 0;
@@ -66,13 +66,17 @@ final class EnhancedMiniMaxEngine extends AbstractEngine
 
     int res = -MATE_VALUE;
 
-    final Move [] coups = pEtat.getValidMoves(pEtat.isWhiteActive());
-    Arrays.sort(coups, getMoveSorter());
-    addHalfmove(coups.length);
-    for (final Move mvt : coups)
+    final MoveList coups = getMoveList(pEtat.getPly());
+    pEtat.generateMoves(coups);
+    coups.sort(getMoveSorter());
+    final int l = coups.size();
+    addHalfmove(l);
+    for (int i = 0; i < l; i++)
     {
-      final MoveGenerator etat = pEtat.derive(mvt, true);
-      final int note = findMax(etat, pProfondeur - 1, res);
+      final int mvt = coups.get(i);
+      pEtat.makeMove(mvt);
+      final int note = findMax(pEtat, pProfondeur - 1, res);
+      pEtat.unmakeMove();
       if (note < pMax)
       {
         // Début d'élagage, ajouté par rapport à un mini/max pur...
@@ -95,7 +99,7 @@ final class EnhancedMiniMaxEngine extends AbstractEngine
    * @param pMin Valeur du min du noeud père (petite optimisation, en attendant un vrai Alpha/Béta).
    * @return Meilleure évaluation obtenue à ce niveau.
    */
-  private int findMax(final MoveGenerator pEtat, final int pProfondeur, final int pMin)
+  private int findMax(final SearchBoard pEtat, final int pProfondeur, final int pMin)
   {
     assert pEtat != null;
     assert pProfondeur >= 0;
@@ -109,13 +113,17 @@ final class EnhancedMiniMaxEngine extends AbstractEngine
 
     int res = MATE_VALUE;
 
-    final Move [] coups = pEtat.getValidMoves(pEtat.isWhiteActive());
-    Arrays.sort(coups, getMoveSorter());
-    addHalfmove(coups.length);
-    for (final Move mvt : coups)
+    final MoveList coups = getMoveList(pEtat.getPly());
+    pEtat.generateMoves(coups);
+    coups.sort(getMoveSorter());
+    final int l = coups.size();
+    addHalfmove(l);
+    for (int i = 0; i < l; i++)
     {
-      final MoveGenerator etat = pEtat.derive(mvt, true);
-      final int note = findMin(etat, pProfondeur - 1, res);
+      final int mvt = coups.get(i);
+      pEtat.makeMove(mvt);
+      final int note = findMin(pEtat, pProfondeur - 1, res);
+      pEtat.unmakeMove();
       if (note > pMin)
       {
         // Début d'élagage, ajouté par rapport à un mini/max pur...
@@ -130,6 +138,18 @@ final class EnhancedMiniMaxEngine extends AbstractEngine
     return res;
   }
 
+  /**
+   * Renvoi une nouvelle instance du moteur, destinée à participer aux recherches en tant que
+   * thread supplémentaire.
+   * 
+   * @return Nouvelle instance du moteur.
+   */
+  @Override
+  protected AbstractEngine newHelper()
+  {
+    return new EnhancedMiniMaxEngine();
+  }
+
   /**
    * Corps de la recherche du "meilleur" demi-coup pour un état de l'échiquier.
    * 
@@ -138,7 +158,7 @@ final class EnhancedMiniMaxEngine extends AbstractEngine
    * @return Mouvement trouvé.
    */
   @Override
-  protected Move searchMoveFor(final MoveGenerator pEtat, final Move [] pCoups)
+  protected Move searchMoveFor(final SearchBoard pEtat, final Move [] pCoups)
   {
     assert pEtat != null;
     assert pCoups != null;
@@ -148,13 +168,14 @@ final class EnhancedMiniMaxEngine extends AbstractEngine
     final int l = pCoups.length;
     assert l > 0;
     addHalfmove(l);
-    Arrays.sort(pCoups, getMoveSorter());
+    sortRootMoves(pCoups, 0);
     Move res = pCoups[0];
     int meilleur = MATE_VALUE - 1;
     for (final Move mvt : pCoups)
     {
-      final MoveGenerator etat = pEtat.derive(mvt, true);
-      final int note = findMin(etat, getSearchDepthLimit() - 1, meilleur);
+      pEtat.makeMove(mvt);
+      final int note = findMin(pEtat, getCurrentSearchDepth() - 1, meilleur);
+      pEtat.unmakeMove();
       if ((note > meilleur) || ((note == meilleur) && RANDOMIZER.nextBoolean()))
       {
         // Un peu de hasard sert à partager les évaluations identiques : jeu plus agréable.
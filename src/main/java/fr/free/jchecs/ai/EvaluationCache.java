@@ -0,0 +1,166 @@
+/*
+ $Id$
+
+ Copyright (C) 2006-2007 by David Cotton
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU General Public License as published by the Free Software
+ Foundation; either version 2 of the License, or (at your option) any later
+ version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along with
+ this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package fr.free.jchecs.ai;
+
+/**
+ * Cache de valeurs sur 32 bits, indexé par des clés "Zobrist" sur 64 bits, pour les fonctions
+ * d'évaluation.
+ * <p>
+ * Comme la table de transposition, le cache est partagé sans verrou entre les threads : chaque
+ * entrée est composée de la donnée et de la clé combinée par "ou exclusif" avec cette donnée, de
+ * sorte qu'une entrée rendue incohérente par deux écritures simultanées est simplement ignorée.
+ * Chaque clé n'a qu'une place possible, et la dernière valeur stockée remplace toujours la
+ * précédente.
+ * </p>
+ * <p>
+ * Les compteurs de consultations ne sont pas synchronisés : en cas d'accès concurrents, ils ne
+ * donnent qu'un ordre de grandeur.
+ * </p>
+ * 
+ * @author David Cotton
+ */
+final class EvaluationCache
+{
+  /** Bit signalant une entrée occupée. */
+  private static final long PRESENT = 1L << 32;
+
+  /** Entrées du cache : clé combinée à la donnée, puis donnée, pour chaque entrée. */
+  private final long [] _entries;
+
+  /** Masque donnant l'indice d'une entrée. */
+  private final int _mask;
+
+  /** Nombre de consultations du cache. */
+  private long _probes;
+
+  /** Nombre de consultations ayant trouvé une valeur. */
+  private long _hits;
+
+  /**
+   * Instancie un nouveau cache.
+   * 
+   * @param pCapacite Nombre minimal d'entrées du cache (> 0).
+   */
+  EvaluationCache(final int pCapacite)
+  {
+    assert pCapacite > 0;
+
+    int taille = 1;
+    while (taille < pCapacite)
+    {
+      taille <<= 1;
+    }
+    _entries = new long [ 2 * taille ];
+    _mask = taille - 1;
+  }
+
+  /**
+   * Recherche la valeur correspondant à une clé.
+   * 
+   * @param pCle Clé "Zobrist".
+   * @return Donnée de l'entrée (la valeur s'obtient par {@link #valueOf(long)}), ou 0 si absente.
+   */
+  long get(final long pCle)
+  {
+    final int i = indexOf(pCle);
+    final long donnee = _entries[i + 1];
+    _probes++;
+    if ((donnee != 0L) && ((_entries[i] ^ donnee) == pCle))
+    {
+      _hits++;
+      return donnee;
+    }
+
+    return 0L;
+  }
+
+  /**
+   * Renvoi le nombre de consultations ayant trouvé une valeur.
+   * 
+   * @return Nombre de succès.
+   */
+  long getHits()
+  {
+    return _hits;
+  }
+
+  /**
+   * Renvoi le taux de succès des consultations du cache.
+   * 
+   * @return Proportion des consultations ayant trouvé une valeur ([0, 1], 0 si aucune).
+   */
+  double getHitRate()
+  {
+    final long consultations = _probes;
+    if (consultations <= 0L)
+    {
+      return 0.0;
+    }
+
+    return Math.min(1.0, (double) _hits / consultations);
+  }
+
+  /**
+   * Renvoi le nombre de consultations du cache.
+   * 
+   * @return Nombre de consultations.
+   */
+  long getProbes()
+  {
+    return _probes;
+  }
+
+  /**
+   * Renvoi la position de l'entrée d'une clé dans le cache.
+   * 
+   * @param pCle Clé "Zobrist".
+   * @return Position du premier entier long de l'entrée.
+   */
+  private int indexOf(final long pCle)
+  {
+    return ((int) (pCle ^ (pCle >>> 32)) & _mask) * 2;
+  }
+
+  /**
+   * Stocke la valeur correspondant à une clé.
+   * 
+   * @param pCle Clé "Zobrist".
+   * @param pValeur Valeur à mémoriser.
+   */
+  void put(final long pCle, final int pValeur)
+  {
+    final int i = indexOf(pCle);
+    final long donnee = PRESENT | (pValeur & 0xFFFFFFFFL);
+    _entries[i + 1] = donnee;
+    _entries[i] = pCle ^ donnee;
+  }
+
+  /**
+   * Renvoi la valeur contenue par une donnée renvoyée par {@link #get(long)}.
+   * 
+   * @param pDonnee Donnée d'une entrée (non nulle).
+   * @return Valeur mémorisée.
+   */
+  static int valueOf(final long pDonnee)
+  {
+    assert (pDonnee & PRESENT) != 0L;
+
+    return (int) pDonnee;
+  }
+}
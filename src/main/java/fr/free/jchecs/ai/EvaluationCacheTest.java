@@ -0,0 +1,118 @@
+/*
+ $Id$
+
+ Copyright (C) 2006-2007 by David Cotton
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU General Public License as published by the Free Software
+ Foundation; either version 2 of the License, or (at your option) any later
+ version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along with
+ this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package fr.free.jchecs.ai;
+
+import static fr.free.jchecs.ai.AbstractEngine.MATE_VALUE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import fr.free.jchecs.core.BoardFactory;
+import fr.free.jchecs.core.Move;
+import fr.free.jchecs.core.SearchBoard;
+
+/**
+ * Tests unitaires du cache des évaluations.
+ * 
+ * @author David Cotton
+ */
+public final class EvaluationCacheTest
+{
+  /**
+   * Pour que JUnit puisse instancier les tests.
+   */
+  public EvaluationCacheTest()
+  {
+    // Rien de spécifique...
+  }
+
+  /**
+   * Teste le stockage et la recherche des valeurs.
+   */
+  @Test
+  public void testGetPut()
+  {
+    final EvaluationCache cache = new EvaluationCache(1000);
+    assertEquals(0L, cache.get(42L));
+    assertEquals(0.0, cache.getHitRate(), 0.0);
+
+    final int [] valeurs = { 0, -1, 1, MATE_VALUE, -MATE_VALUE, Integer.MAX_VALUE, };
+    for (int i = 0; i < valeurs.length; i++)
+    {
+      cache.put(i * 0x123456789ABCDEFL, valeurs[i]);
+    }
+    for (int i = 0; i < valeurs.length; i++)
+    {
+      final long donnee = cache.get(i * 0x123456789ABCDEFL);
+      assertTrue(donnee != 0L);
+      assertEquals(valeurs[i], EvaluationCache.valueOf(donnee));
+    }
+
+    // Même entrée, clé différente : la valeur précédente est remplacée...
+    cache.put(42L, 1);
+    cache.put(42L | (1L << 40) | (1L << 8), 2);
+    assertEquals(0L, cache.get(42L));
+    assertEquals(2, EvaluationCache.valueOf(cache.get(42L | (1L << 40) | (1L << 8))));
+
+    assertEquals((valeurs.length + 1) / (double) (valeurs.length + 3), cache.getHitRate(), 1e-9);
+  }
+
+  /**
+   * Teste l'équivalence des évaluations issues du cache avec les évaluations directes.
+   */
+  @Test
+  public void testHeuristics()
+  {
+    final AbstractHeuristic [] heuristiques =
+        { new MobilityHeuristic(), new BoardControlHeuristic(), };
+    final Random randomizer = new Random(5000);
+    for (int p = 20; --p >= 0; /* Pré-décrémenté */)
+    {
+      final SearchBoard etat = SearchBoard.valueOf(
+          BoardFactory.valueOf(BoardFactory.Type.FASTEST, BoardFactory.State.STARTING));
+      for (int cps = 120; --cps >= 0; /* Pré-décrémenté */)
+      {
+        final Move [] mvts = etat.getValidMoves(etat.isWhiteActive());
+        if (mvts.length == 0)
+        {
+          break;
+        }
+        for (final AbstractHeuristic h : heuristiques)
+        {
+          for (final boolean trait : new boolean [] { true, false, })
+          {
+            final int valeur = h.compute(etat, trait);
+            assertEquals(valeur, h.evaluate(etat, trait));
+            assertEquals(valeur, h.evaluate(etat, trait));
+          }
+        }
+        etat.makeMove(mvts[randomizer.nextInt(mvts.length)]);
+      }
+    }
+
+    for (final AbstractHeuristic h : heuristiques)
+    {
+      assertTrue(h.getEvaluationCache().getHitRate() >= 0.5);
+    }
+    assertTrue(heuristiques[0].getPawnHash().getHitRate() > 0.0);
+  }
+}
@@ -19,7 +19,8 @@
 package fr.free.jchecs.ai;
 
 import fr.free.jchecs.core.Move;
-import fr.free.jchecs.core.MoveGenerator;
+import fr.free.jchecs.core.MoveList;
+import fr.free.jchecs.core.SearchBoard;
 
 /**
  * Moteur d'IA basé sur un mini/max sur 3 demi-coups.
@@ -46,7 +47,7 @@ final class MiniMaxEngine extends AbstractEngine
    * @param pProfondeur Profondeur d'évaluation actuelle.
    * @return Meilleure évaluation obtenue à ce niveau.
    */
-  private int findMin(final MoveGenerator pEtat, final int pProfondeur)
+  private int findMin(final SearchBoard pEtat, final int pProfondeur)
   {
     assert pEtat != null;
     assert pProfondeur >= 0;
@@ -60,12 +61,16 @@ final class MiniMaxEngine extends AbstractEngine
 
     int res = -MATE_VALUE;
 
-    final Move [] coups = pEtat.getValidMoves(pEtat.isWhiteActive());
-    addHalfmove(coups.length);
-    for (final Move mvt : coups)
+    final MoveList coups = getMoveList(pEtat.getPly());
+    pEtat.generateMoves(coups);
+    final int l = coups.size();
+    addHalfmove(l);
+    for (int i = 0; i < l; i++)
     {
-      final MoveGenerator etat = pEtat.derive(mvt, true);
-      final int note = findMax(etat, pProfondeur - 1);
+      final int mvt = coups.get(i);
+      pEtat.makeMove(mvt);
+      final int note = findMax(pEtat, pProfondeur - 1);
+      pEtat.unmakeMove();
       if (note < res)
       {
         res = note;
@@ -82,7 +87,7 @@ final class MiniMaxEngine extends AbstractEngine
    * @param pProfondeur Profondeur d'évaluation actuelle.
    * @return Meilleure évaluation obtenue à ce niveau.
    */
-  private int findMax(final MoveGenerator pEtat, final int pProfondeur)
+  private int findMax(final SearchBoard pEtat, final int pProfondeur)
   {
     assert pEtat != null;
     assert pProfondeur >= 0;
@@ -96,12 +101,16 @@ final class MiniMaxEngine extends AbstractEngine
 
     int res = MATE_VALUE;
 
-    final Move [] coups = pEtat.getValidMoves(pEtat.isWhiteActive());
-    addHalfmove(coups.length);
-    for (final Move mvt : coups)
+    final MoveList coups = getMoveList(pEtat.getPly());
+    pEtat.generateMoves(coups);
+    final int l = coups.size();
+    addHalfmove(l);
+    for (int i = 0; i < l; i++)
     {
-      final MoveGenerator etat = pEtat.derive(mvt, true);
-      final int note = findMin(etat, pProfondeur - 1);
+      final int mvt = coups.get(i);
+      pEtat.makeMove(mvt);
+      final int note = findMin(pEtat, pProfondeur - 1);
+      pEtat.unmakeMove();
       if (note > res)
       {
         res = note;
@@ -111,6 +120,18 @@ final class MiniMaxEngine extends AbstractEngine
     return res;
   }
 
+  /**
+   * Renvoi une nouvelle instance du moteur, destinée à participer aux recherches en tant que
+   * thread supplémentaire.
+   * 
+   * @return Nouvelle instance du moteur.
+   */
+  @Override
+  protected AbstractEngine newHelper()
+  {
+    return new MiniMaxEngine();
+  }
+
   /**
    * Corps de la recherche du "meilleur" demi-coup pour un état de l'échiquier.
    * 
@@ -119,7 +140,7 @@ final class MiniMaxEngine extends AbstractEngine
    * @return Mouvement trouvé.
    */
   @Override
-  protected Move searchMoveFor(final MoveGenerator pEtat, final Move [] pCoups)
+  protected Move searchMoveFor(final SearchBoard pEtat, final Move [] pCoups)
   {
     assert pEtat != null;
     assert pCoups != null;
@@ -133,8 +154,9 @@ final class MiniMaxEngine extends AbstractEngine
     int meilleur = MATE_VALUE - 1;
     for (final Move mvt : pCoups)
     {
-      final MoveGenerator etat = pEtat.derive(mvt, true);
-      final int note = findMin(etat, getSearchDepthLimit() - 1);
+      pEtat.makeMove(mvt);
+      final int note = findMin(pEtat, getCurrentSearchDepth() - 1);
+      pEtat.unmakeMove();
       if ((note > meilleur) || ((note == meilleur) && RANDOMIZER.nextBoolean()))
       {
         // Un peu de hasard sert à partager les évaluations identiques : jeu plus agréable.
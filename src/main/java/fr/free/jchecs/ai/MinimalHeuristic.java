@@ -19,8 +19,7 @@
 package fr.free.jchecs.ai;
 
 import fr.free.jchecs.core.MoveGenerator;
-import fr.free.jchecs.core.Piece;
-import fr.free.jchecs.core.Square;
+import fr.free.jchecs.core.SearchBoard;
 
 /**
  * Implémentation d'une fonction d'évaluation minimale : se base uniquement le matériel,
@@ -56,25 +55,8 @@ final class MinimalHeuristic implements Heuristic
   {
     assert pEtat != null;
 
-    int res = 0;
+    final SearchBoard etat = SearchBoard.valueOf(pEtat);
 
-    for (final Square s : Square.values())
-    {
-      final Piece piece = pEtat.getPieceAt(s);
-      if (piece != null)
-      {
-        final int valeur = piece.getType().getValue();
-        if (piece.isWhite() == pTrait)
-        {
-          res += valeur;
-        }
-        else
-        {
-          res -= valeur;
-        }
-      }
-    }
-
-    return res;
+    return etat.getMaterial(pTrait) - etat.getMaterial(!pTrait);
   }
 }
@@ -21,24 +21,45 @@ package fr.free.jchecs.ai;
 import static fr.free.jchecs.ai.AbstractEngine.MATE_VALUE;
 import static fr.free.jchecs.core.Constants.FILE_COUNT;
 import static fr.free.jchecs.core.Constants.RANK_COUNT;
+import static fr.free.jchecs.core.Piece.BLACK_BISHOP;
+import static fr.free.jchecs.core.Piece.BLACK_KING;
+import static fr.free.jchecs.core.Piece.BLACK_KNIGHT;
+import static fr.free.jchecs.core.Piece.BLACK_PAWN;
+import static fr.free.jchecs.core.Piece.BLACK_QUEEN;
+import static fr.free.jchecs.core.Piece.BLACK_ROOK;
+import static fr.free.jchecs.core.Piece.WHITE_BISHOP;
+import static fr.free.jchecs.core.Piece.WHITE_KING;
+import static fr.free.jchecs.core.Piece.WHITE_KNIGHT;
+import static fr.free.jchecs.core.Piece.WHITE_PAWN;
+import static fr.free.jchecs.core.Piece.WHITE_QUEEN;
+import static fr.free.jchecs.core.Piece.WHITE_ROOK;
+import static fr.free.jchecs.core.PieceType.BISHOP;
 import static fr.free.jchecs.core.PieceType.KING;
+import static fr.free.jchecs.core.PieceType.KNIGHT;
 import static fr.free.jchecs.core.PieceType.PAWN;
+import static fr.free.jchecs.core.PieceType.QUEEN;
+import static fr.free.jchecs.core.PieceType.ROOK;
 
-import fr.free.jchecs.core.MoveGenerator;
 import fr.free.jchecs.core.Piece;
+import fr.free.jchecs.core.PieceSquareTable;
 import fr.free.jchecs.core.PieceType;
-import fr.free.jchecs.core.Square;
+import fr.free.jchecs.core.SearchBoard;
 
 /**
  * Fonction d'évaluation basée sur le matériel, la position des pièces présentes sur le plateau et
  * leur mobilité.
  * <p>
+ * Les termes liés à la structure de pions (pions doublés, colonnes occupées par des pions) ne
+ * changent que lorsqu'un pion bouge : ils sont mémorisés dans un cache indexé par la clé "Zobrist"
+ * des seuls pions.
+ * </p>
+ * <p>
  * Classe sûre vis-à-vis des threads.
  * </p>
  * 
  * @author David Cotton
  */
-final class MobilityHeuristic implements Heuristic
+final class MobilityHeuristic extends AbstractHeuristic
 {
   /** Nombre de pièces à partir duquel on considère être en fin de partie. */
   private static final int END_GAME = 8;
@@ -46,9 +67,31 @@ final class MobilityHeuristic implements Heuristic
   /** Nombre de pièces à partir duquel on considère être en milieu de partie. */
   private static final int MIDDLE_GAME = 16;
 
+  /** Nombre d'entrées du cache de la structure de pions. */
+  private static final int PAWN_HASH_SIZE = 1 << 12;
+
   /** Identifiant de la classe pour la sérialisation. */
   private static final long serialVersionUID = 8752973612245818678L;
 
+  /** Carte des cases de la colonne "a". */
+  private static final long FILE_A = 0x0101010101010101L;
+
+  /** Pièces blanches, indexées par l'ordinal de leur type. */
+  private static final Piece [] WHITE_PIECES =
+      { WHITE_BISHOP, WHITE_KING, WHITE_KNIGHT, WHITE_PAWN, WHITE_QUEEN, WHITE_ROOK, };
+
+  /** Pièces noires, indexées par l'ordinal de leur type. */
+  private static final Piece [] BLACK_PIECES =
+      { BLACK_BISHOP, BLACK_KING, BLACK_KNIGHT, BLACK_PAWN, BLACK_QUEEN, BLACK_ROOK, };
+  static
+  {
+    for (final PieceType t : PieceType.values())
+    {
+      assert WHITE_PIECES[t.ordinal()].getType() == t;
+      assert BLACK_PIECES[t.ordinal()].getType() == t;
+    }
+  }
+
   /**
    * Bonus/Malus d'un fou (blanc par défaut) en fonction de sa position.
    */
@@ -168,6 +211,22 @@ final class MobilityHeuristic implements Heuristic
     assert ROOK_POSITIONS.length == 64;
   }
 
+  /** Bonus/Malus de position des pièces (hors roi, dont la table dépend de l'avancée du jeu). */
+  private static final PieceSquareTable POSITIONS;
+  static
+  {
+    final int [][] positions = new int [ PieceType.values().length ] [];
+    positions[BISHOP.ordinal()] = BISHOP_POSITIONS;
+    positions[KNIGHT.ordinal()] = KNIGHT_POSITIONS;
+    positions[PAWN.ordinal()] = PAWN_POSITIONS;
+    positions[QUEEN.ordinal()] = QUEEN_POSITIONS;
+    positions[ROOK.ordinal()] = ROOK_POSITIONS;
+    POSITIONS = new PieceSquareTable(positions);
+  }
+
+  /** Cache de la structure de pions (créé à la première utilisation). */
+  private transient volatile EvaluationCache _pawnHash;
+
   /**
    * Crée une nouvelle instance.
    */
@@ -177,255 +236,264 @@ final class MobilityHeuristic implements Heuristic
   }
 
   /**
-   * Renvoi la valeur estimée d'un état du jeu, pour les fonctions de recherche du meilleur coup.
+   * Calcule la valeur estimée d'un état du jeu, en l'absence de valeur dans le cache.
+   * <p>
+   * Le matériel et les bonus/malus de position sont maintenus au fil des mouvements par
+   * l'échiquier de recherche, et les autres termes sont calculés à partir des cartes des pièces :
+   * l'évaluation ne parcourt pas l'échiquier et ne crée aucun objet (hors détection du mat).
+   * </p>
    * 
    * @param pEtat Etat du jeu.
    * @param pTrait Positionné à "true" si l'on veut une évaluation du point de vue des blancs.
    * @return Valeur estimée.
-   * @see Heuristic#evaluate(MoveGenerator,boolean)
+   * @see AbstractHeuristic#compute(SearchBoard,boolean)
    */
-  public int evaluate(final MoveGenerator pEtat, final boolean pTrait)
+  @Override
+  protected int compute(final SearchBoard pEtat, final boolean pTrait)
   {
     assert pEtat != null;
 
-    final int [] pionsTrait = new int [ FILE_COUNT ];
-    final int [] pionsAdversaire = new int [ FILE_COUNT ];
-
-    int res = -pEtat.getHalfmoveCount() * 2;
-
-    int nbPieces = 0;
-    for (final Square s : Square.values())
+    if (pEtat.getFullmoveNumber() > 5)
     {
-      final Piece piece = pEtat.getPieceAt(s);
-      if (piece != null)
+      // Mat : inutile d'aller plus loin...
+      if (isMate(pEtat, pTrait))
       {
-        nbPieces++;
-        if (piece.getType() == PAWN)
-        {
-          final int idx = s.getFile();
-          if (piece.isWhite() == pTrait)
-          {
-            pionsTrait[idx]++;
-            if (pionsTrait[idx] > 1)
-            {
-              res -= 5;
-            }
-          }
-          else
-          {
-            pionsAdversaire[idx]++;
-            if (pionsAdversaire[idx] > 1)
-            {
-              res += 5;
-            }
-          }
-        }
+        return MATE_VALUE;
+      }
+      if (isMate(pEtat, !pTrait))
+      {
+        return -MATE_VALUE;
       }
     }
 
-    for (final Square s : Square.values())
+    final int nbPieces = pEtat.getPieceCount();
+    final int pions = pawnStructure(pEtat);
+
+    return -pEtat.getHalfmoveCount() * 2 + evaluate(pEtat, pTrait, nbPieces, pions)
+        - evaluate(pEtat, !pTrait, nbPieces, pions);
+  }
+
+  /**
+   * Renvoi la valeur estimée des pièces d'une couleur.
+   * 
+   * @param pEtat Etat du jeu.
+   * @param pCouleur Positionné à "true" pour évaluer les pièces blanches.
+   * @param pNbPieces Nombre de pièces présentes sur l'échiquier.
+   * @param pPions Structure de pions des deux couleurs (voir {@link #pawnStructure(SearchBoard)}).
+   * @return Valeur estimée des pièces de la couleur.
+   */
+  private static int evaluate(final SearchBoard pEtat, final boolean pCouleur,
+      final int pNbPieces, final int pPions)
+  {
+    final Piece [] pieces;
+    if (pCouleur)
     {
-      final Piece piece = pEtat.getPieceAt(s);
-      if (piece != null)
+      pieces = WHITE_PIECES;
+    }
+    else
+    {
+      pieces = BLACK_PIECES;
+    }
+    final long defenses = pEtat.getAttackedSquares(pCouleur);
+    final long attaques = pEtat.getAttackedSquares(!pCouleur);
+
+    int res = pEtat.getMaterial(pCouleur);
+    for (final Piece p : pieces)
+    {
+      final long carte = pEtat.getBitmap(p);
+      final int mat = p.getType().getValue();
+      res += pEtat.getPieceSquareSum(POSITIONS, p);
+      res += Long.bitCount(carte & defenses) * (mat / 20);
+      res -= Long.bitCount(carte & attaques) * (mat / 10);
+    }
+
+    final int pions;
+    if (pCouleur)
+    {
+      pions = pPions & 0xFFFF;
+    }
+    else
+    {
+      pions = pPions >>> 16;
+    }
+    // Pions doublés...
+    res -= pions >>> 8;
+    if (pNbPieces <= END_GAME)
+    {
+      // En fin de partie, la progression des pions compte double...
+      res += pEtat.getPieceSquareSum(POSITIONS, pieces[PAWN.ordinal()]);
+    }
+
+    final long roi = pEtat.getBitmap(pieces[KING.ordinal()]);
+    if (roi != 0L)
+    {
+      if ((pEtat.getFullmoveNumber() > 5) && pEtat.isInCheck(pCouleur))
+      {
+        // Malus pour un échec...
+        res -= 250;
+      }
+      else
       {
-        final boolean traitPiece = piece.isWhite();
-        final PieceType typePiece = piece.getType();
-        final int mat = typePiece.getValue();
-        final int pos;
-        final int mob;
-        switch (typePiece)
+        int idx = Long.numberOfTrailingZeros(roi);
+        if (!pCouleur)
         {
-          case BISHOP :
-            if (traitPiece)
-            {
-              pos = BISHOP_POSITIONS[s.getIndex()];
-            }
-            else
-            {
-              pos = BISHOP_POSITIONS[((RANK_COUNT - 1) - s.getRank()) * FILE_COUNT + s.getFile()];
-            }
-            if (nbPieces >= MIDDLE_GAME)
-            {
-              mob = pEtat.getBishopTargets(s, traitPiece).length * 4;
-            }
-            else
-            {
-              mob = 0;
-            }
-            break;
-          case KING :
-            if ((pEtat.getFullmoveNumber() > 5) && pEtat.isInCheck(traitPiece))
-            {
-              pos = 0;
-              if (pEtat.getValidMoves(traitPiece).length == 0)
-              {
-                // Mat : inutile d'aller plus loin...
-                if (traitPiece == pTrait)
-                {
-                  return MATE_VALUE;
-                }
-
-                return -MATE_VALUE;
-              }
-
-              // Malus pour un échec...
-              mob = -250;
-            }
-            else
-            {
-              final int idx;
-              if (traitPiece)
-              {
-                idx = s.getIndex();
-              }
-              else
-              {
-                idx = ((RANK_COUNT - 1) - s.getRank()) * FILE_COUNT + s.getFile();
-              }
-              if (nbPieces >= END_GAME)
-              {
-                pos = KING_POSITIONS[idx];
-              }
-              else
-              {
-                pos = KING_END_POSITIONS[idx];
-              }
-              if ((pEtat.getFullmoveNumber() <= 32) && pEtat.isCastled(traitPiece))
-              {
-                // Pour favoriser le roque en début de partie...
-                mob = 25;
-              }
-              else
-              {
-                mob = 0;
-              }
-            }
-            break;
-          case KNIGHT :
-            if (traitPiece)
-            {
-              pos = KNIGHT_POSITIONS[s.getIndex()];
-            }
-            else
-            {
-              pos = KNIGHT_POSITIONS[((RANK_COUNT - 1) - s.getRank()) * FILE_COUNT + s.getFile()];
-            }
-            if (nbPieces >= MIDDLE_GAME)
-            {
-              mob = pEtat.getKnightTargets(s, traitPiece).length * 4;
-            }
-            else
-            {
-              mob = 0;
-            }
-            break;
-          case PAWN :
-            if (traitPiece)
-            {
-              pos = PAWN_POSITIONS[s.getIndex()];
-            }
-            else
-            {
-              pos = PAWN_POSITIONS[((RANK_COUNT - 1) - s.getRank()) * FILE_COUNT + s.getFile()];
-            }
-            if (nbPieces > END_GAME)
-            {
-              mob = 0;
-            }
-            else
-            {
-              mob = pos;
-            }
-            break;
-          case QUEEN :
-            int posReine = 0;
-            if (traitPiece)
-            {
-              posReine = QUEEN_POSITIONS[s.getIndex()];
-            }
-            else
-            {
-              posReine =
-                  QUEEN_POSITIONS[((RANK_COUNT - 1) - s.getRank()) * FILE_COUNT + s.getFile()];
-            }
-            if (pEtat.getFullmoveNumber() < 12)
-            {
-              // Essayer d'éviter de déplacer la reine trop tôt...
-              if ((traitPiece && (s.getIndex() != 3)) || ((!traitPiece) && (s.getIndex() != 59)))
-              {
-                posReine -= 30;
-              }
-            }
-            pos = posReine;
-            if ((nbPieces >= END_GAME) && (nbPieces <= MIDDLE_GAME))
-            {
-              mob = pEtat.getQueenTargets(s, traitPiece).length;
-            }
-            else
-            {
-              mob = 0;
-            }
-            break;
-          case ROOK :
-            if (traitPiece)
-            {
-              pos = ROOK_POSITIONS[s.getIndex()];
-            }
-            else
-            {
-              pos = ROOK_POSITIONS[((RANK_COUNT - 1) - s.getRank()) * FILE_COUNT + s.getFile()];
-            }
-            if (nbPieces >= END_GAME)
-            {
-              final int nbPions;
-              if (traitPiece == pTrait)
-              {
-                nbPions = pionsTrait[s.getFile()];
-              }
-              else
-              {
-                nbPions = pionsAdversaire[s.getFile()];
-              }
-              if (nbPions == 0)
-              {
-                mob = 10;
-              }
-              else
-              {
-                mob = 0;
-              }
-            }
-            else
-            {
-              mob = pEtat.getRookTargets(s, traitPiece).length * 2;
-            }
-            break;
-          default :
-            assert false;
-            pos = 0;
-            mob = 0;
+          idx = ((RANK_COUNT - 1) - idx / FILE_COUNT) * FILE_COUNT + idx % FILE_COUNT;
         }
-        int att = 0;
-        if (typePiece != KING)
+        if (pNbPieces >= END_GAME)
         {
-          if (pEtat.isAttacked(s, traitPiece))
-          {
-            att += mat / 20;
-          }
-          if (pEtat.isAttacked(s, !traitPiece))
-          {
-            att -= mat / 10;
-          }
+          res += KING_POSITIONS[idx];
         }
-        final int score = mat + pos + mob + att;
-        if (traitPiece == pTrait)
+        else
         {
-          res += score;
+          res += KING_END_POSITIONS[idx];
         }
-        else
+        if ((pEtat.getFullmoveNumber() <= 32) && pEtat.isCastled(pCouleur))
+        {
+          // Pour favoriser le roque en début de partie...
+          res += 25;
+        }
+      }
+    }
+
+    final long reines = pEtat.getBitmap(pieces[QUEEN.ordinal()]);
+    if (pEtat.getFullmoveNumber() < 12)
+    {
+      // Essayer d'éviter de déplacer la reine trop tôt...
+      final long depart;
+      if (pCouleur)
+      {
+        depart = 1L << 3;
+      }
+      else
+      {
+        depart = 1L << 59;
+      }
+      res -= 30 * Long.bitCount(reines & ~depart);
+    }
+    if ((pNbPieces >= END_GAME) && (pNbPieces <= MIDDLE_GAME))
+    {
+      res += mobility(pEtat, reines);
+    }
+
+    if (pNbPieces >= MIDDLE_GAME)
+    {
+      res += mobility(pEtat, pEtat.getBitmap(pieces[BISHOP.ordinal()])) * 4;
+      res += mobility(pEtat, pEtat.getBitmap(pieces[KNIGHT.ordinal()])) * 4;
+    }
+
+    long tours = pEtat.getBitmap(pieces[ROOK.ordinal()]);
+    if (pNbPieces >= END_GAME)
+    {
+      while (tours != 0L)
+      {
+        if ((pions & (1 << (Long.numberOfTrailingZeros(tours) % FILE_COUNT))) == 0)
         {
-          res -= score;
+          // Tour sur une colonne sans pion de sa couleur...
+          res += 10;
         }
+        tours &= tours - 1;
+      }
+    }
+    else
+    {
+      res += mobility(pEtat, tours) * 2;
+    }
+
+    return res;
+  }
+
+  /**
+   * Renvoi le cache de la structure de pions, en le créant si nécessaire.
+   * 
+   * @return Cache de la structure de pions.
+   */
+  @Override
+  EvaluationCache getPawnHash()
+  {
+    EvaluationCache res = _pawnHash;
+    if (res == null)
+    {
+      res = new EvaluationCache(PAWN_HASH_SIZE);
+      _pawnHash = res;
+    }
+
+    assert res != null;
+    return res;
+  }
+
+  /**
+   * Indique si une couleur est mat.
+   * 
+   * @param pEtat Etat du jeu.
+   * @param pCouleur Couleur à tester.
+   * @return Vrai si la couleur est mat.
+   */
+  private static boolean isMate(final SearchBoard pEtat, final boolean pCouleur)
+  {
+    return pEtat.isInCheck(pCouleur) && (pEtat.getValidMoves(pCouleur).length == 0);
+  }
+
+  /**
+   * Renvoi la mobilité d'un ensemble de pièces.
+   * 
+   * @param pEtat Etat du jeu.
+   * @param pCarte Carte des pièces.
+   * @return Nombre total de cases cibles des pièces (y compris celles conduisant à un échec).
+   */
+  private static int mobility(final SearchBoard pEtat, final long pCarte)
+  {
+    int res = 0;
+    long carte = pCarte;
+    while (carte != 0L)
+    {
+      res += pEtat.getTargetsCount(Long.numberOfTrailingZeros(carte));
+      carte &= carte - 1;
+    }
+
+    return res;
+  }
+
+  /**
+   * Renvoi la structure de pions d'un état du jeu, tirée du cache si possible.
+   * 
+   * @param pEtat Etat du jeu.
+   * @return Structure des pions blancs (16 bits de poids faible) et noirs (16 bits de poids fort),
+   *         voir {@link #pawnStructure(long)}.
+   */
+  private int pawnStructure(final SearchBoard pEtat)
+  {
+    final EvaluationCache cache = getPawnHash();
+    final long cle = pEtat.getPawnKey();
+    final long donnee = cache.get(cle);
+    if (donnee != 0L)
+    {
+      return EvaluationCache.valueOf(donnee);
+    }
+
+    final int blancs = pawnStructure(pEtat.getBitmap(WHITE_PAWN));
+    final int res = blancs | (pawnStructure(pEtat.getBitmap(BLACK_PAWN)) << 16);
+    cache.put(cle, res);
+
+    return res;
+  }
+
+  /**
+   * Renvoi la structure d'un ensemble de pions de même couleur.
+   * 
+   * @param pPions Carte des pions.
+   * @return Colonnes occupées par au moins un pion (un bit par colonne, sur les 8 bits de poids
+   *         faible), et malus des pions doublés (sur les 8 bits suivants).
+   */
+  private static int pawnStructure(final long pPions)
+  {
+    int res = 0;
+    for (int i = FILE_COUNT; --i >= 0; /* Pré-décrémenté */)
+    {
+      final int nbPions = Long.bitCount(pPions & (FILE_A << i));
+      if (nbPions > 0)
+      {
+        res |= 1 << i;
+        res += (5 * (nbPions - 1)) << 8;
       }
     }
 
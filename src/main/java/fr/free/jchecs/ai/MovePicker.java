@@ -0,0 +1,429 @@
+/*
+ $Id$
+
+ Copyright (C) 2006-2007 by David Cotton
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU General Public License as published by the Free Software
+ Foundation; either version 2 of the License, or (at your option) any later
+ version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along with
+ this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package fr.free.jchecs.ai;
+
+import fr.free.jchecs.core.Move;
+import fr.free.jchecs.core.MoveGenerator;
+import fr.free.jchecs.core.MoveList;
+import fr.free.jchecs.core.SearchBoard;
+
+/**
+ * Fournit les mouvements valides d'un noeud de l'arbre de recherche par étapes, du plus prometteur
+ * au moins prometteur.
+ * <p>
+ * Sont successivement proposés : le mouvement issu de la table de transposition, les prises d'une
+ * pièce de valeur au moins égale à celle de la pièce jouée (classées par valeur de la pièce prise
+ * décroissante, puis de la pièce jouée croissante : "MVV-LVA"), les "killer moves" du niveau et
+ * la réfutation du mouvement précédent, les autres prises, puis les mouvements sans prise, classés
+ * par l'historique de la recherche (voir {@link MoveScorer}). Chaque étape n'est générée que si la
+ * précédente a été épuisée : lorsqu'une coupure beta intervient dès les premiers mouvements, les
+ * mouvements sans prise ne sont ni générés ni notés.
+ * </p>
+ * <p>
+ * Les scores d'une étape sont calculés une seule fois, dans un tableau d'entiers parallèle à la
+ * liste des mouvements, et chaque mouvement est ensuite sélectionné parmi ceux restants (tri par
+ * sélection partiel) : seuls les mouvements effectivement examinés par la recherche sont classés.
+ * </p>
+ * <p>
+ * Une instance est destinée à être réutilisée (une par niveau de l'arbre) : elle n'est pas sûre
+ * vis-à-vis des threads.
+ * </p>
+ * 
+ * @author David Cotton
+ */
+final class MovePicker
+{
+  /** Etape : mouvement de la table de transposition. */
+  private static final int HASH_STAGE = 0;
+
+  /** Etape : prises a priori gagnantes (ou égales). */
+  private static final int GOOD_CAPTURES_STAGE = 1;
+
+  /** Etape : "killer moves" et réfutation. */
+  private static final int KILLERS_STAGE = 2;
+
+  /** Etape : prises a priori perdantes. */
+  private static final int BAD_CAPTURES_STAGE = 3;
+
+  /** Etape : mouvements sans prise. */
+  private static final int QUIETS_STAGE = 4;
+
+  /** Etape : plus aucun mouvement. */
+  private static final int END_STAGE = 5;
+
+  /** Prises valides du noeud. */
+  private final MoveList _captures = new MoveList();
+
+  /** Scores "MVV-LVA" des prises, parallèles à _captures. */
+  private int [] _captureScores = new int [ 64 ];
+
+  /** Identifiants des "killer moves" et de la réfutation candidats. */
+  private final int [] _killers = new int [ MoveScorer.KILLER_MOVES_COUNT + 1 ];
+
+  /** Mouvements valides sans prise du noeud. */
+  private final MoveList _quiets = new MoveList();
+
+  /** Scores des mouvements sans prise, parallèles à _quiets. */
+  private int [] _quietScores = new int [ 64 ];
+
+  /** Etat du noeud. */
+  private MoveGenerator _board;
+
+  /** Indicateur de limitation aux prises (recherche de quiescence). */
+  private boolean _capturesOnly;
+
+  /** Indicateur de génération des prises. */
+  private boolean _capturesGenerated;
+
+  /** Identifiant du mouvement de la table de transposition (0 si aucun). */
+  private int _hashMove;
+
+  /** Position de la prochaine prise à proposer. */
+  private int _captureIndex;
+
+  /** Position courante dans l'étape en cours (hors prises). */
+  private int _index;
+
+  /** Nombre de "killer moves" et réfutation candidats. */
+  private int _killersCount;
+
+  /** Indicateur de génération des mouvements sans prise. */
+  private boolean _quietsGenerated;
+
+  /** Indicateur de notation des mouvements sans prise. */
+  private boolean _quietsScored;
+
+  /** Contexte de la recherche notant les mouvements sans prise. */
+  private MoveScorer _scorer;
+
+  /** Etape en cours. */
+  private int _stage;
+
+  /**
+   * Crée une nouvelle instance.
+   */
+  MovePicker()
+  {
+    // Rien de spécifique...
+  }
+
+  /**
+   * Ajoute un candidat à l'étape des "killer moves", s'il n'y figure pas déjà.
+   * 
+   * @param pMouvement Identifiant du candidat (0 si aucun).
+   */
+  private void addKiller(final int pMouvement)
+  {
+    if (pMouvement == 0)
+    {
+      return;
+    }
+    for (int i = _killersCount; --i >= 0; /* Pré-décrémenté */)
+    {
+      if (_killers[i] == pMouvement)
+      {
+        return;
+      }
+    }
+    _killers[_killersCount++] = pMouvement;
+  }
+
+  /**
+   * Génère les prises du noeud, si elles ne l'ont pas encore été, et calcule leurs scores.
+   */
+  private void generateCaptures()
+  {
+    if (_capturesGenerated)
+    {
+      return;
+    }
+
+    _board.generateCaptures(_captures);
+    final int l = _captures.size();
+    if (_captureScores.length < l)
+    {
+      _captureScores = new int [ l ];
+    }
+    for (int i = l; --i >= 0; /* Pré-décrémenté */)
+    {
+      _captureScores[i] = MoveScorer.captureScore(_captures.get(i));
+    }
+    _capturesGenerated = true;
+  }
+
+  /**
+   * Génère les mouvements sans prise du noeud, s'ils ne l'ont pas encore été.
+   */
+  private void generateQuiets()
+  {
+    if (!_quietsGenerated)
+    {
+      _board.generateQuietMoves(_quiets);
+      _quietsGenerated = true;
+    }
+  }
+
+  /**
+   * Génère et note les mouvements sans prise du noeud, s'ils ne l'ont pas encore été.
+   */
+  private void generateScoredQuiets()
+  {
+    generateQuiets();
+    if (_quietsScored)
+    {
+      return;
+    }
+
+    final int l = _quiets.size();
+    if (_quietScores.length < l)
+    {
+      _quietScores = new int [ l ];
+    }
+    for (int i = l; --i >= 0; /* Pré-décrémenté */)
+    {
+      _quietScores[i] = _scorer.quietScore(_quiets.get(i));
+    }
+    _quietsScored = true;
+  }
+
+  /**
+   * Initialise l'instance pour un nouveau noeud.
+   * 
+   * @param pEtat Etat du noeud.
+   * @param pHash Identifiant du mouvement de la table de transposition (0 si aucun).
+   * @param pContexte Contexte de la recherche : ses "killer moves" pour le niveau du noeud et sa
+   *          réfutation du mouvement précédent sont proposés avant les autres mouvements sans
+   *          prise, classés par son historique.
+   */
+  void init(final SearchBoard pEtat, final int pHash, final MoveScorer pContexte)
+  {
+    assert pEtat != null;
+    assert pContexte != null;
+
+    _board = pEtat;
+    _capturesOnly = false;
+    _hashMove = pHash;
+    _scorer = pContexte;
+    _killersCount = 0;
+    final int niveau = pEtat.getPly();
+    for (int i = 0; i < MoveScorer.KILLER_MOVES_COUNT; i++)
+    {
+      addKiller(pContexte.getKiller(niveau, i));
+    }
+    addKiller(pContexte.getCounterMove(pEtat.getLastMove()));
+    _capturesGenerated = false;
+    _quietsGenerated = false;
+    _quietsScored = false;
+    _stage = HASH_STAGE;
+    _captureIndex = 0;
+    _index = 0;
+  }
+
+  /**
+   * Initialise l'instance pour un noeud de la recherche de quiescence : seules les prises sont
+   * proposées, les prises a priori gagnantes d'abord.
+   * 
+   * @param pEtat Etat du noeud.
+   */
+  void initCaptures(final MoveGenerator pEtat)
+  {
+    assert pEtat != null;
+
+    _board = pEtat;
+    _capturesOnly = true;
+    _hashMove = 0;
+    _scorer = null;
+    _killersCount = 0;
+    _capturesGenerated = false;
+    _quietsGenerated = false;
+    _quietsScored = false;
+    _stage = GOOD_CAPTURES_STAGE;
+    _captureIndex = 0;
+    _index = 0;
+  }
+
+  /**
+   * Indique si un mouvement a déjà été proposé lors d'une étape précédant celle des mouvements
+   * sans prise.
+   * 
+   * @param pMouvement Identifiant du mouvement.
+   * @return Vrai si le mouvement a déjà été proposé.
+   */
+  private boolean isAlreadyPicked(final int pMouvement)
+  {
+    if (pMouvement == _hashMove)
+    {
+      return true;
+    }
+    for (int i = _killersCount; --i >= 0; /* Pré-décrémenté */)
+    {
+      if (pMouvement == _killers[i])
+      {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * Renvoi le prochain mouvement à examiner.
+   * 
+   * @return Identifiant du mouvement (voir {@link Move#toId()}), ou 0 s'il n'y en a plus.
+   */
+  int next()
+  {
+    switch (_stage)
+    {
+      case HASH_STAGE :
+        _stage = GOOD_CAPTURES_STAGE;
+        if ((_hashMove != 0) && _board.isValidMove(_hashMove))
+        {
+          return _hashMove;
+        }
+        _hashMove = 0;
+        // Pas de mouvement de la table : on passe directement aux prises...
+        return next();
+      case GOOD_CAPTURES_STAGE :
+        generateCaptures();
+        final int bonne = nextCapture(0);
+        if (bonne != 0)
+        {
+          return bonne;
+        }
+        _stage = KILLERS_STAGE;
+        return next();
+      case KILLERS_STAGE :
+        while (_index < _killersCount)
+        {
+          final int mvt = _killers[_index++];
+          if ((mvt != _hashMove) && (Move.capturedOf(mvt) == null) && _board.isValidMove(mvt))
+          {
+            return mvt;
+          }
+          // Candidat écarté : il ne doit pas l'être non plus des mouvements sans prise...
+          _killers[--_index] = _killers[--_killersCount];
+        }
+        _stage = BAD_CAPTURES_STAGE;
+        return next();
+      case BAD_CAPTURES_STAGE :
+        final int mauvaise = nextCapture(Integer.MIN_VALUE);
+        if (mauvaise != 0)
+        {
+          return mauvaise;
+        }
+        if (_capturesOnly)
+        {
+          _stage = END_STAGE;
+          return 0;
+        }
+        _stage = QUIETS_STAGE;
+        _index = 0;
+        return next();
+      case QUIETS_STAGE :
+        generateScoredQuiets();
+        while (_index < _quiets.size())
+        {
+          final int mvt = select(_quiets, _quietScores, _index++);
+          if (!isAlreadyPicked(mvt))
+          {
+            return mvt;
+          }
+        }
+        _stage = END_STAGE;
+        return 0;
+      default :
+        return 0;
+    }
+  }
+
+  /**
+   * Renvoi la meilleure prise restante, si son score atteint un seuil.
+   * <p>
+   * Sélectionne la prise sans trier toute la liste : seules les prises effectivement examinées
+   * par la recherche sont classées.
+   * </p>
+   * 
+   * @param pSeuil Score minimum de la prise.
+   * @return Identifiant de la prise, ou 0 s'il n'y en a plus au-dessus du seuil.
+   */
+  private int nextCapture(final int pSeuil)
+  {
+    while (_captureIndex < _captures.size())
+    {
+      final int mvt = select(_captures, _captureScores, _captureIndex);
+      if (_captureScores[_captureIndex] < pSeuil)
+      {
+        return 0;
+      }
+      _captureIndex++;
+      if (mvt != _hashMove)
+      {
+        return mvt;
+      }
+    }
+
+    return 0;
+  }
+
+  /**
+   * Place en tête des mouvements restants d'une liste celui de meilleur score (étape d'un tri par
+   * sélection).
+   * 
+   * @param pListe Liste des mouvements.
+   * @param pScores Scores des mouvements, parallèles à la liste et permutés avec elle.
+   * @param pDebut Position du premier mouvement restant.
+   * @return Identifiant du mouvement sélectionné, désormais en position pDebut.
+   */
+  private static int select(final MoveList pListe, final int [] pScores, final int pDebut)
+  {
+    assert pDebut < pListe.size();
+
+    int meilleur = pDebut;
+    for (int i = pListe.size(); --i > pDebut; /* Pré-décrémenté */)
+    {
+      if (pScores[i] > pScores[meilleur])
+      {
+        meilleur = i;
+      }
+    }
+    pListe.swap(pDebut, meilleur);
+    final int score = pScores[meilleur];
+    pScores[meilleur] = pScores[pDebut];
+    pScores[pDebut] = score;
+
+    return pListe.get(pDebut);
+  }
+
+  /**
+   * Renvoi le nombre total de mouvements valides du noeud.
+   * <p>
+   * Force la génération de toutes les étapes (mais pas leur notation).
+   * </p>
+   * 
+   * @return Nombre de mouvements valides.
+   */
+  int size()
+  {
+    generateCaptures();
+    generateQuiets();
+
+    return _captures.size() + _quiets.size();
+  }
+}
@@ -0,0 +1,222 @@
+/*
+ $Id$
+
+ Copyright (C) 2006-2007 by David Cotton
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU General Public License as published by the Free Software
+ Foundation; either version 2 of the License, or (at your option) any later
+ version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along with
+ this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package fr.free.jchecs.ai;
+
+import java.util.Arrays;
+
+import fr.free.jchecs.core.Move;
+
+/**
+ * Mémorise le contexte d'une recherche utile à l'ordenancement des mouvements, et note les
+ * mouvements à partir de celui-ci.
+ * <p>
+ * Sont mémorisés, à chaque coupure beta provoquée par un mouvement sans prise :
+ * </p>
+ * <ul>
+ * <li>deux "killer moves" par niveau de l'arbre de recherche ;</li>
+ * <li>un historique des mouvements, indexé par couleur, case de départ et case d'arrivée
+ * ("butterfly history"), pondéré par la profondeur restante ;</li>
+ * <li>la réfutation du mouvement précédent ("countermove"), indexée par ses cases de départ et
+ * d'arrivée.</li>
+ * </ul>
+ * <p>
+ * Les prises sont quant à elles notées par valeur de la pièce prise décroissante, puis de la pièce
+ * jouée croissante ("MVV-LVA"). Chaque moteur dispose de sa propre instance : elle n'est pas sûre
+ * vis-à-vis des threads.
+ * </p>
+ * 
+ * @author David Cotton
+ */
+final class MoveScorer
+{
+  /** Nombre de "killer moves" mémorisés par niveau. */
+  static final int KILLER_MOVES_COUNT = 2;
+
+  /** Pénalité appliquée au score des prises a priori perdantes, pour les rendre négatifs. */
+  private static final int BAD_CAPTURE_PENALTY = 100000000;
+
+  /** Valeur de l'historique au-delà de laquelle toutes les valeurs sont divisées par deux. */
+  private static final int HISTORY_LIMIT = 1 << 24;
+
+  /** Historique des mouvements, par couleur, case de départ et case d'arrivée. */
+  private final int [] _history = new int [ 2 * 64 * 64 ];
+
+  /** Réfutations, par cases de départ et d'arrivée du mouvement précédent. */
+  private final int [] _counterMoves = new int [ 64 * 64 ];
+
+  /** "Killer moves" de chaque niveau, les plus récents en premier. */
+  private int [] _killers = new int [ 64 * KILLER_MOVES_COUNT ];
+
+  /**
+   * Crée une nouvelle instance.
+   */
+  MoveScorer()
+  {
+    // Rien de spécifique...
+  }
+
+  /**
+   * Renvoi le score "MVV-LVA" d'une prise.
+   * 
+   * @param pMouvement Identifiant de la prise.
+   * @return Score de la prise (négatif si la pièce prise vaut moins que la pièce jouée).
+   */
+  static int captureScore(final int pMouvement)
+  {
+    assert Move.capturedOf(pMouvement) != null;
+
+    final int victime = Move.capturedOf(pMouvement).getType().getValue();
+    final int attaquant = Move.pieceOf(pMouvement).getType().getValue();
+
+    int res = 1000 * victime - attaquant;
+    if (victime < attaquant)
+    {
+      res -= BAD_CAPTURE_PENALTY;
+    }
+
+    return res;
+  }
+
+  /**
+   * Efface le contexte mémorisé.
+   */
+  void clear()
+  {
+    Arrays.fill(_history, 0);
+    Arrays.fill(_counterMoves, 0);
+    Arrays.fill(_killers, 0);
+  }
+
+  /**
+   * Renvoi la réfutation mémorisée d'un mouvement.
+   * 
+   * @param pPrecedent Identifiant du mouvement précédent (0 si aucun).
+   * @return Identifiant de la réfutation (0 si aucune).
+   */
+  int getCounterMove(final int pPrecedent)
+  {
+    if (pPrecedent == 0)
+    {
+      return 0;
+    }
+
+    return _counterMoves[Move.fromOf(pPrecedent) + 64 * Move.toOf(pPrecedent)];
+  }
+
+  /**
+   * Renvoi un "killer move" mémorisé pour un niveau de l'arbre de recherche.
+   * 
+   * @param pNiveau Niveau dans l'arbre de recherche (>= 0).
+   * @param pRang Rang du "killer move" (dans [0, KILLER_MOVES_COUNT[, le plus récent en premier).
+   * @return Identifiant du "killer move" (0 si aucun).
+   */
+  int getKiller(final int pNiveau, final int pRang)
+  {
+    assert pNiveau >= 0;
+    assert (pRang >= 0) && (pRang < KILLER_MOVES_COUNT);
+
+    final int i = pNiveau * KILLER_MOVES_COUNT + pRang;
+    if (i >= _killers.length)
+    {
+      return 0;
+    }
+
+    return _killers[i];
+  }
+
+  /**
+   * Renvoi la position d'un mouvement dans l'historique.
+   * 
+   * @param pMouvement Identifiant du mouvement.
+   * @return Position du mouvement dans l'historique.
+   */
+  private static int historyIndex(final int pMouvement)
+  {
+    final int base;
+    if (Move.pieceOf(pMouvement).isWhite())
+    {
+      base = 0;
+    }
+    else
+    {
+      base = 64 * 64;
+    }
+
+    return base + Move.fromOf(pMouvement) + 64 * Move.toOf(pMouvement);
+  }
+
+  /**
+   * Renvoi le score d'un mouvement sans prise, tiré de l'historique.
+   * 
+   * @param pMouvement Identifiant du mouvement.
+   * @return Score du mouvement (>= 0).
+   */
+  int quietScore(final int pMouvement)
+  {
+    return _history[historyIndex(pMouvement)];
+  }
+
+  /**
+   * Mémorise un mouvement sans prise ayant provoqué une coupure beta.
+   * 
+   * @param pNiveau Niveau dans l'arbre de recherche (>= 0).
+   * @param pMouvement Identifiant du mouvement.
+   * @param pPrecedent Identifiant du mouvement précédent (0 si aucun).
+   * @param pProfondeur Profondeur restante de la recherche au niveau du mouvement (>= 0).
+   */
+  void update(final int pNiveau, final int pMouvement, final int pPrecedent,
+      final int pProfondeur)
+  {
+    assert pNiveau >= 0;
+    assert pMouvement != 0;
+    assert Move.capturedOf(pMouvement) == null;
+    assert pProfondeur >= 0;
+
+    final int base = pNiveau * KILLER_MOVES_COUNT;
+    if (base + KILLER_MOVES_COUNT > _killers.length)
+    {
+      final int [] extension = new int [ base + 8 * KILLER_MOVES_COUNT ];
+      System.arraycopy(_killers, 0, extension, 0, _killers.length);
+      _killers = extension;
+    }
+    if (_killers[base] != pMouvement)
+    {
+      for (int i = KILLER_MOVES_COUNT; --i > 0; /* Pré-décrémenté */)
+      {
+        _killers[base + i] = _killers[base + i - 1];
+      }
+      _killers[base] = pMouvement;
+    }
+
+    final int h = historyIndex(pMouvement);
+    _history[h] += (pProfondeur + 1) * (pProfondeur + 1);
+    if (_history[h] > HISTORY_LIMIT)
+    {
+      for (int i = _history.length; --i >= 0; /* Pré-décrémenté */)
+      {
+        _history[i] /= 2;
+      }
+    }
+
+    if (pPrecedent != 0)
+    {
+      _counterMoves[Move.fromOf(pPrecedent) + 64 * Move.toOf(pPrecedent)] = pMouvement;
+    }
+  }
+}
@@ -21,16 +21,26 @@ package fr.free.jchecs.ai;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import static fr.free.jchecs.core.Piece.BLACK_BISHOP;
+import static fr.free.jchecs.core.Piece.BLACK_KNIGHT;
 import static fr.free.jchecs.core.Piece.BLACK_PAWN;
+import static fr.free.jchecs.core.Piece.BLACK_QUEEN;
 import static fr.free.jchecs.core.Piece.BLACK_ROOK;
+import static fr.free.jchecs.core.Piece.WHITE_KNIGHT;
 import static fr.free.jchecs.core.Piece.WHITE_PAWN;
+import static fr.free.jchecs.core.Piece.WHITE_QUEEN;
 
 import java.util.Arrays;
 import java.util.Comparator;
 
 import org.junit.Test;
 
+import fr.free.jchecs.core.BoardFactory;
+import fr.free.jchecs.core.FENException;
+import fr.free.jchecs.core.FENUtils;
 import fr.free.jchecs.core.Move;
+import fr.free.jchecs.core.Piece;
+import fr.free.jchecs.core.SearchBoard;
 import fr.free.jchecs.core.Square;
 
 /**
@@ -48,6 +58,100 @@ public final class MoveSorterTest
     // Rien de spécifique...
   }
 
+  /**
+   * Renvoi l'identifiant d'un mouvement.
+   * 
+   * @param pPiece Pièce déplacée.
+   * @param pOrigine Case de départ.
+   * @param pDestination Case d'arrivée.
+   * @param pPrise Pièce prise (ou null).
+   * @return Identifiant du mouvement.
+   */
+  private static int idOf(final Piece pPiece, final String pOrigine, final String pDestination,
+      final Piece pPrise)
+  {
+    return new Move(pPiece, Square.valueOf(pOrigine), Square.valueOf(pDestination), pPrise).toId();
+  }
+
+  /**
+   * Valide l'ordre des mouvements proposés par étapes.
+   * 
+   * @throws FENException en cas d'erreur dans ce test.
+   */
+  @Test
+  public void valideMovePicker() throws FENException
+  {
+    final MoveScorer contexte = new MoveScorer();
+    final SearchBoard etat =
+        new SearchBoard(FENUtils.toBoard("4k3/8/8/1q1r4/2P5/8/8/1N2K1Q1 w - - 0 1"));
+    final int killer = idOf(WHITE_KNIGHT, "b1", "a3", null);
+    contexte.update(0, killer, 0, 1);
+    final int historique = idOf(WHITE_QUEEN, "g1", "g7", null);
+    contexte.update(3, historique, 0, 4);
+
+    final MovePicker coups = new MovePicker();
+    coups.init(etat, 0, contexte);
+    final int total = coups.size();
+    assertEquals(idOf(WHITE_PAWN, "c4", "b5", BLACK_QUEEN), coups.next());
+    assertEquals(idOf(WHITE_PAWN, "c4", "d5", BLACK_ROOK), coups.next());
+    assertEquals(killer, coups.next());
+    assertEquals(historique, coups.next());
+    int n = 4;
+    for (int mvt = coups.next(); mvt != 0; mvt = coups.next())
+    {
+      assertTrue((mvt != killer) && (mvt != historique));
+      n++;
+    }
+    assertEquals(total, n);
+
+    final int c5 = idOf(WHITE_PAWN, "c4", "c5", null);
+    final int refutation = idOf(BLACK_QUEEN, "b5", "b8", null);
+    contexte.update(7, refutation, c5, 1);
+    etat.makeMove(c5);
+    coups.init(etat, 0, contexte);
+    assertEquals(refutation, coups.next());
+    assertEquals(idOf(BLACK_QUEEN, "b5", "b1", WHITE_KNIGHT), coups.next());
+    assertEquals(idOf(BLACK_ROOK, "d5", "c5", WHITE_PAWN), coups.next());
+    assertEquals(idOf(BLACK_QUEEN, "b5", "c5", WHITE_PAWN), coups.next());
+  }
+
+  /**
+   * Valide la mémorisation du contexte de la recherche.
+   */
+  @Test
+  public void valideMoveScorer()
+  {
+    final MoveScorer contexte = new MoveScorer();
+    final int e5 = idOf(BLACK_PAWN, "e7", "e5", null);
+    final int c6 = idOf(BLACK_KNIGHT, "b8", "c6", null);
+    final int e4 = idOf(WHITE_PAWN, "e2", "e4", null);
+    assertEquals(0, contexte.getKiller(2, 0));
+    assertEquals(0, contexte.getKiller(100, 1));
+    assertEquals(0, contexte.getCounterMove(e4));
+
+    contexte.update(1, e5, e4, 2);
+    contexte.update(1, c6, 0, 1);
+    contexte.update(1, c6, 0, 1);
+    assertEquals(c6, contexte.getKiller(1, 0));
+    assertEquals(e5, contexte.getKiller(1, 1));
+    assertEquals(0, contexte.getKiller(0, 0));
+    assertEquals(e5, contexte.getCounterMove(e4));
+    assertTrue(contexte.quietScore(e5) > contexte.quietScore(c6));
+    assertEquals(0, contexte.quietScore(idOf(BLACK_BISHOP, "f8", "c5", null)));
+
+    contexte.update(100, e5, 0, 0);
+    assertEquals(e5, contexte.getKiller(100, 0));
+
+    assertTrue(MoveScorer.captureScore(idOf(WHITE_PAWN, "d4", "e5", BLACK_QUEEN)) > MoveScorer
+        .captureScore(idOf(WHITE_QUEEN, "d4", "e5", BLACK_QUEEN)));
+    assertTrue(MoveScorer.captureScore(idOf(WHITE_QUEEN, "d4", "e5", BLACK_PAWN)) < 0);
+
+    contexte.clear();
+    assertEquals(0, contexte.getKiller(1, 0));
+    assertEquals(0, contexte.getCounterMove(e4));
+    assertEquals(0, contexte.quietScore(e5));
+  }
+
   /**
    * Valide la méthode de comparaison du tri static.
    */
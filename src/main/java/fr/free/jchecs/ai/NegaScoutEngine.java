@@ -18,22 +18,34 @@
  */
 package fr.free.jchecs.ai;
 
-import java.util.Arrays;
-import java.util.Comparator;
-
 import fr.free.jchecs.core.Move;
-import fr.free.jchecs.core.MoveGenerator;
+import fr.free.jchecs.core.SearchBoard;
 
 /**
  * Moteur d'IA basé sur l'algorithme NegaScout (aussi appelé Principal Variation Search), avec table
- * de transposition, sur 5 demi-coups.
+ * de transposition, sur 5 demi-coups prolongés par une recherche de quiescence.
  * 
  * @author David Cotton
  */
 final class NegaScoutEngine extends AbstractEngine
 {
-  /** Table de transposition. */
-  private static final TranspositionTable TRANSPOSITIONS = new TranspositionTable(1000000);
+  /** Demi-largeur de la fenêtre d'aspiration, autour du score de l'itération précédente. */
+  private static final int ASPIRATION_WINDOW = 50;
+
+  /** Rang (dans l'ordre d'examen) à partir duquel un mouvement peut être réduit d'un niveau. */
+  private static final int LMR_MIN_RANK = 4;
+
+  /** Rang à partir duquel un mouvement peut être réduit de deux niveaux. */
+  private static final int LMR_DEEP_RANK = 12;
+
+  /** Profondeur restante minimale pour réduire un mouvement tardif. */
+  private static final int LMR_MIN_DEPTH = 3;
+
+  /** Profondeur restante minimale pour tenter un passage de trait. */
+  private static final int NULL_MOVE_MIN_DEPTH = 3;
+
+  /** Réduction de la profondeur de la recherche suivant un passage de trait. */
+  private static final int NULL_MOVE_REDUCTION = 2;
 
   /**
    * Instancie un nouveau moteur IA Negascout.
@@ -41,27 +53,51 @@ final class NegaScoutEngine extends AbstractEngine
   NegaScoutEngine()
   {
     super(3, 6, 5);
+  }
 
-    setMoveSorter(new KillerMoveSorter());
+  /**
+   * Indique si le moteur utilise la table de transposition partagée.
+   * 
+   * @return Vrai.
+   */
+  @Override
+  protected boolean isUsingTranspositionTable()
+  {
+    return true;
   }
 
   /**
    * Recherche le meilleur coup évalué à partir d'une position.
+   * <p>
+   * Si elles sont activées, deux techniques de recherche sélective s'ajoutent à la recherche à
+   * fenêtre nulle :
+   * </p>
+   * <ul>
+   * <li>le passage de trait ("null move pruning") : si l'adversaire, jouant deux fois de suite, ne
+   * parvient pas à ramener l'évaluation sous beta lors d'une recherche moins profonde, le noeud est
+   * coupé sans examiner ses mouvements. Ni en échec, ni deux fois de suite, ni sans autre pièce que
+   * le roi et les pions (risque de "zugzwang"), ni sur la variante principale ;</li>
+   * <li>la réduction des mouvements tardifs ("late move reductions") : les mouvements sans prise
+   * examinés tardivement, donc a priori mauvais, sont recherchés moins profondément, puis de
+   * nouveau normalement s'ils s'avèrent meilleurs que prévu.</li>
+   * </ul>
    * 
    * @param pEtat Etat de l'échiquier.
    * @param pProfondeur Profondeur d'évaluation actuelle.
    * @param pAlpha Seuil alpha.
    * @param pBeta Seuil beta.
    * @param pLimite Profondeur limite.
+   * @param pNul A faux si le demi-coup précédent était un passage de trait.
    * @return Meilleure évaluation obtenue à ce niveau.
    */
-  private int negascout(final MoveGenerator pEtat, final int pProfondeur, final int pAlpha,
-      final int pBeta, final int pLimite)
+  private int negascout(final SearchBoard pEtat, final int pProfondeur, final int pAlpha,
+      final int pBeta, final int pLimite, final boolean pNul)
   {
     assert pEtat != null;
     assert pAlpha <= pBeta;
 
-    final Integer resultat = TRANSPOSITIONS.get(pEtat, pProfondeur, pAlpha, pBeta);
+    final TranspositionTable transpositions = getTranspositionTable();
+    final Integer resultat = probeTranspositions(pEtat, pProfondeur, pAlpha, pBeta);
     if (resultat != null)
     {
       return resultat.intValue();
@@ -71,44 +107,52 @@ final class NegaScoutEngine extends AbstractEngine
 
     if (pProfondeur <= pLimite)
     {
-      final int valeur = getHeuristic().evaluate(pEtat, trait);
-      TRANSPOSITIONS.put(pEtat, pProfondeur, pAlpha, pBeta, valeur);
+      final int valeur = quiesce(pEtat, pAlpha, pBeta);
+      transpositions.put(pEtat, pProfondeur, pAlpha, pBeta, valeur, 0);
 
       return valeur;
     }
 
-    final Move [] coups = pEtat.getValidMoves(trait);
-    final int l = coups.length;
-    if (l == 0)
+    final boolean echec = pEtat.isInCheck(trait);
+    if (pNul && isNullMoveEnabled() && !echec && (pBeta <= pAlpha + 1)
+        && (pProfondeur - pLimite >= NULL_MOVE_MIN_DEPTH) && pEtat.hasNonPawnMaterial(trait))
+    {
+      addHalfmove(1);
+      pEtat.makeNullMove();
+      final int note = -negascout(pEtat, pProfondeur - 1 - NULL_MOVE_REDUCTION, -pBeta - 1,
+          -pBeta, pLimite, false);
+      pEtat.unmakeNullMove();
+      if (note > pBeta)
+      {
+        return note;
+      }
+    }
+
+    final MoveScorer contexte = getMoveScorer();
+    final MovePicker coups = getMovePicker(pEtat.getPly());
+    coups.init(pEtat, transpositions.getMove(pEtat), contexte);
+    // Le décompte force la génération de toutes les étapes : il est réservé aux positions en
+    // échec, où les parades sont peu nombreuses (presque toutes les positions concernées).
+    final boolean peuDeCoups = (pProfondeur == 1) && echec && (coups.size() <= 3);
+    int mvt = coups.next();
+    if (mvt == 0)
     {
       final int valeur = getHeuristic().evaluate(pEtat, trait);
-      TRANSPOSITIONS.put(pEtat, pProfondeur, pAlpha, pBeta, valeur);
+      transpositions.put(pEtat, pProfondeur, pAlpha, pBeta, valeur, 0);
 
       return valeur;
     }
 
     int res = MATE_VALUE - 1;
+    int meilleur = 0;
 
-    final Comparator<Move> tri = getMoveSorter();
-    final ContextSorter ctx;
-    if (tri instanceof ContextSorter)
-    {
-      ctx = (ContextSorter) tri;
-    }
-    else
-    {
-      ctx = null;
-    }
-    Arrays.sort(coups, tri);
-    addHalfmove(l);
     int alpha = pAlpha;
-    for (int i = 0; i < l; i++)
+    for (int i = 0; mvt != 0; i++, mvt = coups.next())
     {
-      final Move mvt = coups[i];
-      final MoveGenerator etat = pEtat.derive(mvt, true);
+      addHalfmove(1);
+      pEtat.makeMove(mvt);
       final int limite;
-      if (((pProfondeur == 1) && ((l <= 3) || (mvt.getCaptured() != null)))
-          || etat.isInCheck(etat.isWhiteActive()))
+      if (peuDeCoups || pEtat.isInCheck(pEtat.isWhiteActive()))
       {
         limite = -1;
       }
@@ -119,27 +163,49 @@ final class NegaScoutEngine extends AbstractEngine
       int note;
       if (i == 0)
       {
-        note = -negascout(etat, pProfondeur - 1, -pBeta, -alpha, limite);
+        note = -negascout(pEtat, pProfondeur - 1, -pBeta, -alpha, limite, true);
       }
       else
       {
-        note = -negascout(etat, pProfondeur - 1, -alpha - 1, -alpha, limite);
-      }
-      if (note > res)
-      {
-        if ((i > 0) && (alpha < note) && (note < pBeta) && (pProfondeur > limite + 2))
+        int reduction = 0;
+        if (isLateMoveReductionsEnabled() && (i >= LMR_MIN_RANK) && (limite == 0) && !echec
+            && (pProfondeur >= LMR_MIN_DEPTH) && (Move.capturedOf(mvt) == null))
         {
-          note = -negascout(etat, pProfondeur - 1, -pBeta, -note, limite);
+          if ((i >= LMR_DEEP_RANK) && (pProfondeur > LMR_MIN_DEPTH))
+          {
+            reduction = 2;
+          }
+          else
+          {
+            reduction = 1;
+          }
         }
+        note = -negascout(pEtat, pProfondeur - 1 - reduction, -alpha - 1, -alpha, limite, true);
+        if ((reduction > 0) && (note > alpha))
+        {
+          // Meilleur que prévu : vérification à la profondeur normale...
+          note = -negascout(pEtat, pProfondeur - 1, -alpha - 1, -alpha, limite, true);
+        }
+      }
+      final boolean ameliore = note > res;
+      if (ameliore && (i > 0) && (alpha < note) && (note < pBeta) && (pProfondeur > limite + 2))
+      {
+        note = -negascout(pEtat, pProfondeur - 1, -pBeta, -note, limite, true);
+      }
+      pEtat.unmakeMove();
+      if (ameliore)
+      {
         res = note;
+        meilleur = mvt;
         if (res > alpha)
         {
           alpha = res;
           if (alpha > pBeta)
           {
-            if (ctx != null)
+            countCutoff(i == 0);
+            if (Move.capturedOf(mvt) == null)
             {
-              ctx.put(mvt);
+              contexte.update(pEtat.getPly(), mvt, pEtat.getLastMove(), pProfondeur - pLimite);
             }
             break;
           }
@@ -147,19 +213,37 @@ final class NegaScoutEngine extends AbstractEngine
       }
     }
 
-    TRANSPOSITIONS.put(pEtat, pProfondeur, alpha, pBeta, res);
+    transpositions.put(pEtat, pProfondeur, alpha, pBeta, res, meilleur);
     return res;
   }
 
+  /**
+   * Renvoi une nouvelle instance du moteur, destinée à participer aux recherches en tant que
+   * thread supplémentaire.
+   * 
+   * @return Nouvelle instance du moteur.
+   */
+  @Override
+  protected AbstractEngine newHelper()
+  {
+    return new NegaScoutEngine();
+  }
+
   /**
    * Corps de la recherche du "meilleur" demi-coup pour un état de l'échiquier.
+   * <p>
+   * Lors d'une recherche par approfondissements successifs, et si elles sont activées, la
+   * recherche se limite d'abord à une fenêtre ("aspiration window") autour du score de
+   * l'itération précédente, et n'est relancée avec une fenêtre complète que si le score obtenu en
+   * sort.
+   * </p>
    * 
    * @param pEtat Etat de l'échiquier.
    * @param pCoups Liste des mouvement initiaux valides.
    * @return Mouvement trouvé.
    */
   @Override
-  protected Move searchMoveFor(final MoveGenerator pEtat, final Move [] pCoups)
+  protected Move searchMoveFor(final SearchBoard pEtat, final Move [] pCoups)
   {
     assert pEtat != null;
     assert pCoups != null;
@@ -167,30 +251,54 @@ final class NegaScoutEngine extends AbstractEngine
     final int l = pCoups.length;
     assert l > 0;
     addHalfmove(l);
-    final Comparator<Move> tri = getMoveSorter();
-    Arrays.sort(pCoups, tri);
-    Move res = pCoups[0];
-    int alpha = MATE_VALUE - 1;
-    for (final Move mvt : pCoups)
+    final TranspositionTable transpositions = getTranspositionTable();
+    sortRootMoves(pCoups, transpositions.getMove(pEtat));
+    int bas = MATE_VALUE - 1;
+    int haut = -MATE_VALUE;
+    if (isAspirationWindowsEnabled() && hasPreviousIteration())
     {
-      final MoveGenerator etat = pEtat.derive(mvt, true);
-      final int note = -negascout(etat, getSearchDepthLimit() - 1, MATE_VALUE, -alpha, 0);
-      if ((note > alpha) || ((note == alpha) && RANDOMIZER.nextBoolean()))
+      bas = Math.max(bas, getScore() - ASPIRATION_WINDOW);
+      haut = Math.min(haut, getScore() + ASPIRATION_WINDOW);
+    }
+    Move res;
+    int alpha;
+    while (true)
+    {
+      res = pCoups[0];
+      alpha = bas;
+      for (final Move mvt : pCoups)
       {
-        // Un peu de hasard sert à partager les évaluations identiques : jeu plus agréable.
-        alpha = note;
-        res = mvt;
+        pEtat.makeMove(mvt);
+        final int note = -negascout(pEtat, getCurrentSearchDepth() - 1, -haut, -alpha, 0, true);
+        pEtat.unmakeMove();
+        if ((note > alpha) || ((note == alpha) && RANDOMIZER.nextBoolean()))
+        {
+          // Un peu de hasard sert à partager les évaluations identiques : jeu plus agréable.
+          alpha = note;
+          res = mvt;
+          if ((haut < -MATE_VALUE) && (alpha >= haut))
+          {
+            break;
+          }
+        }
+      }
+      // Score hors de la fenêtre d'aspiration : on recommence avec une fenêtre élargie...
+      if ((bas > MATE_VALUE - 1) && (alpha <= bas))
+      {
+        bas = MATE_VALUE - 1;
+      }
+      else if ((haut < -MATE_VALUE) && (alpha >= haut))
+      {
+        haut = -MATE_VALUE;
+      }
+      else
+      {
+        break;
       }
     }
 
     setScore(alpha);
 
-    TRANSPOSITIONS.clear();
-    if (tri instanceof ContextSorter)
-    {
-      ((ContextSorter) tri).clear();
-    }
-
     assert res != null;
     return res;
   }
@@ -0,0 +1,520 @@
+/*
+ $Id$
+
+ Copyright (C) 2006-2007 by David Cotton
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU General Public License as published by the Free Software
+ Foundation; either version 2 of the License, or (at your option) any later
+ version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along with
+ this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package fr.free.jchecs.ai;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import fr.free.jchecs.core.Move;
+import fr.free.jchecs.core.MoveGenerator;
+
+/**
+ * Bibliothèque d'ouvertures compacte, en lecture seule.
+ * <p>
+ * Les positions sont identifiées par leur clé "Zobrist", éventuellement tronquée par un masque (les
+ * clés de la bibliothèque livrée avec jChecs se limitent aux 32 bits de poids faible). Elles sont
+ * stockées dans des tableaux de types primitifs : clés triées, position du premier mouvement de
+ * chaque clé, identifiants des mouvements et, éventuellement, poids de chaque mouvement. La
+ * recherche d'une position se fait par dichotomie, sans verrou ni allocation.
+ * </p>
+ * <p>
+ * Deux formats de fichiers sont reconnus : celui de la bibliothèque livrée avec jChecs (clés sur 32
+ * bits, sans poids), et le format compact, pondéré et à clés complètes, produit par
+ * {@link OpeningBookBuilder} à partir de parties archivées.
+ * </p>
+ * <p>
+ * Les instances de cette classe sont immuables : classe sûre vis-à-vis des threads.
+ * </p>
+ * 
+ * @author David Cotton
+ */
+final class OpeningBook implements OpeningsSource
+{
+  /** Masque des clés "Zobrist" de la bibliothèque livrée avec jChecs (32 bits de poids faible). */
+  static final long JCHECS_KEY_MASK = 0xFFFFFFFFL;
+
+  /** Signature des fichiers au format compact ("JCOB"). */
+  private static final int COMPACT_MAGIC = 0x4A434F42;
+
+  /** Nombre maximal de mouvements d'une position au format compact. */
+  static final int COMPACT_MAX_MOVES = 0xFF;
+
+  /** Poids maximal d'un mouvement au format compact. */
+  static final int COMPACT_MAX_WEIGHT = 0xFFFF;
+
+  /** Bibliothèques au format compact déjà lues, indexées par le chemin canonique du fichier. */
+  private static final Map<String, OpeningBook> S_BOOKS = new HashMap<String, OpeningBook>();
+
+  /** Dates de modification des fichiers des bibliothèques déjà lues. */
+  private static final Map<String, Long> S_BOOKS_DATES = new HashMap<String, Long>();
+
+  /** Clés des positions, masquées, par ordre croissant. */
+  private final long [] _keys;
+
+  /** Masque appliqué aux clés "Zobrist" recherchées. */
+  private final long _keyMask;
+
+  /** Identifiants des mouvements, regroupés par position. */
+  private final int [] _moves;
+
+  /** Position dans _moves du premier mouvement de chaque position (plus une borne finale). */
+  private final int [] _offsets;
+
+  /** Poids des mouvements, parallèles à _moves (null si les mouvements sont équiprobables). */
+  private final int [] _weights;
+
+  /**
+   * Crée une nouvelle bibliothèque, aux mouvements équiprobables.
+   * <p>
+   * Si une clé apparaît plusieurs fois, seule sa dernière liste de mouvements est conservée.
+   * </p>
+   * 
+   * @param pCles Clés des positions (déjà masquées), dans un ordre quelconque.
+   * @param pMouvements Identifiants des mouvements de chaque position (au moins un par position).
+   * @param pNombre Nombre de positions à prendre en compte ([0, pCles.length]).
+   * @param pMasque Masque appliqué aux clés "Zobrist" recherchées.
+   */
+  OpeningBook(final long [] pCles, final int [][] pMouvements, final int pNombre,
+      final long pMasque)
+  {
+    this(pCles, pMouvements, null, pNombre, pMasque);
+  }
+
+  /**
+   * Crée une nouvelle bibliothèque, aux mouvements éventuellement pondérés.
+   * <p>
+   * Si une clé apparaît plusieurs fois, seule sa dernière liste de mouvements est conservée.
+   * </p>
+   * 
+   * @param pCles Clés des positions (déjà masquées), dans un ordre quelconque.
+   * @param pMouvements Identifiants des mouvements de chaque position (au moins un par position).
+   * @param pPoids Poids (> 0) des mouvements de chaque position, ou null s'ils sont équiprobables.
+   * @param pNombre Nombre de positions à prendre en compte ([0, pCles.length]).
+   * @param pMasque Masque appliqué aux clés "Zobrist" recherchées.
+   */
+  OpeningBook(final long [] pCles, final int [][] pMouvements, final int [][] pPoids,
+      final int pNombre, final long pMasque)
+  {
+    assert pCles != null;
+    assert pMouvements != null;
+    assert (pNombre >= 0) && (pNombre <= pCles.length) && (pNombre <= pMouvements.length);
+    assert (pPoids == null) || (pNombre <= pPoids.length);
+
+    final long [] tri = new long [ pNombre ];
+    System.arraycopy(pCles, 0, tri, 0, pNombre);
+    Arrays.sort(tri);
+    int nbCles = 0;
+    for (int i = 0; i < pNombre; i++)
+    {
+      if ((nbCles == 0) || (tri[i] != tri[nbCles - 1]))
+      {
+        tri[nbCles++] = tri[i];
+      }
+    }
+    _keys = new long [ nbCles ];
+    System.arraycopy(tri, 0, _keys, 0, nbCles);
+    _keyMask = pMasque;
+
+    // Dernière liste de mouvements de chaque clé...
+    final int [] sources = new int [ nbCles ];
+    for (int i = 0; i < pNombre; i++)
+    {
+      assert (pCles[i] & ~pMasque) == 0L;
+      assert pMouvements[i].length > 0;
+      sources[Arrays.binarySearch(_keys, pCles[i])] = i;
+    }
+    _offsets = new int [ nbCles + 1 ];
+    for (int i = 0; i < nbCles; i++)
+    {
+      _offsets[i + 1] = _offsets[i] + pMouvements[sources[i]].length;
+    }
+    _moves = new int [ _offsets[nbCles] ];
+    _weights = (pPoids == null) ? null : new int [ _moves.length ];
+    for (int i = 0; i < nbCles; i++)
+    {
+      final int [] mvts = pMouvements[sources[i]];
+      System.arraycopy(mvts, 0, _moves, _offsets[i], mvts.length);
+      if (pPoids != null)
+      {
+        assert pPoids[sources[i]].length == mvts.length;
+        System.arraycopy(pPoids[sources[i]], 0, _weights, _offsets[i], mvts.length);
+      }
+    }
+  }
+
+  /**
+   * Recherche la position d'une clé "Zobrist" dans la bibliothèque.
+   * 
+   * @param pCle Clé "Zobrist" complète de la position.
+   * @return Indice de la position dans la bibliothèque, ou -1 si elle en est absente.
+   */
+  private int find(final long pCle)
+  {
+    final int res = Arrays.binarySearch(_keys, pCle & _keyMask);
+    if (res < 0)
+    {
+      return -1;
+    }
+
+    return res;
+  }
+
+  /**
+   * Renvoi un mouvement, tiré au hasard parmi ceux de la bibliothèque pour une position (en
+   * proportion de leur poids, s'ils sont pondérés).
+   * <p>
+   * Les collisions de clés n'étant pas exclues, le mouvement doit être vérifié avant d'être joué.
+   * </p>
+   * 
+   * @param pCle Clé "Zobrist" complète de la position.
+   * @param pHasard Générateur de nombres aléatoires.
+   * @return Identifiant du mouvement (voir {@link fr.free.jchecs.core.Move#toId()}), ou 0 si la
+   *         position est absente.
+   */
+  int getMove(final long pCle, final Random pHasard)
+  {
+    assert pHasard != null;
+
+    final int i = find(pCle);
+    if (i < 0)
+    {
+      return 0;
+    }
+
+    final int debut = _offsets[i];
+    final int fin = _offsets[i + 1];
+    if (_weights == null)
+    {
+      return _moves[debut + pHasard.nextInt(fin - debut)];
+    }
+
+    int total = 0;
+    for (int m = debut; m < fin; m++)
+    {
+      total += _weights[m];
+    }
+    int tirage = pHasard.nextInt(total);
+    for (int m = debut; m < fin; m++)
+    {
+      tirage -= _weights[m];
+      if (tirage < 0)
+      {
+        return _moves[m];
+      }
+    }
+
+    assert false;
+    return 0;
+  }
+
+  /**
+   * Renvoi un mouvement de la bibliothèque pour un état du jeu, tiré au hasard.
+   * 
+   * @param pEtat Etat du jeu.
+   * @param pHasard Générateur de nombres aléatoires.
+   * @return Mouvement tiré (valide dans l'état), ou null si la position est absente.
+   */
+  public Move getMove(final MoveGenerator pEtat, final Random pHasard)
+  {
+    assert pEtat != null;
+
+    final int id = getMove(pEtat.zobristKey(), pHasard);
+    // Les clés n'étant pas infaillibles, il vaut mieux valider le mouvement obtenu...
+    if ((id == 0) || !pEtat.isValidMove(id))
+    {
+      return null;
+    }
+
+    return Move.valueOf(id);
+  }
+
+  /**
+   * Renvoi le nombre de mouvements de la bibliothèque pour une position.
+   * 
+   * @param pCle Clé "Zobrist" complète de la position.
+   * @return Nombre de mouvements (0 si la position est absente).
+   */
+  int getMovesCount(final long pCle)
+  {
+    final int i = find(pCle);
+    if (i < 0)
+    {
+      return 0;
+    }
+
+    return _offsets[i + 1] - _offsets[i];
+  }
+
+  /**
+   * Renvoi le poids d'un mouvement de la bibliothèque pour une position.
+   * 
+   * @param pCle Clé "Zobrist" complète de la position.
+   * @param pMouvement Identifiant du mouvement.
+   * @return Poids du mouvement (1 si les mouvements sont équiprobables, 0 s'il est absent).
+   */
+  int getWeight(final long pCle, final int pMouvement)
+  {
+    final int i = find(pCle);
+    if (i >= 0)
+    {
+      for (int m = _offsets[i]; m < _offsets[i + 1]; m++)
+      {
+        if (_moves[m] == pMouvement)
+        {
+          return (_weights == null) ? 1 : _weights[m];
+        }
+      }
+    }
+
+    return 0;
+  }
+
+  /**
+   * Renvoi la bibliothèque au format compact contenue dans un fichier.
+   * <p>
+   * Les bibliothèques déjà lues sont partagées, tant que leur fichier n'a pas été modifié.
+   * </p>
+   * 
+   * @param pFichier Fichier de la bibliothèque.
+   * @return Bibliothèque lue.
+   * @throws IOException En cas d'erreur de lecture, ou si le fichier n'est pas au format compact.
+   */
+  static OpeningBook open(final File pFichier) throws IOException
+  {
+    assert pFichier != null;
+
+    final String chemin = pFichier.getCanonicalPath();
+    final Long date = Long.valueOf(pFichier.lastModified());
+    synchronized (S_BOOKS)
+    {
+      OpeningBook res = S_BOOKS.get(chemin);
+      if ((res == null) || !date.equals(S_BOOKS_DATES.get(chemin)))
+      {
+        res = read(new FileInputStream(pFichier));
+        S_BOOKS.put(chemin, res);
+        S_BOOKS_DATES.put(chemin, date);
+      }
+
+      assert res != null;
+      return res;
+    }
+  }
+
+  /**
+   * Lit une bibliothèque au format compact.
+   * <p>
+   * Le flux, compressé par "gzip", débute par une signature suivie d'enregistrements composés du
+   * nombre de mouvements (sur un octet), de la clé "Zobrist" complète de la position, puis de
+   * l'identifiant (sur 3 octets) et du poids (sur 2 octets) de chaque mouvement.
+   * </p>
+   * 
+   * @param pFlux Flux de lecture (fermé au retour).
+   * @return Bibliothèque lue.
+   * @throws IOException En cas d'erreur de lecture, ou si le flux n'est pas au format compact.
+   */
+  static OpeningBook read(final InputStream pFlux) throws IOException
+  {
+    assert pFlux != null;
+
+    long [] cles = new long [ 1024 ];
+    int [][] mouvements = new int [ cles.length ] [];
+    int [][] poids = new int [ cles.length ] [];
+    int nombre = 0;
+    final DataInputStream in =
+        new DataInputStream(new BufferedInputStream(new GZIPInputStream(pFlux)));
+    try
+    {
+      if (in.readInt() != COMPACT_MAGIC)
+      {
+        throw new IOException("Not a compact opening book");
+      }
+      while (true)
+      {
+        final int nb = in.read();
+        if (nb < 0)
+        {
+          break;
+        }
+        if (nb == 0)
+        {
+          throw new IOException("Invalid compact opening book record");
+        }
+        final long cle = in.readLong();
+        final int [] mvtsId = new int [ nb ];
+        final int [] mvtsPoids = new int [ nb ];
+        for (int i = 0; i < nb; i++)
+        {
+          mvtsId[i] = (in.readUnsignedShort() << 8) + in.readUnsignedByte();
+          mvtsPoids[i] = Math.max(1, in.readUnsignedShort());
+        }
+        if (nombre == cles.length)
+        {
+          final long [] c = new long [ 2 * nombre ];
+          System.arraycopy(cles, 0, c, 0, nombre);
+          cles = c;
+          final int [][] m = new int [ 2 * nombre ] [];
+          System.arraycopy(mouvements, 0, m, 0, nombre);
+          mouvements = m;
+          final int [][] p = new int [ 2 * nombre ] [];
+          System.arraycopy(poids, 0, p, 0, nombre);
+          poids = p;
+        }
+        cles[nombre] = cle;
+        mouvements[nombre] = mvtsId;
+        poids[nombre] = mvtsPoids;
+        nombre++;
+      }
+    }
+    finally
+    {
+      in.close();
+    }
+
+    return new OpeningBook(cles, mouvements, poids, nombre, -1L);
+  }
+
+  /**
+   * Lit une bibliothèque au format de jChecs.
+   * <p>
+   * Le flux, compressé par "gzip", est une suite d'enregistrements composés du nombre de mouvements
+   * (sur un octet, de 1 à 5), des 32 bits de poids faible de la clé "Zobrist" de la position et de
+   * l'identifiant de chaque mouvement (sur 3 octets). Une fin de flux prématurée n'est pas une
+   * erreur : les enregistrements complets sont conservés.
+   * </p>
+   * 
+   * @param pFlux Flux de lecture (fermé au retour).
+   * @return Bibliothèque lue.
+   * @throws IOException En cas d'erreur de lecture.
+   */
+  static OpeningBook readJChecs(final InputStream pFlux) throws IOException
+  {
+    assert pFlux != null;
+
+    long [] cles = new long [ 1024 ];
+    int [][] mouvements = new int [ cles.length ] [];
+    int nombre = 0;
+    final DataInputStream in =
+        new DataInputStream(new BufferedInputStream(new GZIPInputStream(pFlux)));
+    try
+    {
+      while (true)
+      {
+        final int nb = in.read();
+        if (nb < 0)
+        {
+          break;
+        }
+        assert (nb > 0) && (nb <= 5);
+        final long cle = in.readInt() & JCHECS_KEY_MASK;
+        final int [] mvtsId = new int [ nb ];
+        for (int i = 0; i < nb; i++)
+        {
+          mvtsId[i] = (in.readUnsignedShort() << 8) + in.readUnsignedByte();
+          assert (mvtsId[i] & 0xFF000000) == 0;
+        }
+        if (nombre == cles.length)
+        {
+          final long [] c = new long [ 2 * nombre ];
+          System.arraycopy(cles, 0, c, 0, nombre);
+          cles = c;
+          final int [][] m = new int [ 2 * nombre ] [];
+          System.arraycopy(mouvements, 0, m, 0, nombre);
+          mouvements = m;
+        }
+        cles[nombre] = cle;
+        mouvements[nombre] = mvtsId;
+        nombre++;
+      }
+    }
+    catch (final EOFException e)
+    {
+      // Enregistrement tronqué : on conserve les précédents...
+    }
+    finally
+    {
+      in.close();
+    }
+
+    return new OpeningBook(cles, mouvements, nombre, JCHECS_KEY_MASK);
+  }
+
+  /**
+   * Renvoi le nombre de positions de la bibliothèque.
+   * 
+   * @return Nombre de positions.
+   */
+  int size()
+  {
+    return _keys.length;
+  }
+
+  /**
+   * Ecrit la bibliothèque au format compact (voir {@link #read(InputStream)}).
+   * <p>
+   * Les clés d'une bibliothèque tronquée par un masque sont écrites telles quelles, et ne seront
+   * donc pas retrouvées à la relecture : seules les bibliothèques à clés complètes s'y prêtent.
+   * </p>
+   * 
+   * @param pFlux Flux d'écriture (fermé au retour).
+   * @throws IOException En cas d'erreur d'écriture.
+   */
+  void write(final OutputStream pFlux) throws IOException
+  {
+    assert pFlux != null;
+    assert _keyMask == -1L;
+
+    final DataOutputStream out =
+        new DataOutputStream(new GZIPOutputStream(new BufferedOutputStream(pFlux)));
+    try
+    {
+      out.writeInt(COMPACT_MAGIC);
+      for (int i = 0; i < _keys.length; i++)
+      {
+        final int debut = _offsets[i];
+        final int nb = Math.min(_offsets[i + 1] - debut, COMPACT_MAX_MOVES);
+        out.writeByte(nb);
+        out.writeLong(_keys[i]);
+        for (int m = debut; m < debut + nb; m++)
+        {
+          out.writeShort(_moves[m] >>> 8);
+          out.writeByte(_moves[m]);
+          out.writeShort((_weights == null) ? 1 : Math.min(_weights[m], COMPACT_MAX_WEIGHT));
+        }
+      }
+    }
+    finally
+    {
+      out.close();
+    }
+  }
+}
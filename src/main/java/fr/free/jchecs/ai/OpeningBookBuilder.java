@@ -0,0 +1,669 @@
+/*
+ $Id$
+
+ Copyright (C) 2006-2007 by David Cotton
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU General Public License as published by the Free Software
+ Foundation; either version 2 of the License, or (at your option) any later
+ version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along with
+ this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package fr.free.jchecs.ai;
+
+import static fr.free.jchecs.core.BoardFactory.State.STARTING;
+import static fr.free.jchecs.core.BoardFactory.Type.FASTEST;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import fr.free.jchecs.core.BoardFactory;
+import fr.free.jchecs.core.FENException;
+import fr.free.jchecs.core.FENUtils;
+import fr.free.jchecs.core.Move;
+import fr.free.jchecs.core.MoveGenerator;
+import fr.free.jchecs.core.PGNUtils;
+import fr.free.jchecs.core.SANException;
+import fr.free.jchecs.core.SANUtils;
+
+/**
+ * Construction d'une bibliothèque d'ouvertures à partir de parties archivées au format PGN.
+ * <p>
+ * Les parties sont lues une à une, éventuellement par plusieurs threads, et rejouées jusqu'à une
+ * profondeur limite : chaque association (position, mouvement joué) est comptabilisée dans une
+ * table de taille fixe, indexée par la clé "Zobrist" complète de la position. Lorsque la table est
+ * pleine, les associations les moins fréquentes en sont écartées et le seuil de fréquence est
+ * relevé : la mémoire utilisée reste bornée quel que soit le nombre de parties, au prix de
+ * fréquences approchées pour les associations rares.
+ * </p>
+ * <p>
+ * La bibliothèque produite est au format compact de {@link OpeningBook}, les mouvements étant
+ * pondérés par leur fréquence. Elle peut être sélectionnée par
+ * {@link Engine#setOpeningsBook(File)}.
+ * </p>
+ * <p>
+ * Classe sûre vis-à-vis des threads.
+ * </p>
+ * 
+ * @author David Cotton
+ */
+public final class OpeningBookBuilder
+{
+  /** Nombre par défaut d'associations (position, mouvement) conservées en mémoire. */
+  public static final int DEFAULT_CAPACITY = 1 << 20;
+
+  /** Nombre par défaut de demi-coups retenus au début de chaque partie. */
+  public static final int DEFAULT_DEPTH = 24;
+
+  /** Filtre des fichiers PGN d'un répertoire. */
+  public static final FilenameFilter PGN_FILTER = new FilenameFilter()
+  {
+    /**
+     * Indique si un fichier porte l'extension ".pgn".
+     * 
+     * @param pRepertoire Répertoire du fichier.
+     * @param pNom Nom du fichier.
+     * @return "true" pour un fichier PGN.
+     */
+    public boolean accept(final File pRepertoire, final String pNom)
+    {
+      return pNom.toLowerCase().endsWith(".pgn");
+    }
+  };
+
+  /** Nombre maximal de mouvements retenus pour une position. */
+  private static final int MAX_MOVES = 8;
+
+  /** Nombre de classes de l'histogramme des fréquences utilisé lors de l'élagage de la table. */
+  private static final int PRUNE_HISTOGRAM_SIZE = 1 << 12;
+
+  /** Multiplicateur de dispersion des clés de la table. */
+  private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+  /** Log de la classe. */
+  private static final Logger LOGGER = Logger.getLogger(OpeningBookBuilder.class.getName());
+
+  /** Nombre de demi-coups retenus au début de chaque partie. */
+  private final int _depth;
+
+  /** Masque donnant l'indice d'une entrée de la table. */
+  private final int _mask;
+
+  /** Seuil d'occupation de la table déclenchant l'élagage des associations les moins fréquentes. */
+  private final int _limit;
+
+  /** Clés des positions des entrées de la table. */
+  private long [] _keys;
+
+  /** Identifiants des mouvements des entrées de la table. */
+  private int [] _moves;
+
+  /** Fréquences des entrées de la table (0 pour une entrée libre). */
+  private int [] _counts;
+
+  /** Nombre d'entrées occupées. */
+  private int _size;
+
+  /** Fréquence minimale des associations conservées lors du dernier élagage de la table. */
+  private int _minCount = 1;
+
+  /** Nombre de parties prises en compte. */
+  private final AtomicInteger _games = new AtomicInteger();
+
+  /** Nombre de parties ou de fichiers comportant une erreur. */
+  private final AtomicInteger _errors = new AtomicInteger();
+
+  /**
+   * Instancie un nouveau constructeur de bibliothèque.
+   * 
+   * @param pProfondeur Nombre de demi-coups retenus au début de chaque partie (> 0).
+   * @param pCapacite Nombre d'associations (position, mouvement) conservées en mémoire (> 0).
+   */
+  public OpeningBookBuilder(final int pProfondeur, final int pCapacite)
+  {
+    assert pProfondeur > 0;
+    assert pCapacite > 0;
+
+    _depth = pProfondeur;
+    int taille = 2;
+    while (taille < pCapacite + pCapacite / 3)
+    {
+      taille <<= 1;
+    }
+    _mask = taille - 1;
+    _limit = Math.min(pCapacite, (taille / 4) * 3);
+    _keys = new long [ taille ];
+    _moves = new int [ taille ];
+    _counts = new int [ taille ];
+  }
+
+  /**
+   * Comptabilise les associations (position, mouvement) d'une partie.
+   * 
+   * @param pCles Clés "Zobrist" des positions.
+   * @param pMouvements Identifiants des mouvements joués.
+   * @param pNombre Nombre d'associations.
+   */
+  private synchronized void add(final long [] pCles, final int [] pMouvements, final int pNombre)
+  {
+    for (int i = 0; i < pNombre; i++)
+    {
+      if (_size >= _limit)
+      {
+        prune();
+      }
+      insert(pCles[i], pMouvements[i], 1);
+    }
+  }
+
+  /**
+   * Rejoue une partie, et comptabilise ses premiers mouvements.
+   * 
+   * @param pDepart Position de départ de la partie.
+   * @param pCoups Liste des mouvements de la partie, au format PGN.
+   * @param pCles Tampon des clés des positions (au moins la profondeur limite).
+   * @param pMouvements Tampon des identifiants des mouvements (au moins la profondeur limite).
+   */
+  private void addGame(final MoveGenerator pDepart, final CharSequence pCoups,
+      final long [] pCles, final int [] pMouvements)
+  {
+    final String [] sans = PGNUtils.toSANStrings(pCoups);
+    if (sans.length == 0)
+    {
+      return;
+    }
+
+    MoveGenerator etat = pDepart;
+    int nb = 0;
+    try
+    {
+      while ((nb < _depth) && (nb < sans.length))
+      {
+        final Move mvt = SANUtils.toMove(etat, sans[nb]);
+        pCles[nb] = etat.zobristKey();
+        pMouvements[nb] = mvt.toId();
+        etat = etat.derive(mvt, true);
+        nb++;
+      }
+    }
+    catch (final SANException e)
+    {
+      // Les mouvements précédant l'erreur restent exploitables...
+      _errors.incrementAndGet();
+      LOGGER.fine(e.toString());
+    }
+    if (nb > 0)
+    {
+      add(pCles, pMouvements, nb);
+      _games.incrementAndGet();
+    }
+  }
+
+  /**
+   * Lit les parties contenues dans un ensemble de fichiers PGN, en parallèle.
+   * <p>
+   * Chaque thread lit un fichier à la fois : seule la partie en cours de lecture de chaque fichier
+   * est en mémoire. Les fichiers illisibles sont comptabilisés comme des erreurs.
+   * </p>
+   * 
+   * @param pFichiers Fichiers à lire.
+   * @param pThreads Nombre de threads de lecture (>= 1).
+   * @throws InterruptedException Si le thread appelant est interrompu pendant la lecture.
+   */
+  public void addFiles(final List<File> pFichiers, final int pThreads)
+      throws InterruptedException
+  {
+    assert pFichiers != null;
+    assert pThreads >= 1;
+
+    final File [] fichiers = pFichiers.toArray(new File [ pFichiers.size() ]);
+    final AtomicInteger suivant = new AtomicInteger();
+    final Runnable lecteur = new Runnable()
+    {
+      /**
+       * Lit les fichiers restants, jusqu'à épuisement.
+       */
+      public void run()
+      {
+        int i;
+        while ((i = suivant.getAndIncrement()) < fichiers.length)
+        {
+          if (Thread.currentThread().isInterrupted())
+          {
+            return;
+          }
+          try
+          {
+            addGames(new BufferedReader(new InputStreamReader(new FileInputStream(fichiers[i]),
+                "ISO-8859-1")));
+          }
+          catch (final IOException e)
+          {
+            _errors.incrementAndGet();
+            LOGGER.warning("Can't read PGN file [" + fichiers[i] + "]: " + e);
+          }
+        }
+      }
+    };
+
+    final Thread [] threads = new Thread [ Math.min(pThreads, Math.max(1, fichiers.length)) ];
+    for (int t = threads.length; --t >= 0; /* Pré-décrémenté */)
+    {
+      threads[t] = new Thread(lecteur, "jChecs book builder #" + t);
+      threads[t].setDaemon(true);
+      threads[t].start();
+    }
+    try
+    {
+      for (final Thread t : threads)
+      {
+        t.join();
+      }
+    }
+    catch (final InterruptedException e)
+    {
+      for (final Thread t : threads)
+      {
+        t.interrupt();
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Lit les parties contenues dans un flux au format PGN.
+   * 
+   * @param pFlux Flux de lecture (fermé au retour).
+   * @return Nombre de parties prises en compte.
+   * @throws IOException En cas d'erreur de lecture.
+   */
+  public int addGames(final BufferedReader pFlux) throws IOException
+  {
+    assert pFlux != null;
+
+    final MoveGenerator initial = BoardFactory.valueOf(FASTEST, STARTING);
+    final long [] cles = new long [ _depth ];
+    final int [] mvts = new int [ _depth ];
+    final int avant = _games.get();
+    try
+    {
+      MoveGenerator depart = initial;
+      final StringBuilder coups = new StringBuilder();
+      String ligne;
+      while ((ligne = pFlux.readLine()) != null)
+      {
+        ligne = ligne.trim();
+        if (ligne.startsWith("["))
+        {
+          if (coups.length() > 0)
+          {
+            // Début de la partie suivante...
+            addGame(depart, coups, cles, mvts);
+            coups.setLength(0);
+            depart = initial;
+          }
+          if (ligne.startsWith("[FEN \"") && ligne.endsWith("\"]"))
+          {
+            try
+            {
+              depart = initial.derive(FENUtils.toBoard(ligne.substring(6, ligne.length() - 2)));
+            }
+            catch (final FENException e)
+            {
+              _errors.incrementAndGet();
+              LOGGER.fine(e.toString());
+            }
+          }
+        }
+        else if (ligne.length() > 0)
+        {
+          coups.append(' ').append(ligne);
+        }
+      }
+      if (coups.length() > 0)
+      {
+        addGame(depart, coups, cles, mvts);
+      }
+    }
+    finally
+    {
+      pFlux.close();
+    }
+
+    return _games.get() - avant;
+  }
+
+  /**
+   * Renvoi le nombre de parties ou de fichiers comportant une erreur.
+   * 
+   * @return Nombre d'erreurs.
+   */
+  public int getErrorsCount()
+  {
+    return _errors.get();
+  }
+
+  /**
+   * Renvoi le nombre de parties prises en compte.
+   * 
+   * @return Nombre de parties.
+   */
+  public int getGamesCount()
+  {
+    return _games.get();
+  }
+
+  /**
+   * Renvoi la position de l'entrée d'une association dans la table, qu'elle soit libre ou occupée
+   * par l'association.
+   * 
+   * @param pCle Clé "Zobrist" de la position.
+   * @param pMouvement Identifiant du mouvement.
+   * @return Indice de l'entrée.
+   */
+  private int indexOf(final long pCle, final int pMouvement)
+  {
+    final long h = (pCle ^ pMouvement) * HASH_MULTIPLIER;
+    int i = (int) (h ^ (h >>> 32)) & _mask;
+    while ((_counts[i] != 0) && ((_keys[i] != pCle) || (_moves[i] != pMouvement)))
+    {
+      i = (i + 1) & _mask;
+    }
+
+    return i;
+  }
+
+  /**
+   * Ajoute une fréquence à une association de la table.
+   * 
+   * @param pCle Clé "Zobrist" de la position.
+   * @param pMouvement Identifiant du mouvement.
+   * @param pFrequence Fréquence à ajouter (> 0).
+   */
+  private void insert(final long pCle, final int pMouvement, final int pFrequence)
+  {
+    assert pFrequence > 0;
+
+    final int i = indexOf(pCle, pMouvement);
+    if (_counts[i] == 0)
+    {
+      _keys[i] = pCle;
+      _moves[i] = pMouvement;
+      _size++;
+    }
+    _counts[i] = (int) Math.min((long) _counts[i] + pFrequence, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Ecarte de la table les associations les moins fréquentes, jusqu'à en libérer au moins la
+   * moitié.
+   */
+  private void prune()
+  {
+    // Histogramme des fréquences, pour déterminer le nouveau seuil en une seule passe...
+    final int [] histogramme = new int [ PRUNE_HISTOGRAM_SIZE ];
+    for (int i = _counts.length; --i >= 0; /* Pré-décrémenté */)
+    {
+      histogramme[Math.min(_counts[i], PRUNE_HISTOGRAM_SIZE - 1)]++;
+    }
+    int seuil = 1;
+    int conserves = _size;
+    while ((conserves > _limit / 2) && (seuil < PRUNE_HISTOGRAM_SIZE - 1))
+    {
+      conserves -= histogramme[seuil];
+      seuil++;
+    }
+    // Le seuil ne redescend pas : les associations écartées auparavant ont perdu leur historique...
+    seuil = Math.max(seuil, _minCount);
+    _minCount = seuil;
+
+    final long [] cles = _keys;
+    final int [] mvts = _moves;
+    final int [] frequences = _counts;
+    _keys = new long [ cles.length ];
+    _moves = new int [ mvts.length ];
+    _counts = new int [ frequences.length ];
+    _size = 0;
+    for (int i = frequences.length; --i >= 0; /* Pré-décrémenté */)
+    {
+      if (frequences[i] >= seuil)
+      {
+        insert(cles[i], mvts[i], frequences[i]);
+      }
+    }
+    LOGGER.fine("Opening book table pruned, minimal frequency " + seuil);
+  }
+
+  /**
+   * Construit la bibliothèque d'ouvertures correspondant aux parties lues.
+   * <p>
+   * Les mouvements joués moins souvent que la fréquence minimale demandée (ou que le seuil atteint
+   * lors de l'élagage de la table) sont ignorés ; seuls les plus fréquents de chaque position sont
+   * retenus, pondérés par leur fréquence.
+   * </p>
+   * 
+   * @param pMinimum Fréquence minimale d'un mouvement (>= 1).
+   * @return Bibliothèque d'ouvertures, à clés complètes.
+   */
+  synchronized OpeningBook toOpeningBook(final int pMinimum)
+  {
+    assert pMinimum >= 1;
+
+    final int seuil = Math.max(pMinimum, _minCount);
+    int nb = 0;
+    for (int i = _counts.length; --i >= 0; /* Pré-décrémenté */)
+    {
+      if (_counts[i] >= seuil)
+      {
+        nb++;
+      }
+    }
+
+    // Regroupement des associations par position...
+    final long [] positions = new long [ nb ];
+    int n = 0;
+    for (int i = _counts.length; --i >= 0; /* Pré-décrémenté */)
+    {
+      if (_counts[i] >= seuil)
+      {
+        positions[n++] = _keys[i];
+      }
+    }
+    Arrays.sort(positions);
+    int nbPositions = 0;
+    for (int i = 0; i < nb; i++)
+    {
+      if ((nbPositions == 0) || (positions[i] != positions[nbPositions - 1]))
+      {
+        positions[nbPositions++] = positions[i];
+      }
+    }
+    final int [] debuts = new int [ nbPositions + 1 ];
+    for (int i = _counts.length; --i >= 0; /* Pré-décrémenté */)
+    {
+      if (_counts[i] >= seuil)
+      {
+        debuts[Arrays.binarySearch(positions, 0, nbPositions, _keys[i]) + 1]++;
+      }
+    }
+    for (int p = 0; p < nbPositions; p++)
+    {
+      debuts[p + 1] += debuts[p];
+    }
+    final int [] remplis = new int [ nbPositions ];
+    final int [] tousMvts = new int [ nb ];
+    final int [] toutesFrequences = new int [ nb ];
+    for (int i = _counts.length; --i >= 0; /* Pré-décrémenté */)
+    {
+      if (_counts[i] >= seuil)
+      {
+        final int p = Arrays.binarySearch(positions, 0, nbPositions, _keys[i]);
+        final int j = debuts[p] + remplis[p]++;
+        tousMvts[j] = _moves[i];
+        toutesFrequences[j] = _counts[i];
+      }
+    }
+
+    // Sélection des mouvements les plus fréquents de chaque position...
+    final int [][] mouvements = new int [ nbPositions ] [];
+    final int [][] poids = new int [ nbPositions ] [];
+    for (int p = 0; p < nbPositions; p++)
+    {
+      final int debut = debuts[p];
+      final int fin = debuts[p + 1];
+      for (int i = debut + 1; i < fin; i++)
+      {
+        final int m = tousMvts[i];
+        final int f = toutesFrequences[i];
+        int j = i - 1;
+        while ((j >= debut) && (toutesFrequences[j] < f))
+        {
+          tousMvts[j + 1] = tousMvts[j];
+          toutesFrequences[j + 1] = toutesFrequences[j];
+          j--;
+        }
+        tousMvts[j + 1] = m;
+        toutesFrequences[j + 1] = f;
+      }
+      final int nbMvts = Math.min(fin - debut, MAX_MOVES);
+      mouvements[p] = new int [ nbMvts ];
+      poids[p] = new int [ nbMvts ];
+      System.arraycopy(tousMvts, debut, mouvements[p], 0, nbMvts);
+      for (int i = 0; i < nbMvts; i++)
+      {
+        poids[p][i] = Math.min(toutesFrequences[debut + i], OpeningBook.COMPACT_MAX_WEIGHT);
+      }
+    }
+
+    return new OpeningBook(positions, mouvements, poids, nbPositions, -1L);
+  }
+
+  /**
+   * Ecrit la bibliothèque d'ouvertures correspondant aux parties lues, au format compact.
+   * 
+   * @param pFlux Flux d'écriture (fermé au retour).
+   * @param pMinimum Fréquence minimale d'un mouvement (>= 1).
+   * @return Nombre de positions de la bibliothèque.
+   * @throws IOException En cas d'erreur d'écriture.
+   */
+  public int write(final OutputStream pFlux, final int pMinimum) throws IOException
+  {
+    assert pFlux != null;
+
+    final OpeningBook livre = toOpeningBook(pMinimum);
+    livre.write(pFlux);
+
+    return livre.size();
+  }
+
+  /**
+   * Construit une bibliothèque d'ouvertures à partir de fichiers PGN, en ligne de commande.
+   * <p>
+   * Arguments : [-d profondeur] [-m fréquence minimale] [-t threads] [-c capacité] fichier de
+   * sortie, suivi des fichiers PGN ou des répertoires contenant des fichiers ".pgn" à lire.
+   * </p>
+   * 
+   * @param pArgs Arguments de la ligne de commande.
+   */
+  public static void main(final String [] pArgs)
+  {
+    int profondeur = DEFAULT_DEPTH;
+    int minimum = 1;
+    int threads = Runtime.getRuntime().availableProcessors();
+    int capacite = DEFAULT_CAPACITY;
+    int a = 0;
+    try
+    {
+      while ((a < pArgs.length - 1) && pArgs[a].startsWith("-"))
+      {
+        final int valeur = Integer.parseInt(pArgs[a + 1]);
+        if ("-d".equals(pArgs[a]))
+        {
+          profondeur = valeur;
+        }
+        else if ("-m".equals(pArgs[a]))
+        {
+          minimum = valeur;
+        }
+        else if ("-t".equals(pArgs[a]))
+        {
+          threads = valeur;
+        }
+        else if ("-c".equals(pArgs[a]))
+        {
+          capacite = valeur;
+        }
+        else
+        {
+          throw new IllegalArgumentException(pArgs[a]);
+        }
+        a += 2;
+      }
+    }
+    catch (final IllegalArgumentException e)
+    {
+      a = pArgs.length;
+    }
+    if ((a > pArgs.length - 2) || (profondeur < 1) || (minimum < 1) || (threads < 1)
+        || (capacite < 1))
+    {
+      System.err.println("Usage: OpeningBookBuilder [-d depth] [-m min-count] [-t threads]"
+          + " [-c capacity] <book-file> <pgn-file|pgn-dir>...");
+      System.exit(1);
+    }
+
+    final List<File> fichiers = new ArrayList<File>();
+    for (int i = a + 1; i < pArgs.length; i++)
+    {
+      final File f = new File(pArgs[i]);
+      final File [] contenu = f.listFiles(PGN_FILTER);
+      if (contenu != null)
+      {
+        fichiers.addAll(Arrays.asList(contenu));
+      }
+      else
+      {
+        fichiers.add(f);
+      }
+    }
+
+    final long debut = System.currentTimeMillis();
+    final OpeningBookBuilder constructeur = new OpeningBookBuilder(profondeur, capacite);
+    try
+    {
+      constructeur.addFiles(fichiers, threads);
+      final int positions = constructeur.write(new FileOutputStream(pArgs[a]), minimum);
+      System.out.println(pArgs[a] + ": " + constructeur.getGamesCount() + " games, " + positions
+          + " positions, " + constructeur.getErrorsCount() + " errors, "
+          + (System.currentTimeMillis() - debut) + " ms");
+    }
+    catch (final InterruptedException e)
+    {
+      System.err.println("Interrupted");
+      System.exit(1);
+    }
+    catch (final IOException e)
+    {
+      System.err.println(e);
+      System.exit(1);
+    }
+  }
+}
@@ -0,0 +1,171 @@
+/*
+ $Id$
+
+ Copyright (C) 2006-2007 by David Cotton
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU General Public License as published by the Free Software
+ Foundation; either version 2 of the License, or (at your option) any later
+ version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along with
+ this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package fr.free.jchecs.ai;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Random;
+
+import org.junit.Test;
+
+import fr.free.jchecs.core.BoardFactory;
+import fr.free.jchecs.core.Move;
+import fr.free.jchecs.core.MoveGenerator;
+import fr.free.jchecs.core.SANException;
+import fr.free.jchecs.core.SANUtils;
+
+/**
+ * Tests unitaires de la construction des bibliothèques d'ouvertures.
+ * 
+ * @author David Cotton
+ */
+public final class OpeningBookBuilderTest
+{
+  /**
+   * Pour que JUnit puisse instancier les tests.
+   */
+  public OpeningBookBuilderTest()
+  {
+    // Rien de spécifique...
+  }
+
+  /**
+   * Renvoi une partie au format PGN, jouée au hasard.
+   * 
+   * @param pHasard Générateur de nombres aléatoires.
+   * @param pDemiCoups Nombre maximal de demi-coups.
+   * @return Partie au format PGN.
+   */
+  private static String randomGame(final Random pHasard, final int pDemiCoups)
+  {
+    final StringBuilder sb = new StringBuilder("[Event \"Random\"]\n\n");
+    MoveGenerator etat =
+        BoardFactory.valueOf(BoardFactory.Type.FASTEST, BoardFactory.State.STARTING);
+    for (int i = 0; i < pDemiCoups; i++)
+    {
+      final Move [] mvts = etat.getValidMoves(etat.isWhiteActive());
+      if (mvts.length == 0)
+      {
+        break;
+      }
+      final Move mvt = mvts[pHasard.nextInt(mvts.length)];
+      if (etat.isWhiteActive())
+      {
+        sb.append(etat.getFullmoveNumber()).append(". ");
+      }
+      sb.append(SANUtils.toSAN(etat, mvt)).append(' ');
+      etat = etat.derive(mvt, true);
+    }
+
+    return sb.append("*\n\n").toString();
+  }
+
+  /**
+   * Teste le décompte des mouvements de quelques parties.
+   * 
+   * @throws IOException En cas d'erreur dans les tests.
+   * @throws SANException En cas d'erreur dans les tests.
+   */
+  @Test
+  public void testAddGames() throws IOException, SANException
+  {
+    final String pgn = "[Event \"Test\"]\n[White \"a\"]\n[Black \"b\"]\n\n"
+        + "1. e4 e5 2. Nf3 {commentaire} Nc6 1-0\n\n"
+        + "[Event \"Test\"]\n\n1. e4 c5 2. Nf3 (2. c3) 1/2-1/2\n\n"
+        + "[Event \"Test\"]\n\n1. d4\nd5 *\n\n"
+        + "[Event \"Test\"]\n\n1. e4 Qh4 *\n";
+    final OpeningBookBuilder constructeur = new OpeningBookBuilder(2, 100);
+    assertEquals(4, constructeur.addGames(new BufferedReader(new StringReader(pgn))));
+    assertEquals(4, constructeur.getGamesCount());
+    assertEquals(1, constructeur.getErrorsCount());
+
+    final MoveGenerator initial =
+        BoardFactory.valueOf(BoardFactory.Type.FASTEST, BoardFactory.State.STARTING);
+    final Move e4 = SANUtils.toMove(initial, "e4");
+    final MoveGenerator apresE4 = initial.derive(e4, true);
+    final OpeningBook livre = constructeur.toOpeningBook(1);
+    assertEquals(3, livre.size());
+    assertEquals(3, livre.getWeight(initial.zobristKey(), e4.toId()));
+    assertEquals(1, livre.getWeight(initial.zobristKey(), SANUtils.toMove(initial, "d4").toId()));
+    assertEquals(1, livre.getWeight(apresE4.zobristKey(), SANUtils.toMove(apresE4, "c5").toId()));
+    // Profondeur limitée à deux demi-coups...
+    assertEquals(0, livre.getMovesCount(apresE4.derive(SANUtils.toMove(apresE4, "e5"), true)
+        .zobristKey()));
+
+    final OpeningBook frequents = constructeur.toOpeningBook(2);
+    assertEquals(1, frequents.size());
+    assertEquals(1, frequents.getMovesCount(initial.zobristKey()));
+
+    // Relecture de la bibliothèque écrite...
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    assertEquals(3, constructeur.write(out, 1));
+    final OpeningBook relu = OpeningBook.read(new ByteArrayInputStream(out.toByteArray()));
+    assertEquals(3, relu.size());
+    assertEquals(3, relu.getWeight(initial.zobristKey(), e4.toId()));
+    final Move mvt = relu.getMove(initial, new Random(8000));
+    assertNotNull(mvt);
+    assertTrue(initial.isValidMove(mvt.toId()));
+  }
+
+  /**
+   * Teste l'élagage de la table, limitée en taille, des associations les moins fréquentes.
+   * 
+   * @throws IOException En cas d'erreur dans les tests.
+   * @throws SANException En cas d'erreur dans les tests.
+   */
+  @Test
+  public void testCapacity() throws IOException, SANException
+  {
+    final Random hasard = new Random(9000);
+    final StringBuilder pgn = new StringBuilder();
+    for (int i = 0; i < 200; i++)
+    {
+      if (i % 4 == 0)
+      {
+        pgn.append("[Event \"Test\"]\n\n1. e4 e5 2. Nf3 Nc6 3. Bb5 a6 *\n\n");
+      }
+      else
+      {
+        pgn.append(randomGame(hasard, 10));
+      }
+    }
+
+    final OpeningBookBuilder constructeur = new OpeningBookBuilder(6, 64);
+    assertEquals(200, constructeur.addGames(new BufferedReader(new StringReader(pgn.toString()))));
+    assertEquals(0, constructeur.getErrorsCount());
+    final OpeningBook livre = constructeur.toOpeningBook(1);
+    assertTrue(livre.size() <= 64);
+
+    MoveGenerator etat =
+        BoardFactory.valueOf(BoardFactory.Type.FASTEST, BoardFactory.State.STARTING);
+    for (final String san : new String [] { "e4", "e5", "Nf3", "Nc6", "Bb5", "a6", })
+    {
+      final Move mvt = SANUtils.toMove(etat, san);
+      assertTrue(livre.getWeight(etat.zobristKey(), mvt.toId()) >= 25);
+      etat = etat.derive(mvt, true);
+    }
+  }
+}
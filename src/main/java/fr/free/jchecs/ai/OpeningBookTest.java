@@ -0,0 +1,99 @@
+/*
+ $Id$
+
+ Copyright (C) 2006-2007 by David Cotton
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU General Public License as published by the Free Software
+ Foundation; either version 2 of the License, or (at your option) any later
+ version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along with
+ this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package fr.free.jchecs.ai;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import fr.free.jchecs.core.BoardFactory;
+import fr.free.jchecs.core.Move;
+import fr.free.jchecs.core.MoveGenerator;
+
+/**
+ * Tests unitaires de la bibliothèque d'ouvertures.
+ * 
+ * @author David Cotton
+ */
+public final class OpeningBookTest
+{
+  /**
+   * Pour que JUnit puisse instancier les tests.
+   */
+  public OpeningBookTest()
+  {
+    // Rien de spécifique...
+  }
+
+  /**
+   * Teste la recherche dans une bibliothèque construite directement.
+   */
+  @Test
+  public void testGetMove()
+  {
+    final long [] cles = { 30L, -5L, 10L, 30L, Long.MAX_VALUE, };
+    final int [][] mouvements = { { 1, }, { 2, 3, }, { 4, }, { 5, 6, 7, }, { 8, }, };
+    final OpeningBook livre = new OpeningBook(cles, mouvements, 4, -1L);
+    assertEquals(3, livre.size());
+    assertEquals(0, livre.getMovesCount(Long.MAX_VALUE));
+    assertEquals(0, livre.getMovesCount(20L));
+    assertEquals(2, livre.getMovesCount(-5L));
+    assertEquals(1, livre.getMovesCount(10L));
+    // Clé en double : la dernière liste l'emporte...
+    assertEquals(3, livre.getMovesCount(30L));
+
+    final Random hasard = new Random(6000);
+    assertEquals(0, livre.getMove(20L, hasard));
+    assertEquals(4, livre.getMove(10L, hasard));
+    for (int i = 100; --i >= 0; /* Pré-décrémenté */)
+    {
+      final int mvt = livre.getMove(30L, hasard);
+      assertTrue((mvt >= 5) && (mvt <= 7));
+    }
+
+    final OpeningBook tronque =
+        new OpeningBook(new long [] { 0x1234L, }, new int [][] { { 9, }, }, 1, 0xFFFFL);
+    assertEquals(9, tronque.getMove(0xABCD0000001234L, hasard));
+  }
+
+  /**
+   * Teste la bibliothèque livrée avec jChecs.
+   */
+  @Test
+  public void testJChecs()
+  {
+    final OpeningBook livre = AbstractEngine.getOpenings();
+    assertNotNull(livre);
+    assertTrue(livre.size() > 100000);
+
+    final MoveGenerator etat =
+        BoardFactory.valueOf(BoardFactory.Type.FASTEST, BoardFactory.State.STARTING);
+    assertTrue(livre.getMovesCount(etat.zobristKey()) > 0);
+    for (int i = 20; --i >= 0; /* Pré-décrémenté */)
+    {
+      final Move mvt = AbstractEngine.getFromOpenings(etat);
+      assertNotNull(mvt);
+      assertTrue(etat.isValidMove(mvt.toId()));
+    }
+  }
+}
@@ -18,36 +18,28 @@
  */
 package fr.free.jchecs.ai;
 
-import java.io.Serializable;
-import java.util.Comparator;
+import java.util.Random;
 
 import fr.free.jchecs.core.Move;
+import fr.free.jchecs.core.MoveGenerator;
 
 /**
- * Interface présentée par les méthodes de tri des mouvements tenant compte du contexte de la
- * recherche.
+ * Interface présentée par les bibliothèques d'ouvertures consultables par les moteurs.
+ * <p>
+ * Les implémentations doivent être sûres vis-à-vis des threads : une même bibliothèque est
+ * partagée par tous les moteurs qui l'utilisent.
+ * </p>
  * 
  * @author David Cotton
  */
-interface ContextSorter extends Comparator<Move>, Serializable
+interface OpeningsSource
 {
   /**
-   * Efface le contexte mémorisé.
-   */
-  void clear();
-
-  /**
-   * Renvoie l'évaluation d'un mouvement.
-   * 
-   * @param pMouvement Mouvement à rechercher.
-   * @return Valeur liée au mouvement.
-   */
-  int get(final Move pMouvement);
-
-  /**
-   * Mémorise un mouvement important.
+   * Renvoi un mouvement de la bibliothèque pour un état du jeu, tiré au hasard.
    * 
-   * @param pMouvement Mouvement à mémoriser.
+   * @param pEtat Etat du jeu.
+   * @param pHasard Générateur de nombres aléatoires.
+   * @return Mouvement tiré (valide dans l'état), ou null si la bibliothèque n'en propose pas.
    */
-  void put(final Move pMouvement);
+  Move getMove(final MoveGenerator pEtat, final Random pHasard);
 }
@@ -0,0 +1,165 @@
+/*
+ $Id$
+
+ Copyright (C) 2006-2007 by David Cotton
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU General Public License as published by the Free Software
+ Foundation; either version 2 of the License, or (at your option) any later
+ version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along with
+ this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package fr.free.jchecs.ai;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.junit.Test;
+
+import fr.free.jchecs.core.BoardFactory;
+import fr.free.jchecs.core.FENException;
+import fr.free.jchecs.core.FENUtils;
+import fr.free.jchecs.core.Move;
+import fr.free.jchecs.core.MoveGenerator;
+import fr.free.jchecs.core.Square;
+
+/**
+ * Tests unitaires de la lecture des bibliothèques d'ouvertures au format "Polyglot".
+ * 
+ * @author David Cotton
+ */
+public final class PolyglotBookTest
+{
+  /** Clé de la position initiale (supérieure à Long.MAX_VALUE en non signé). */
+  private static final long STARTING = 0x8000000000000001L;
+
+  /** Clé de la position de test des roques. */
+  private static final long CASTLING = 5L;
+
+  /**
+   * Pour que JUnit puisse instancier les tests.
+   */
+  public PolyglotBookTest()
+  {
+    // Rien de spécifique...
+  }
+
+  /**
+   * Renvoi le code "Polyglot" d'un mouvement.
+   * 
+   * @param pOrigine Case de départ (notation FEN).
+   * @param pDestination Case d'arrivée (notation FEN).
+   * @param pPromotion Code de la promotion (0 si aucune).
+   * @return Mouvement codé.
+   */
+  private static int codeOf(final String pOrigine, final String pDestination,
+      final int pPromotion)
+  {
+    return (pPromotion << 12) + (Square.valueOf(pOrigine).getIndex() << 6)
+        + Square.valueOf(pDestination).getIndex();
+  }
+
+  /**
+   * Teste la recherche et le tirage des mouvements.
+   * 
+   * @throws FENException En cas d'erreur dans les tests.
+   */
+  @Test
+  public void testGetMove() throws FENException
+  {
+    final long [] cles = { CASTLING, CASTLING, STARTING, STARTING, STARTING, STARTING, STARTING, };
+    final int [] mouvements = {
+        codeOf("e1", "h1", 0), codeOf("e1", "a1", 0), codeOf("e2", "e4", 0),
+        codeOf("d2", "d4", 0), codeOf("g1", "f3", 0), codeOf("e2", "e5", 0),
+        codeOf("a2", "a4", 1),
+    };
+    final int [] poids = { 1, 1, 3, 1, 0, 10, 10, };
+    final ByteBuffer contenu = ByteBuffer.allocate(16 * cles.length + 5);
+    for (int i = 0; i < cles.length; i++)
+    {
+      contenu.putLong(cles[i]).putShort((short) mouvements[i]).putShort((short) poids[i]);
+      contenu.putInt(0);
+    }
+    final PolyglotBook livre = new PolyglotBook(contenu);
+    assertEquals(cles.length, livre.size());
+    assertEquals(2, livre.getEntriesCount(CASTLING));
+    assertEquals(5, livre.getEntriesCount(STARTING));
+    assertEquals(0, livre.getEntriesCount(6L));
+    assertEquals(0, livre.getEntriesCount(-1L));
+
+    final Random hasard = new Random(7000);
+    final MoveGenerator initial =
+        BoardFactory.valueOf(BoardFactory.Type.FASTEST, BoardFactory.State.STARTING);
+    assertNull(livre.getMove(6L, initial, hasard));
+    int e4 = 0;
+    for (int i = 400; --i >= 0; /* Pré-décrémenté */)
+    {
+      final Move mvt = livre.getMove(STARTING, initial, hasard);
+      assertNotNull(mvt);
+      assertTrue(initial.isValidMove(mvt.toId()));
+      if (mvt.getTo() == Square.valueOf("e4"))
+      {
+        e4++;
+      }
+      else
+      {
+        assertEquals(Square.valueOf("d4"), mvt.getTo());
+      }
+    }
+    // Poids de 3 contre 1...
+    assertTrue((e4 > 250) && (e4 < 350));
+
+    final MoveGenerator roques =
+        initial.derive(FENUtils.toBoard("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1"));
+    for (int i = 20; --i >= 0; /* Pré-décrémenté */)
+    {
+      final Move mvt = livre.getMove(CASTLING, roques, hasard);
+      assertNotNull(mvt);
+      assertEquals(Square.valueOf("e1"), mvt.getFrom());
+      final Square cible = mvt.getTo();
+      assertTrue((cible == Square.valueOf("g1")) || (cible == Square.valueOf("c1")));
+    }
+  }
+
+  /**
+   * Teste la table des nombres aléatoires du format et le calcul des clés "Polyglot".
+   * 
+   * @throws FENException En cas d'erreur dans les tests.
+   */
+  @Test
+  public void testKeys() throws FENException
+  {
+    assertEquals(781, PolyglotBook.RANDOM64.length);
+    assertEquals(-1, PolyglotBook.checkReferences(PolyglotBook.RANDOM64));
+
+    final MoveGenerator initial =
+        BoardFactory.valueOf(BoardFactory.Type.FASTEST, BoardFactory.State.STARTING);
+    assertEquals(0x463B96181691FC9CL, PolyglotBook.keyOf(initial));
+    final MoveGenerator e4 = initial.derive(FENUtils.toBoard(
+        "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1"));
+    assertEquals(0x823C9B50FD114196L, PolyglotBook.keyOf(e4));
+
+    // Une table ajustée (valeur du trait) pour la seule position initiale est rejetée...
+    final long [] table = new long [ 781 ];
+    for (int i = 0; i < table.length; i++)
+    {
+      table[i] = i * 0x9E3779B97F4A7C15L;
+    }
+    assertEquals(0, PolyglotBook.checkReferences(table));
+    table[780] ^= PolyglotBook.keyOf(initial, table) ^ PolyglotBook.REFERENCE_KEYS[0];
+    assertEquals(PolyglotBook.REFERENCE_KEYS[0], PolyglotBook.keyOf(initial, table));
+    assertEquals(1, PolyglotBook.checkReferences(table));
+  }
+}
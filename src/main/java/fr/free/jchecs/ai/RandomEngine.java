@@ -19,7 +19,7 @@
 package fr.free.jchecs.ai;
 
 import fr.free.jchecs.core.Move;
-import fr.free.jchecs.core.MoveGenerator;
+import fr.free.jchecs.core.SearchBoard;
 
 /**
  * Moteur d'IA se limitant à choisir au hasard l'un des coups possibles.
@@ -36,6 +36,18 @@ final class RandomEngine extends AbstractEngine
     super(1, 1, 1);
   }
 
+  /**
+   * Renvoi une nouvelle instance du moteur, destinée à participer aux recherches en tant que
+   * thread supplémentaire.
+   * 
+   * @return Nouvelle instance du moteur.
+   */
+  @Override
+  protected AbstractEngine newHelper()
+  {
+    return new RandomEngine();
+  }
+
   /**
    * Corps de la recherche du "meilleur" demi-coup pour un état de l'échiquier.
    * 
@@ -44,7 +56,7 @@ final class RandomEngine extends AbstractEngine
    * @return Mouvement trouvé.
    */
   @Override
-  protected Move searchMoveFor(final MoveGenerator pEtat, final Move [] pCoups)
+  protected Move searchMoveFor(final SearchBoard pEtat, final Move [] pCoups)
   {
     assert pEtat != null;
 
@@ -0,0 +1,454 @@
+/*
+ $Id$
+
+ Copyright (C) 2006-2007 by David Cotton
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU General Public License as published by the Free Software
+ Foundation; either version 2 of the License, or (at your option) any later
+ version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along with
+ this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package fr.free.jchecs.ai;
+
+import fr.free.jchecs.core.Move;
+
+/**
+ * Statistiques d'une recherche d'un moteur d'IA.
+ * <p>
+ * Les compteurs sont alimentés par le thread de la recherche (et ceux de ses éventuels threads
+ * supplémentaires, cumulés à la fin), puis l'instance est publiée par
+ * {@link Engine#getLastSearchStatistics()} : elle n'est plus modifiée ensuite.
+ * </p>
+ * 
+ * @author David Cotton
+ */
+public final class SearchStatistics
+{
+  /** Nombre de coupures beta. */
+  private long _cutoffs;
+
+  /** Profondeur de la dernière itération achevée (en demi-coups, 0 si aucune). */
+  private int _depth;
+
+  /** Durée de la recherche (en ms). */
+  private long _elapsedTime;
+
+  /** Nombre de consultations du cache des évaluations. */
+  private long _evaluationCacheProbes;
+
+  /** Nombre d'évaluations trouvées dans le cache des évaluations. */
+  private long _evaluationCacheHits;
+
+  /** Nombre de coupures beta obtenues dès le premier mouvement examiné. */
+  private long _firstMoveCutoffs;
+
+  /** Indicateur de mouvement tiré de la bibliothèque d'ouvertures. */
+  private boolean _fromOpenings;
+
+  /** Nombre de demi-coups examinés. */
+  private long _nodes;
+
+  /** Nombre de consultations du cache de la structure de pions. */
+  private long _pawnHashProbes;
+
+  /** Nombre de structures de pions trouvées dans leur cache. */
+  private long _pawnHashHits;
+
+  /** Variante principale (premier élément : mouvement joué). */
+  private Move [] _principalVariation = new Move [ 0 ];
+
+  /** Variante principale en notation SAN, mouvements séparés par des espaces. */
+  private String _principalVariationSAN = "";
+
+  /** Nombre de noeuds de la recherche de quiescence. */
+  private long _quiescenceNodes;
+
+  /** Score du mouvement trouvé. */
+  private int _score;
+
+  /** Nombre de consultations de la table de transposition. */
+  private long _transpositionProbes;
+
+  /** Nombre de positions trouvées dans la table de transposition. */
+  private long _transpositionHits;
+
+  /** Nombre d'évaluations de la table de transposition utilisées directement. */
+  private long _transpositionCutoffs;
+
+  /**
+   * Instancie des statistiques vierges, pour une nouvelle recherche.
+   */
+  SearchStatistics()
+  {
+    // Rien de spécifique...
+  }
+
+  /**
+   * Cumule les compteurs des statistiques d'un thread de recherche supplémentaire.
+   * 
+   * @param pAutre Statistiques à cumuler.
+   */
+  void add(final SearchStatistics pAutre)
+  {
+    assert pAutre != null;
+
+    _cutoffs += pAutre._cutoffs;
+    _firstMoveCutoffs += pAutre._firstMoveCutoffs;
+    _quiescenceNodes += pAutre._quiescenceNodes;
+    _transpositionProbes += pAutre._transpositionProbes;
+    _transpositionHits += pAutre._transpositionHits;
+    _transpositionCutoffs += pAutre._transpositionCutoffs;
+  }
+
+  /**
+   * Cumule les compteurs des caches de la fonction d'évaluation : appelée avec -1 au début de la
+   * recherche, puis avec 1 à la fin, elle n'en retient que les consultations de la recherche.
+   * 
+   * @param pEvaluations Cache des évaluations (ou null).
+   * @param pPions Cache de la structure de pions (ou null).
+   * @param pSigne Signe des compteurs à cumuler (-1 ou 1).
+   */
+  void addCacheCounters(final EvaluationCache pEvaluations, final EvaluationCache pPions,
+      final int pSigne)
+  {
+    assert (pSigne == -1) || (pSigne == 1);
+
+    if (pEvaluations != null)
+    {
+      _evaluationCacheProbes += pSigne * pEvaluations.getProbes();
+      _evaluationCacheHits += pSigne * pEvaluations.getHits();
+    }
+    if (pPions != null)
+    {
+      _pawnHashProbes += pSigne * pPions.getProbes();
+      _pawnHashHits += pSigne * pPions.getHits();
+    }
+  }
+
+  /**
+   * Comptabilise une coupure beta.
+   * 
+   * @param pPremier A "true" si la coupure est obtenue dès le premier mouvement examiné.
+   */
+  void countCutoff(final boolean pPremier)
+  {
+    _cutoffs++;
+    if (pPremier)
+    {
+      _firstMoveCutoffs++;
+    }
+  }
+
+  /**
+   * Comptabilise un noeud de la recherche de quiescence.
+   */
+  void countQuiescenceNode()
+  {
+    _quiescenceNodes++;
+  }
+
+  /**
+   * Comptabilise une consultation de la table de transposition.
+   * 
+   * @param pTrouve A "true" si la position figure dans la table.
+   * @param pCoupure A "true" si son évaluation a pu être utilisée directement.
+   */
+  void countTranspositionProbe(final boolean pTrouve, final boolean pCoupure)
+  {
+    _transpositionProbes++;
+    if (pTrouve)
+    {
+      _transpositionHits++;
+      if (pCoupure)
+      {
+        _transpositionCutoffs++;
+      }
+    }
+  }
+
+  /**
+   * Complète les statistiques à la fin de la recherche.
+   * 
+   * @param pNoeuds Nombre de demi-coups examinés (>= 0).
+   * @param pDuree Durée de la recherche (en ms, >= 0).
+   * @param pScore Score du mouvement trouvé.
+   * @param pVariante Variante principale (vide si la recherche a été interrompue).
+   * @param pSAN Variante principale en notation SAN.
+   * @param pOuvertures A "true" si le mouvement est tiré de la bibliothèque d'ouvertures.
+   */
+  void finish(final long pNoeuds, final long pDuree, final int pScore, final Move [] pVariante,
+      final String pSAN, final boolean pOuvertures)
+  {
+    assert pNoeuds >= 0;
+    assert pDuree >= 0;
+    assert pVariante != null;
+    assert pSAN != null;
+
+    _nodes = pNoeuds;
+    _elapsedTime = pDuree;
+    _score = pScore;
+    _principalVariation = pVariante;
+    _principalVariationSAN = pSAN;
+    _fromOpenings = pOuvertures;
+  }
+
+  /**
+   * Renvoi le nombre de coupures beta.
+   * 
+   * @return Nombre de coupures beta (moteurs alpha/beta et NegaScout seulement).
+   */
+  public long getCutoffs()
+  {
+    return _cutoffs;
+  }
+
+  /**
+   * Renvoi la profondeur atteinte, c'est à dire celle de la dernière itération achevée.
+   * 
+   * @return Profondeur (en demi-coups, 0 si aucune itération n'a été achevée).
+   */
+  public int getDepth()
+  {
+    return _depth;
+  }
+
+  /**
+   * Renvoi la durée de la recherche.
+   * 
+   * @return Durée (en ms).
+   */
+  public long getElapsedTime()
+  {
+    return _elapsedTime;
+  }
+
+  /**
+   * Renvoi le taux de succès du cache des évaluations pendant la recherche.
+   * 
+   * @return Proportion des évaluations trouvées dans le cache ([0, 1], 0 sans consultation).
+   */
+  public double getEvaluationCacheHitRate()
+  {
+    return rateOf(_evaluationCacheHits, _evaluationCacheProbes);
+  }
+
+  /**
+   * Renvoi la proportion des coupures beta obtenues dès le premier mouvement examiné : plus elle
+   * est proche de 1, meilleur est l'ordonnancement des mouvements.
+   * 
+   * @return Proportion ([0, 1], 0 sans coupure).
+   */
+  public double getFirstMoveCutoffRate()
+  {
+    if (_cutoffs == 0)
+    {
+      return 0.0;
+    }
+
+    return (double) _firstMoveCutoffs / _cutoffs;
+  }
+
+  /**
+   * Renvoi le nombre de coupures beta obtenues dès le premier mouvement examiné.
+   * 
+   * @return Nombre de coupures.
+   */
+  public long getFirstMoveCutoffs()
+  {
+    return _firstMoveCutoffs;
+  }
+
+  /**
+   * Renvoi le nombre de demi-coups examinés, threads supplémentaires compris.
+   * 
+   * @return Nombre de demi-coups.
+   */
+  public long getNodes()
+  {
+    return _nodes;
+  }
+
+  /**
+   * Renvoi la vitesse de la recherche.
+   * 
+   * @return Nombre de demi-coups examinés par seconde.
+   */
+  public long getNodesPerSecond()
+  {
+    return _nodes * 1000 / Math.max(1L, _elapsedTime);
+  }
+
+  /**
+   * Renvoi le taux de succès du cache de la structure de pions pendant la recherche.
+   * 
+   * @return Proportion des structures de pions trouvées dans le cache ([0, 1], 0 sans
+   *         consultation, ou si la fonction d'évaluation n'utilise pas ce cache).
+   */
+  public double getPawnHashHitRate()
+  {
+    return rateOf(_pawnHashHits, _pawnHashProbes);
+  }
+
+  /**
+   * Renvoi la variante principale : le mouvement trouvé, suivi des meilleures réponses mémorisées
+   * dans la table de transposition (pour les moteurs en utilisant une).
+   * 
+   * @return Copie de la variante principale (vide si la recherche a été interrompue).
+   */
+  public Move [] getPrincipalVariation()
+  {
+    return _principalVariation.clone();
+  }
+
+  /**
+   * Renvoi la variante principale en notation SAN.
+   * 
+   * @return Mouvements en notation SAN, séparés par des espaces (chaine vide si aucun).
+   */
+  public String getPrincipalVariationSAN()
+  {
+    return _principalVariationSAN;
+  }
+
+  /**
+   * Renvoi le nombre de noeuds de la recherche de quiescence.
+   * 
+   * @return Nombre de noeuds de quiescence.
+   */
+  public long getQuiescenceNodes()
+  {
+    return _quiescenceNodes;
+  }
+
+  /**
+   * Renvoi le score du mouvement trouvé.
+   * 
+   * @return Score (0 pour un mouvement tiré de la bibliothèque d'ouvertures).
+   */
+  public int getScore()
+  {
+    return _score;
+  }
+
+  /**
+   * Renvoi le nombre d'évaluations de la table de transposition utilisées directement, sans
+   * recherche.
+   * 
+   * @return Nombre de coupures par la table.
+   */
+  public long getTranspositionCutoffs()
+  {
+    return _transpositionCutoffs;
+  }
+
+  /**
+   * Renvoi le nombre de positions trouvées dans la table de transposition.
+   * 
+   * @return Nombre de succès.
+   */
+  public long getTranspositionHits()
+  {
+    return _transpositionHits;
+  }
+
+  /**
+   * Renvoi le nombre de consultations de la table de transposition.
+   * 
+   * @return Nombre de consultations (0 pour les moteurs sans table).
+   */
+  public long getTranspositionProbes()
+  {
+    return _transpositionProbes;
+  }
+
+  /**
+   * Indique si le mouvement a été tiré de la bibliothèque d'ouvertures, sans recherche.
+   * 
+   * @return "true" pour un mouvement de la bibliothèque.
+   */
+  public boolean isFromOpenings()
+  {
+    return _fromOpenings;
+  }
+
+  /**
+   * Convertit une proportion en pourcentage, arrondi au dixième.
+   * 
+   * @param pTaux Proportion ([0, 1]).
+   * @return Pourcentage correspondant.
+   */
+  private static double percentOf(final double pTaux)
+  {
+    return Math.round(pTaux * 1000) / 10.0;
+  }
+
+  /**
+   * Calcule un taux de succès.
+   * 
+   * @param pSucces Nombre de succès.
+   * @param pConsultations Nombre de consultations.
+   * @return Taux de succès ([0, 1], 0 sans consultation).
+   */
+  private static double rateOf(final long pSucces, final long pConsultations)
+  {
+    if (pConsultations <= 0L)
+    {
+      return 0.0;
+    }
+
+    // Compteurs non synchronisés des caches : le taux peut légèrement déborder...
+    return Math.max(0.0, Math.min(1.0, (double) pSucces / pConsultations));
+  }
+
+  /**
+   * Alimente la profondeur de la dernière itération achevée.
+   * 
+   * @param pProfondeur Profondeur (en demi-coups, >= 1).
+   */
+  void setDepth(final int pProfondeur)
+  {
+    assert pProfondeur >= 1;
+
+    _depth = pProfondeur;
+  }
+
+  /**
+   * Renvoi une chaine résumant les statistiques.
+   * 
+   * @return Chaine décrivant les statistiques.
+   */
+  @Override
+  public String toString()
+  {
+    final StringBuilder sb = new StringBuilder(getClass().getSimpleName());
+    if (_fromOpenings)
+    {
+      sb.append("[openings,pv=").append(_principalVariationSAN).append(']');
+      return sb.toString();
+    }
+
+    sb.append("[depth=").append(_depth);
+    sb.append(",score=").append(_score);
+    sb.append(",time=").append(_elapsedTime).append("ms");
+    sb.append(",nodes=").append(_nodes);
+    sb.append(",nps=").append(getNodesPerSecond());
+    sb.append(",qnodes=").append(_quiescenceNodes);
+    sb.append(",tt=").append(_transpositionProbes).append('/').append(_transpositionHits);
+    sb.append('/').append(_transpositionCutoffs);
+    sb.append(",cutoffs=").append(_cutoffs);
+    sb.append(",first=").append(percentOf(getFirstMoveCutoffRate())).append('%');
+    sb.append(",evalcache=").append(percentOf(getEvaluationCacheHitRate())).append('%');
+    sb.append(",pawnhash=").append(percentOf(getPawnHashHitRate())).append('%');
+    sb.append(",pv=").append(_principalVariationSAN).append(']');
+
+    return sb.toString();
+  }
+}
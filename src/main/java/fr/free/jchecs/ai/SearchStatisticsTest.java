@@ -0,0 +1,127 @@
+/*
+ $Id$
+
+ Copyright (C) 2006-2007 by David Cotton
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU General Public License as published by the Free Software
+ Foundation; either version 2 of the License, or (at your option) any later
+ version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along with
+ this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package fr.free.jchecs.ai;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import fr.free.jchecs.core.BoardFactory;
+import fr.free.jchecs.core.FENException;
+import fr.free.jchecs.core.FENUtils;
+import fr.free.jchecs.core.Move;
+import fr.free.jchecs.core.MoveGenerator;
+import fr.free.jchecs.core.SearchBoard;
+
+/**
+ * Tests unitaires des statistiques de recherche des moteurs.
+ * 
+ * @author David Cotton
+ */
+public final class SearchStatisticsTest
+{
+  /**
+   * Pour que JUnit puisse instancier les tests.
+   */
+  public SearchStatisticsTest()
+  {
+    // Rien de spécifique...
+  }
+
+  /**
+   * Teste les statistiques d'un mouvement tiré de la bibliothèque d'ouvertures.
+   */
+  @Test
+  public void testOpenings()
+  {
+    final Engine moteur = EngineFactory.newInstance("jChecs.NegaScout");
+    assertNull(moteur.getLastSearchStatistics());
+
+    final MoveGenerator initial =
+        BoardFactory.valueOf(BoardFactory.Type.FASTEST, BoardFactory.State.STARTING);
+    final Move mvt = moteur.getMoveFor(initial);
+    assertNotNull(mvt);
+    final SearchStatistics stats = moteur.getLastSearchStatistics();
+    assertNotNull(stats);
+    assertTrue(stats.isFromOpenings());
+    assertEquals(0, stats.getDepth());
+    assertEquals(0, stats.getNodes());
+    assertEquals(1, stats.getPrincipalVariation().length);
+    assertEquals(mvt, stats.getPrincipalVariation()[0]);
+  }
+
+  /**
+   * Teste les statistiques d'une recherche NegaScout.
+   * 
+   * @throws FENException En cas d'erreur dans les tests.
+   */
+  @Test
+  public void testSearch() throws FENException
+  {
+    final Engine moteur = EngineFactory.newInstance("jChecs.NegaScout");
+    moteur.setOpeningsEnabled(false);
+    moteur.setSearchDepthLimit(4);
+
+    final MoveGenerator etat = BoardFactory.valueOf(BoardFactory.Type.FASTEST,
+        BoardFactory.State.STARTING).derive(FENUtils.toBoard(
+        "r1bqkbnr/pppp1ppp/2n5/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R w KQkq - 2 3"));
+    final Move mvt = moteur.getMoveFor(etat);
+    assertNotNull(mvt);
+    final SearchStatistics stats = moteur.getLastSearchStatistics();
+    assertNotNull(stats);
+    assertFalse(stats.isFromOpenings());
+    assertEquals(4, stats.getDepth());
+    assertEquals(moteur.getScore(), stats.getScore());
+    assertTrue(stats.getNodes() > 0);
+    assertTrue(stats.getNodesPerSecond() > 0);
+    assertTrue(stats.getQuiescenceNodes() > 0);
+    assertTrue(stats.getTranspositionProbes() > 0);
+    assertTrue(stats.getTranspositionHits() <= stats.getTranspositionProbes());
+    assertTrue(stats.getTranspositionCutoffs() <= stats.getTranspositionHits());
+    assertTrue(stats.getCutoffs() > 0);
+    assertTrue(stats.getFirstMoveCutoffs() <= stats.getCutoffs());
+    final double taux = stats.getFirstMoveCutoffRate();
+    assertTrue((taux > 0.0) && (taux <= 1.0));
+    final double evaluations = stats.getEvaluationCacheHitRate();
+    assertTrue((evaluations > 0.0) && (evaluations <= 1.0));
+    final double pions = stats.getPawnHashHitRate();
+    assertTrue((pions >= 0.0) && (pions <= 1.0));
+    assertTrue(stats.toString().contains(",evalcache="));
+
+    // La variante principale commence par le mouvement joué, et n'enchaine que des coups valides...
+    final Move [] variante = stats.getPrincipalVariation();
+    assertTrue((variante.length >= 1) && (variante.length <= 4));
+    assertEquals(mvt, variante[0]);
+    assertEquals(variante.length, stats.getPrincipalVariationSAN().split(" ").length);
+    final SearchBoard plateau = new SearchBoard(etat);
+    for (final Move coup : variante)
+    {
+      assertTrue(plateau.isValidMove(coup.toId()));
+      plateau.makeMove(coup);
+    }
+
+    // Chaque recherche produit de nouvelles statistiques...
+    assertNotNull(moteur.getMoveFor(etat));
+    assertTrue(stats != moteur.getLastSearchStatistics());
+  }
+}
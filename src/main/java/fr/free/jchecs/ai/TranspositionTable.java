@@ -18,62 +18,174 @@
  */
 package fr.free.jchecs.ai;
 
-import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 
 import fr.free.jchecs.core.Board;
+import fr.free.jchecs.core.Move;
 
 /**
  * Classe implémentant la gestion d'une table de transposition intégrable dans un moteur d'I.A.
+ * <p>
+ * La table est partagée sans verrou entre les threads (et donc entre les parties) : chaque entrée
+ * est composée de deux entiers longs, la donnée (valeur, meilleur mouvement, profondeur, type et
+ * génération) et la clé
+ * "Zobrist" de la position combinée par "ou exclusif" avec cette donnée. Deux threads écrivant
+ * simultanément la même entrée peuvent la laisser incohérente, mais elle ne passe alors plus la
+ * vérification de la clé et est simplement ignorée.
+ * </p>
+ * <p>
+ * Les entrées sont regroupées par "seaux" de {@link #BUCKET_SIZE} : une position peut occuper
+ * n'importe quelle entrée de son seau. Les premières entrées d'un seau privilégient la profondeur :
+ * seule une évaluation au moins aussi profonde, ou issue d'une recherche plus récente (voir
+ * {@link #newSearch()}), y remplace la plus faible, qui rejoint alors la dernière entrée du seau.
+ * Sinon, c'est cette dernière entrée qui est remplacée, pour que les évaluations récentes restent
+ * disponibles.
+ * </p>
+ * <p>
+ * La génération, stockée sur 4 bits, sert aussi à vider la table sans la parcourir (voir
+ * {@link #clear()}).
+ * </p>
  * 
  * @author David Cotton
  */
 final class TranspositionTable
 {
-  /** Nombre maximum de collisions entre les clés avant l'abandon. */
-  private static final int MAX_COLLISIONS = 3;
+  /** Taille par défaut d'une table, en Mo. */
+  static final int DEFAULT_SIZE = 16;
 
-  /** Identifiant d'une valeur de type "ALPHA". */
-  private static final int ALPHA = 0;
+  /** Nombre d'entrées par seau. */
+  static final int BUCKET_SIZE = 4;
+
+  /** Identifiant d'une valeur de type "ALPHA" (0 signale une entrée vide). */
+  private static final int ALPHA = 1;
 
   /** Identifiant d'une valeur de type "BETA". */
-  private static final int BETA = 1;
+  private static final int BETA = 2;
 
   /** Identifiant d'une valeur de type "EXACT". */
-  private static final int EXACT = 2;
+  private static final int EXACT = 3;
+
+  /** Décalage du mouvement dans la donnée d'une entrée. */
+  private static final int MOVE_SHIFT = 32;
+
+  /** Masque du mouvement (identifiant privé de ses 4 bits de poids faible, toujours nuls). */
+  private static final int MOVE_MASK = 0xFFFFF;
+
+  /** Décalage de la profondeur dans la donnée d'une entrée. */
+  private static final int DEPTH_SHIFT = 52;
+
+  /** Masque des profondeurs. */
+  private static final int DEPTH_MASK = 0x3F;
+
+  /** Décalage appliqué aux profondeurs, qui peuvent être négatives. */
+  private static final int DEPTH_OFFSET = 2;
+
+  /** Décalage du type dans la donnée d'une entrée. */
+  private static final int TYPE_SHIFT = 58;
+
+  /** Décalage de la génération dans la donnée d'une entrée. */
+  private static final int GENERATION_SHIFT = 60;
+
+  /** Masque des générations. */
+  private static final int GENERATION_MASK = 0xF;
 
-  /** Tableau accueillant les clés de hachage identifiant les états de jeu. */
-  private final int [] _hashCodes;
+  /** Nombre d'entiers longs par seau. */
+  private static final int BUCKET_LONGS = 2 * BUCKET_SIZE;
 
-  /** Tableau types d'éléments. */
-  private final byte [] _types;
+  /** Tables partagées, par taille en Mo. */
+  private static final Map<Integer, TranspositionTable> S_SHARED =
+      new HashMap<Integer, TranspositionTable>();
 
-  /** Tableau des profondeurs. */
-  private final byte [] _depths;
+  /** Entrées de la table : clé combinée à la donnée, puis donnée, pour chaque entrée. */
+  private final long [] _entries;
 
-  /** Tableau des valeurs. */
-  private final int [] _values;
+  /** Masque donnant l'indice d'un seau. */
+  private final int _mask;
+
+  /** Génération courante, incrémentée à chaque nouvelle recherche. */
+  private volatile int _generation;
+
+  /** Génération du dernier vidage de la table. */
+  private volatile int _clearGeneration;
 
   /**
    * Instancie une nouvelle table de transposition.
    * 
-   * @param pCapacite Taille maximale de la table de transposition.
+   * @param pCapacite Nombre minimal d'entrées de la table de transposition.
    */
   TranspositionTable(final int pCapacite)
   {
     assert pCapacite > 0;
 
-    _hashCodes = new int [ pCapacite ];
-    _types = new byte [ pCapacite ];
-    _depths = new byte [ pCapacite ];
-    _values = new int [ pCapacite ];
+    int seaux = 1;
+    while (seaux * BUCKET_SIZE < pCapacite)
+    {
+      seaux <<= 1;
+    }
+    _entries = new long [ seaux * BUCKET_LONGS ];
+    _mask = seaux - 1;
+  }
+
+  /**
+   * Renvoi l'âge d'une entrée, en nombre de recherches, si elle est utilisable.
+   * 
+   * @param pDonnee Donnée de l'entrée.
+   * @param pGeneration Génération courante.
+   * @param pVidage Génération du dernier vidage.
+   * @return Age de l'entrée, ou -1 si elle est vide ou antérieure au dernier vidage.
+   */
+  private static int ageOf(final long pDonnee, final int pGeneration, final int pVidage)
+  {
+    if (typeOf(pDonnee) == 0)
+    {
+      return -1;
+    }
+
+    final int age = (pGeneration - generationOf(pDonnee)) & GENERATION_MASK;
+    if ((age > pGeneration - pVidage) && (pGeneration - pVidage < GENERATION_MASK))
+    {
+      return -1;
+    }
+
+    return age;
   }
 
   /**
    * Vide la table de transposition.
+   * <p>
+   * La table n'est pas parcourue : les entrées antérieures sont simplement ignorées, jusqu'à ce que
+   * le compteur de générations (sur 4 bits) ait fait le tour. Elles sont de toutes façons exactes
+   * pour leur position, les ignorer ne sert qu'à repartir d'une table "neuve".
+   * </p>
    */
   void clear()
   {
-    Arrays.fill(_hashCodes, 0);
+    final int generation = _generation + 1;
+    _clearGeneration = generation;
+    _generation = generation;
+  }
+
+  /**
+   * Renvoi la profondeur d'une entrée.
+   * 
+   * @param pDonnee Donnée de l'entrée.
+   * @return Profondeur.
+   */
+  private static int depthOf(final long pDonnee)
+  {
+    return ((int) (pDonnee >>> DEPTH_SHIFT) & DEPTH_MASK) - DEPTH_OFFSET;
+  }
+
+  /**
+   * Renvoi la génération d'une entrée.
+   * 
+   * @param pDonnee Donnée de l'entrée.
+   * @return Génération.
+   */
+  private static int generationOf(final long pDonnee)
+  {
+    return (int) (pDonnee >>> GENERATION_SHIFT) & GENERATION_MASK;
   }
 
   /**
@@ -90,35 +202,124 @@ final class TranspositionTable
     assert pEtat != null;
     // TODO: assert pAlpha <= pBeta;
 
-    final int cleCherchee = pEtat.hashCode();
-    final int capacite = _hashCodes.length;
-    int pos = Math.abs(cleCherchee % capacite);
-    int cle = _hashCodes[pos];
-    for (int i = MAX_COLLISIONS; (cle != 0) && (--i >= 0); /* Pré-décrémenté */)
+    return valueOf(probe(pEtat.zobristKey()), pProfondeur, pAlpha, pBeta);
+  }
+
+  /**
+   * Renvoi l'éventuelle entrée correspondant à un état de jeu, à exploiter par
+   * {@link #valueOf(long, int, int, int)}.
+   * <p>
+   * Permet de distinguer une position connue (mais d'évaluation inutilisable) d'une position
+   * inconnue, pour les statistiques de la recherche.
+   * </p>
+   * 
+   * @param pEtat Etat recherché.
+   * @return Donnée de l'entrée, ou 0 si elle est absente.
+   */
+  long getEntry(final Board pEtat)
+  {
+    assert pEtat != null;
+
+    return probe(pEtat.zobristKey());
+  }
+
+  /**
+   * Renvoi l'éventuel meilleur mouvement mémorisé pour un état de jeu, quelle que soit la
+   * profondeur de son évaluation.
+   * <p>
+   * Le mouvement n'est pas garanti valide (collision de clés, entrée d'une autre partie) : il doit
+   * être vérifié avant d'être joué.
+   * </p>
+   * 
+   * @param pEtat Etat recherché.
+   * @return Identifiant du mouvement (voir {@link Move#toId()}), ou 0 si inconnu.
+   */
+  int getMove(final Board pEtat)
+  {
+    assert pEtat != null;
+
+    return moveOf(probe(pEtat.zobristKey()));
+  }
+
+  /**
+   * Renvoi la table de transposition partagée d'une taille donnée, en la créant si nécessaire.
+   * 
+   * @param pTaille Taille de la table, en Mo (>= 1).
+   * @return Table partagée par tous les moteurs demandant cette taille.
+   */
+  static synchronized TranspositionTable getShared(final int pTaille)
+  {
+    assert pTaille >= 1;
+
+    final Integer cle = Integer.valueOf(pTaille);
+    TranspositionTable res = S_SHARED.get(cle);
+    if (res == null)
     {
-      if (cle == cleCherchee)
-      {
-        if (_depths[pos] >= pProfondeur)
-        {
-          final int type = _types[pos];
-          final int val = _values[pos];
-          if ((type == EXACT) || ((type == ALPHA) && (val <= pAlpha))
-              || ((type == BETA) && (val >= pBeta)))
-          {
-            return Integer.valueOf(val);
-          }
-        }
-        break;
-      }
-      pos++;
-      if (pos >= capacite)
+      // 16 octets par entrée...
+      res = new TranspositionTable((int) Math.min((long) pTaille << 16, 1 << 28));
+      S_SHARED.put(cle, res);
+    }
+
+    assert res != null;
+    return res;
+  }
+
+  /**
+   * Renvoi la position du premier entier long du seau d'une clé dans la table.
+   * 
+   * @param pCle Clé "Zobrist" de l'état.
+   * @return Position dans la table.
+   */
+  private int indexOf(final long pCle)
+  {
+    return ((int) (pCle ^ (pCle >>> 32)) & _mask) * BUCKET_LONGS;
+  }
+
+  /**
+   * Renvoi le meilleur mouvement d'une entrée.
+   * 
+   * @param pDonnee Donnée de l'entrée.
+   * @return Identifiant du mouvement, ou 0 si aucun.
+   */
+  private static int moveOf(final long pDonnee)
+  {
+    return ((int) (pDonnee >>> MOVE_SHIFT) & MOVE_MASK) << 4;
+  }
+
+  /**
+   * Signale le début d'une nouvelle recherche : les entrées des recherches précédentes restent
+   * utilisables, mais sont remplacées en priorité.
+   * <p>
+   * L'incrémentation n'est pas atomique : deux recherches débutant simultanément peuvent partager
+   * la même génération, sans autre conséquence que sur le choix des entrées à remplacer.
+   * </p>
+   */
+  void newSearch()
+  {
+    _generation++;
+  }
+
+  /**
+   * Recherche l'entrée correspondant à une clé.
+   * 
+   * @param pCle Clé "Zobrist" de l'état.
+   * @return Donnée de l'entrée, ou 0 si elle est absente.
+   */
+  private long probe(final long pCle)
+  {
+    final int generation = _generation;
+    final int vidage = _clearGeneration;
+    final int debut = indexOf(pCle);
+    for (int i = debut; i < debut + BUCKET_LONGS; i += 2)
+    {
+      final long donnee = _entries[i + 1];
+      if (((_entries[i] ^ donnee) == pCle) && (ageOf(donnee, generation, vidage) >= 0))
       {
-        pos -= capacite;
+        return donnee;
       }
-      cle = _hashCodes[pos];
     }
 
-    return null;
+    return 0L;
   }
 
   /**
@@ -129,46 +330,136 @@ final class TranspositionTable
    * @param pAlpha Valeur alpha.
    * @param pBeta Valeur beta.
    * @param pValeur Valeur du résultat.
+   * @param pMouvement Identifiant du meilleur mouvement trouvé (0 si aucun).
    */
   void put(final Board pEtat, final int pProfondeur, final int pAlpha, final int pBeta,
-      final int pValeur)
+      final int pValeur, final int pMouvement)
   {
     assert pEtat != null;
+    assert (pProfondeur >= -DEPTH_OFFSET) && (pProfondeur <= DEPTH_MASK - DEPTH_OFFSET);
+    assert (pMouvement & ~(MOVE_MASK << 4)) == 0;
     // TODO: assert pAlpha <= pBeta;
 
-    final int cleEtat = pEtat.hashCode();
-    final int capacite = _hashCodes.length;
-    int pos = Math.abs(cleEtat % capacite);
-    int cle = _hashCodes[pos];
-    for (int i = MAX_COLLISIONS; (cle != 0) && (cle != cleEtat) && (--i >= 0); /* Pré-décrémenté */)
+    final long cle = pEtat.zobristKey();
+    final int generation = _generation;
+    final int vidage = _clearGeneration;
+    final int debut = indexOf(cle);
+    final int remplacement = debut + BUCKET_LONGS - 2;
+    int cible = -1;
+    int mouvement = pMouvement;
+    for (int i = debut; i <= remplacement; i += 2)
     {
-      pos++;
-      if (pos >= capacite)
+      final long donnee = _entries[i + 1];
+      if (((_entries[i] ^ donnee) == cle) && (ageOf(donnee, generation, vidage) >= 0))
       {
-        pos -= capacite;
+        if ((depthOf(donnee) > pProfondeur) && (ageOf(donnee, generation, vidage) == 0))
+        {
+          // Une évaluation plus profonde est déjà connue...
+          return;
+        }
+        if (mouvement == 0)
+        {
+          // ... sinon, on conserve au moins son meilleur mouvement.
+          mouvement = moveOf(donnee);
+        }
+        cible = i;
+        break;
       }
-      cle = _hashCodes[pos];
     }
 
-    if ((cle == 0) || ((cle == cleEtat) && (_depths[pos] < pProfondeur)))
+    if (cible < 0)
     {
-      byte type = EXACT;
-      if (pProfondeur > 0)
+      // Recherche, parmi les entrées privilégiant la profondeur, de la plus faible...
+      int rangMin = Integer.MAX_VALUE;
+      for (int i = debut; i < remplacement; i += 2)
       {
-        if (pValeur > pBeta)
+        final long donnee = _entries[i + 1];
+        final int age = ageOf(donnee, generation, vidage);
+        final int rang;
+        if (age < 0)
+        {
+          rang = Integer.MIN_VALUE;
+        }
+        else if (age > 0)
+        {
+          rang = depthOf(donnee) - (DEPTH_MASK + 1) * age;
+        }
+        else
         {
-          type = BETA;
+          rang = depthOf(donnee);
         }
-        else if (pValeur < pAlpha)
+        if (rang < rangMin)
         {
-          type = ALPHA;
+          cible = i;
+          rangMin = rang;
         }
       }
+      if ((rangMin > pProfondeur) || (cible < 0))
+      {
+        // ... et, si elle est plus profonde que la nouvelle, remplacement systématique.
+        cible = remplacement;
+      }
+      else if (rangMin >= -DEPTH_OFFSET)
+      {
+        // L'entrée évincée, de la recherche en cours, rejoint l'entrée remplacée systématiquement.
+        _entries[remplacement + 1] = _entries[cible + 1];
+        _entries[remplacement] = _entries[cible];
+      }
+    }
 
-      _hashCodes[pos] = cleEtat;
-      _types[pos] = type;
-      _depths[pos] = (byte) pProfondeur;
-      _values[pos] = pValeur;
+    // Y compris en quiescence, dont la valeur hors de la fenêtre n'est qu'une borne...
+    int type = EXACT;
+    if (pValeur > pBeta)
+    {
+      type = BETA;
     }
+    else if (pValeur < pAlpha)
+    {
+      type = ALPHA;
+    }
+
+    final long donnee =
+        ((long) (generation & GENERATION_MASK) << GENERATION_SHIFT) | ((long) type << TYPE_SHIFT)
+            | ((long) (pProfondeur + DEPTH_OFFSET) << DEPTH_SHIFT)
+            | ((long) (mouvement >>> 4) << MOVE_SHIFT) | (pValeur & 0xFFFFFFFFL);
+    _entries[cible + 1] = donnee;
+    _entries[cible] = cle ^ donnee;
+  }
+
+  /**
+   * Renvoi le type d'une entrée.
+   * 
+   * @param pDonnee Donnée de l'entrée.
+   * @return Type (ALPHA, BETA ou EXACT), ou 0 pour une entrée vide.
+   */
+  private static int typeOf(final long pDonnee)
+  {
+    return (int) (pDonnee >>> TYPE_SHIFT) & 3;
+  }
+
+  /**
+   * Renvoi l'éventuelle valeur d'une entrée utilisable dans le contexte de I.A. en cours.
+   * 
+   * @param pDonnee Donnée de l'entrée (0 si absente).
+   * @param pProfondeur Profondeur du résulat.
+   * @param pAlpha Valeur alpha.
+   * @param pBeta Valeur beta.
+   * @return Valeur correspondante, ou null si inconnue ou insuffisante.
+   */
+  static Integer valueOf(final long pDonnee, final int pProfondeur, final int pAlpha,
+      final int pBeta)
+  {
+    if ((pDonnee != 0L) && (depthOf(pDonnee) >= pProfondeur))
+    {
+      final int type = typeOf(pDonnee);
+      final int val = (int) pDonnee;
+      if ((type == EXACT) || ((type == ALPHA) && (val <= pAlpha))
+          || ((type == BETA) && (val >= pBeta)))
+      {
+        return Integer.valueOf(val);
+      }
+    }
+
+    return null;
   }
 }
@@ -0,0 +1,314 @@
+/*
+ $Id$
+
+ Copyright (C) 2006-2007 by David Cotton
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU General Public License as published by the Free Software
+ Foundation; either version 2 of the License, or (at your option) any later
+ version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along with
+ this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package fr.free.jchecs.ai;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import fr.free.jchecs.core.BoardFactory;
+import fr.free.jchecs.core.Move;
+import fr.free.jchecs.core.MoveGenerator;
+import fr.free.jchecs.core.Piece;
+import fr.free.jchecs.core.Square;
+
+/**
+ * Tests unitaires de la table de transposition.
+ * 
+ * @author David Cotton
+ */
+public final class TranspositionTableTest
+{
+  /**
+   * Pour que JUnit puisse instancier les tests.
+   */
+  public TranspositionTableTest()
+  {
+    // Rien de spécifique...
+  }
+
+  /**
+   * Renvoi des positions distinctes, obtenues au cours de parties aléatoires.
+   * 
+   * @param pNombre Nombre maximum de positions.
+   * @return Liste des positions.
+   */
+  private static List<MoveGenerator> randomBoards(final int pNombre)
+  {
+    final Random randomizer = new Random(4000);
+    final List<MoveGenerator> res = new ArrayList<MoveGenerator>();
+    while (res.size() < pNombre)
+    {
+      MoveGenerator etat =
+          BoardFactory.valueOf(BoardFactory.Type.FASTEST, BoardFactory.State.STARTING);
+      for (int cps = 100; (cps >= 0) && (res.size() < pNombre); cps--)
+      {
+        final Move [] mvts = etat.getValidMoves(etat.isWhiteActive());
+        if (mvts.length == 0)
+        {
+          break;
+        }
+        etat = etat.derive(mvts[randomizer.nextInt(mvts.length)], true);
+        if (!res.contains(etat))
+        {
+          res.add(etat);
+        }
+      }
+    }
+
+    return res;
+  }
+
+  /**
+   * Teste le vidage de la table.
+   */
+  @Test
+  public void testClear()
+  {
+    final TranspositionTable table = new TranspositionTable(1024);
+    final List<MoveGenerator> etats = randomBoards(100);
+    for (final MoveGenerator etat : etats)
+    {
+      table.put(etat, 2, -100, 100, 1, 0);
+    }
+    table.clear();
+    for (final MoveGenerator etat : etats)
+    {
+      assertNull(table.get(etat, 1, -100, 100));
+    }
+    table.put(etats.get(0), 2, -100, 100, 1, 0);
+    assertEquals(Integer.valueOf(1), table.get(etats.get(0), 1, -100, 100));
+
+    // Les entrées postérieures au vidage restent utilisables lors des recherches suivantes.
+    for (int i = 20; --i >= 0; /* Pré-décrémenté */)
+    {
+      table.newSearch();
+      assertEquals(Integer.valueOf(1), table.get(etats.get(0), 1, -100, 100));
+    }
+  }
+
+  /**
+   * Teste la mémorisation du meilleur mouvement.
+   */
+  @Test
+  public void testGetMove()
+  {
+    final TranspositionTable table = new TranspositionTable(1024);
+    final MoveGenerator etat =
+        BoardFactory.valueOf(BoardFactory.Type.FASTEST, BoardFactory.State.STARTING);
+    assertEquals(0, table.getMove(etat));
+    final Move [] mvts = etat.getValidMoves(true);
+    for (final Move mvt : mvts)
+    {
+      table.put(etat, 3, -100, 100, 0, mvt.toId());
+      assertEquals(mvt.toId(), table.getMove(etat));
+    }
+
+    // Une évaluation sans mouvement conserve le précédent, quelle que soit la profondeur...
+    final int dernier = mvts[mvts.length - 1].toId();
+    table.put(etat, 3, -100, 100, 0, 0);
+    assertEquals(dernier, table.getMove(etat));
+    assertNull(table.get(etat, 4, -100, 100));
+    assertEquals(dernier, table.getMove(etat));
+
+    // ... et un mouvement avec prise est restitué à l'identique.
+    final MoveGenerator prise = etat.derive(new Move(etat.getPieceAt(Square.valueOf("e2")),
+        Square.valueOf("e2"), Square.valueOf("e4")), true).derive(
+        new Move(Piece.BLACK_PAWN, Square.valueOf("d7"), Square.valueOf("d5")), true);
+    final Move mvt =
+        new Move(Piece.WHITE_PAWN, Square.valueOf("e4"), Square.valueOf("d5"), Piece.BLACK_PAWN);
+    table.put(prise, 1, -100, 100, 0, mvt.toId());
+    assertEquals(mvt.toId(), table.getMove(prise));
+  }
+
+  /**
+   * Teste la lecture / écriture des entrées et leurs types.
+   */
+  @Test
+  public void testGetPut()
+  {
+    final TranspositionTable table = new TranspositionTable(1024);
+    final MoveGenerator etat =
+        BoardFactory.valueOf(BoardFactory.Type.FASTEST, BoardFactory.State.STARTING);
+    assertNull(table.get(etat, 1, -100, 100));
+
+    // Valeur exacte, utilisable à une profondeur moindre mais pas supérieure...
+    table.put(etat, 3, -100, 100, -42, 0);
+    assertEquals(Integer.valueOf(-42), table.get(etat, 3, -100, 100));
+    assertEquals(Integer.valueOf(-42), table.get(etat, 2, -100, 100));
+    assertNull(table.get(etat, 4, -100, 100));
+
+    // Une évaluation moins profonde ne remplace pas une plus profonde...
+    table.put(etat, 2, -100, 100, 7, 0);
+    assertEquals(Integer.valueOf(-42), table.get(etat, 3, -100, 100));
+
+    // ... sauf si elle provient d'une recherche antérieure.
+    table.newSearch();
+    table.put(etat, 2, -100, 100, 7, 0);
+    assertEquals(Integer.valueOf(7), table.get(etat, 2, -100, 100));
+
+    // Borne "BETA" : utilisable seulement si elle dépasse le beta demandé...
+    table.put(etat, 5, -100, 100, 150, 0);
+    assertEquals(Integer.valueOf(150), table.get(etat, 5, -100, 120));
+    assertNull(table.get(etat, 5, -100, 200));
+
+    // Valeurs extrêmes...
+    table.put(etat, 6, -100, 100, AbstractEngine.MATE_VALUE - 1, 0);
+    assertEquals(Integer.valueOf(AbstractEngine.MATE_VALUE - 1),
+        table.get(etat, 6, AbstractEngine.MATE_VALUE, 100));
+  }
+
+  /**
+   * Teste les entrées de la recherche de quiescence (profondeur nulle), dont le type dépend aussi
+   * de la fenêtre.
+   */
+  @Test
+  public void testQuiescenceBounds()
+  {
+    final TranspositionTable table = new TranspositionTable(1024);
+    final MoveGenerator etat =
+        BoardFactory.valueOf(BoardFactory.Type.FASTEST, BoardFactory.State.STARTING);
+
+    // "Stand pat" au-dessus de beta sous une fenêtre nulle : borne inférieure seulement...
+    table.put(etat, 0, -1, 0, 300, 0);
+    assertNull(table.get(etat, 0, -1000, 1000));
+    assertEquals(Integer.valueOf(300), table.get(etat, 0, -1000, 200));
+
+    // ... de même qu'un échec sous alpha est une borne supérieure.
+    table.newSearch();
+    table.put(etat, 0, 50, 51, -20, 0);
+    assertNull(table.get(etat, 0, -1000, 1000));
+    assertEquals(Integer.valueOf(-20), table.get(etat, 0, 0, 1000));
+
+    // Seule une valeur dans la fenêtre est exacte.
+    table.newSearch();
+    table.put(etat, 0, -1000, 1000, 25, 0);
+    assertEquals(Integer.valueOf(25), table.get(etat, 0, -10, 10));
+  }
+
+  /**
+   * Teste le remplacement dans un seau plein.
+   */
+  @Test
+  public void testReplacement()
+  {
+    final TranspositionTable table = new TranspositionTable(1);
+    final List<MoveGenerator> etats = randomBoards(TranspositionTable.BUCKET_SIZE + 1);
+    final int remplacement = TranspositionTable.BUCKET_SIZE - 1;
+    final int nouveau = TranspositionTable.BUCKET_SIZE;
+    for (int i = 0; i < remplacement; i++)
+    {
+      table.put(etats.get(i), 5 + i, -100, 100, i, 0);
+    }
+
+    // Une évaluation moins profonde va dans l'entrée remplacée systématiquement...
+    table.put(etats.get(remplacement), 1, -100, 100, remplacement, 0);
+    for (int i = 0; i <= remplacement; i++)
+    {
+      assertEquals(Integer.valueOf(i), table.get(etats.get(i), 1, -100, 100));
+    }
+
+    // ... une plus profonde évince la moins profonde, qui remplace la précédente.
+    table.put(etats.get(nouveau), 10, -100, 100, nouveau, 0);
+    assertEquals(Integer.valueOf(nouveau), table.get(etats.get(nouveau), 10, -100, 100));
+    assertEquals(Integer.valueOf(0), table.get(etats.get(0), 5, -100, 100));
+    assertNull(table.get(etats.get(remplacement), 1, -100, 100));
+
+    // Après une nouvelle recherche, les entrées anciennes sont remplacées en priorité.
+    table.newSearch();
+    table.put(etats.get(remplacement), 1, -100, 100, remplacement, 0);
+    assertEquals(Integer.valueOf(remplacement),
+        table.get(etats.get(remplacement), 1, -100, 100));
+    assertEquals(Integer.valueOf(nouveau), table.get(etats.get(nouveau), 10, -100, 100));
+    assertEquals(Integer.valueOf(0), table.get(etats.get(0), 5, -100, 100));
+    assertNull(table.get(etats.get(1), 1, -100, 100));
+  }
+
+  /**
+   * Teste le partage des tables entre moteurs.
+   */
+  @Test
+  public void testShared()
+  {
+    assertSame(TranspositionTable.getShared(1), TranspositionTable.getShared(1));
+    assertTrue(TranspositionTable.getShared(1) != TranspositionTable.getShared(2));
+  }
+
+  /**
+   * Teste la résistance de la table face au multithread : des threads écrivant et lisant
+   * simultanément une table de petite taille ne doivent jamais lire une valeur erronée.
+   */
+  @Test
+  public void testThreadSafety()
+  {
+    final TranspositionTable table = new TranspositionTable(64);
+    final List<MoveGenerator> etats = randomBoards(500);
+    final AtomicInteger erreurs = new AtomicInteger();
+    final Thread [] threads = new Thread [ 8 ];
+    for (int t = threads.length; --t >= 0; /* Pré-décrémenté */)
+    {
+      final int graine = t;
+      threads[t] = new Thread(new Runnable()
+      {
+        public void run()
+        {
+          final Random randomizer = new Random(graine);
+          for (int n = 200000; --n >= 0; /* Pré-décrémenté */)
+          {
+            final MoveGenerator etat = etats.get(randomizer.nextInt(etats.size()));
+            final int attendu = (int) (etat.zobristKey() >>> 40);
+            if (randomizer.nextBoolean())
+            {
+              table.put(etat, 1 + randomizer.nextInt(8), -1, 1, attendu, 0);
+            }
+            else
+            {
+              final Integer val = table.get(etat, 1, -1, 1);
+              if ((val != null) && (val.intValue() != attendu))
+              {
+                erreurs.incrementAndGet();
+              }
+            }
+          }
+        }
+      });
+      threads[t].start();
+    }
+    for (final Thread t : threads)
+    {
+      try
+      {
+        t.join();
+      }
+      catch (final InterruptedException e)
+      {
+        Thread.currentThread().interrupt();
+      }
+    }
+    assertEquals(0, erreurs.get());
+  }
+}
@@ -52,6 +52,33 @@ abstract class AbstractBoard implements Board
   /** Constante de grand roque pour les blancs pour le calcul de clés de hachage "Zobrist". */
   protected static final int ZOBRIST_WHITE_CASTLE_SHORT;
 
+  /**
+   * Constantes de pièce / position pour le calcul des clés "Zobrist" sur 64 bits.
+   * <p>
+   * Les 32 bits de poids faible des constantes 64 bits reprennent les constantes 32 bits : la
+   * troncature d'une clé "Zobrist" donne la clé de hachage renvoyée par {@link #hashCode()}.
+   * </p>
+   */
+  protected static final long [][] ZOBRIST_KEY_PIECE_POSITION;
+
+  /** Constante de prise en passant pour le calcul des clés "Zobrist" sur 64 bits. */
+  protected static final long [] ZOBRIST_KEY_EN_PASSANT;
+
+  /** Constante de petit roque pour les noirs pour le calcul des clés "Zobrist" sur 64 bits. */
+  protected static final long ZOBRIST_KEY_BLACK_CASTLE_LONG;
+
+  /** Constante de grand roque pour les noirs pour le calcul des clés "Zobrist" sur 64 bits. */
+  protected static final long ZOBRIST_KEY_BLACK_CASTLE_SHORT;
+
+  /** Constante de trait aux blancs pour le calcul des clés "Zobrist" sur 64 bits. */
+  protected static final long ZOBRIST_KEY_WHITE_ACTIVE;
+
+  /** Constante de petit roque pour les blancs pour le calcul des clés "Zobrist" sur 64 bits. */
+  protected static final long ZOBRIST_KEY_WHITE_CASTLE_LONG;
+
+  /** Constante de grand roque pour les blancs pour le calcul des clés "Zobrist" sur 64 bits. */
+  protected static final long ZOBRIST_KEY_WHITE_CASTLE_SHORT;
+
   static
   {
     final Random rnd = new Random(123456789L);
@@ -74,6 +101,28 @@ abstract class AbstractBoard implements Board
     ZOBRIST_WHITE_ACTIVE = rnd.nextInt();
     ZOBRIST_WHITE_CASTLE_LONG = rnd.nextInt();
     ZOBRIST_WHITE_CASTLE_SHORT = rnd.nextInt();
+
+    // Les poids forts des clés 64 bits sont tirés à part, pour ne pas modifier les clés 32 bits...
+    final Random rndKey = new Random(987654321L);
+    ZOBRIST_KEY_PIECE_POSITION = new long [ nbPieces ] [ FILE_COUNT * RANK_COUNT ];
+    for (int i = nbPieces; --i >= 0; /* Pré-décrémenté */)
+    {
+      for (int j = FILE_COUNT * RANK_COUNT; --j >= 0; /* Pré-décrémenté */)
+      {
+        ZOBRIST_KEY_PIECE_POSITION[i][j] =
+            toZobristKey(rndKey.nextInt(), ZOBRIST_PIECE_POSITION[i][j]);
+      }
+    }
+    ZOBRIST_KEY_EN_PASSANT = new long [ FILE_COUNT ];
+    for (int i = FILE_COUNT; --i >= 0; /* Pré-décrémenté */)
+    {
+      ZOBRIST_KEY_EN_PASSANT[i] = toZobristKey(rndKey.nextInt(), ZOBRIST_EN_PASSANT[i]);
+    }
+    ZOBRIST_KEY_BLACK_CASTLE_LONG = toZobristKey(rndKey.nextInt(), ZOBRIST_BLACK_CASTLE_LONG);
+    ZOBRIST_KEY_BLACK_CASTLE_SHORT = toZobristKey(rndKey.nextInt(), ZOBRIST_BLACK_CASTLE_SHORT);
+    ZOBRIST_KEY_WHITE_ACTIVE = toZobristKey(rndKey.nextInt(), ZOBRIST_WHITE_ACTIVE);
+    ZOBRIST_KEY_WHITE_CASTLE_LONG = toZobristKey(rndKey.nextInt(), ZOBRIST_WHITE_CASTLE_LONG);
+    ZOBRIST_KEY_WHITE_CASTLE_SHORT = toZobristKey(rndKey.nextInt(), ZOBRIST_WHITE_CASTLE_SHORT);
   }
 
   /** Drapeau indiquant le droit de roquer côté roi (petit roque) pour les noirs. */
@@ -551,6 +600,79 @@ abstract class AbstractBoard implements Board
     return res.toString();
   }
 
+  /**
+   * Construit une constante "Zobrist" 64 bits à partir de ses deux moitiés.
+   * 
+   * @param pPoidsForts 32 bits de poids fort.
+   * @param pPoidsFaibles 32 bits de poids faible (constante 32 bits correspondante).
+   * @return Constante 64 bits.
+   */
+  private static long toZobristKey(final int pPoidsForts, final int pPoidsFaibles)
+  {
+    return ((long) pPoidsForts << 32) | (pPoidsFaibles & 0xFFFFFFFFL);
+  }
+
+  /**
+   * Implémentation par défaut du calcul de la clé "Zobrist" sur 64 bits.
+   * <p>
+   * Comme pour {@link #hashCode()}, les implémentations concrètes devraient surcharger cette
+   * méthode pour des raisons de performance, en conservant des résultats compatibles.
+   * </p>
+   * 
+   * @return Clé "Zobrist" de l'état.
+   */
+  public long zobristKey()
+  {
+    long res = zobristKeyRoot();
+    for (final Square s : Square.values())
+    {
+      final Piece p = getPieceAt(s);
+      if (p != null)
+      {
+        res ^= ZOBRIST_KEY_PIECE_POSITION[p.ordinal()][s.getIndex()];
+      }
+    }
+
+    return res;
+  }
+
+  /**
+   * Calcule le début de la clé "Zobrist" sur 64 bits.
+   * 
+   * @return Partie de la clé correspondant aux données internes de cette classe.
+   */
+  protected final long zobristKeyRoot()
+  {
+    long res = 0;
+
+    if (_blackCastleLong)
+    {
+      res ^= ZOBRIST_KEY_BLACK_CASTLE_LONG;
+    }
+    if (_blackCastleShort)
+    {
+      res ^= ZOBRIST_KEY_BLACK_CASTLE_SHORT;
+    }
+    if (_enPassant != null)
+    {
+      res ^= ZOBRIST_KEY_EN_PASSANT[_enPassant.getFile()];
+    }
+    if (_whiteActive)
+    {
+      res ^= ZOBRIST_KEY_WHITE_ACTIVE;
+    }
+    if (_whiteCastleLong)
+    {
+      res ^= ZOBRIST_KEY_WHITE_CASTLE_LONG;
+    }
+    if (_whiteCastleShort)
+    {
+      res ^= ZOBRIST_KEY_WHITE_CASTLE_SHORT;
+    }
+
+    return res;
+  }
+
   /**
    * Calcule le début de la clé de hachage "Zobrist".
    * 
@@ -18,7 +18,14 @@
  */
 package fr.free.jchecs.core;
 
+import static fr.free.jchecs.core.Constants.FILE_COUNT;
+import static fr.free.jchecs.core.Constants.RANK_COUNT;
+import static fr.free.jchecs.core.PieceType.BISHOP;
 import static fr.free.jchecs.core.PieceType.KING;
+import static fr.free.jchecs.core.PieceType.KNIGHT;
+import static fr.free.jchecs.core.PieceType.PAWN;
+import static fr.free.jchecs.core.PieceType.QUEEN;
+import static fr.free.jchecs.core.PieceType.ROOK;
 
 /**
  * Squelette de l'implémentation d'une classe représentant un état de la partie permettant de
@@ -29,6 +36,18 @@ import static fr.free.jchecs.core.PieceType.KING;
 @SuppressWarnings("serial")
 abstract class AbstractMoveGenerator extends AbstractBoard implements MoveGenerator
 {
+  /** Déplacements en colonne des huit directions des pièces à longue portée. */
+  private static final int [] DIRECTION_FILES = { -1, 1, 0, 0, -1, 1, -1, 1, };
+
+  /** Déplacements en ligne des huit directions des pièces à longue portée. */
+  private static final int [] DIRECTION_RANKS = { 0, 0, -1, 1, -1, -1, 1, 1, };
+
+  /** Déplacements en colonne des sauts d'un cavalier. */
+  private static final int [] KNIGHT_FILES = { -2, -2, -1, -1, 1, 1, 2, 2, };
+
+  /** Déplacements en ligne des sauts d'un cavalier. */
+  private static final int [] KNIGHT_RANKS = { -1, 1, -2, 2, -2, 2, -1, 1, };
+
   /** Position du roi noir. */
   private Square _blackKingSquare;
 
@@ -41,6 +60,24 @@ abstract class AbstractMoveGenerator extends AbstractBoard implements MoveGenera
   /** Drapeau indiquant si le roi blanc à roqué. */
   private boolean _whiteCastled;
 
+  /** Carte des cases attaquées par les noirs, valide pour l'état de clé _blackAttacksKey. */
+  private transient long _blackAttacks;
+
+  /**
+   * Clé "Zobrist" de l'état pour lequel la carte des cases attaquées par les noirs a été calculée
+   * (la clé nulle initiale ne correspond qu'au plateau vide, dont la carte est bien vide).
+   */
+  private transient volatile long _blackAttacksKey;
+
+  /** Carte des cases attaquées par les blancs, valide pour l'état de clé _whiteAttacksKey. */
+  private transient long _whiteAttacks;
+
+  /**
+   * Clé "Zobrist" de l'état pour lequel la carte des cases attaquées par les blancs a été calculée
+   * (la clé nulle initiale ne correspond qu'au plateau vide, dont la carte est bien vide).
+   */
+  private transient volatile long _whiteAttacksKey;
+
   /**
    * Crée une nouvelle instance.
    */
@@ -66,6 +103,13 @@ abstract class AbstractMoveGenerator extends AbstractBoard implements MoveGenera
         setKingSquare(p.isWhite(), s);
       }
     }
+    if (pEtat instanceof MoveGenerator)
+    {
+      // Les roques déjà effectués ne se déduisent pas de la position...
+      final MoveGenerator etat = (MoveGenerator) pEtat;
+      _blackCastled = etat.isCastled(false);
+      _whiteCastled = etat.isCastled(true);
+    }
   }
 
   /**
@@ -83,6 +127,144 @@ abstract class AbstractMoveGenerator extends AbstractBoard implements MoveGenera
     _whiteCastled = pEtat._whiteCastled;
   }
 
+  /**
+   * Calcule la carte des cases attaquées par une couleur.
+   * <p>
+   * Implémentation par défaut, basée sur {@link #getPieceAt(Square)} et les tables d'attaques de
+   * {@link Bitboards}.
+   * </p>
+   * 
+   * @param pCouleur Positionné à "true" pour les attaques des blancs.
+   * @return Carte des cases attaquées (bit de rang i pour la case d'indice i).
+   */
+  protected long computeAttackedSquares(final boolean pCouleur)
+  {
+    long occupation = 0L;
+    long pieces = 0L;
+    for (int i = FILE_COUNT * RANK_COUNT; --i >= 0; /* Pré-décrémenté */)
+    {
+      final Piece p = getPieceAt(Square.valueOf(i));
+      if (p != null)
+      {
+        final long bit = 1L << i;
+        occupation |= bit;
+        if (p.isWhite() == pCouleur)
+        {
+          pieces |= bit;
+        }
+      }
+    }
+
+    long res = 0L;
+    while (pieces != 0L)
+    {
+      final int i = Long.numberOfTrailingZeros(pieces);
+      pieces &= pieces - 1;
+      res |= Bitboards.attacksOf(getPieceAt(Square.valueOf(i)), i, occupation);
+    }
+
+    return res;
+  }
+
+  /**
+   * Alimente une liste avec les identifiants des prises valides (y compris "en passant") pour la
+   * couleur ayant le trait.
+   * <p>
+   * Implémentation par défaut, basée sur {@link #getValidMoves(boolean)}.
+   * </p>
+   * 
+   * @param pListe Liste à alimenter.
+   */
+  public void generateCaptures(final MoveList pListe)
+  {
+    assert pListe != null;
+
+    pListe.clear();
+    for (final Move mvt : getValidMoves(isWhiteActive()))
+    {
+      if (mvt.getCaptured() != null)
+      {
+        pListe.add(mvt.toId());
+      }
+    }
+  }
+
+  /**
+   * Alimente une liste avec les identifiants de tous les mouvements valides pour la couleur ayant
+   * le trait.
+   * <p>
+   * Implémentation par défaut, basée sur {@link #getValidMoves(boolean)}.
+   * </p>
+   * 
+   * @param pListe Liste à alimenter.
+   */
+  public void generateMoves(final MoveList pListe)
+  {
+    assert pListe != null;
+
+    pListe.clear();
+    for (final Move mvt : getValidMoves(isWhiteActive()))
+    {
+      pListe.add(mvt.toId());
+    }
+  }
+
+  /**
+   * Alimente une liste avec les identifiants des mouvements valides sans prise pour la couleur
+   * ayant le trait.
+   * <p>
+   * Implémentation par défaut, basée sur {@link #getValidMoves(boolean)}.
+   * </p>
+   * 
+   * @param pListe Liste à alimenter.
+   */
+  public void generateQuietMoves(final MoveList pListe)
+  {
+    assert pListe != null;
+
+    pListe.clear();
+    for (final Move mvt : getValidMoves(isWhiteActive()))
+    {
+      if (mvt.getCaptured() == null)
+      {
+        pListe.add(mvt.toId());
+      }
+    }
+  }
+
+  /**
+   * Renvoi la carte des cases attaquées par une couleur.
+   * <p>
+   * La carte est calculée au premier appel pour un état, puis conservée avec lui : tant que
+   * l'état n'est pas modifié, les appels suivants (ainsi que {@link #isAttacked(Square, boolean)}
+   * et {@link #isInCheck(boolean)}) se limitent à un accès direct. La clé "Zobrist" de l'état sert
+   * à vérifier la validité de la carte conservée ; la méthode est sûre vis-à-vis des threads.
+   * </p>
+   * 
+   * @param pCouleur Positionné à "true" pour les attaques des blancs.
+   * @return Carte des cases attaquées (bit de rang i pour la case d'indice i).
+   */
+  public final long getAttackedSquares(final boolean pCouleur)
+  {
+    final long cle = zobristKey();
+    if (pCouleur)
+    {
+      if (_whiteAttacksKey != cle)
+      {
+        _whiteAttacks = computeAttackedSquares(true);
+        _whiteAttacksKey = cle;
+      }
+      return _whiteAttacks;
+    }
+
+    if (_blackAttacksKey != cle)
+    {
+      _blackAttacks = computeAttackedSquares(false);
+      _blackAttacksKey = cle;
+    }
+    return _blackAttacks;
+  }
+
   /**
    * Renvoi la case contenant le roi d'une couleur.
    * 
@@ -101,6 +283,20 @@ abstract class AbstractMoveGenerator extends AbstractBoard implements MoveGenera
     return _blackKingSquare;
   }
 
+  /**
+   * Indique si une case est attaquée par une couleur.
+   * 
+   * @param pCible Case cible.
+   * @param pCouleur Positionné à "true" pour tester l'attaque par les blancs.
+   * @return Vrai si la case est attaquée.
+   */
+  public boolean isAttacked(final Square pCible, final boolean pCouleur)
+  {
+    assert pCible != null;
+
+    return (getAttackedSquares(pCouleur) & (1L << pCible.getIndex())) != 0L;
+  }
+
   /**
    * Indique si le roi d'une couleur a roqué.
    * 
@@ -117,6 +313,207 @@ abstract class AbstractMoveGenerator extends AbstractBoard implements MoveGenera
     return _blackCastled;
   }
 
+  /**
+   * Indique si le roi d'une couleur est en échec.
+   * 
+   * @param pCouleur Positionné à "true" pour tester l'échec sur les blancs, à "false" sinon.
+   * @return Vrai si le roi est en échec.
+   */
+  public boolean isInCheck(final boolean pCouleur)
+  {
+    return isAttacked(getKingSquare(pCouleur), !pCouleur);
+  }
+
+  /**
+   * Indique si un mouvement pseudo-légal laisserait le roi de la couleur qui le joue en échec.
+   * <p>
+   * Evite de construire l'état dérivé pour le tester : les cases d'origine et de prise sont
+   * considérées comme vides, la case cible comme occupée par la pièce jouée, et seules les lignes
+   * partant du roi sont examinées. L'instance n'est pas modifiée, la méthode est donc sûre
+   * vis-à-vis des threads.
+   * </p>
+   * 
+   * @param pPiece Pièce déplacée.
+   * @param pOrigine Case à l'origine du mouvement.
+   * @param pCible Case cible du mouvement.
+   * @return Vrai si le roi serait en échec après le mouvement.
+   */
+  protected final boolean isInCheckAfter(final Piece pPiece, final Square pOrigine,
+      final Square pCible)
+  {
+    assert pPiece != null;
+    assert pOrigine != null;
+    assert pCible != null;
+
+    final boolean trait = pPiece.isWhite();
+    final Square roi;
+    if (pPiece.getType() == KING)
+    {
+      roi = pCible;
+    }
+    else
+    {
+      roi = getKingSquare(trait);
+    }
+    Square prise = pCible;
+    if ((pPiece.getType() == PAWN) && (pCible == getEnPassant()))
+    {
+      if (trait)
+      {
+        prise = Square.valueOf(pCible.getIndex() - FILE_COUNT);
+      }
+      else
+      {
+        prise = Square.valueOf(pCible.getIndex() + FILE_COUNT);
+      }
+    }
+    final int xRoi = roi.getFile();
+    final int yRoi = roi.getRank();
+
+    // Pièces à longue portée, roi et pions...
+    for (int d = DIRECTION_FILES.length; --d >= 0; /* Pré-décrémenté */)
+    {
+      final int dx = DIRECTION_FILES[d];
+      final int dy = DIRECTION_RANKS[d];
+      final boolean diagonale = (dx != 0) && (dy != 0);
+      int x = xRoi + dx;
+      int y = yRoi + dy;
+      boolean contact = true;
+      while ((x >= 0) && (x < FILE_COUNT) && (y >= 0) && (y < RANK_COUNT))
+      {
+        final Square s = Square.valueOf(x + y * FILE_COUNT);
+        if (s == pCible)
+        {
+          break;
+        }
+        if ((s != pOrigine) && (s != prise))
+        {
+          final Piece p = getPieceAt(s);
+          if (p != null)
+          {
+            if (p.isWhite() != trait)
+            {
+              final PieceType t = p.getType();
+              if ((t == QUEEN) || (diagonale && (t == BISHOP)) || (!diagonale && (t == ROOK)))
+              {
+                return true;
+              }
+              if (contact
+                  && ((t == KING) || ((t == PAWN) && diagonale && ((dy > 0) == trait))))
+              {
+                return true;
+              }
+            }
+            break;
+          }
+        }
+        x += dx;
+        y += dy;
+        contact = false;
+      }
+    }
+
+    // Cavaliers...
+    for (int k = KNIGHT_FILES.length; --k >= 0; /* Pré-décrémenté */)
+    {
+      final int x = xRoi + KNIGHT_FILES[k];
+      final int y = yRoi + KNIGHT_RANKS[k];
+      if ((x >= 0) && (x < FILE_COUNT) && (y >= 0) && (y < RANK_COUNT))
+      {
+        final Square s = Square.valueOf(x + y * FILE_COUNT);
+        if (s != pCible)
+        {
+          final Piece p = getPieceAt(s);
+          if ((p != null) && (p.isWhite() != trait) && (p.getType() == KNIGHT))
+          {
+            return true;
+          }
+        }
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * Indique si un identifiant de mouvement (voir {@link Move#toId()}) correspond à un mouvement
+   * valide pour la couleur ayant le trait.
+   * <p>
+   * Implémentation par défaut, basée sur {@link #getValidTargets(Square)}.
+   * </p>
+   * 
+   * @param pMouvement Identifiant du mouvement.
+   * @return Vrai si le mouvement est valide.
+   */
+  public boolean isValidMove(final int pMouvement)
+  {
+    final Piece piece = Move.pieceOf(pMouvement);
+    final Square origine = Square.valueOf(Move.fromOf(pMouvement));
+    final Square cible = Square.valueOf(Move.toOf(pMouvement));
+    if ((piece.isWhite() != isWhiteActive()) || (getPieceAt(origine) != piece))
+    {
+      return false;
+    }
+
+    Piece prise = getPieceAt(cible);
+    if ((piece.getType() == PAWN) && (cible == getEnPassant()))
+    {
+      if (piece.isWhite())
+      {
+        prise = getPieceAt(Square.valueOf(cible.getIndex() - FILE_COUNT));
+      }
+      else
+      {
+        prise = getPieceAt(Square.valueOf(cible.getIndex() + FILE_COUNT));
+      }
+    }
+    if (prise != Move.capturedOf(pMouvement))
+    {
+      return false;
+    }
+
+    for (final Square s : getValidTargets(origine))
+    {
+      if (s == cible)
+      {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * Indique si les mouvements d'une pièce doivent faire l'objet d'un contrôle de légalité.
+   * <p>
+   * Hors échec, une pièce autre que le roi ne peut découvrir son roi que si elle est alignée avec
+   * lui (clouage) : tous ses mouvements pseudo-légaux sont alors valides, sauf les prises "en
+   * passant" qui retirent une seconde pièce du plateau.
+   * </p>
+   * 
+   * @param pPiece Pièce à déplacer.
+   * @param pOrigine Case de la pièce.
+   * @return Faux si tous les mouvements pseudo-légaux de la pièce sont valides.
+   */
+  protected final boolean mayLeaveInCheck(final Piece pPiece, final Square pOrigine)
+  {
+    assert pPiece != null;
+    assert pOrigine != null;
+
+    final PieceType t = pPiece.getType();
+    if ((t == KING) || ((t == PAWN) && (getEnPassant() != null)))
+    {
+      return true;
+    }
+
+    final boolean trait = pPiece.isWhite();
+    final Square roi = getKingSquare(trait);
+    final int dx = Math.abs(roi.getFile() - pOrigine.getFile());
+    final int dy = Math.abs(roi.getRank() - pOrigine.getRank());
+
+    return (dx == 0) || (dy == 0) || (dx == dy) || isInCheck(trait);
+  }
+
   /**
    * Alimente l'indicateur de roi ayant roqué pour une couleur.
    * 
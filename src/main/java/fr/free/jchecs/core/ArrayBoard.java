@@ -83,6 +83,7 @@ final class ArrayBoard extends AbstractMoveGenerator
     etat._pieces[FILE_COUNT - 1][RANK_COUNT - 1] = BLACK_ROOK;
     etat.setKingSquare(false, Square.valueOf(4, 7));
     etat.setKingSquare(true, Square.valueOf(4, 0));
+    etat._zobristKey = etat.computeZobristKey();
     STARTING = etat;
   }
 
@@ -98,15 +99,15 @@ final class ArrayBoard extends AbstractMoveGenerator
   /** Description du plateau. */
   private final Piece [][] _pieces = new Piece [ FILE_COUNT ] [ RANK_COUNT ];
 
-  /** Buffer de la clé de hachage (peut être à null). */
-  private Integer _hashCode;
+  /** Clé "Zobrist" (les 32 bits de poids faible donnent la clé de hachage). */
+  private long _zobristKey;
 
   /**
    * Crée une nouvelle instance interne.
    */
   private ArrayBoard()
   {
-    // Rien de spécifique...
+    _zobristKey = zobristKeyRoot();
   }
 
   /**
@@ -122,6 +123,7 @@ final class ArrayBoard extends AbstractMoveGenerator
     {
       _pieces[s.getFile()][s.getRank()] = pEtat.getPieceAt(s);
     }
+    _zobristKey = computeZobristKey();
   }
 
   /**
@@ -137,6 +139,17 @@ final class ArrayBoard extends AbstractMoveGenerator
     {
       System.arraycopy(pEtat._pieces[x], 0, _pieces[x], 0, RANK_COUNT);
     }
+    _zobristKey = pEtat._zobristKey;
+  }
+
+  /**
+   * Calcule complètement la clé "Zobrist" de l'instance, à partir de la position des pièces.
+   * 
+   * @return Clé "Zobrist".
+   */
+  private long computeZobristKey()
+  {
+    return super.zobristKey();
   }
 
   /**
@@ -164,6 +177,8 @@ final class ArrayBoard extends AbstractMoveGenerator
     assert pMouvement != null;
 
     final ArrayBoard res = new ArrayBoard(this);
+    // La partie de la clé "Zobrist" liée aux pièces est mise à jour au fil des déplacements...
+    long cle = _zobristKey ^ zobristKeyRoot();
 
     // Ajuste les compteurs...
     if (pSuivant)
@@ -192,10 +207,19 @@ final class ArrayBoard extends AbstractMoveGenerator
     final int ySrc = src.getRank();
     assert res._pieces[xSrc][ySrc] == piece;
     res._pieces[xSrc][ySrc] = null;
+    final int pieceOrdinal = piece.ordinal();
+    cle ^= ZOBRIST_KEY_PIECE_POSITION[pieceOrdinal][src.getIndex()];
     final Square dst = pMouvement.getTo();
     final int xDst = dst.getFile();
     final int yDst = dst.getRank();
+    final int iDst = dst.getIndex();
+    final Piece pieceDst = res._pieces[xDst][yDst];
+    if (pieceDst != null)
+    {
+      cle ^= ZOBRIST_KEY_PIECE_POSITION[pieceDst.ordinal()][iDst];
+    }
     res._pieces[xDst][yDst] = piece;
+    cle ^= ZOBRIST_KEY_PIECE_POSITION[pieceOrdinal][iDst];
     // ... éxécute un mouvement spécifique de type "roque" et gère le suivi des rois ...
     if (typePiece == KING)
     {
@@ -210,6 +234,8 @@ final class ArrayBoard extends AbstractMoveGenerator
           assert tour.getType() == ROOK;
           res._pieces[0][yDst] = null;
           res._pieces[3][yDst] = tour;
+          cle ^= ZOBRIST_KEY_PIECE_POSITION[tour.ordinal()][yDst * FILE_COUNT];
+          cle ^= ZOBRIST_KEY_PIECE_POSITION[tour.ordinal()][yDst * FILE_COUNT + 3];
           res.setCastled(trait, true);
         }
         else if (xDst == 6)
@@ -220,6 +246,8 @@ final class ArrayBoard extends AbstractMoveGenerator
           assert tour.getType() == ROOK;
           res._pieces[FILE_COUNT - 1][yDst] = null;
           res._pieces[5][yDst] = tour;
+          cle ^= ZOBRIST_KEY_PIECE_POSITION[tour.ordinal()][yDst * FILE_COUNT + FILE_COUNT - 1];
+          cle ^= ZOBRIST_KEY_PIECE_POSITION[tour.ordinal()][yDst * FILE_COUNT + 5];
           res.setCastled(trait, true);
         }
       }
@@ -227,14 +255,18 @@ final class ArrayBoard extends AbstractMoveGenerator
     // ... éxécute un mouvement spécifique du type "en passant" ...
     if ((typePiece == PAWN) && (dst == getEnPassant()))
     {
+      final int yPrise;
       if (trait)
       {
-        res._pieces[xDst][yDst - 1] = null;
+        yPrise = yDst - 1;
       }
       else
       {
-        res._pieces[xDst][yDst + 1] = null;
+        yPrise = yDst + 1;
       }
+      final Piece prise = res._pieces[xDst][yPrise];
+      cle ^= ZOBRIST_KEY_PIECE_POSITION[prise.ordinal()][xDst + yPrise * FILE_COUNT];
+      res._pieces[xDst][yPrise] = null;
     }
     // Gére la promotion des pions...
     if (typePiece == PAWN)
@@ -245,6 +277,8 @@ final class ArrayBoard extends AbstractMoveGenerator
         if (yDst == RANK_COUNT - 1)
         {
           res._pieces[xDst][yDst] = WHITE_QUEEN;
+          cle ^= ZOBRIST_KEY_PIECE_POSITION[pieceOrdinal][iDst];
+          cle ^= ZOBRIST_KEY_PIECE_POSITION[WHITE_QUEEN.ordinal()][iDst];
         }
       }
       else
@@ -253,6 +287,8 @@ final class ArrayBoard extends AbstractMoveGenerator
         if (yDst == 0)
         {
           res._pieces[xDst][yDst] = BLACK_QUEEN;
+          cle ^= ZOBRIST_KEY_PIECE_POSITION[pieceOrdinal][iDst];
+          cle ^= ZOBRIST_KEY_PIECE_POSITION[BLACK_QUEEN.ordinal()][iDst];
         }
       }
     }
@@ -296,6 +332,8 @@ final class ArrayBoard extends AbstractMoveGenerator
       }
     }
 
+    res._zobristKey = cle ^ res.zobristKeyRoot();
+
     return res;
   }
 
@@ -897,13 +935,11 @@ final class ArrayBoard extends AbstractMoveGenerator
       final Square [] tmp = new Square [ tLength ];
       int nb = 0;
       final boolean trait = piece.isWhite();
+      final boolean controle = mayLeaveInCheck(piece, pOrigine);
       for (int t = tLength; --t >= 0; /* Pré-décrémenté */)
       {
         final Square cible = total[t];
-        final int xDst = cible.getFile();
-        final int yDst = cible.getRank();
-        final Piece prise = _pieces[xDst][yDst];
-        if (!derive(new Move(piece, pOrigine, cible, prise), false).isInCheck(trait))
+        if (!controle || !isInCheckAfter(piece, pOrigine, cible))
         {
           if ((piece.getType() == KING) && (pOrigine.getFile() == 4))
           {
@@ -913,9 +949,8 @@ final class ArrayBoard extends AbstractMoveGenerator
               // Elimine le roque si le roi est en échec ou s'il le serait sur la case
               // intermédiaire...
               if (isInCheck(trait)
-                  || derive(
-                      new Move(piece, pOrigine, Square.valueOf(4 - (delta / 2), cible.getRank())),
-                      false).isInCheck(trait))
+                  || isInCheckAfter(piece, pOrigine,
+                      Square.valueOf(4 - (delta / 2), cible.getRank())))
               {
                 continue;
               }
@@ -940,267 +975,21 @@ final class ArrayBoard extends AbstractMoveGenerator
    * @return Clé de hachage.
    */
   @Override
-  public synchronized int hashCode()
+  public int hashCode()
   {
-    if (_hashCode == null)
-    {
-      int h = zobristRoot();
-      for (int x = FILE_COUNT; --x >= 0; /* Pré-décrémenté */)
-      {
-        for (int y = RANK_COUNT; --y >= 0; /* Pré-décrémenté */)
-        {
-          final Piece p = _pieces[x][y];
-          if (p != null)
-          {
-            h ^= ZOBRIST_PIECE_POSITION[p.ordinal()][x + y * FILE_COUNT];
-          }
-        }
-      }
-      assert h == super.hashCode();
-
-      _hashCode = Integer.valueOf(h);
-    }
-
-    return _hashCode.intValue();
+    assert (int) _zobristKey == super.hashCode();
+    return (int) _zobristKey;
   }
 
   /**
-   * Indique si une case est attaquée par une couleur.
+   * Surcharge du calcul de la clé "Zobrist", tenue à jour à chaque mouvement.
    * 
-   * @param pCible Case cible.
-   * @param pCouleur Positionné à "true" pour tester l'attaque par les blancs.
-   * @return Vrai si la case est attaquée.
+   * @return Clé "Zobrist" de l'état.
    */
-  public boolean isAttacked(final Square pCible, final boolean pCouleur)
-  {
-    assert pCible != null;
-
-    final int xSrc = pCible.getFile();
-    final int ySrc = pCible.getRank();
-
-    Piece p = null;
-    int x = xSrc - 1;
-    // Gauche
-    while ((x >= 0) && (p == null))
-    {
-      p = _pieces[x--][ySrc];
-    }
-    if ((p != null) && (p.isWhite() == pCouleur))
-    {
-      final PieceType t = p.getType();
-      if ((t == ROOK) || (t == QUEEN))
-      {
-        return true;
-      }
-    }
-
-    p = null;
-    x = xSrc + 1;
-    // Droite
-    while ((x < FILE_COUNT) && (p == null))
-    {
-      p = _pieces[x++][ySrc];
-    }
-    if ((p != null) && (p.isWhite() == pCouleur))
-    {
-      final PieceType t = p.getType();
-      if ((t == ROOK) || (t == QUEEN))
-      {
-        return true;
-      }
-    }
-
-    p = null;
-    int y = ySrc - 1;
-    // Bas
-    while ((y >= 0) && (p == null))
-    {
-      p = _pieces[xSrc][y--];
-    }
-    if ((p != null) && (p.isWhite() == pCouleur))
-    {
-      final PieceType t = p.getType();
-      if ((t == ROOK) || (t == QUEEN))
-      {
-        return true;
-      }
-    }
-
-    p = null;
-    y = ySrc + 1;
-    // Haut
-    while ((y < RANK_COUNT) && (p == null))
-    {
-      p = _pieces[xSrc][y++];
-    }
-    if ((p != null) && (p.isWhite() == pCouleur))
-    {
-      final PieceType t = p.getType();
-      if ((t == ROOK) || (t == QUEEN))
-      {
-        return true;
-      }
-    }
-
-    p = null;
-    x = xSrc - 1;
-    y = ySrc - 1;
-    // Bas / Gauche
-    while ((x >= 0) && (y >= 0) && (p == null))
-    {
-      p = _pieces[x--][y--];
-    }
-    if ((p != null) && (p.isWhite() == pCouleur))
-    {
-      final PieceType t = p.getType();
-      if ((t == BISHOP) || (t == QUEEN))
-      {
-        return true;
-      }
-    }
-
-    p = null;
-    x = xSrc - 1;
-    y = ySrc + 1;
-    // Haut / Gauche
-    while ((x >= 0) && (y < RANK_COUNT) && (p == null))
-    {
-      p = _pieces[x--][y++];
-    }
-    if ((p != null) && (p.isWhite() == pCouleur))
-    {
-      final PieceType t = p.getType();
-      if ((t == BISHOP) || (t == QUEEN))
-      {
-        return true;
-      }
-    }
-
-    p = null;
-    x = xSrc + 1;
-    y = ySrc + 1;
-    // Haut / Droit
-    while ((x < FILE_COUNT) && (y < RANK_COUNT) && (p == null))
-    {
-      p = _pieces[x++][y++];
-    }
-    if ((p != null) && (p.isWhite() == pCouleur))
-    {
-      final PieceType t = p.getType();
-      if ((t == BISHOP) || (t == QUEEN))
-      {
-        return true;
-      }
-    }
-
-    p = null;
-    x = xSrc + 1;
-    y = ySrc - 1;
-    // Bas / Droit
-    while ((x < FILE_COUNT) && (y >= 0) && (p == null))
-    {
-      p = _pieces[x++][y--];
-    }
-    if ((p != null) && (p.isWhite() == pCouleur))
-    {
-      final PieceType t = p.getType();
-      if ((t == BISHOP) || (t == QUEEN))
-      {
-        return true;
-      }
-    }
-
-    // Cavalier
-    int kLength = KNIGHT_MOVES.length;
-    for (int i = kLength; --i >= 0; /* Pré-décrémenté */)
-    {
-      x = xSrc + KNIGHT_MOVES[i];
-      y = ySrc + KNIGHT_MOVES[(i + 2) % kLength];
-      if ((x >= 0) && (y >= 0) && (x < FILE_COUNT) && (y < RANK_COUNT))
-      {
-        p = _pieces[x][y];
-        if ((p != null) && (p.isWhite() == pCouleur) && (p.getType() == KNIGHT))
-        {
-          return true;
-        }
-      }
-    }
-
-    // Roi
-    kLength = KING_MOVES.length;
-    for (int i = kLength; --i >= 0; /* Pré-décrémenté */)
-    {
-      x = xSrc + KING_MOVES[i];
-      y = ySrc + KING_MOVES[(i + 2) % kLength];
-      if ((x >= 0) && (y >= 0) && (x < FILE_COUNT) && (y < RANK_COUNT))
-      {
-        p = _pieces[x][y];
-        if ((p != null) && (p.isWhite() == pCouleur) && (p.getType() == KING))
-        {
-          return true;
-        }
-      }
-    }
-
-    // Pions...
-    if (pCouleur)
-    {
-      if (ySrc > 1)
-      {
-        if (((xSrc > 0) && (_pieces[xSrc - 1][ySrc - 1] == WHITE_PAWN))
-            || ((xSrc < FILE_COUNT - 1) && (_pieces[xSrc + 1][ySrc - 1] == WHITE_PAWN)))
-        {
-          return true;
-        }
-      }
-    }
-    else
-    {
-      if (ySrc < RANK_COUNT - 2)
-      {
-        if (((xSrc > 0) && (_pieces[xSrc - 1][ySrc + 1] == BLACK_PAWN))
-            || ((xSrc < FILE_COUNT - 1) && (_pieces[xSrc + 1][ySrc + 1] == BLACK_PAWN)))
-        {
-          return true;
-        }
-      }
-    }
-
-    return false;
-  }
-
-  /**
-   * Indique si le roi d'une couleur est en échec.
-   * 
-   * @param pCouleur Positionné à "true" pour tester l'échec sur les blancs, à "false" sinon.
-   * @return Vrai si le roi est en échec.
-   */
-  public boolean isInCheck(final boolean pCouleur)
+  @Override
+  public long zobristKey()
   {
-    final Square posRoi = getKingSquare(pCouleur);
-
-    for (int x = FILE_COUNT; --x >= 0; /* Pré-décrémenté */)
-    {
-      for (int y = RANK_COUNT; --y >= 0; /* Pré-décrémenté */)
-      {
-        final Piece p = _pieces[x][y];
-        if ((p != null) && (p.isWhite() != pCouleur))
-        {
-          final Square test = Square.valueOf(x, y);
-          if (test != posRoi)
-          {
-            for (final Square s : getAllTargets(test))
-            {
-              if (s == posRoi)
-              {
-                return true;
-              }
-            }
-          }
-        }
-      }
-    }
-
-    return false;
+    assert _zobristKey == super.zobristKey();
+    return _zobristKey;
   }
 }
@@ -0,0 +1,346 @@
+/*
+ $Id$
+
+ Copyright (C) 2006-2007 by David Cotton
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU General Public License as published by the Free Software
+ Foundation; either version 2 of the License, or (at your option) any later
+ version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along with
+ this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package fr.free.jchecs.core;
+
+import static fr.free.jchecs.core.Constants.FILE_COUNT;
+import static fr.free.jchecs.core.Constants.RANK_COUNT;
+import static fr.free.jchecs.core.Piece.BLACK_BISHOP;
+import static fr.free.jchecs.core.Piece.BLACK_KING;
+import static fr.free.jchecs.core.Piece.BLACK_KNIGHT;
+import static fr.free.jchecs.core.Piece.BLACK_PAWN;
+import static fr.free.jchecs.core.Piece.BLACK_QUEEN;
+import static fr.free.jchecs.core.Piece.BLACK_ROOK;
+import static fr.free.jchecs.core.Piece.WHITE_BISHOP;
+import static fr.free.jchecs.core.Piece.WHITE_KING;
+import static fr.free.jchecs.core.Piece.WHITE_KNIGHT;
+import static fr.free.jchecs.core.Piece.WHITE_PAWN;
+import static fr.free.jchecs.core.Piece.WHITE_QUEEN;
+import static fr.free.jchecs.core.Piece.WHITE_ROOK;
+
+/**
+ * Classe utilitaire regroupant les tables et les calculs d'attaques sur des cartes binaires (64
+ * bits, un bit par case, le bit de poids faible correspondant à "a1").
+ * <p>
+ * Les attaques des pièces glissantes sont obtenues par la méthode dite "kindergarten" : la ligne
+ * concernée est ramenée par une multiplication sur 6 bits, servant d'indice dans une table
+ * pré-calculée. Toutes les tables sont immuables une fois initialisées : la classe est sûre
+ * vis-à-vis des threads.
+ * </p>
+ * 
+ * @author David Cotton
+ */
+final class Bitboards
+{
+  /** Carte de la colonne "a". */
+  static final long FILE_A = 0x0101010101010101L;
+
+  /** Carte de la colonne "h". */
+  static final long FILE_H = FILE_A << (FILE_COUNT - 1);
+
+  /** Carte de la ligne "1". */
+  static final long RANK_1 = 0xFFL;
+
+  /** Carte de la ligne "8". */
+  static final long RANK_8 = RANK_1 << (FILE_COUNT * (RANK_COUNT - 1));
+
+  /** Attaques d'un cavalier pour chaque case. */
+  static final long [] KNIGHT_ATTACKS = new long [ 64 ];
+
+  /** Attaques d'un roi pour chaque case. */
+  static final long [] KING_ATTACKS = new long [ 64 ];
+
+  /** Attaques d'un pion blanc pour chaque case. */
+  static final long [] WHITE_PAWN_ATTACKS = new long [ 64 ];
+
+  /** Attaques d'un pion noir pour chaque case. */
+  static final long [] BLACK_PAWN_ATTACKS = new long [ 64 ];
+
+  /** Constante de multiplication ramenant une diagonale sur les bits de poids fort. */
+  private static final long FILE_B = FILE_A << 1;
+
+  /** Constante de multiplication ramenant la colonne "a" sur les bits de poids fort. */
+  private static final long DIAG_C7H2 = 0x0004081020408000L;
+
+  /** Cartes des diagonales (a1-h8) passant par chaque case, case exclue. */
+  private static final long [] DIAGONAL_MASKS = new long [ 64 ];
+
+  /** Cartes des anti-diagonales (a8-h1) passant par chaque case, case exclue. */
+  private static final long [] ANTI_DIAGONAL_MASKS = new long [ 64 ];
+
+  /** Attaques sur la diagonale, par case et par occupation réduite. */
+  private static final long [][] DIAGONAL_ATTACKS = new long [ 64 ] [ 64 ];
+
+  /** Attaques sur l'anti-diagonale, par case et par occupation réduite. */
+  private static final long [][] ANTI_DIAGONAL_ATTACKS = new long [ 64 ] [ 64 ];
+
+  /** Attaques sur la ligne, par case et par occupation réduite. */
+  private static final long [][] RANK_ATTACKS = new long [ 64 ] [ 64 ];
+
+  /** Attaques sur la colonne, par case et par occupation réduite. */
+  private static final long [][] FILE_ATTACKS = new long [ 64 ] [ 64 ];
+
+  static
+  {
+    final int [][] cavalier = { { 1, 2 }, { 2, 1 }, { 2, -1 }, { 1, -2 }, { -1, -2 }, { -2, -1 },
+                               { -2, 1 }, { -1, 2 }, };
+    final int [][] roi = { { 1, 0 }, { 1, 1 }, { 0, 1 }, { -1, 1 }, { -1, 0 }, { -1, -1 },
+                          { 0, -1 }, { 1, -1 }, };
+    for (int sq = 0; sq < 64; sq++)
+    {
+      final int x = sq % FILE_COUNT;
+      final int y = sq / FILE_COUNT;
+      for (final int [] d : cavalier)
+      {
+        KNIGHT_ATTACKS[sq] |= bit(x + d[0], y + d[1]);
+      }
+      for (final int [] d : roi)
+      {
+        KING_ATTACKS[sq] |= bit(x + d[0], y + d[1]);
+      }
+      WHITE_PAWN_ATTACKS[sq] = bit(x - 1, y + 1) | bit(x + 1, y + 1);
+      BLACK_PAWN_ATTACKS[sq] = bit(x - 1, y - 1) | bit(x + 1, y - 1);
+      DIAGONAL_MASKS[sq] = ray(x, y, 1, 1, 0L) | ray(x, y, -1, -1, 0L);
+      ANTI_DIAGONAL_MASKS[sq] = ray(x, y, -1, 1, 0L) | ray(x, y, 1, -1, 0L);
+
+      // Enumère toutes les occupations possibles des 6 cases intérieures de chaque ligne...
+      for (int occ6 = 0; occ6 < 64; occ6++)
+      {
+        long occRang = 0L;
+        long occCol = 0L;
+        for (int i = 0; i < 6; i++)
+        {
+          if ((occ6 & (1 << i)) != 0)
+          {
+            occRang |= bit(i + 1, y);
+            occCol |= bit(x, i + 1);
+          }
+        }
+        RANK_ATTACKS[sq][rankIndex(sq, occRang)] =
+            ray(x, y, 1, 0, occRang) | ray(x, y, -1, 0, occRang);
+        FILE_ATTACKS[sq][fileIndex(sq, occCol)] =
+            ray(x, y, 0, 1, occCol) | ray(x, y, 0, -1, occCol);
+
+        long occDiag = 0L;
+        long occAnti = 0L;
+        for (int f = 1; f < FILE_COUNT - 1; f++)
+        {
+          if ((occ6 & (1 << (f - 1))) != 0)
+          {
+            occDiag |= DIAGONAL_MASKS[sq] & (FILE_A << f);
+            occAnti |= ANTI_DIAGONAL_MASKS[sq] & (FILE_A << f);
+          }
+        }
+        DIAGONAL_ATTACKS[sq][diagonalIndex(DIAGONAL_MASKS[sq], occDiag)] =
+            ray(x, y, 1, 1, occDiag) | ray(x, y, -1, -1, occDiag);
+        ANTI_DIAGONAL_ATTACKS[sq][diagonalIndex(ANTI_DIAGONAL_MASKS[sq], occAnti)] =
+            ray(x, y, -1, 1, occAnti) | ray(x, y, 1, -1, occAnti);
+      }
+    }
+  }
+
+  /**
+   * Classe utilitaire : ne pas instancier.
+   */
+  private Bitboards()
+  {
+    // Rien de spécifique...
+  }
+
+  /**
+   * Renvoi la carte de toutes les pièces d'une couleur attaquant une case.
+   * 
+   * @param pPieces Cartes des pièces, indicées par l'ordinal de {@link Piece}.
+   * @param pOccupation Carte de l'occupation du plateau.
+   * @param pCase Indice de la case cible.
+   * @param pBlanc A vrai pour rechercher les attaquants blancs.
+   * @return Carte des attaquants.
+   */
+  static long attackersOf(final long [] pPieces, final long pOccupation, final int pCase,
+      final boolean pBlanc)
+  {
+    assert pPieces != null;
+    assert (pCase >= 0) && (pCase < 64);
+
+    if (pBlanc)
+    {
+      final long dames = pPieces[WHITE_QUEEN.ordinal()];
+      return (BLACK_PAWN_ATTACKS[pCase] & pPieces[WHITE_PAWN.ordinal()])
+          | (KNIGHT_ATTACKS[pCase] & pPieces[WHITE_KNIGHT.ordinal()])
+          | (KING_ATTACKS[pCase] & pPieces[WHITE_KING.ordinal()])
+          | (bishopAttacks(pCase, pOccupation) & (pPieces[WHITE_BISHOP.ordinal()] | dames))
+          | (rookAttacks(pCase, pOccupation) & (pPieces[WHITE_ROOK.ordinal()] | dames));
+    }
+
+    final long dames = pPieces[BLACK_QUEEN.ordinal()];
+    return (WHITE_PAWN_ATTACKS[pCase] & pPieces[BLACK_PAWN.ordinal()])
+        | (KNIGHT_ATTACKS[pCase] & pPieces[BLACK_KNIGHT.ordinal()])
+        | (KING_ATTACKS[pCase] & pPieces[BLACK_KING.ordinal()])
+        | (bishopAttacks(pCase, pOccupation) & (pPieces[BLACK_BISHOP.ordinal()] | dames))
+        | (rookAttacks(pCase, pOccupation) & (pPieces[BLACK_ROOK.ordinal()] | dames));
+  }
+
+  /**
+   * Renvoi la carte des cases attaquées par une pièce.
+   * 
+   * @param pPiece Pièce attaquante.
+   * @param pCase Indice de la case de la pièce.
+   * @param pOccupation Carte de l'occupation du plateau.
+   * @return Carte des cases attaquées (y compris les cases occupées par des pièces amies).
+   */
+  static long attacksOf(final Piece pPiece, final int pCase, final long pOccupation)
+  {
+    assert pPiece != null;
+    assert (pCase >= 0) && (pCase < 64);
+
+    switch (pPiece.getType())
+    {
+      case BISHOP :
+        return bishopAttacks(pCase, pOccupation);
+      case KING :
+        return KING_ATTACKS[pCase];
+      case KNIGHT :
+        return KNIGHT_ATTACKS[pCase];
+      case PAWN :
+        if (pPiece.isWhite())
+        {
+          return WHITE_PAWN_ATTACKS[pCase];
+        }
+        return BLACK_PAWN_ATTACKS[pCase];
+      case QUEEN :
+        return bishopAttacks(pCase, pOccupation) | rookAttacks(pCase, pOccupation);
+      case ROOK :
+        return rookAttacks(pCase, pOccupation);
+      default :
+        assert false;
+        return 0L;
+    }
+  }
+
+  /**
+   * Renvoi la carte d'une case à partir de ses coordonnées, ou 0 si elles sont hors du plateau.
+   * 
+   * @param pColonne Colonne de la case.
+   * @param pLigne Ligne de la case.
+   * @return Carte de la case (éventuellement vide).
+   */
+  private static long bit(final int pColonne, final int pLigne)
+  {
+    if ((pColonne < 0) || (pColonne >= FILE_COUNT) || (pLigne < 0) || (pLigne >= RANK_COUNT))
+    {
+      return 0L;
+    }
+
+    return 1L << (pColonne + pLigne * FILE_COUNT);
+  }
+
+  /**
+   * Renvoi les attaques d'une pièce de type "fou" à partir d'une case.
+   * 
+   * @param pCase Indice de la case d'origine.
+   * @param pOccupation Carte de l'occupation du plateau.
+   * @return Carte des cases attaquées (y compris les cases occupées par des pièces amies).
+   */
+  static long bishopAttacks(final int pCase, final long pOccupation)
+  {
+    final long diag = DIAGONAL_MASKS[pCase];
+    final long anti = ANTI_DIAGONAL_MASKS[pCase];
+    return DIAGONAL_ATTACKS[pCase][diagonalIndex(diag, pOccupation & diag)]
+        | ANTI_DIAGONAL_ATTACKS[pCase][diagonalIndex(anti, pOccupation & anti)];
+  }
+
+  /**
+   * Calcule l'indice réduit d'une occupation sur une diagonale.
+   * 
+   * @param pMasque Carte de la diagonale.
+   * @param pOccupation Occupation de la diagonale.
+   * @return Indice (de 0 à 63).
+   */
+  private static int diagonalIndex(final long pMasque, final long pOccupation)
+  {
+    return (int) (((pOccupation & pMasque) * FILE_B) >>> 58);
+  }
+
+  /**
+   * Calcule l'indice réduit d'une occupation sur la colonne d'une case.
+   * 
+   * @param pCase Indice de la case.
+   * @param pOccupation Occupation du plateau.
+   * @return Indice (de 0 à 63).
+   */
+  private static int fileIndex(final int pCase, final long pOccupation)
+  {
+    return (int) ((((pOccupation >>> (pCase & 7)) & FILE_A) * DIAG_C7H2) >>> 58);
+  }
+
+  /**
+   * Calcule l'indice réduit d'une occupation sur la ligne d'une case.
+   * 
+   * @param pCase Indice de la case.
+   * @param pOccupation Occupation du plateau.
+   * @return Indice (de 0 à 63).
+   */
+  private static int rankIndex(final int pCase, final long pOccupation)
+  {
+    return (int) ((pOccupation >>> ((pCase & 56) + 1)) & 63);
+  }
+
+  /**
+   * Construit par balayage un rayon d'attaque, arrêté par la première case occupée.
+   * 
+   * @param pColonne Colonne de départ.
+   * @param pLigne Ligne de départ.
+   * @param pDx Pas horizontal.
+   * @param pDy Pas vertical.
+   * @param pOccupation Occupation du plateau.
+   * @return Carte des cases du rayon.
+   */
+  private static long ray(final int pColonne, final int pLigne, final int pDx, final int pDy,
+      final long pOccupation)
+  {
+    long res = 0L;
+    int x = pColonne + pDx;
+    int y = pLigne + pDy;
+    while ((x >= 0) && (x < FILE_COUNT) && (y >= 0) && (y < RANK_COUNT))
+    {
+      final long b = bit(x, y);
+      res |= b;
+      if ((pOccupation & b) != 0)
+      {
+        break;
+      }
+      x += pDx;
+      y += pDy;
+    }
+
+    return res;
+  }
+
+  /**
+   * Renvoi les attaques d'une pièce de type "tour" à partir d'une case.
+   * 
+   * @param pCase Indice de la case d'origine.
+   * @param pOccupation Carte de l'occupation du plateau.
+   * @return Carte des cases attaquées (y compris les cases occupées par des pièces amies).
+   */
+  static long rookAttacks(final int pCase, final long pOccupation)
+  {
+    return RANK_ATTACKS[pCase][rankIndex(pCase, pOccupation)]
+        | FILE_ATTACKS[pCase][fileIndex(pCase, pOccupation)];
+  }
+}
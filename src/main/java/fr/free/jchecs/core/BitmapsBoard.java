@@ -0,0 +1,1418 @@
+/*
+ $Id$
+
+ Copyright (C) 2006-2007 by David Cotton
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU General Public License as published by the Free Software
+ Foundation; either version 2 of the License, or (at your option) any later
+ version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along with
+ this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package fr.free.jchecs.core;
+
+import static fr.free.jchecs.core.Constants.FILE_COUNT;
+import static fr.free.jchecs.core.Constants.RANK_COUNT;
+import static fr.free.jchecs.core.Piece.BLACK_BISHOP;
+import static fr.free.jchecs.core.Piece.BLACK_KING;
+import static fr.free.jchecs.core.Piece.BLACK_KNIGHT;
+import static fr.free.jchecs.core.Piece.BLACK_PAWN;
+import static fr.free.jchecs.core.Piece.BLACK_QUEEN;
+import static fr.free.jchecs.core.Piece.BLACK_ROOK;
+import static fr.free.jchecs.core.Piece.WHITE_BISHOP;
+import static fr.free.jchecs.core.Piece.WHITE_KING;
+import static fr.free.jchecs.core.Piece.WHITE_KNIGHT;
+import static fr.free.jchecs.core.Piece.WHITE_PAWN;
+import static fr.free.jchecs.core.Piece.WHITE_QUEEN;
+import static fr.free.jchecs.core.Piece.WHITE_ROOK;
+import static fr.free.jchecs.core.PieceType.KING;
+import static fr.free.jchecs.core.PieceType.PAWN;
+import static fr.free.jchecs.core.PieceType.ROOK;
+
+/**
+ * Représentation d'un état de la partie basée sur des cartes binaires ("bitboards") : une carte de
+ * 64 bits par type de pièce et par couleur.
+ * <p>
+ * Les cibles des pièces glissantes sont obtenues par consultation de tables pré-calculées (voir
+ * {@link Bitboards}), et la validité d'un mouvement est vérifiée sans dériver de nouvel état, en
+ * recalculant les attaques sur le roi à partir des cartes modifiées.
+ * </p>
+ * <p>
+ * Les instances sont immuables, sauf à travers la sous-classe {@link SearchBoard} qui applique les
+ * mouvements sur place pour les besoins des moteurs de recherche.
+ * </p>
+ * 
+ * @author David Cotton
+ */
+class BitmapsBoard extends AbstractMoveGenerator
+{
+  /** Identifiant de la classe pour la sérialisation. */
+  private static final long serialVersionUID = -2857420785096233407L;
+
+  /** Liste de cases cibles vides. */
+  private static final Square [] NO_SQUARE = new Square [ 0 ];
+
+  /** Pièces blanches, par valeur croissante, pour l'évaluation des échanges. */
+  private static final Piece [] WHITE_EXCHANGERS =
+      { WHITE_PAWN, WHITE_KNIGHT, WHITE_BISHOP, WHITE_ROOK, WHITE_QUEEN, WHITE_KING, };
+
+  /** Pièces noires, par valeur croissante, pour l'évaluation des échanges. */
+  private static final Piece [] BLACK_EXCHANGERS =
+      { BLACK_PAWN, BLACK_KNIGHT, BLACK_BISHOP, BLACK_ROOK, BLACK_QUEEN, BLACK_KING, };
+
+  /** Instance correspondant à un état initial, sans pièces. */
+  static final MoveGenerator EMPTY = new BitmapsBoard(ArrayBoard.EMPTY);
+
+  /** Instance correspondant à l'état initial standard. */
+  static final MoveGenerator STARTING = new BitmapsBoard(ArrayBoard.STARTING);
+
+  /** Cartes des pièces, indexées par l'ordinal de la pièce. */
+  private final long [] _bitmaps = new long [ Piece.values().length ];
+
+  /** Description du plateau, case par case, pour un accès direct aux pièces. */
+  private final Piece [] _pieces = new Piece [ FILE_COUNT * RANK_COUNT ];
+
+  /** Carte des pièces noires. */
+  private long _blacks;
+
+  /** Valeur du matériel noir. */
+  private int _blackMaterial;
+
+  /** Clé "Zobrist" restreinte aux pions (pour les tables de structure de pions). */
+  private long _pawnKey;
+
+  /**
+   * Table de positions dont les sommes sont maintenues au fil des mouvements (ou null).
+   * <p>
+   * Ecrite après les sommes correspondantes : sa lecture garantit de les voir complètes.
+   * </p>
+   */
+  private transient volatile PieceSquareTable _pieceSquareTable;
+
+  /** Sommes des valeurs de _pieceSquareTable des pièces présentes, par ordinal de pièce. */
+  private transient int [] _pieceSquareSums;
+
+  /** Carte des pièces blanches. */
+  private long _whites;
+
+  /** Valeur du matériel blanc. */
+  private int _whiteMaterial;
+
+  /** Clé "Zobrist" (les 32 bits de poids faible donnent la clé de hachage). */
+  private long _zobristKey;
+
+  /**
+   * Crée une nouvelle instance, initialisée à partir de l'état reçu en paramètre.
+   * 
+   * @param pEtat Instance initial.
+   */
+  BitmapsBoard(final Board pEtat)
+  {
+    super(pEtat);
+
+    for (final Square s : Square.values())
+    {
+      final Piece p = pEtat.getPieceAt(s);
+      if (p != null)
+      {
+        setPiece(p, s.getIndex());
+      }
+    }
+    _zobristKey = super.zobristKey();
+  }
+
+  /**
+   * Crée une nouvelle instance, copie conforme de l'instance reçue.
+   * 
+   * @param pEtat Instance à copier.
+   */
+  private BitmapsBoard(final BitmapsBoard pEtat)
+  {
+    super(pEtat);
+
+    System.arraycopy(pEtat._bitmaps, 0, _bitmaps, 0, _bitmaps.length);
+    System.arraycopy(pEtat._pieces, 0, _pieces, 0, _pieces.length);
+    _blacks = pEtat._blacks;
+    _blackMaterial = pEtat._blackMaterial;
+    _pawnKey = pEtat._pawnKey;
+    _whites = pEtat._whites;
+    _whiteMaterial = pEtat._whiteMaterial;
+    _zobristKey = pEtat._zobristKey;
+  }
+
+  /**
+   * Renvoi la carte des cibles possibles (y compris celles mettant le roi en échec) de la pièce
+   * contenue par une case.
+   * 
+   * @param pOrigine Indice de la case à l'origine du mouvement.
+   * @return Carte des cibles (vide si la case est vide).
+   */
+  private long allTargets(final int pOrigine)
+  {
+    assert (pOrigine >= 0) && (pOrigine < FILE_COUNT * RANK_COUNT);
+
+    final Piece piece = _pieces[pOrigine];
+    if (piece == null)
+    {
+      return 0L;
+    }
+
+    final boolean trait = piece.isWhite();
+    switch (piece.getType())
+    {
+      case BISHOP :
+        return bishopTargets(pOrigine, trait);
+      case KING :
+        return kingTargets(pOrigine, trait);
+      case KNIGHT :
+        return knightTargets(pOrigine, trait);
+      case PAWN :
+        return pawnTargets(pOrigine, trait);
+      case QUEEN :
+        return bishopTargets(pOrigine, trait) | rookTargets(pOrigine, trait);
+      case ROOK :
+        return rookTargets(pOrigine, trait);
+      default :
+        assert false;
+    }
+
+    return 0L;
+  }
+
+  /**
+   * Renvoi la carte des cibles possibles d'un mouvement de type "fou" d'une certaine couleur (y
+   * compris ceux mettant le roi en échec) à partir d'une case.
+   * 
+   * @param pOrigine Indice de la case à l'origine du mouvement.
+   * @param pBlanc Positionné à vrai si la recherche concerne les blancs.
+   * @return Carte des cibles.
+   */
+  private long bishopTargets(final int pOrigine, final boolean pBlanc)
+  {
+    return Bitboards.bishopAttacks(pOrigine, _whites | _blacks) & ~(pBlanc ? _whites : _blacks);
+  }
+
+  /**
+   * Calcule la carte des cases attaquées par une couleur, directement à partir des cartes des
+   * pièces.
+   * 
+   * @param pCouleur Positionné à "true" pour les attaques des blancs.
+   * @return Carte des cases attaquées (bit de rang i pour la case d'indice i).
+   */
+  @Override
+  protected long computeAttackedSquares(final boolean pCouleur)
+  {
+    final long occupation = _whites | _blacks;
+    long pieces;
+    if (pCouleur)
+    {
+      pieces = _whites;
+    }
+    else
+    {
+      pieces = _blacks;
+    }
+
+    long res = 0L;
+    while (pieces != 0L)
+    {
+      final int i = Long.numberOfTrailingZeros(pieces);
+      pieces &= pieces - 1;
+      res |= Bitboards.attacksOf(_pieces[i], i, occupation);
+    }
+
+    return res;
+  }
+
+  /**
+   * Renvoi la pièce qui serait prise par une pièce arrivant sur une case (y compris "en passant").
+   * 
+   * @param pPiece Pièce déplacée.
+   * @param pDestination Indice de la case d'arrivée.
+   * @return Pièce prise (ou null).
+   */
+  private Piece capturedBy(final Piece pPiece, final int pDestination)
+  {
+    if ((pPiece.getType() != PAWN) || (Square.valueOf(pDestination) != getEnPassant()))
+    {
+      return _pieces[pDestination];
+    }
+
+    if (pPiece.isWhite())
+    {
+      return _pieces[pDestination - FILE_COUNT];
+    }
+
+    return _pieces[pDestination + FILE_COUNT];
+  }
+
+  /**
+   * Renvoi une nouvelle instance, initialisée à partir d'un état quelconque.
+   * 
+   * @param pEtat Etat de départ.
+   * @return Copie de l'état.
+   */
+  public MoveGenerator derive(final Board pEtat)
+  {
+    assert pEtat != null;
+
+    return new BitmapsBoard(pEtat);
+  }
+
+  /**
+   * Renvoi une nouvelle instance décrivant l'état du jeu après application d'un mouvement.
+   * 
+   * @param pMouvement Description de mouvement.
+   * @param pSuivant Drapeau positionné si l'on souhaite que le trait soit modifié.
+   * @return Instance dérivée.
+   */
+  public MoveGenerator derive(final Move pMouvement, final boolean pSuivant)
+  {
+    assert pMouvement != null;
+
+    final BitmapsBoard res = new BitmapsBoard(this);
+    res.play(pMouvement.toId(), pSuivant);
+
+    return res;
+  }
+
+  /**
+   * Applique un mouvement directement sur l'instance, en maintenant la clé de hachage.
+   * <p>
+   * Ne doit être utilisé que sur une instance qui vient d'être copiée ou par {@link SearchBoard}.
+   * </p>
+   * 
+   * @param pMouvement Identifiant du mouvement (voir {@link Move#toId()}).
+   * @param pSuivant Drapeau positionné si l'on souhaite que le trait soit modifié.
+   */
+  final void play(final int pMouvement, final boolean pSuivant)
+  {
+    // Ajuste les compteurs...
+    if (pSuivant)
+    {
+      final boolean t = !isWhiteActive();
+      setWhiteActive(t);
+      _zobristKey ^= ZOBRIST_KEY_WHITE_ACTIVE;
+      if (t)
+      {
+        setFullmoveNumber(getFullmoveNumber() + 1);
+      }
+      if (Move.capturedOf(pMouvement) == null)
+      {
+        setHalfmoveCount(getHalfmoveCount() + 1);
+      }
+      else
+      {
+        setHalfmoveCount(0);
+      }
+    }
+    // Déplace la pièce...
+    final Piece piece = Move.pieceOf(pMouvement);
+    final PieceType typePiece = piece.getType();
+    final boolean trait = piece.isWhite();
+    final int iSrc = Move.fromOf(pMouvement);
+    final int xSrc = iSrc % FILE_COUNT;
+    assert _pieces[iSrc] == piece;
+    removePiece(iSrc);
+    final int iDst = Move.toOf(pMouvement);
+    final Square dst = Square.valueOf(iDst);
+    final int xDst = iDst % FILE_COUNT;
+    final int yDst = iDst / FILE_COUNT;
+    if (_pieces[iDst] != null)
+    {
+      removePiece(iDst);
+    }
+    setPiece(piece, iDst);
+    // ... éxécute un mouvement spécifique de type "roque" et gère le suivi des rois ...
+    if (typePiece == KING)
+    {
+      setKingSquare(trait, dst);
+      if (xSrc == 4)
+      {
+        if (xDst == 2)
+        {
+          // ... côté reine...
+          final int i = yDst * FILE_COUNT;
+          final Piece tour = removePiece(i);
+          assert tour != null;
+          assert tour.getType() == ROOK;
+          setPiece(tour, i + 3);
+          setCastled(trait, true);
+        }
+        else if (xDst == 6)
+        {
+          // ... côté roi...
+          final int i = FILE_COUNT - 1 + yDst * FILE_COUNT;
+          final Piece tour = removePiece(i);
+          assert tour != null;
+          assert tour.getType() == ROOK;
+          setPiece(tour, i - 2);
+          setCastled(trait, true);
+        }
+      }
+    }
+    // Tient compte des interdictions de roquer que le mouvement peut provoquer...
+    if (canCastleShort(trait))
+    {
+      if ((typePiece == KING) || ((typePiece == ROOK) && (xSrc == FILE_COUNT - 1)))
+      {
+        setCastleShort(trait, false);
+        if (trait)
+        {
+          _zobristKey ^= ZOBRIST_KEY_WHITE_CASTLE_SHORT;
+        }
+        else
+        {
+          _zobristKey ^= ZOBRIST_KEY_BLACK_CASTLE_SHORT;
+        }
+      }
+    }
+    if (canCastleLong(trait))
+    {
+      if ((typePiece == KING) || ((typePiece == ROOK) && (xSrc == 0)))
+      {
+        setCastleLong(trait, false);
+        if (trait)
+        {
+          _zobristKey ^= ZOBRIST_KEY_WHITE_CASTLE_LONG;
+        }
+        else
+        {
+          _zobristKey ^= ZOBRIST_KEY_BLACK_CASTLE_LONG;
+        }
+      }
+    }
+    // Détecte si une prise "en passant" doit être effectuée ou signalée et gère la promotion...
+    final Square epOrig = getEnPassant();
+    setEnPassant(null);
+    if (typePiece == PAWN)
+    {
+      final int ySrc = iSrc / FILE_COUNT;
+      // En profite pour aussi gérer le compteur de demis coups...
+      if (pSuivant)
+      {
+        setHalfmoveCount(0);
+      }
+      if (trait)
+      {
+        assert yDst > ySrc;
+        if (yDst == RANK_COUNT - 1)
+        {
+          removePiece(iDst);
+          setPiece(WHITE_QUEEN, iDst);
+        }
+        else if ((ySrc == 1) && (yDst == 3))
+        {
+          setEnPassant(Square.valueOf(xDst, 2));
+        }
+        else if (dst == epOrig)
+        {
+          removePiece(iDst - FILE_COUNT);
+        }
+      }
+      else
+      {
+        assert yDst < ySrc;
+        if (yDst == 0)
+        {
+          removePiece(iDst);
+          setPiece(BLACK_QUEEN, iDst);
+        }
+        else if ((ySrc == RANK_COUNT - 2) && (yDst == RANK_COUNT - 4))
+        {
+          setEnPassant(Square.valueOf(xDst, RANK_COUNT - 3));
+        }
+        else if (dst == epOrig)
+        {
+          removePiece(iDst + FILE_COUNT);
+        }
+      }
+    }
+
+    final Square epFinal = getEnPassant();
+    if ((epOrig != null) && ((epFinal == null) || (!epOrig.equals(epFinal))))
+    {
+      _zobristKey ^= ZOBRIST_KEY_EN_PASSANT[epOrig.getFile()];
+    }
+    if ((epFinal != null) && ((epOrig == null) || (!epFinal.equals(epOrig))))
+    {
+      _zobristKey ^= ZOBRIST_KEY_EN_PASSANT[epFinal.getFile()];
+    }
+  }
+
+  /**
+   * Méthode spécialisée pour tester l'égalité entre deux descriptions de ce type.
+   * 
+   * @param pObjet Objet avec lequel comparer.
+   * @return Vrai si les deux objets sont égaux.
+   */
+  @Override
+  public boolean equals(final Object pObjet)
+  {
+    if (pObjet == this)
+    {
+      return true;
+    }
+
+    if (pObjet instanceof BitmapsBoard)
+    {
+      if (hashCode() != pObjet.hashCode())
+      {
+        return false;
+      }
+
+      final BitmapsBoard o = (BitmapsBoard) pObjet;
+      for (int i = _bitmaps.length; --i >= 0; /* Pré-décrémenté */)
+      {
+        if (_bitmaps[i] != o._bitmaps[i])
+        {
+          return false;
+        }
+      }
+
+      return equalsInternal(o);
+    }
+
+    return super.equals(pObjet);
+  }
+
+  /**
+   * Alimente une liste avec les identifiants des prises valides pour la couleur ayant le trait.
+   * <p>
+   * Surcharge évitant d'examiner la légalité des mouvements sans prise.
+   * </p>
+   * 
+   * @param pListe Liste à alimenter.
+   */
+  @Override
+  public void generateCaptures(final MoveList pListe)
+  {
+    assert pListe != null;
+
+    generateMoves(pListe, true, false);
+  }
+
+  /**
+   * Alimente une liste avec les identifiants de tous les mouvements valides pour la couleur ayant
+   * le trait, sans allocation.
+   * 
+   * @param pListe Liste à alimenter.
+   */
+  @Override
+  public void generateMoves(final MoveList pListe)
+  {
+    assert pListe != null;
+
+    generateMoves(pListe, true, true);
+  }
+
+  /**
+   * Alimente une liste avec les identifiants des mouvements valides de la couleur ayant le trait,
+   * filtrés suivant la présence d'une prise.
+   * 
+   * @param pListe Liste à alimenter.
+   * @param pPrises A vrai pour inclure les prises (y compris "en passant").
+   * @param pCalmes A vrai pour inclure les mouvements sans prise.
+   */
+  private void generateMoves(final MoveList pListe, final boolean pPrises, final boolean pCalmes)
+  {
+    pListe.clear();
+    final boolean trait = isWhiteActive();
+    long pieces = trait ? _whites : _blacks;
+    final long adversaires = trait ? _blacks : _whites;
+    final Square ep = getEnPassant();
+    final long bitEp = (ep == null) ? 0L : 1L << ep.getIndex();
+    while (pieces != 0L)
+    {
+      final int iSrc = Long.numberOfTrailingZeros(pieces);
+      pieces &= pieces - 1;
+      final Piece p = _pieces[iSrc];
+      long prises = adversaires;
+      if (p.getType() == PAWN)
+      {
+        prises |= bitEp;
+      }
+      long masque = 0L;
+      if (pPrises)
+      {
+        masque |= prises;
+      }
+      if (pCalmes)
+      {
+        masque |= ~prises;
+      }
+      long cibles = validTargets(iSrc, masque);
+      while (cibles != 0L)
+      {
+        final int iDst = Long.numberOfTrailingZeros(cibles);
+        cibles &= cibles - 1;
+        pListe.add(Move.idOf(p, iSrc, iDst, capturedBy(p, iDst)));
+      }
+    }
+  }
+
+  /**
+   * Alimente une liste avec les identifiants des mouvements valides sans prise pour la couleur
+   * ayant le trait.
+   * <p>
+   * Surcharge évitant d'examiner la légalité des prises.
+   * </p>
+   * 
+   * @param pListe Liste à alimenter.
+   */
+  @Override
+  public void generateQuietMoves(final MoveList pListe)
+  {
+    assert pListe != null;
+
+    generateMoves(pListe, false, true);
+  }
+
+  /**
+   * Renvoi toutes les cases cibles des mouvements possibles (y compris ceux mettant le roi en
+   * échec) pour la pièce contenue par une case.
+   * 
+   * @param pOrigine Case à l'origine du mouvement.
+   * @return Liste des cases cibles (y compris celles conduisant à un échec).
+   */
+  public Square [] getAllTargets(final Square pOrigine)
+  {
+    assert pOrigine != null;
+
+    return toSquares(allTargets(pOrigine.getIndex()));
+  }
+
+  /**
+   * Renvoi toutes les cases cibles possibles d'un mouvement de type "fou" d'une certaine couleur (y
+   * compris ceux mettant le roi en échec) à partir d'une case.
+   * 
+   * @param pOrigine Case à l'origine du mouvement.
+   * @param pBlanc Positionné à vrai si la recherche concerne les blancs.
+   * @return Liste des cases cibles (y compris celles conduisant à un échec).
+   */
+  public Square [] getBishopTargets(final Square pOrigine, final boolean pBlanc)
+  {
+    assert pOrigine != null;
+
+    return toSquares(bishopTargets(pOrigine.getIndex(), pBlanc));
+  }
+
+  /**
+   * Renvoi la carte des pièces d'un type et d'une couleur.
+   * 
+   * @param pPiece Pièce recherchée.
+   * @return Carte des cases occupées par la pièce (bit de rang i pour la case d'indice i).
+   */
+  public final long getBitmap(final Piece pPiece)
+  {
+    assert pPiece != null;
+
+    return _bitmaps[pPiece.ordinal()];
+  }
+
+  /**
+   * Renvoi la liste des cases pouvant être atteintes par un mouvement de type roi.
+   * 
+   * @param pOrigine Case à l'origine du mouvement.
+   * @param pBlanc A vrai pour indiquer une recherche sur les blancs.
+   * @return Liste des cases cibles (y compris celles conduisant à un échec).
+   */
+  public Square [] getKingTargets(final Square pOrigine, final boolean pBlanc)
+  {
+    assert pOrigine != null;
+
+    return toSquares(kingTargets(pOrigine.getIndex(), pBlanc));
+  }
+
+  /**
+   * Renvoi la liste des cases pouvant être atteintes par un mouvement de type cavalier.
+   * 
+   * @param pOrigine Case à l'origine du mouvement.
+   * @param pBlanc A vrai pour indiquer une recherche sur les blancs.
+   * @return Liste des cases cibles (y compris celles conduisant à un échec).
+   */
+  public Square [] getKnightTargets(final Square pOrigine, final boolean pBlanc)
+  {
+    assert pOrigine != null;
+
+    return toSquares(knightTargets(pOrigine.getIndex(), pBlanc));
+  }
+
+  /**
+   * Renvoi la valeur du matériel d'une couleur (somme des valeurs des types de ses pièces),
+   * maintenue au fil des mouvements.
+   * 
+   * @param pCouleur Positionné à "true" pour le matériel des blancs.
+   * @return Valeur du matériel.
+   */
+  public final int getMaterial(final boolean pCouleur)
+  {
+    if (pCouleur)
+    {
+      return _whiteMaterial;
+    }
+
+    return _blackMaterial;
+  }
+
+  /**
+   * Renvoi la clé "Zobrist" de la seule position des pions, tenue à jour à chaque mouvement.
+   * <p>
+   * Elle ne change que lorsqu'un pion est déplacé, pris ou promu : elle sert à retrouver les
+   * évaluations de la structure de pions, bien plus stable que la position complète.
+   * </p>
+   * 
+   * @return Clé "Zobrist" des pions.
+   */
+  public final long getPawnKey()
+  {
+    return _pawnKey;
+  }
+
+  /**
+   * Renvoi la liste des cases pouvant être atteintes par un mouvement de type pion.
+   * 
+   * @param pOrigine Case à l'origine du mouvement.
+   * @param pBlanc A vrai pour indiquer une recherche sur les blancs.
+   * @return Liste des cases cibles (y compris celles conduisant à un échec).
+   */
+  public Square [] getPawnTargets(final Square pOrigine, final boolean pBlanc)
+  {
+    assert pOrigine != null;
+
+    return toSquares(pawnTargets(pOrigine.getIndex(), pBlanc));
+  }
+
+  /**
+   * Renvoi l'éventuelle pièce présente sur la case indiquée.
+   * 
+   * @param pCase Case à tester.
+   * @return Pièce présente sur la case (ou null si aucune).
+   */
+  public Piece getPieceAt(final Square pCase)
+  {
+    assert pCase != null;
+
+    return _pieces[pCase.getIndex()];
+  }
+
+  /**
+   * Renvoi l'éventuelle pièce présente sur la case dont les coordonnées sont indiquées.
+   * 
+   * @param pColonne Colonne de la case à tester (de 0 à 7).
+   * @param pLigne Ligne de la case à tester (de 0 à 7).
+   * @return Pièce présente sur la case (ou null).
+   */
+  public Piece getPieceAt(final int pColonne, final int pLigne)
+  {
+    assert (pColonne >= 0) && (pColonne < FILE_COUNT);
+    assert (pLigne >= 0) && (pLigne < RANK_COUNT);
+
+    return _pieces[pColonne + pLigne * FILE_COUNT];
+  }
+
+  /**
+   * Renvoi le nombre de pièces (rois compris) présentes sur l'échiquier.
+   * 
+   * @return Nombre de pièces.
+   */
+  public final int getPieceCount()
+  {
+    return Long.bitCount(_whites | _blacks);
+  }
+
+  /**
+   * Renvoi toutes les cases cibles possibles d'un mouvement de type "dame" d'une certaine couleur
+   * (y compris ceux mettant le roi en échec) à partir d'une case.
+   * 
+   * @param pOrigine Case à l'origine du mouvement.
+   * @param pBlanc Mis à vrai pour rechercher pour les blancs.
+   * @return Liste des cases cibles (y compris celles conduisant à un échec).
+   */
+  public Square [] getQueenTargets(final Square pOrigine, final boolean pBlanc)
+  {
+    assert pOrigine != null;
+
+    final int idx = pOrigine.getIndex();
+    return toSquares(bishopTargets(idx, pBlanc) | rookTargets(idx, pBlanc));
+  }
+
+  /**
+   * Renvoi toutes les cases cibles possibles d'un mouvement de type "tour" d'une certaine couleur
+   * (y compris ceux mettant le roi en échec) à partir d'une case.
+   * 
+   * @param pOrigine Case à l'origine du mouvement.
+   * @param pBlanc Mis à vrai pour rechercher pour les blancs.
+   * @return Liste des cases cibles (y compris celles conduisant à un échec).
+   */
+  public Square [] getRookTargets(final Square pOrigine, final boolean pBlanc)
+  {
+    assert pOrigine != null;
+
+    return toSquares(rookTargets(pOrigine.getIndex(), pBlanc));
+  }
+
+  /**
+   * Renvoi le nombre de cases cibles possibles (y compris celles mettant le roi en échec) de la
+   * pièce contenue par une case, sans créer de liste.
+   * 
+   * @param pOrigine Indice de la case à l'origine du mouvement.
+   * @return Nombre de cases cibles (0 si la case est vide).
+   */
+  public final int getTargetsCount(final int pOrigine)
+  {
+    return Long.bitCount(allTargets(pOrigine));
+  }
+
+  /**
+   * Renvoi tous les mouvements valides pour une couleur.
+   * 
+   * @param pTrait Positionné à "true" pour indiquer une recherche pour les blancs.
+   * @return Liste des mouvements valides.
+   */
+  public Move [] getValidMoves(final boolean pTrait)
+  {
+    Move [] tmp = new Move [ 45 ];
+    int nb = 0;
+    long pieces = pTrait ? _whites : _blacks;
+    while (pieces != 0L)
+    {
+      final int iSrc = Long.numberOfTrailingZeros(pieces);
+      pieces &= pieces - 1;
+      final Piece p = _pieces[iSrc];
+      final Square orig = Square.valueOf(iSrc);
+      long cibles = validTargets(iSrc, -1L);
+      while (cibles != 0L)
+      {
+        final int iDst = Long.numberOfTrailingZeros(cibles);
+        cibles &= cibles - 1;
+        if (nb >= tmp.length)
+        {
+          final Move [] extension = new Move [ tmp.length + 15 ];
+          System.arraycopy(tmp, 0, extension, 0, tmp.length);
+          tmp = extension;
+        }
+        tmp[nb++] = new Move(p, orig, Square.valueOf(iDst), capturedBy(p, iDst));
+      }
+    }
+
+    final Move [] res = new Move [ nb ];
+    System.arraycopy(tmp, 0, res, 0, nb);
+
+    return res;
+  }
+
+  /**
+   * Renvoi toutes les cases cibles des mouvements valides à partir d'une case.
+   * 
+   * @param pOrigine Case à l'origine du mouvement.
+   * @return Liste des cases cibles.
+   */
+  public Square [] getValidTargets(final Square pOrigine)
+  {
+    assert pOrigine != null;
+
+    return toSquares(validTargets(pOrigine.getIndex(), -1L));
+  }
+
+  /**
+   * Indique si une couleur dispose d'au moins une pièce autre que le roi et les pions.
+   * <p>
+   * Utile aux moteurs de recherche pour repérer les positions où le risque de "zugzwang" est
+   * élevé.
+   * </p>
+   * 
+   * @param pCouleur Positionné à "true" pour tester les blancs.
+   * @return Vrai si la couleur dispose d'au moins une pièce.
+   */
+  public final boolean hasNonPawnMaterial(final boolean pCouleur)
+  {
+    if (pCouleur)
+    {
+      return (_whites & ~(_bitmaps[WHITE_PAWN.ordinal()] | _bitmaps[WHITE_KING.ordinal()])) != 0L;
+    }
+
+    return (_blacks & ~(_bitmaps[BLACK_PAWN.ordinal()] | _bitmaps[BLACK_KING.ordinal()])) != 0L;
+  }
+
+  /**
+   * Surcharge du calcul des clés de hachage, pour optimisation.
+   * 
+   * @return Clé de hachage.
+   */
+  @Override
+  public int hashCode()
+  {
+    assert (int) _zobristKey == super.hashCode();
+    return (int) _zobristKey;
+  }
+
+  /**
+   * Indique si la série d'échanges initiée par une prise rapporte au moins une certaine valeur
+   * ("Static Exchange Evaluation").
+   * <p>
+   * Les deux camps reprennent tour à tour sur la case cible avec leur pièce de moindre valeur, y
+   * compris celles découvertes derrière les pièces glissantes déjà engagées, chacun pouvant
+   * s'arrêter dès que poursuivre lui serait défavorable. Le roi ne reprend que si la case n'est
+   * plus défendue. Les clouages et les promotions sont ignorés. Le calcul ne crée aucun objet et ne
+   * dérive aucun nouvel état : il convient aux moteurs de recherche, pour écarter les prises
+   * perdantes.
+   * </p>
+   * 
+   * @param pMouvement Identifiant du mouvement (voir {@link Move#toId()}).
+   * @param pSeuil Valeur minimale du bilan des échanges, du point de vue de la pièce jouée.
+   * @return Vrai si le bilan des échanges atteint le seuil.
+   */
+  public final boolean isExchangeAtLeast(final int pMouvement, final int pSeuil)
+  {
+    final Piece piece = Move.pieceOf(pMouvement);
+    final Piece prise = Move.capturedOf(pMouvement);
+    final int dst = Move.toOf(pMouvement);
+
+    // Bilan si l'adversaire ne reprend pas...
+    int bilan = -pSeuil;
+    if (prise != null)
+    {
+      bilan += prise.getType().getValue();
+    }
+    if (bilan < 0)
+    {
+      return false;
+    }
+    // ... et s'il reprend la pièce jouée sans contrepartie.
+    bilan = piece.getType().getValue() - bilan;
+    if (bilan <= 0)
+    {
+      return true;
+    }
+
+    long occupation = (_whites | _blacks) & ~(1L << Move.fromOf(pMouvement));
+    if ((prise != null) && (_pieces[dst] == null))
+    {
+      // Prise "en passant" : le pion pris n'est pas sur la case cible...
+      if (piece.isWhite())
+      {
+        occupation &= ~(1L << (dst - FILE_COUNT));
+      }
+      else
+      {
+        occupation &= ~(1L << (dst + FILE_COUNT));
+      }
+    }
+
+    boolean trait = piece.isWhite();
+    // Vaut 1 si la série est pour l'instant favorable au camp de la pièce jouée, 0 sinon.
+    int res = 1;
+    while (true)
+    {
+      trait = !trait;
+      final long attaquants = Bitboards.attackersOf(_bitmaps, occupation, dst, trait) & occupation;
+      if (attaquants == 0L)
+      {
+        break;
+      }
+      res ^= 1;
+
+      final Piece [] candidats;
+      if (trait)
+      {
+        candidats = WHITE_EXCHANGERS;
+      }
+      else
+      {
+        candidats = BLACK_EXCHANGERS;
+      }
+      Piece attaquant = null;
+      long bits = 0L;
+      for (final Piece p : candidats)
+      {
+        bits = attaquants & _bitmaps[p.ordinal()];
+        if (bits != 0L)
+        {
+          attaquant = p;
+          break;
+        }
+      }
+      assert attaquant != null;
+
+      if (attaquant.getType() == KING)
+      {
+        // Le roi ne peut reprendre que si l'adversaire n'a plus d'attaquant...
+        if ((Bitboards.attackersOf(_bitmaps, occupation, dst, !trait) & occupation) != 0L)
+        {
+          res ^= 1;
+        }
+        break;
+      }
+      bilan = attaquant.getType().getValue() - bilan;
+      if (bilan < res)
+      {
+        break;
+      }
+      occupation &= ~Long.lowestOneBit(bits);
+    }
+
+    return res != 0;
+  }
+
+  /**
+   * Indique si le roi d'une couleur est en échec.
+   * <p>
+   * Les cartes des pièces permettant de trouver directement les attaquants de la case du roi, ce
+   * test ne nécessite pas le calcul de la carte complète des cases attaquées.
+   * </p>
+   * 
+   * @param pCouleur Positionné à "true" pour tester l'échec sur les blancs, à "false" sinon.
+   * @return Vrai si le roi est en échec.
+   */
+  @Override
+  public boolean isInCheck(final boolean pCouleur)
+  {
+    return Bitboards.attackersOf(_bitmaps, _whites | _blacks, getKingSquare(pCouleur).getIndex(),
+        !pCouleur) != 0L;
+  }
+
+  /**
+   * Indique si le roi d'une couleur serait attaqué après un mouvement, sans dériver de nouvel état.
+   * 
+   * @param pPiece Pièce déplacée.
+   * @param pOrigine Indice de la case de départ.
+   * @param pDestination Indice de la case d'arrivée.
+   * @return Vrai si le roi de la couleur de la pièce serait en échec après le mouvement.
+   */
+  private boolean isInCheckAfter(final Piece pPiece, final int pOrigine, final int pDestination)
+  {
+    final boolean trait = pPiece.isWhite();
+    final long bitSrc = 1L << pOrigine;
+    final long bitDst = 1L << pDestination;
+    long occupation = ((_whites | _blacks) & ~bitSrc) | bitDst;
+    // Pièces adverses éliminées par le mouvement...
+    long prises = bitDst;
+    final PieceType type = pPiece.getType();
+    int roi;
+    if (type == KING)
+    {
+      roi = pDestination;
+      final int delta = pDestination - pOrigine;
+      if ((pOrigine % FILE_COUNT == 4) && ((delta == 2) || (delta == -2)))
+      {
+        // Déplace aussi la tour lors d'un roque...
+        if (delta > 0)
+        {
+          occupation = (occupation & ~(bitSrc << 3)) | (bitSrc << 1);
+        }
+        else
+        {
+          occupation = (occupation & ~(bitSrc >>> 4)) | (bitSrc >>> 1);
+        }
+      }
+    }
+    else
+    {
+      roi = getKingSquare(trait).getIndex();
+      if ((type == PAWN) && (Square.valueOf(pDestination) == getEnPassant()))
+      {
+        final long bitEp;
+        if (trait)
+        {
+          bitEp = bitDst >>> FILE_COUNT;
+        }
+        else
+        {
+          bitEp = bitDst << FILE_COUNT;
+        }
+        occupation &= ~bitEp;
+        prises |= bitEp;
+      }
+    }
+
+    return (Bitboards.attackersOf(_bitmaps, occupation, roi, !trait) & ~prises) != 0L;
+  }
+
+  /**
+   * Indique si un identifiant de mouvement correspond à un mouvement valide pour la couleur ayant
+   * le trait.
+   * 
+   * @param pMouvement Identifiant du mouvement.
+   * @return Vrai si le mouvement est valide.
+   */
+  @Override
+  public boolean isValidMove(final int pMouvement)
+  {
+    final Piece piece = Move.pieceOf(pMouvement);
+    final int iSrc = Move.fromOf(pMouvement);
+    final int iDst = Move.toOf(pMouvement);
+    if ((piece.isWhite() != isWhiteActive()) || (_pieces[iSrc] != piece)
+        || (capturedBy(piece, iDst) != Move.capturedOf(pMouvement)))
+    {
+      return false;
+    }
+
+    return validTargets(iSrc, 1L << iDst) != 0L;
+  }
+
+  /**
+   * Renvoi la carte des cases pouvant être atteintes par un mouvement de type roi.
+   * 
+   * @param pOrigine Indice de la case à l'origine du mouvement.
+   * @param pBlanc A vrai pour indiquer une recherche sur les blancs.
+   * @return Carte des cibles.
+   */
+  private long kingTargets(final int pOrigine, final boolean pBlanc)
+  {
+    long res = Bitboards.KING_ATTACKS[pOrigine] & ~(pBlanc ? _whites : _blacks);
+    if ((res != 0L) && ((pOrigine % FILE_COUNT) == 4))
+    {
+      final long occupation = _whites | _blacks;
+      if (canCastleShort(pBlanc) && ((occupation & (3L << (pOrigine + 1))) == 0L))
+      {
+        final Piece t = _pieces[pOrigine + 3];
+        if ((t != null) && (t.getType() == ROOK) && (t.isWhite() == pBlanc))
+        {
+          res |= 1L << (pOrigine + 2);
+        }
+      }
+      if (canCastleLong(pBlanc) && ((occupation & (7L << (pOrigine - 3))) == 0L))
+      {
+        final Piece t = _pieces[pOrigine - 4];
+        if ((t != null) && (t.getType() == ROOK) && (t.isWhite() == pBlanc))
+        {
+          res |= 1L << (pOrigine - 2);
+        }
+      }
+    }
+
+    return res;
+  }
+
+  /**
+   * Renvoi la carte des cases pouvant être atteintes par un mouvement de type cavalier.
+   * 
+   * @param pOrigine Indice de la case à l'origine du mouvement.
+   * @param pBlanc A vrai pour indiquer une recherche sur les blancs.
+   * @return Carte des cibles.
+   */
+  private long knightTargets(final int pOrigine, final boolean pBlanc)
+  {
+    return Bitboards.KNIGHT_ATTACKS[pOrigine] & ~(pBlanc ? _whites : _blacks);
+  }
+
+  /**
+   * Passe directement le trait à l'adversaire sur l'instance, sans déplacer de pièce, en
+   * maintenant la clé de hachage.
+   * <p>
+   * Ne doit être utilisé que par {@link SearchBoard}.
+   * </p>
+   */
+  final void passTurn()
+  {
+    final boolean t = !isWhiteActive();
+    setWhiteActive(t);
+    _zobristKey ^= ZOBRIST_KEY_WHITE_ACTIVE;
+    if (t)
+    {
+      setFullmoveNumber(getFullmoveNumber() + 1);
+    }
+    setHalfmoveCount(getHalfmoveCount() + 1);
+    final Square ep = getEnPassant();
+    if (ep != null)
+    {
+      setEnPassant(null);
+      _zobristKey ^= ZOBRIST_KEY_EN_PASSANT[ep.getFile()];
+    }
+  }
+
+  /**
+   * Renvoi la carte des cases pouvant être atteintes par un mouvement de type pion.
+   * 
+   * @param pOrigine Indice de la case à l'origine du mouvement.
+   * @param pBlanc A vrai pour indiquer une recherche sur les blancs.
+   * @return Carte des cibles.
+   */
+  private long pawnTargets(final int pOrigine, final boolean pBlanc)
+  {
+    final long vides = ~(_whites | _blacks);
+    final Square ep = getEnPassant();
+    final long bitEp;
+    if (ep == null)
+    {
+      bitEp = 0L;
+    }
+    else
+    {
+      bitEp = 1L << ep.getIndex();
+    }
+    final int ySrc = pOrigine / FILE_COUNT;
+    long res = 0L;
+    if (pBlanc)
+    {
+      if (ySrc < RANK_COUNT - 1)
+      {
+        // Mouvement de 1, puis mouvement initial de 2...
+        final long un = (1L << (pOrigine + FILE_COUNT)) & vides;
+        res = un;
+        if ((un != 0L) && (ySrc == 1))
+        {
+          res |= (un << FILE_COUNT) & vides;
+        }
+        // Prises (y compris en passant)...
+        res |= Bitboards.WHITE_PAWN_ATTACKS[pOrigine] & (_blacks | bitEp);
+      }
+    }
+    else
+    {
+      if (ySrc > 0)
+      {
+        final long un = (1L << (pOrigine - FILE_COUNT)) & vides;
+        res = un;
+        if ((un != 0L) && (ySrc == RANK_COUNT - 2))
+        {
+          res |= (un >>> FILE_COUNT) & vides;
+        }
+        res |= Bitboards.BLACK_PAWN_ATTACKS[pOrigine] & (_whites | bitEp);
+      }
+    }
+
+    return res;
+  }
+
+  /**
+   * Renvoi la somme des valeurs d'une table de positions pour les pièces d'un type et d'une
+   * couleur.
+   * <p>
+   * Les sommes de la dernière table demandée sont ensuite maintenues au fil des mouvements : seul
+   * un changement de table impose de parcourir l'échiquier.
+   * </p>
+   * 
+   * @param pTable Table de positions.
+   * @param pPiece Pièce.
+   * @return Somme des valeurs de la table pour les pièces présentes.
+   */
+  final int pieceSquareSum(final PieceSquareTable pTable, final Piece pPiece)
+  {
+    assert pTable != null;
+    assert pPiece != null;
+
+    if (pTable != _pieceSquareTable)
+    {
+      // Sommes calculées à part, puis publiées avant la table (volatile), comme les attaques...
+      final int [] sommes = new int [ _bitmaps.length ];
+      for (int i = _bitmaps.length; --i >= 0; /* Pré-décrémenté */)
+      {
+        int somme = 0;
+        long carte = _bitmaps[i];
+        while (carte != 0L)
+        {
+          somme += pTable.get(i, Long.numberOfTrailingZeros(carte));
+          carte &= carte - 1;
+        }
+        sommes[i] = somme;
+      }
+      _pieceSquareSums = sommes;
+      _pieceSquareTable = pTable;
+
+      return sommes[pPiece.ordinal()];
+    }
+
+    return _pieceSquareSums[pPiece.ordinal()];
+  }
+
+  /**
+   * Retire la pièce présente sur une case, en maintenant la clé de hachage et les sommes
+   * d'évaluation.
+   * 
+   * @param pCase Indice de la case.
+   * @return Pièce retirée.
+   */
+  final Piece removePiece(final int pCase)
+  {
+    final Piece p = _pieces[pCase];
+    assert p != null;
+
+    final long masque = ~(1L << pCase);
+    final int ordinal = p.ordinal();
+    _bitmaps[ordinal] &= masque;
+    if (p.isWhite())
+    {
+      _whites &= masque;
+      _whiteMaterial -= p.getType().getValue();
+    }
+    else
+    {
+      _blacks &= masque;
+      _blackMaterial -= p.getType().getValue();
+    }
+    _pieces[pCase] = null;
+    _zobristKey ^= ZOBRIST_KEY_PIECE_POSITION[ordinal][pCase];
+    if (p.getType() == PAWN)
+    {
+      _pawnKey ^= ZOBRIST_KEY_PIECE_POSITION[ordinal][pCase];
+    }
+    final PieceSquareTable table = _pieceSquareTable;
+    if (table != null)
+    {
+      _pieceSquareSums[ordinal] -= table.get(ordinal, pCase);
+    }
+
+    return p;
+  }
+
+  /**
+   * Restaure la clé "Zobrist", lors de l'annulation d'un mouvement par {@link SearchBoard}.
+   * 
+   * @param pCle Valeur de la clé à restaurer.
+   */
+  final void restoreZobristKey(final long pCle)
+  {
+    _zobristKey = pCle;
+  }
+
+  /**
+   * Renvoi la carte des cibles possibles d'un mouvement de type "tour" d'une certaine couleur (y
+   * compris ceux mettant le roi en échec) à partir d'une case.
+   * 
+   * @param pOrigine Indice de la case à l'origine du mouvement.
+   * @param pBlanc Mis à vrai pour rechercher pour les blancs.
+   * @return Carte des cibles.
+   */
+  private long rookTargets(final int pOrigine, final boolean pBlanc)
+  {
+    return Bitboards.rookAttacks(pOrigine, _whites | _blacks) & ~(pBlanc ? _whites : _blacks);
+  }
+
+  /**
+   * Place une pièce sur une case vide, en maintenant la clé de hachage et les sommes d'évaluation.
+   * <p>
+   * Lors de la construction initiale, la clé de hachage est recalculée entièrement ensuite.
+   * </p>
+   * 
+   * @param pPiece Pièce à placer.
+   * @param pCase Indice de la case.
+   */
+  final void setPiece(final Piece pPiece, final int pCase)
+  {
+    assert pPiece != null;
+    assert _pieces[pCase] == null;
+
+    final long bit = 1L << pCase;
+    final int ordinal = pPiece.ordinal();
+    _bitmaps[ordinal] |= bit;
+    if (pPiece.isWhite())
+    {
+      _whites |= bit;
+      _whiteMaterial += pPiece.getType().getValue();
+    }
+    else
+    {
+      _blacks |= bit;
+      _blackMaterial += pPiece.getType().getValue();
+    }
+    _pieces[pCase] = pPiece;
+    _zobristKey ^= ZOBRIST_KEY_PIECE_POSITION[ordinal][pCase];
+    if (pPiece.getType() == PAWN)
+    {
+      _pawnKey ^= ZOBRIST_KEY_PIECE_POSITION[ordinal][pCase];
+    }
+    final PieceSquareTable table = _pieceSquareTable;
+    if (table != null)
+    {
+      _pieceSquareSums[ordinal] += table.get(ordinal, pCase);
+    }
+  }
+
+  /**
+   * Convertit une carte binaire en liste de cases.
+   * 
+   * @param pCarte Carte à convertir.
+   * @return Liste des cases correspondant aux bits positionnés.
+   */
+  private static Square [] toSquares(final long pCarte)
+  {
+    if (pCarte == 0L)
+    {
+      return NO_SQUARE;
+    }
+
+    final Square [] res = new Square [ Long.bitCount(pCarte) ];
+    long carte = pCarte;
+    for (int i = 0; carte != 0L; i++)
+    {
+      res[i] = Square.valueOf(Long.numberOfTrailingZeros(carte));
+      carte &= carte - 1;
+    }
+
+    return res;
+  }
+
+  /**
+   * Renvoi la carte des cibles des mouvements valides à partir d'une case.
+   * 
+   * @param pOrigine Indice de la case à l'origine du mouvement.
+   * @param pMasque Carte des cibles à examiner.
+   * @return Carte des cibles valides.
+   */
+  private long validTargets(final int pOrigine, final long pMasque)
+  {
+    final Piece piece = _pieces[pOrigine];
+    if (piece == null)
+    {
+      return 0L;
+    }
+
+    long res = 0L;
+    long cibles = allTargets(pOrigine) & pMasque;
+    while (cibles != 0L)
+    {
+      final int iDst = Long.numberOfTrailingZeros(cibles);
+      cibles &= cibles - 1;
+      if (!isInCheckAfter(piece, pOrigine, iDst))
+      {
+        res |= 1L << iDst;
+      }
+    }
+
+    if ((piece.getType() == KING) && ((pOrigine % FILE_COUNT) == 4))
+    {
+      // Elimine le roque si le roi est en échec ou s'il le serait sur la case intermédiaire...
+      final long roques = res & ((1L << (pOrigine + 2)) | (1L << (pOrigine - 2)));
+      if (roques != 0L)
+      {
+        final boolean trait = piece.isWhite();
+        final boolean echec = isInCheck(trait);
+        if (echec
+            || (((roques & (1L << (pOrigine + 2))) != 0L) && isInCheckAfter(piece, pOrigine,
+                pOrigine + 1)))
+        {
+          res &= ~(1L << (pOrigine + 2));
+        }
+        if (echec
+            || (((roques & (1L << (pOrigine - 2))) != 0L) && isInCheckAfter(piece, pOrigine,
+                pOrigine - 1)))
+        {
+          res &= ~(1L << (pOrigine - 2));
+        }
+      }
+    }
+
+    return res;
+  }
+
+  /**
+   * Surcharge du calcul de la clé "Zobrist", tenue à jour à chaque mouvement.
+   * 
+   * @return Clé "Zobrist" de l'état.
+   */
+  @Override
+  public long zobristKey()
+  {
+    assert _zobristKey == super.zobristKey();
+    return _zobristKey;
+  }
+}
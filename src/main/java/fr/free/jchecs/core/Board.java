@@ -92,4 +92,16 @@ public interface Board extends Comparable<Board>, Serializable
    * @return "true" si le trait est aux blancs, "false" s'il est aux noirs.
    */
   boolean isWhiteActive();
+
+  /**
+   * Renvoi la clé "Zobrist" sur 64 bits identifiant l'état.
+   * <p>
+   * A utiliser de préférence à {@link Object#hashCode()} pour identifier une position (tables de
+   * transposition, bibliothèque d'ouvertures...) : les collisions y sont bien plus rares. Les 32
+   * bits de poids faible de la clé correspondent à la valeur de {@link Object#hashCode()}.
+   * </p>
+   * 
+   * @return Clé "Zobrist" de l'état.
+   */
+  long zobristKey();
 }
@@ -61,20 +61,20 @@ public final class BoardFactory
             assert false;
         }
         break;
-      // case BITMAPS :
-      // switch (pEtat)
-      // {
-      // case EMPTY :
-      // res = BitmapsBoard.EMPTY;
-      // break;
-      // case STARTING :
-      // res = BitmapsBoard.STARTING;
-      // break;
-      // default :
-      // assert false;
-      // }
-      // break;
+      case BITMAPS :
       case FASTEST :
+        switch (pEtat)
+        {
+          case EMPTY :
+            res = BitmapsBoard.EMPTY;
+            break;
+          case STARTING :
+            res = BitmapsBoard.STARTING;
+            break;
+          default :
+            assert false;
+        }
+        break;
       case MAILBOX :
         switch (pEtat)
         {
@@ -128,13 +128,13 @@ public final class BoardFactory
     /** Description basée sur un tableau bordé, à une dimension. */
     MAILBOX,
 
-    /** Description la plus rapide : actuellement équivalent à MAILBOX. */
+    /** Description la plus rapide : actuellement équivalent à BITMAPS. */
     FASTEST,
 
     /** Description basée sur un tableau à une dimension avec indice filtré par la valeur 0x88. */
-    X88;
+    X88,
 
-    // /** Description basée sur des cartes binaires. */
-    // BITMAPS;
+    /** Description basée sur des cartes binaires. */
+    BITMAPS;
   }
 }
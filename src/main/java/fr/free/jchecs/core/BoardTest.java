@@ -40,6 +40,10 @@ import static fr.free.jchecs.core.Piece.WHITE_PAWN;
 import static fr.free.jchecs.core.Piece.WHITE_QUEEN;
 import static fr.free.jchecs.core.Piece.WHITE_ROOK;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
 import org.junit.Test;
 
 /**
@@ -328,4 +332,64 @@ public final class BoardTest
 
     validateInitialFlags(pEtat);
   }
+
+  /**
+   * Teste la méthode de calcul des clés "Zobrist".
+   */
+  @Test
+  public void testZobristKey()
+  {
+    assertFalse(_board1.zobristKey() == _board2.zobristKey());
+    assertFalse(_board2.zobristKey() == _board3.zobristKey());
+
+    for (final BoardFactory.State s : BoardFactory.State.values())
+    {
+      Board etatPrec = null;
+      for (final BoardFactory.Type t : BoardFactory.Type.values())
+      {
+        final Board etat = BoardFactory.valueOf(t, s);
+        final String nomClasse = etat.getClass().getSimpleName();
+        assertTrue(nomClasse, (int) etat.zobristKey() == etat.hashCode());
+        if (etatPrec != null)
+        {
+          assertTrue(nomClasse, etatPrec.zobristKey() == etat.zobristKey());
+        }
+        etatPrec = etat;
+      }
+    }
+  }
+
+  /**
+   * Vérifie l'absence de collisions des clés "Zobrist" sur un grand nombre de positions distinctes
+   * rencontrées au cours de parties aléatoires.
+   */
+  @Test
+  public void testZobristKeyCollisions()
+  {
+    final Random randomizer = new Random(3000);
+    final Map<Long, String> positions = new HashMap<Long, String>();
+    for (int p = 1000; --p >= 0; /* Pré-décrémenté */)
+    {
+      MoveGenerator etat =
+          BoardFactory.valueOf(BoardFactory.Type.FASTEST, BoardFactory.State.STARTING);
+      for (int cps = 200; --cps >= 0; /* Pré-décrémenté */)
+      {
+        final Move [] mvts = etat.getValidMoves(etat.isWhiteActive());
+        if (mvts.length == 0)
+        {
+          break;
+        }
+        etat = etat.derive(mvts[randomizer.nextInt(mvts.length)], true);
+        // La position est identifiée par son FEN, débarrassé des compteurs de coups...
+        final String fen = FENUtils.toFEN(etat);
+        final String position = fen.substring(0, fen.lastIndexOf(' ', fen.lastIndexOf(' ') - 1));
+        final String prec = positions.put(Long.valueOf(etat.zobristKey()), position);
+        if (prec != null)
+        {
+          assertEquals(prec, position);
+        }
+      }
+    }
+    assertTrue(positions.size() > 100000);
+  }
 }
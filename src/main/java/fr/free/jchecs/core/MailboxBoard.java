@@ -70,24 +70,15 @@ final class MailboxBoard extends AbstractMoveGenerator
   /** Liste de cases cibles vides. */
   private static final Square [] NO_SQUARE = new Square [ 0 ];
 
-  /**
-   * Buffer de travail pour optimiser la recherche des cibles de mouvements.
-   * <p>
-   * L'utilisation d'un buffer statique optimise les performances mais nécessite de faire très
-   * attention à la synchronisation pour que la classe reste sûre vis-à-vis des threads.
-   * </p>
-   */
-  // 27 est le nombre maximum de cases cibles pour une pièce (une dame, dans le meilleur des cas).
-  private static final int [] SQUARES_BUFFER = new int [ 27 ];
+  /** Nombre maximum de cases cibles pour une pièce (une dame, dans le meilleur des cas). */
+  private static final int MAX_TARGETS = 27;
 
-  /** Indice du dernier élément valide dans les buffer de travail des cases. */
-  private static int S_nbBufferedSquares;
 
   /** Description du plateau. */
   private final Piece [] _pieces = new Piece [ FILE_COUNT * RANK_COUNT ];
 
-  /** Clé de hachage. */
-  private int _hashCode;
+  /** Clé "Zobrist" (les 32 bits de poids faible donnent la clé de hachage). */
+  private long _zobristKey;
 
   /**
    * Crée une nouvelle instance, initialisée à partir de l'état reçu en paramètre.
@@ -102,7 +93,7 @@ final class MailboxBoard extends AbstractMoveGenerator
     {
       _pieces[s.getIndex()] = pEtat.getPieceAt(s);
     }
-    _hashCode = super.hashCode();
+    _zobristKey = super.zobristKey();
   }
 
   /**
@@ -115,19 +106,24 @@ final class MailboxBoard extends AbstractMoveGenerator
     super(pEtat);
 
     System.arraycopy(pEtat._pieces, 0, _pieces, 0, FILE_COUNT * RANK_COUNT);
-    _hashCode = pEtat._hashCode;
+    _zobristKey = pEtat._zobristKey;
   }
 
   /**
-   * Ajoute au buffer interne toutes les cases cibles des mouvements possibles (y compris ceux
+   * Ajoute à un buffer toutes les cases cibles des mouvements possibles (y compris ceux
    * mettant le roi en échec) pour la pièce contenue par une case.
    * 
+   * @param pCibles Buffer recevant les indices des cases cibles.
+   * @param pNombre Nombre de cases déjà présentes dans le buffer.
    * @param pOrigine Indice de la case à l'origine du mouvement.
+   * @return Nombre de cases présentes dans le buffer après l'ajout.
    */
-  private void addAllTargets(final int pOrigine)
+  private int addAllTargets(final int [] pCibles, final int pNombre, final int pOrigine)
   {
     assert (pOrigine >= 0) && (pOrigine < FILE_COUNT * RANK_COUNT);
 
+    int nb = pNombre;
+
     final Piece piece = _pieces[pOrigine];
     if (piece != null)
     {
@@ -135,41 +131,49 @@ final class MailboxBoard extends AbstractMoveGenerator
       switch (piece.getType())
       {
         case BISHOP :
-          addBishopTargets(pOrigine, trait);
+          nb = addBishopTargets(pCibles, nb, pOrigine, trait);
           break;
         case KING :
-          addKingTargets(pOrigine, trait);
+          nb = addKingTargets(pCibles, nb, pOrigine, trait);
           break;
         case KNIGHT :
-          addKnightTargets(pOrigine, trait);
+          nb = addKnightTargets(pCibles, nb, pOrigine, trait);
           break;
         case PAWN :
-          addPawnTargets(pOrigine, trait);
+          nb = addPawnTargets(pCibles, nb, pOrigine, trait);
           break;
         case QUEEN :
-          addBishopTargets(pOrigine, trait);
-          addRookTargets(pOrigine, trait);
+          nb = addBishopTargets(pCibles, nb, pOrigine, trait);
+          nb = addRookTargets(pCibles, nb, pOrigine, trait);
           break;
         case ROOK :
-          addRookTargets(pOrigine, trait);
+          nb = addRookTargets(pCibles, nb, pOrigine, trait);
           break;
         default :
           assert false;
       }
     }
+
+    return nb;
   }
 
   /**
-   * Ajoute au buffer interne toutes les cases cibles possibles d'un mouvement de type "fou" d'une
+   * Ajoute à un buffer toutes les cases cibles possibles d'un mouvement de type "fou" d'une
    * certaine couleur (y compris ceux mettant le roi en échec) à partir d'une case.
    * 
+   * @param pCibles Buffer recevant les indices des cases cibles.
+   * @param pNombre Nombre de cases déjà présentes dans le buffer.
    * @param pOrigine Indice de la case à l'origine du mouvement.
    * @param pBlanc Positionné à vrai si la recherche concerne les blancs.
+   * @return Nombre de cases présentes dans le buffer après l'ajout.
    */
-  private void addBishopTargets(final int pOrigine, final boolean pBlanc)
+  private int addBishopTargets(final int [] pCibles, final int pNombre, final int pOrigine,
+      final boolean pBlanc)
   {
     assert (pOrigine >= 0) && (pOrigine < FILE_COUNT * RANK_COUNT);
 
+    int nb = pNombre;
+
     final int mbSrc = TO_MAILBOX[pOrigine];
 
     // Mouvements / prise vers le haut/gauche...
@@ -180,13 +184,13 @@ final class MailboxBoard extends AbstractMoveGenerator
       final Piece p = _pieces[dst];
       if (p == null)
       {
-        SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+        pCibles[nb++] = dst;
       }
       else
       {
         if (p.isWhite() != pBlanc)
         {
-          SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+          pCibles[nb++] = dst;
         }
         break;
       }
@@ -202,13 +206,13 @@ final class MailboxBoard extends AbstractMoveGenerator
       final Piece p = _pieces[dst];
       if (p == null)
       {
-        SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+        pCibles[nb++] = dst;
       }
       else
       {
         if (p.isWhite() != pBlanc)
         {
-          SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+          pCibles[nb++] = dst;
         }
         break;
       }
@@ -224,13 +228,13 @@ final class MailboxBoard extends AbstractMoveGenerator
       final Piece p = _pieces[dst];
       if (p == null)
       {
-        SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+        pCibles[nb++] = dst;
       }
       else
       {
         if (p.isWhite() != pBlanc)
         {
-          SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+          pCibles[nb++] = dst;
         }
         break;
       }
@@ -246,32 +250,40 @@ final class MailboxBoard extends AbstractMoveGenerator
       final Piece p = _pieces[dst];
       if (p == null)
       {
-        SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+        pCibles[nb++] = dst;
       }
       else
       {
         if (p.isWhite() != pBlanc)
         {
-          SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+          pCibles[nb++] = dst;
         }
         break;
       }
       mbDst -= 9;
       dst = MAILBOX[mbDst];
     }
+
+    return nb;
   }
 
   /**
-   * Ajoute au buffer interne la liste des cases pouvant être atteintes par un mouvement de type
+   * Ajoute à un buffer la liste des cases pouvant être atteintes par un mouvement de type
    * roi.
    * 
+   * @param pCibles Buffer recevant les indices des cases cibles.
+   * @param pNombre Nombre de cases déjà présentes dans le buffer.
    * @param pOrigine Indice de la case à l'origine du mouvement.
    * @param pBlanc A vrai pour indiquer une recherche sur les blancs.
+   * @return Nombre de cases présentes dans le buffer après l'ajout.
    */
-  private void addKingTargets(final int pOrigine, final boolean pBlanc)
+  private int addKingTargets(final int [] pCibles, final int pNombre, final int pOrigine,
+      final boolean pBlanc)
   {
     assert (pOrigine >= 0) && (pOrigine < FILE_COUNT * RANK_COUNT);
 
+    int nb = pNombre;
+
     final int mbSrc = TO_MAILBOX[pOrigine];
     boolean testerRoque = false;
     for (final int km : KING_MOVES)
@@ -282,7 +294,7 @@ final class MailboxBoard extends AbstractMoveGenerator
         final Piece p = _pieces[dst];
         if ((p == null) || (p.isWhite() != pBlanc))
         {
-          SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+          pCibles[nb++] = dst;
           testerRoque = true;
         }
       }
@@ -295,7 +307,7 @@ final class MailboxBoard extends AbstractMoveGenerator
         final Piece t = _pieces[dst + 3];
         if ((t != null) && (t.getType() == ROOK) && (t.isWhite() == pBlanc))
         {
-          SQUARES_BUFFER[S_nbBufferedSquares++] = dst + 2;
+          pCibles[nb++] = dst + 2;
         }
       }
       if (canCastleLong(pBlanc) && (_pieces[dst - 1] == null) && (_pieces[dst - 2] == null)
@@ -304,23 +316,31 @@ final class MailboxBoard extends AbstractMoveGenerator
         final Piece t = _pieces[dst - 4];
         if ((t != null) && (t.getType() == ROOK) && (t.isWhite() == pBlanc))
         {
-          SQUARES_BUFFER[S_nbBufferedSquares++] = dst - 2;
+          pCibles[nb++] = dst - 2;
         }
       }
     }
+
+    return nb;
   }
 
   /**
-   * Ajoute au buffer interne la liste des cases pouvant être atteintes par un mouvement de type
+   * Ajoute à un buffer la liste des cases pouvant être atteintes par un mouvement de type
    * cavalier.
    * 
+   * @param pCibles Buffer recevant les indices des cases cibles.
+   * @param pNombre Nombre de cases déjà présentes dans le buffer.
    * @param pOrigine Indice de la case à l'origine du mouvement.
    * @param pBlanc A vrai pour indiquer une recherche sur les blancs.
+   * @return Nombre de cases présentes dans le buffer après l'ajout.
    */
-  private void addKnightTargets(final int pOrigine, final boolean pBlanc)
+  private int addKnightTargets(final int [] pCibles, final int pNombre, final int pOrigine,
+      final boolean pBlanc)
   {
     assert (pOrigine >= 0) && (pOrigine < FILE_COUNT * RANK_COUNT);
 
+    int nb = pNombre;
+
     final int mbSrc = TO_MAILBOX[pOrigine];
     for (final int km : KNIGHT_MOVES)
     {
@@ -330,23 +350,31 @@ final class MailboxBoard extends AbstractMoveGenerator
         final Piece p = _pieces[dst];
         if ((p == null) || (p.isWhite() != pBlanc))
         {
-          SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+          pCibles[nb++] = dst;
         }
       }
     }
+
+    return nb;
   }
 
   /**
-   * Ajoute au buffer interne la liste des cases pouvant être atteintes par un mouvement de type
+   * Ajoute à un buffer la liste des cases pouvant être atteintes par un mouvement de type
    * pion.
    * 
+   * @param pCibles Buffer recevant les indices des cases cibles.
+   * @param pNombre Nombre de cases déjà présentes dans le buffer.
    * @param pOrigine Indice de la case à l'origine du mouvement.
    * @param pBlanc A vrai pour indiquer une recherche sur les blancs.
+   * @return Nombre de cases présentes dans le buffer après l'ajout.
    */
-  private void addPawnTargets(final int pOrigine, final boolean pBlanc)
+  private int addPawnTargets(final int [] pCibles, final int pNombre, final int pOrigine,
+      final boolean pBlanc)
   {
     assert (pOrigine >= 0) && (pOrigine < FILE_COUNT * RANK_COUNT);
 
+    int nb = pNombre;
+
     final Square cSrc = Square.valueOf(pOrigine);
     final int ySrc = cSrc.getRank();
     if (pBlanc)
@@ -356,11 +384,11 @@ final class MailboxBoard extends AbstractMoveGenerator
         // Mouvement de 1...
         if (_pieces[pOrigine + FILE_COUNT] == null)
         {
-          SQUARES_BUFFER[S_nbBufferedSquares++] = pOrigine + FILE_COUNT;
+          pCibles[nb++] = pOrigine + FILE_COUNT;
           // Mouvement initial de 2
           if ((ySrc == 1) && (_pieces[pOrigine + FILE_COUNT * 2] == null))
           {
-            SQUARES_BUFFER[S_nbBufferedSquares++] = pOrigine + FILE_COUNT * 2;
+            pCibles[nb++] = pOrigine + FILE_COUNT * 2;
           }
         }
         final int xSrc = cSrc.getFile();
@@ -371,7 +399,7 @@ final class MailboxBoard extends AbstractMoveGenerator
           final Piece pDest = _pieces[iDest];
           if (((pDest != null) && (!pDest.isWhite())) || (Square.valueOf(iDest) == getEnPassant()))
           {
-            SQUARES_BUFFER[S_nbBufferedSquares++] = iDest;
+            pCibles[nb++] = iDest;
           }
         }
         if (xSrc < FILE_COUNT - 1)
@@ -381,7 +409,7 @@ final class MailboxBoard extends AbstractMoveGenerator
           final Piece pDest = _pieces[iDest];
           if (((pDest != null) && (!pDest.isWhite())) || (Square.valueOf(iDest) == getEnPassant()))
           {
-            SQUARES_BUFFER[S_nbBufferedSquares++] = iDest;
+            pCibles[nb++] = iDest;
           }
         }
       }
@@ -393,11 +421,11 @@ final class MailboxBoard extends AbstractMoveGenerator
         // Mouvement de 1...
         if (_pieces[pOrigine - FILE_COUNT] == null)
         {
-          SQUARES_BUFFER[S_nbBufferedSquares++] = pOrigine - FILE_COUNT;
+          pCibles[nb++] = pOrigine - FILE_COUNT;
           // Mouvement initial de 2
           if ((ySrc == RANK_COUNT - 2) && (_pieces[pOrigine - FILE_COUNT * 2] == null))
           {
-            SQUARES_BUFFER[S_nbBufferedSquares++] = pOrigine - FILE_COUNT * 2;
+            pCibles[nb++] = pOrigine - FILE_COUNT * 2;
           }
         }
         final int xSrc = cSrc.getFile();
@@ -408,7 +436,7 @@ final class MailboxBoard extends AbstractMoveGenerator
           final Piece pDest = _pieces[iDest];
           if (((pDest != null) && pDest.isWhite()) || (Square.valueOf(iDest) == getEnPassant()))
           {
-            SQUARES_BUFFER[S_nbBufferedSquares++] = iDest;
+            pCibles[nb++] = iDest;
           }
         }
         if (xSrc < FILE_COUNT - 1)
@@ -418,24 +446,32 @@ final class MailboxBoard extends AbstractMoveGenerator
           final Piece pDest = _pieces[iDest];
           if (((pDest != null) && pDest.isWhite()) || (Square.valueOf(iDest) == getEnPassant()))
           {
-            SQUARES_BUFFER[S_nbBufferedSquares++] = iDest;
+            pCibles[nb++] = iDest;
           }
         }
       }
     }
+
+    return nb;
   }
 
   /**
-   * Ajoute au buffer interne toutes les cases cibles possibles d'un mouvement de type "tour" d'une
+   * Ajoute à un buffer toutes les cases cibles possibles d'un mouvement de type "tour" d'une
    * certaine couleur (y compris ceux mettant le roi en échec) à partir d'une case.
    * 
+   * @param pCibles Buffer recevant les indices des cases cibles.
+   * @param pNombre Nombre de cases déjà présentes dans le buffer.
    * @param pOrigine Indice de la case à l'origine du mouvement.
    * @param pBlanc Mis à vrai pour rechercher pour les blancs.
+   * @return Nombre de cases présentes dans le buffer après l'ajout.
    */
-  private void addRookTargets(final int pOrigine, final boolean pBlanc)
+  private int addRookTargets(final int [] pCibles, final int pNombre, final int pOrigine,
+      final boolean pBlanc)
   {
     assert (pOrigine >= 0) && (pOrigine < FILE_COUNT * RANK_COUNT);
 
+    int nb = pNombre;
+
     final int mbSrc = TO_MAILBOX[pOrigine];
 
     // Mouvements / prise vers la gauche...
@@ -446,13 +482,13 @@ final class MailboxBoard extends AbstractMoveGenerator
       final Piece p = _pieces[dst];
       if (p == null)
       {
-        SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+        pCibles[nb++] = dst;
       }
       else
       {
         if (p.isWhite() != pBlanc)
         {
-          SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+          pCibles[nb++] = dst;
         }
         break;
       }
@@ -467,13 +503,13 @@ final class MailboxBoard extends AbstractMoveGenerator
       final Piece p = _pieces[dst];
       if (p == null)
       {
-        SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+        pCibles[nb++] = dst;
       }
       else
       {
         if (p.isWhite() != pBlanc)
         {
-          SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+          pCibles[nb++] = dst;
         }
         break;
       }
@@ -488,13 +524,13 @@ final class MailboxBoard extends AbstractMoveGenerator
       final Piece p = _pieces[dst];
       if (p == null)
       {
-        SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+        pCibles[nb++] = dst;
       }
       else
       {
         if (p.isWhite() != pBlanc)
         {
-          SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+          pCibles[nb++] = dst;
         }
         break;
       }
@@ -510,19 +546,69 @@ final class MailboxBoard extends AbstractMoveGenerator
       final Piece p = _pieces[dst];
       if (p == null)
       {
-        SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+        pCibles[nb++] = dst;
       }
       else
       {
         if (p.isWhite() != pBlanc)
         {
-          SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+          pCibles[nb++] = dst;
         }
         break;
       }
       mbDst -= 10;
       dst = MAILBOX[mbDst];
     }
+
+    return nb;
+  }
+
+  /**
+   * Ajoute à un buffer toutes les cases cibles des mouvements valides à partir d'une case.
+   * 
+   * @param pCibles Buffer recevant les indices des cases cibles.
+   * @param pOrigine Indice de la case à l'origine du mouvement.
+   * @return Nombre de cases présentes dans le buffer.
+   */
+  private int addValidTargets(final int [] pCibles, final int pOrigine)
+  {
+    assert (pOrigine >= 0) && (pOrigine < FILE_COUNT * RANK_COUNT);
+
+    int nb = 0;
+
+    final Piece piece = _pieces[pOrigine];
+    if (piece != null)
+    {
+      final Square origine = Square.valueOf(pOrigine);
+      final int nbTotal = addAllTargets(pCibles, 0, pOrigine);
+      final boolean trait = piece.isWhite();
+      final boolean controle = mayLeaveInCheck(piece, origine);
+      for (int t = 0; t < nbTotal; t++)
+      {
+        final int idxCible = pCibles[t];
+        final Square cible = Square.valueOf(idxCible);
+        boolean valide = !controle || !isInCheckAfter(piece, origine, cible);
+        if (valide && (piece.getType() == KING) && (origine.getFile() == 4))
+        {
+          final int delta = 4 - cible.getFile();
+          if ((delta == 2) || (delta == -2))
+          {
+            // Elimine le roque si le roi est en échec ou s'il le serait sur la case
+            // intermédiaire...
+            valide =
+                !isInCheck(trait)
+                    && !isInCheckAfter(piece, origine,
+                        Square.valueOf(4 - (delta / 2), cible.getRank()));
+          }
+        }
+        if (valide)
+        {
+          pCibles[nb++] = idxCible;
+        }
+      }
+    }
+
+    return nb;
   }
 
   /**
@@ -556,7 +642,7 @@ final class MailboxBoard extends AbstractMoveGenerator
     {
       final boolean t = !isWhiteActive();
       res.setWhiteActive(t);
-      res._hashCode ^= ZOBRIST_WHITE_ACTIVE;
+      res._zobristKey ^= ZOBRIST_KEY_WHITE_ACTIVE;
       if (t)
       {
         res.setFullmoveNumber(getFullmoveNumber() + 1);
@@ -580,7 +666,7 @@ final class MailboxBoard extends AbstractMoveGenerator
     assert res._pieces[iSrc] == piece;
     res._pieces[iSrc] = null;
     final int pieceOrdinal = piece.ordinal();
-    res._hashCode ^= ZOBRIST_PIECE_POSITION[pieceOrdinal][iSrc];
+    res._zobristKey ^= ZOBRIST_KEY_PIECE_POSITION[pieceOrdinal][iSrc];
     final Square dst = pMouvement.getTo();
     final int iDst = dst.getIndex();
     final int xDst = dst.getFile();
@@ -588,10 +674,10 @@ final class MailboxBoard extends AbstractMoveGenerator
     final Piece pieceDst = _pieces[iDst];
     if (pieceDst != null)
     {
-      res._hashCode ^= ZOBRIST_PIECE_POSITION[pieceDst.ordinal()][iDst];
+      res._zobristKey ^= ZOBRIST_KEY_PIECE_POSITION[pieceDst.ordinal()][iDst];
     }
     res._pieces[iDst] = piece;
-    res._hashCode ^= ZOBRIST_PIECE_POSITION[pieceOrdinal][iDst];
+    res._zobristKey ^= ZOBRIST_KEY_PIECE_POSITION[pieceOrdinal][iDst];
     // ... éxécute un mouvement spécifique de type "roque" et gère le suivi des rois ...
     if (typePiece == KING)
     {
@@ -607,9 +693,9 @@ final class MailboxBoard extends AbstractMoveGenerator
           assert tour.getType() == ROOK;
           res._pieces[i] = null;
           final int tourOrdinal = tour.ordinal();
-          res._hashCode ^= ZOBRIST_PIECE_POSITION[tourOrdinal][i];
+          res._zobristKey ^= ZOBRIST_KEY_PIECE_POSITION[tourOrdinal][i];
           res._pieces[i + 3] = tour;
-          res._hashCode ^= ZOBRIST_PIECE_POSITION[tourOrdinal][i + 3];
+          res._zobristKey ^= ZOBRIST_KEY_PIECE_POSITION[tourOrdinal][i + 3];
           res.setCastled(trait, true);
         }
         else if (xDst == 6)
@@ -621,9 +707,9 @@ final class MailboxBoard extends AbstractMoveGenerator
           assert tour.getType() == ROOK;
           res._pieces[i] = null;
           final int tourOrdinal = tour.ordinal();
-          res._hashCode ^= ZOBRIST_PIECE_POSITION[tourOrdinal][i];
+          res._zobristKey ^= ZOBRIST_KEY_PIECE_POSITION[tourOrdinal][i];
           res._pieces[i - 2] = tour;
-          res._hashCode ^= ZOBRIST_PIECE_POSITION[tourOrdinal][i - 2];
+          res._zobristKey ^= ZOBRIST_KEY_PIECE_POSITION[tourOrdinal][i - 2];
           res.setCastled(trait, true);
         }
       }
@@ -636,11 +722,11 @@ final class MailboxBoard extends AbstractMoveGenerator
         res.setCastleShort(trait, false);
         if (trait)
         {
-          res._hashCode ^= ZOBRIST_WHITE_CASTLE_SHORT;
+          res._zobristKey ^= ZOBRIST_KEY_WHITE_CASTLE_SHORT;
         }
         else
         {
-          res._hashCode ^= ZOBRIST_BLACK_CASTLE_SHORT;
+          res._zobristKey ^= ZOBRIST_KEY_BLACK_CASTLE_SHORT;
         }
       }
     }
@@ -651,11 +737,11 @@ final class MailboxBoard extends AbstractMoveGenerator
         res.setCastleLong(trait, false);
         if (trait)
         {
-          res._hashCode ^= ZOBRIST_WHITE_CASTLE_LONG;
+          res._zobristKey ^= ZOBRIST_KEY_WHITE_CASTLE_LONG;
         }
         else
         {
-          res._hashCode ^= ZOBRIST_BLACK_CASTLE_LONG;
+          res._zobristKey ^= ZOBRIST_KEY_BLACK_CASTLE_LONG;
         }
       }
     }
@@ -676,8 +762,8 @@ final class MailboxBoard extends AbstractMoveGenerator
         if (yDst == RANK_COUNT - 1)
         {
           res._pieces[iDst] = WHITE_QUEEN;
-          res._hashCode ^= ZOBRIST_PIECE_POSITION[pieceOrdinal][iDst];
-          res._hashCode ^= ZOBRIST_PIECE_POSITION[WHITE_QUEEN.ordinal()][iDst];
+          res._zobristKey ^= ZOBRIST_KEY_PIECE_POSITION[pieceOrdinal][iDst];
+          res._zobristKey ^= ZOBRIST_KEY_PIECE_POSITION[WHITE_QUEEN.ordinal()][iDst];
         }
         else if ((ySrc == 1) && (yDst == 3))
         {
@@ -687,7 +773,7 @@ final class MailboxBoard extends AbstractMoveGenerator
         {
           final int epDst = iDst - FILE_COUNT;
           res._pieces[epDst] = null;
-          res._hashCode ^= ZOBRIST_PIECE_POSITION[_pieces[epDst].ordinal()][epDst];
+          res._zobristKey ^= ZOBRIST_KEY_PIECE_POSITION[_pieces[epDst].ordinal()][epDst];
         }
       }
       else
@@ -696,8 +782,8 @@ final class MailboxBoard extends AbstractMoveGenerator
         if (yDst == 0)
         {
           res._pieces[iDst] = BLACK_QUEEN;
-          res._hashCode ^= ZOBRIST_PIECE_POSITION[pieceOrdinal][iDst];
-          res._hashCode ^= ZOBRIST_PIECE_POSITION[BLACK_QUEEN.ordinal()][iDst];
+          res._zobristKey ^= ZOBRIST_KEY_PIECE_POSITION[pieceOrdinal][iDst];
+          res._zobristKey ^= ZOBRIST_KEY_PIECE_POSITION[BLACK_QUEEN.ordinal()][iDst];
         }
         else if ((ySrc == RANK_COUNT - 2) && (yDst == RANK_COUNT - 4))
         {
@@ -707,7 +793,7 @@ final class MailboxBoard extends AbstractMoveGenerator
         {
           final int epDst = iDst + FILE_COUNT;
           res._pieces[epDst] = null;
-          res._hashCode ^= ZOBRIST_PIECE_POSITION[_pieces[epDst].ordinal()][epDst];
+          res._zobristKey ^= ZOBRIST_KEY_PIECE_POSITION[_pieces[epDst].ordinal()][epDst];
         }
       }
     }
@@ -715,11 +801,11 @@ final class MailboxBoard extends AbstractMoveGenerator
     final Square epFinal = res.getEnPassant();
     if ((epOrig != null) && ((epFinal == null) || (!epOrig.equals(epFinal))))
     {
-      res._hashCode ^= ZOBRIST_EN_PASSANT[epOrig.getFile()];
+      res._zobristKey ^= ZOBRIST_KEY_EN_PASSANT[epOrig.getFile()];
     }
     if ((epFinal != null) && ((epOrig == null) || (!epFinal.equals(epOrig))))
     {
-      res._hashCode ^= ZOBRIST_EN_PASSANT[epFinal.getFile()];
+      res._zobristKey ^= ZOBRIST_KEY_EN_PASSANT[epFinal.getFile()];
     }
 
     return res;
@@ -774,25 +860,12 @@ final class MailboxBoard extends AbstractMoveGenerator
     assert pOrigine != null;
 
     final int idx = pOrigine.getIndex();
-    final Piece piece = _pieces[idx];
-    if (piece != null)
+    if (_pieces[idx] != null)
     {
-      final Square [] res;
-
-      synchronized (SQUARES_BUFFER)
-      {
-        S_nbBufferedSquares = 0;
+      final int [] cibles = new int [ MAX_TARGETS ];
+      final int nb = addAllTargets(cibles, 0, idx);
 
-        addAllTargets(idx);
-
-        res = new Square [ S_nbBufferedSquares ];
-        for (int t = S_nbBufferedSquares; --t >= 0; /* Pré-décrémenté */)
-        {
-          res[t] = Square.valueOf(SQUARES_BUFFER[t]);
-        }
-      }
-
-      return res;
+      return toSquares(cibles, nb);
     }
 
     return NO_SQUARE;
@@ -810,22 +883,10 @@ final class MailboxBoard extends AbstractMoveGenerator
   {
     assert pOrigine != null;
 
-    final Square [] res;
-
-    synchronized (SQUARES_BUFFER)
-    {
-      S_nbBufferedSquares = 0;
-
-      addBishopTargets(pOrigine.getIndex(), pBlanc);
-
-      res = new Square [ S_nbBufferedSquares ];
-      for (int t = S_nbBufferedSquares; --t >= 0; /* Pré-décrémenté */)
-      {
-        res[t] = Square.valueOf(SQUARES_BUFFER[t]);
-      }
-    }
+    final int [] cibles = new int [ MAX_TARGETS ];
+    final int nb = addBishopTargets(cibles, 0, pOrigine.getIndex(), pBlanc);
 
-    return res;
+    return toSquares(cibles, nb);
   }
 
   /**
@@ -839,22 +900,10 @@ final class MailboxBoard extends AbstractMoveGenerator
   {
     assert pOrigine != null;
 
-    final Square [] res;
+    final int [] cibles = new int [ MAX_TARGETS ];
+    final int nb = addKingTargets(cibles, 0, pOrigine.getIndex(), pBlanc);
 
-    synchronized (SQUARES_BUFFER)
-    {
-      S_nbBufferedSquares = 0;
-
-      addKingTargets(pOrigine.getIndex(), pBlanc);
-
-      res = new Square [ S_nbBufferedSquares ];
-      for (int t = S_nbBufferedSquares; --t >= 0; /* Pré-décrémenté */)
-      {
-        res[t] = Square.valueOf(SQUARES_BUFFER[t]);
-      }
-    }
-
-    return res;
+    return toSquares(cibles, nb);
   }
 
   /**
@@ -868,22 +917,10 @@ final class MailboxBoard extends AbstractMoveGenerator
   {
     assert pOrigine != null;
 
-    final Square [] res;
+    final int [] cibles = new int [ MAX_TARGETS ];
+    final int nb = addKnightTargets(cibles, 0, pOrigine.getIndex(), pBlanc);
 
-    synchronized (SQUARES_BUFFER)
-    {
-      S_nbBufferedSquares = 0;
-
-      addKnightTargets(pOrigine.getIndex(), pBlanc);
-
-      res = new Square [ S_nbBufferedSquares ];
-      for (int t = S_nbBufferedSquares; --t >= 0; /* Pré-décrémenté */)
-      {
-        res[t] = Square.valueOf(SQUARES_BUFFER[t]);
-      }
-    }
-
-    return res;
+    return toSquares(cibles, nb);
   }
 
   /**
@@ -897,22 +934,10 @@ final class MailboxBoard extends AbstractMoveGenerator
   {
     assert pOrigine != null;
 
-    final Square [] res;
-
-    synchronized (SQUARES_BUFFER)
-    {
-      S_nbBufferedSquares = 0;
-
-      addPawnTargets(pOrigine.getIndex(), pBlanc);
+    final int [] cibles = new int [ MAX_TARGETS ];
+    final int nb = addPawnTargets(cibles, 0, pOrigine.getIndex(), pBlanc);
 
-      res = new Square [ S_nbBufferedSquares ];
-      for (int t = S_nbBufferedSquares; --t >= 0; /* Pré-décrémenté */)
-      {
-        res[t] = Square.valueOf(SQUARES_BUFFER[t]);
-      }
-    }
-
-    return res;
+    return toSquares(cibles, nb);
   }
 
   /**
@@ -955,24 +980,12 @@ final class MailboxBoard extends AbstractMoveGenerator
   {
     assert pOrigine != null;
 
-    final Square [] res;
-
-    synchronized (SQUARES_BUFFER)
-    {
-      S_nbBufferedSquares = 0;
-
-      final int idx = pOrigine.getIndex();
-      addBishopTargets(idx, pBlanc);
-      addRookTargets(idx, pBlanc);
-
-      res = new Square [ S_nbBufferedSquares ];
-      for (int t = S_nbBufferedSquares; --t >= 0; /* Pré-décrémenté */)
-      {
-        res[t] = Square.valueOf(SQUARES_BUFFER[t]);
-      }
-    }
+    final int [] cibles = new int [ MAX_TARGETS ];
+    final int idx = pOrigine.getIndex();
+    int nb = addBishopTargets(cibles, 0, idx, pBlanc);
+    nb = addRookTargets(cibles, nb, idx, pBlanc);
 
-    return res;
+    return toSquares(cibles, nb);
   }
 
   /**
@@ -987,22 +1000,10 @@ final class MailboxBoard extends AbstractMoveGenerator
   {
     assert pOrigine != null;
 
-    final Square [] res;
+    final int [] cibles = new int [ MAX_TARGETS ];
+    final int nb = addRookTargets(cibles, 0, pOrigine.getIndex(), pBlanc);
 
-    synchronized (SQUARES_BUFFER)
-    {
-      S_nbBufferedSquares = 0;
-
-      addRookTargets(pOrigine.getIndex(), pBlanc);
-
-      res = new Square [ S_nbBufferedSquares ];
-      for (int t = S_nbBufferedSquares; --t >= 0; /* Pré-décrémenté */)
-      {
-        res[t] = Square.valueOf(SQUARES_BUFFER[t]);
-      }
-    }
-
-    return res;
+    return toSquares(cibles, nb);
   }
 
   /**
@@ -1013,6 +1014,7 @@ final class MailboxBoard extends AbstractMoveGenerator
    */
   public Move [] getValidMoves(final boolean pTrait)
   {
+    final int [] cibles = new int [ MAX_TARGETS ];
     Move [] tmp = new Move [ 45 ];
     int nb = 0;
     int lTmp = tmp.length;
@@ -1022,22 +1024,25 @@ final class MailboxBoard extends AbstractMoveGenerator
       if ((p != null) && (p.isWhite() == pTrait))
       {
         final Square orig = Square.valueOf(i);
-        for (final Square dst : getValidTargets(orig))
+        final int nbCibles = addValidTargets(cibles, i);
+        for (int c = 0; c < nbCibles; c++)
         {
+          final int iDst = cibles[c];
+          final Square dst = Square.valueOf(iDst);
           final Piece prise;
           if ((p.getType() != PAWN) || (dst != getEnPassant()))
           {
-            prise = _pieces[dst.getIndex()];
+            prise = _pieces[iDst];
           }
           else
           {
             if (pTrait)
             {
-              prise = _pieces[dst.getIndex() - FILE_COUNT];
+              prise = _pieces[iDst - FILE_COUNT];
             }
             else
             {
-              prise = _pieces[dst.getIndex() + FILE_COUNT];
+              prise = _pieces[iDst + FILE_COUNT];
             }
           }
           tmp[nb++] = new Move(p, orig, dst, prise);
@@ -1068,66 +1073,10 @@ final class MailboxBoard extends AbstractMoveGenerator
   {
     assert pOrigine != null;
 
-    final int iSrc = pOrigine.getIndex();
-    final Piece piece = _pieces[iSrc];
-    if (piece != null)
-    {
-      synchronized (SQUARES_BUFFER)
-      {
-        S_nbBufferedSquares = 0;
-        addAllTargets(iSrc);
-        int nbFinal = S_nbBufferedSquares;
-        final boolean trait = piece.isWhite();
-        for (int t = S_nbBufferedSquares; --t >= 0; /* Pré-décrémenté */)
-        {
-          final int idxCible = SQUARES_BUFFER[t];
-          final Square cible = Square.valueOf(idxCible);
-          final Piece prise = _pieces[idxCible];
-          if (derive(new Move(piece, pOrigine, cible, prise), false).isInCheck(trait))
-          {
-            SQUARES_BUFFER[t] = -1;
-            nbFinal--;
-          }
-          else if ((piece.getType() == KING) && (pOrigine.getFile() == 4))
-          {
-            final int delta = 4 - cible.getFile();
-            if ((delta == 2) || (delta == -2))
-            {
-              // Elimine le roque si le roi est en échec ou s'il le serait sur la case
-              // intermédiaire...
-              if (isInCheck(trait)
-                  || derive(
-                      new Move(piece, pOrigine, Square.valueOf(4 - (delta / 2), cible.getRank())),
-                      false).isInCheck(trait))
-              {
-                SQUARES_BUFFER[t] = -1;
-                nbFinal--;
-              }
-            }
-          }
-        }
-        assert (nbFinal >= 0) && (nbFinal <= S_nbBufferedSquares);
-
-        if (nbFinal == 0)
-        {
-          return NO_SQUARE;
-        }
+    final int [] cibles = new int [ MAX_TARGETS ];
+    final int nb = addValidTargets(cibles, pOrigine.getIndex());
 
-        final Square [] res = new Square [ nbFinal ];
-        for (int t = S_nbBufferedSquares; --t >= 0; /* Pré-décrémenté */)
-        {
-          final int idx = SQUARES_BUFFER[t];
-          if (idx >= 0)
-          {
-            res[--nbFinal] = Square.valueOf(idx);
-          }
-        }
-
-        return res;
-      }
-    }
-
-    return NO_SQUARE;
+    return toSquares(cibles, nb);
   }
 
   /**
@@ -1138,240 +1087,44 @@ final class MailboxBoard extends AbstractMoveGenerator
   @Override
   public int hashCode()
   {
-    assert _hashCode == super.hashCode();
-    return _hashCode;
+    assert (int) _zobristKey == super.hashCode();
+    return (int) _zobristKey;
   }
 
   /**
-   * Indique si une case est attaquée par une couleur.
+   * Convertit le contenu d'un buffer d'indices en liste de cases.
    * 
-   * @param pCible Case cible.
-   * @param pCouleur Positionné à "true" pour tester l'attaque par les blancs.
-   * @return Vrai si la case est attaquée.
+   * @param pCibles Buffer contenant les indices des cases.
+   * @param pNombre Nombre de cases présentes dans le buffer.
+   * @return Liste des cases.
    */
-  public boolean isAttacked(final Square pCible, final boolean pCouleur)
+  private static Square [] toSquares(final int [] pCibles, final int pNombre)
   {
-    assert pCible != null;
-
-    final int mbSrc = TO_MAILBOX[pCible.getIndex()];
-
-    Piece p = null;
-    int mbDst = mbSrc - 1;
-    int dst = MAILBOX[mbDst];
-    // Gauche
-    while ((dst >= 0) && (p == null))
-    {
-      p = _pieces[dst];
-      dst = MAILBOX[--mbDst];
-    }
-    if ((p != null) && (p.isWhite() == pCouleur))
-    {
-      final PieceType t = p.getType();
-      if ((t == ROOK) || (t == QUEEN))
-      {
-        return true;
-      }
-    }
-
-    p = null;
-    mbDst = mbSrc + 1;
-    dst = MAILBOX[mbDst];
-    // Droite
-    while ((dst >= 0) && (p == null))
-    {
-      p = _pieces[dst];
-      dst = MAILBOX[++mbDst];
-    }
-    if ((p != null) && (p.isWhite() == pCouleur))
-    {
-      final PieceType t = p.getType();
-      if ((t == ROOK) || (t == QUEEN))
-      {
-        return true;
-      }
-    }
-
-    p = null;
-    mbDst = mbSrc - 10;
-    dst = MAILBOX[mbDst];
-    // Bas
-    while ((dst >= 0) && (p == null))
-    {
-      p = _pieces[dst];
-      mbDst -= 10;
-      dst = MAILBOX[mbDst];
-    }
-    if ((p != null) && (p.isWhite() == pCouleur))
-    {
-      final PieceType t = p.getType();
-      if ((t == ROOK) || (t == QUEEN))
-      {
-        return true;
-      }
-    }
-
-    p = null;
-    mbDst = mbSrc + 10;
-    dst = MAILBOX[mbDst];
-    // Haut
-    while ((dst >= 0) && (p == null))
-    {
-      p = _pieces[dst];
-      mbDst += 10;
-      dst = MAILBOX[mbDst];
-    }
-    if ((p != null) && (p.isWhite() == pCouleur))
-    {
-      final PieceType t = p.getType();
-      if ((t == ROOK) || (t == QUEEN))
-      {
-        return true;
-      }
-    }
-
-    p = null;
-    mbDst = mbSrc - 11;
-    dst = MAILBOX[mbDst];
-    // Bas / Gauche
-    while ((dst >= 0) && (p == null))
-    {
-      p = _pieces[dst];
-      mbDst -= 11;
-      dst = MAILBOX[mbDst];
-    }
-    if ((p != null) && (p.isWhite() == pCouleur))
-    {
-      final PieceType t = p.getType();
-      if ((t == BISHOP) || (t == QUEEN))
-      {
-        return true;
-      }
-    }
-
-    p = null;
-    mbDst = mbSrc + 9;
-    dst = MAILBOX[mbDst];
-    // Haut / Gauche
-    while ((dst >= 0) && (p == null))
-    {
-      p = _pieces[dst];
-      mbDst += 9;
-      dst = MAILBOX[mbDst];
-    }
-    if ((p != null) && (p.isWhite() == pCouleur))
-    {
-      final PieceType t = p.getType();
-      if ((t == BISHOP) || (t == QUEEN))
-      {
-        return true;
-      }
-    }
-
-    p = null;
-    mbDst = mbSrc + 11;
-    dst = MAILBOX[mbDst];
-    // Haut / Droit
-    while ((dst >= 0) && (p == null))
-    {
-      p = _pieces[dst];
-      mbDst += 11;
-      dst = MAILBOX[mbDst];
-    }
-    if ((p != null) && (p.isWhite() == pCouleur))
-    {
-      final PieceType t = p.getType();
-      if ((t == BISHOP) || (t == QUEEN))
-      {
-        return true;
-      }
-    }
-
-    p = null;
-    mbDst = mbSrc - 9;
-    dst = MAILBOX[mbDst];
-    // Bas / Droit
-    while ((dst >= 0) && (p == null))
-    {
-      p = _pieces[dst];
-      mbDst -= 9;
-      dst = MAILBOX[mbDst];
-    }
-    if ((p != null) && (p.isWhite() == pCouleur))
-    {
-      final PieceType t = p.getType();
-      if ((t == BISHOP) || (t == QUEEN))
-      {
-        return true;
-      }
-    }
+    assert (pNombre >= 0) && (pNombre <= pCibles.length);
 
-    // Cavalier
-    for (final int km : KNIGHT_MOVES)
+    if (pNombre == 0)
     {
-      dst = MAILBOX[mbSrc + km];
-      if (dst >= 0)
-      {
-        p = _pieces[dst];
-        if ((p != null) && (p.isWhite() == pCouleur) && (p.getType() == KNIGHT))
-        {
-          return true;
-        }
-      }
+      return NO_SQUARE;
     }
 
-    // Roi
-    for (final int km : KING_MOVES)
+    final Square [] res = new Square [ pNombre ];
+    for (int t = pNombre; --t >= 0; /* Pré-décrémenté */)
     {
-      dst = MAILBOX[mbSrc + km];
-      if (dst >= 0)
-      {
-        p = _pieces[dst];
-        if ((p != null) && (p.isWhite() == pCouleur) && (p.getType() == KING))
-        {
-          return true;
-        }
-      }
+      res[t] = Square.valueOf(pCibles[t]);
     }
 
-    // Pions...
-    if (pCouleur)
-    {
-      final int ySrc = pCible.getRank();
-      if (ySrc > 1)
-      {
-        final int xSrc = pCible.getFile();
-        if (((xSrc > 0) && (_pieces[MAILBOX[mbSrc - 11]] == WHITE_PAWN))
-            || ((xSrc < FILE_COUNT - 1) && (_pieces[MAILBOX[mbSrc - 9]] == WHITE_PAWN)))
-        {
-          return true;
-        }
-      }
-    }
-    else
-    {
-      final int ySrc = pCible.getRank();
-      if (ySrc < RANK_COUNT - 2)
-      {
-        final int xSrc = pCible.getFile();
-        if (((xSrc > 0) && (_pieces[MAILBOX[mbSrc + 9]] == BLACK_PAWN))
-            || ((xSrc < FILE_COUNT - 1) && (_pieces[MAILBOX[mbSrc + 11]] == BLACK_PAWN)))
-        {
-          return true;
-        }
-      }
-    }
-
-    return false;
+    return res;
   }
 
   /**
-   * Indique si le roi d'une couleur est en échec.
+   * Surcharge du calcul de la clé "Zobrist", tenue à jour à chaque mouvement.
    * 
-   * @param pCouleur Positionné à "true" pour tester l'échec sur les blancs, à "false" sinon.
-   * @return Vrai si le roi est en échec.
+   * @return Clé "Zobrist" de l'état.
    */
-  public boolean isInCheck(final boolean pCouleur)
+  @Override
+  public long zobristKey()
   {
-    return isAttacked(getKingSquare(pCouleur), !pCouleur);
+    assert _zobristKey == super.zobristKey();
+    return _zobristKey;
   }
 }
@@ -33,6 +33,9 @@ public final class Move implements Serializable
   /** Identifiant de la classe pour la sérialisation. */
   private static final long serialVersionUID = 8372326813848101389L;
 
+  /** Liste des pièces indexée par leur ordinal (évite les copies de Piece.values()). */
+  private static final Piece [] PIECES = Piece.values();
+
   /** Pièce déplacée. */
   private final Piece _piece;
 
@@ -207,27 +210,89 @@ public final class Move implements Serializable
   }
 
   /**
-   * Renvoi une instance de mouvement correspondant à l'entier identifiant reçu.
+   * Renvoi l'éventuelle pièce capturée par le mouvement correspondant à un identifiant.
    * 
    * @param pId Entier identifiant un mouvement.
-   * @return Instance du mouvement correspondant.
+   * @return Pièce capturée (ou null).
    */
-  public static Move valueOf(final int pId)
+  public static Piece capturedOf(final int pId)
   {
-    final Piece pce = Piece.values()[(pId >> 20) & 0xF];
-    final Square src = Square.valueOf((pId >> 14) & 0x3F);
-    final Square dst = Square.valueOf((pId >> 8) & 0x3F);
     final int idCpt = (pId >> 4) & 0xF;
-    final Piece cpt;
     if (idCpt <= 0)
     {
-      cpt = null;
+      return null;
     }
-    else
+
+    return PIECES[idCpt - 1];
+  }
+
+  /**
+   * Renvoi l'indice de la case de départ du mouvement correspondant à un identifiant.
+   * 
+   * @param pId Entier identifiant un mouvement.
+   * @return Indice de la case de départ (de 0 à 63).
+   */
+  public static int fromOf(final int pId)
+  {
+    return (pId >> 14) & 0x3F;
+  }
+
+  /**
+   * Renvoi l'entier identifiant un mouvement, sans instancier celui-ci.
+   * 
+   * @param pPiece Pièce déplacée.
+   * @param pOrigine Indice de la case de départ.
+   * @param pDestination Indice de la case d'arrivée.
+   * @param pPrise Eventuelle pièce capturée (peut être à null).
+   * @return Entier identifiant le mouvement, identique à celui renvoyé par {@link #toId()}.
+   */
+  public static int idOf(final Piece pPiece, final int pOrigine, final int pDestination,
+      final Piece pPrise)
+  {
+    assert pPiece != null;
+    assert (pOrigine >= 0) && (pOrigine < 64);
+    assert (pDestination >= 0) && (pDestination < 64);
+
+    int res = (pPiece.ordinal() << 20) + (pOrigine << 14) + (pDestination << 8);
+    if (pPrise != null)
     {
-      cpt = Piece.values()[idCpt - 1];
+      res += (pPrise.ordinal() + 1) << 4;
     }
 
-    return new Move(pce, src, dst, cpt);
+    return res;
+  }
+
+  /**
+   * Renvoi la pièce déplacée par le mouvement correspondant à un identifiant.
+   * 
+   * @param pId Entier identifiant un mouvement.
+   * @return Pièce déplacée.
+   */
+  public static Piece pieceOf(final int pId)
+  {
+    return PIECES[(pId >> 20) & 0xF];
+  }
+
+  /**
+   * Renvoi l'indice de la case d'arrivée du mouvement correspondant à un identifiant.
+   * 
+   * @param pId Entier identifiant un mouvement.
+   * @return Indice de la case d'arrivée (de 0 à 63).
+   */
+  public static int toOf(final int pId)
+  {
+    return (pId >> 8) & 0x3F;
+  }
+
+  /**
+   * Renvoi une instance de mouvement correspondant à l'entier identifiant reçu.
+   * 
+   * @param pId Entier identifiant un mouvement.
+   * @return Instance du mouvement correspondant.
+   */
+  public static Move valueOf(final int pId)
+  {
+    return new Move(pieceOf(pId), Square.valueOf(fromOf(pId)), Square.valueOf(toOf(pId)),
+        capturedOf(pId));
   }
 }
@@ -42,6 +42,43 @@ public interface MoveGenerator extends Board
    */
   MoveGenerator derive(final Move pMouvement, final boolean pSuivant);
 
+  /**
+   * Alimente une liste avec les identifiants (voir {@link Move#toId()}) des prises valides (y
+   * compris "en passant") pour la couleur ayant le trait.
+   * <p>
+   * La liste est vidée au préalable. Avec {@link #generateQuietMoves(MoveList)}, permet une
+   * génération des mouvements par étapes : les mouvements sans prise n'ont à être produits que si
+   * l'examen des prises n'a pas suffi.
+   * </p>
+   * 
+   * @param pListe Liste à alimenter.
+   */
+  void generateCaptures(final MoveList pListe);
+
+  /**
+   * Alimente une liste avec les identifiants (voir {@link Move#toId()}) de tous les mouvements
+   * valides pour la couleur ayant le trait.
+   * <p>
+   * La liste est vidée au préalable. Les mouvements obtenus sont les mêmes que ceux renvoyés par
+   * <code>getValidMoves(isWhiteActive())</code>, mais les implémentations peuvent ainsi éviter
+   * toute allocation.
+   * </p>
+   * 
+   * @param pListe Liste à alimenter.
+   */
+  void generateMoves(final MoveList pListe);
+
+  /**
+   * Alimente une liste avec les identifiants (voir {@link Move#toId()}) des mouvements valides
+   * sans prise pour la couleur ayant le trait.
+   * <p>
+   * La liste est vidée au préalable.
+   * </p>
+   * 
+   * @param pListe Liste à alimenter.
+   */
+  void generateQuietMoves(final MoveList pListe);
+
   /**
    * Renvoi toutes les cases cibles des mouvements possibles (y compris ceux mettant le roi en
    * échec) pour la pièce contenue par une case.
@@ -51,6 +88,21 @@ public interface MoveGenerator extends Board
    */
   Square [] getAllTargets(final Square pOrigine);
 
+  /**
+   * Renvoi la carte des cases attaquées par une couleur, qu'elles soient vides ou occupées.
+   * <p>
+   * La carte est calculée au premier appel pour un état et conservée avec lui : les appels
+   * suivants, comme ceux de {@link #isAttacked(Square, boolean)} et {@link #isInCheck(boolean)},
+   * sont de simples consultations. Utile aux heuristiques mesurant la mobilité ou la sécurité du
+   * roi (par exemple au moyen de {@link Long#bitCount(long)}).
+   * </p>
+   * 
+   * @param pCouleur Positionné à "true" pour les attaques des blancs.
+   * @return Carte des cases attaquées : le bit de rang i correspond à la case d'indice i (voir
+   *         {@link Square#getIndex()}).
+   */
+  long getAttackedSquares(final boolean pCouleur);
+
   /**
    * Renvoi toutes les cases cibles possibles d'un mouvement de type "fou" d'une certaine couleur (y
    * compris ceux mettant le roi en échec) à partir d'une case.
@@ -156,4 +208,17 @@ public interface MoveGenerator extends Board
    * @return Vrai si le roi est en échec.
    */
   boolean isInCheck(final boolean pCouleur);
+
+  /**
+   * Indique si un identifiant de mouvement (voir {@link Move#toId()}) correspond à un mouvement
+   * valide pour la couleur ayant le trait.
+   * <p>
+   * Permet de jouer un mouvement mémorisé (table de transposition, "killer moves", ...) sans avoir
+   * à générer au préalable la liste complète des mouvements.
+   * </p>
+   * 
+   * @param pMouvement Identifiant du mouvement.
+   * @return Vrai si le mouvement est valide.
+   */
+  boolean isValidMove(final int pMouvement);
 }
@@ -85,6 +85,41 @@ public final class MoveGeneratorBench
     }
   }
 
+  /**
+   * Teste la vitesse de génération des mouvements dans une liste réutilisée.
+   */
+  private static void benchGenerateMoves()
+  {
+    final int nbTests = 2500;
+
+    System.out.println("Benchmark (" + nbTests * 8 + ") : generateMoves(MoveList)");
+    for (final BoardFactory.Type t : BoardFactory.Type.values())
+    {
+      if (t == FASTEST)
+      {
+        continue;
+      }
+      final MoveGenerator blancs = BoardFactory.valueOf(t, BoardFactory.State.STARTING);
+      final MoveGenerator noirs =
+          blancs.derive(new Move(WHITE_PAWN, Square.valueOf("e2"), Square.valueOf("e4")), true);
+      final MoveList liste = new MoveList();
+      final long debut = System.currentTimeMillis();
+      for (int i = nbTests; i > 0; i--)
+      {
+        blancs.generateMoves(liste);
+        noirs.generateMoves(liste);
+        blancs.generateMoves(liste);
+        noirs.generateMoves(liste);
+        blancs.generateMoves(liste);
+        noirs.generateMoves(liste);
+        blancs.generateMoves(liste);
+        noirs.generateMoves(liste);
+      }
+      final long fin = System.currentTimeMillis();
+      System.out.println("  " + blancs.getClass().getSimpleName() + " = " + (fin - debut) + "ms");
+    }
+  }
+
   /**
    * Teste la vitesse de recherche des cases cibles d'une position.
    */
@@ -413,6 +448,58 @@ public final class MoveGeneratorBench
     }
   }
 
+  /**
+   * Teste l'évolution du débit de la recherche des mouvements valides avec le nombre de threads
+   * partageant les mêmes états.
+   */
+  private static void benchThreads()
+  {
+    final int nbTests = 2000;
+    final int nbMaxThreads = Math.max(4, Runtime.getRuntime().availableProcessors());
+
+    System.out.println("Benchmark (" + nbTests * 4 + " / thread) : getValidMoves(boolean), "
+        + "threads = 1.." + nbMaxThreads);
+    for (final BoardFactory.Type t : BoardFactory.Type.values())
+    {
+      if (t == FASTEST)
+      {
+        continue;
+      }
+      final MoveGenerator depart = BoardFactory.valueOf(t, BoardFactory.State.STARTING);
+      final Move e2e4 = new Move(WHITE_PAWN, Square.valueOf("e2"), Square.valueOf("e4"));
+      final MoveGenerator [] etats = { depart, depart.derive(e2e4, true), };
+      for (int nbThreads = 1; nbThreads <= nbMaxThreads; nbThreads *= 2)
+      {
+        final ValidMovesThread [] process = new ValidMovesThread [ nbThreads ];
+        for (int i = nbThreads; --i >= 0; /* Pré-décrémenté */)
+        {
+          process[i] = new ValidMovesThread(etats, nbTests);
+        }
+        final long debut = System.currentTimeMillis();
+        for (final ValidMovesThread p : process)
+        {
+          p.start();
+        }
+        try
+        {
+          for (final ValidMovesThread p : process)
+          {
+            p.join();
+          }
+        }
+        catch (final InterruptedException e)
+        {
+          Thread.currentThread().interrupt();
+          return;
+        }
+        final long duree = Math.max(1, System.currentTimeMillis() - debut);
+        System.out.println("  " + depart.getClass().getSimpleName() + " / " + nbThreads
+            + " thread(s) = " + duree + "ms (" + nbTests * 4L * nbThreads * 1000 / duree
+            + " appels/s)");
+      }
+    }
+  }
+
   /**
    * Lance les différents tests de performance.
    * 
@@ -421,6 +508,7 @@ public final class MoveGeneratorBench
   public static void main(final String [] pArgs)
   {
     benchDerive();
+    benchGenerateMoves();
     benchGetAllTargets();
     benchGetBishopTargets();
     benchGetKingSquare();
@@ -431,5 +519,49 @@ public final class MoveGeneratorBench
     benchGetRookTargets();
     benchGetValidMoves();
     benchGetValidTargets();
+    benchThreads();
+  }
+
+  /**
+   * Thread recherchant en boucle les mouvements valides d'états partagés.
+   */
+  private static final class ValidMovesThread extends Thread
+  {
+    /** Etats à traiter. */
+    private final MoveGenerator [] _etats;
+
+    /** Nombre d'itérations. */
+    private final int _nbTests;
+
+    /**
+     * Instancie un nouveau processus de test.
+     * 
+     * @param pEtats Etats à traiter.
+     * @param pNbTests Nombre d'itérations.
+     */
+    ValidMovesThread(final MoveGenerator [] pEtats, final int pNbTests)
+    {
+      assert pEtats != null;
+      assert pNbTests > 0;
+
+      _etats = pEtats;
+      _nbTests = pNbTests;
+    }
+
+    /**
+     * Recherche les mouvements valides.
+     */
+    @Override
+    public void run()
+    {
+      for (int i = _nbTests; i > 0; i--)
+      {
+        for (final MoveGenerator etat : _etats)
+        {
+          etat.getValidMoves(true);
+          etat.getValidMoves(false);
+        }
+      }
+    }
   }
 }
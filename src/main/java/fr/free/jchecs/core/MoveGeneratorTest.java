@@ -38,7 +38,9 @@ import static fr.free.jchecs.core.Piece.WHITE_PAWN;
 import static fr.free.jchecs.core.Piece.WHITE_QUEEN;
 import static fr.free.jchecs.core.Piece.WHITE_ROOK;
 
+import java.util.HashSet;
 import java.util.Random;
+import java.util.Set;
 
 import org.junit.Test;
 
@@ -57,6 +59,55 @@ public final class MoveGeneratorTest
     // Rien de spécifique...
   }
 
+  /**
+   * Vérifie récursivement que le matériel, la clé des pions et les sommes d'une table de positions
+   * maintenus par un état de recherche correspondent à ceux d'un état construit directement.
+   * 
+   * @param pEtat Etat de recherche.
+   * @param pTable Table de positions.
+   * @param pProfondeur Profondeur restante.
+   */
+  private static void checkPieceSquareSums(final SearchBoard pEtat, final PieceSquareTable pTable,
+      final int pProfondeur)
+  {
+    final SearchBoard reference = new SearchBoard(pEtat);
+    final String fen = FENUtils.toFEN(pEtat);
+    for (final Piece p : Piece.values())
+    {
+      assertEquals(fen, reference.getPieceSquareSum(pTable, p), pEtat.getPieceSquareSum(pTable, p));
+    }
+    assertEquals(fen, reference.getMaterial(true), pEtat.getMaterial(true));
+    assertEquals(fen, reference.getMaterial(false), pEtat.getMaterial(false));
+    assertEquals(fen, reference.getPawnKey(), pEtat.getPawnKey());
+
+    if (pProfondeur > 0)
+    {
+      final MoveList coups = new MoveList();
+      pEtat.generateMoves(coups);
+      for (int i = coups.size(); --i >= 0; /* Pré-décrémenté */)
+      {
+        pEtat.makeMove(coups.get(i));
+        checkPieceSquareSums(pEtat, pTable, pProfondeur - 1);
+        pEtat.unmakeMove();
+      }
+    }
+  }
+
+  /**
+   * Renvoi l'identifiant d'un mouvement de prise.
+   * 
+   * @param pPiece Pièce déplacée.
+   * @param pOrigine Nom de la case de départ.
+   * @param pDestination Nom de la case d'arrivée.
+   * @param pPrise Pièce prise.
+   * @return Identifiant du mouvement.
+   */
+  private static int idOf(final Piece pPiece, final String pOrigine, final String pDestination,
+      final Piece pPrise)
+  {
+    return new Move(pPiece, Square.valueOf(pOrigine), Square.valueOf(pDestination), pPrise).toId();
+  }
+
   /**
    * Vérifie si deux listes de mouvements sont identiques.
    * 
@@ -196,6 +247,79 @@ public final class MoveGeneratorTest
     }
   }
 
+  /**
+   * Teste que la génération des prises et celle des mouvements sans prise forment une partition
+   * des mouvements valides, au cours de parties aléatoires.
+   */
+  @Test
+  public void testGenerateCaptures()
+  {
+    final Random randomizer = new Random(2500);
+    final MoveList prises = new MoveList(1);
+    final MoveList calmes = new MoveList(1);
+    for (final BoardFactory.Type t : BoardFactory.Type.values())
+    {
+      for (int p = 20; p >= 0; p--)
+      {
+        MoveGenerator etat = BoardFactory.valueOf(t, BoardFactory.State.STARTING);
+        final String nomClasse = etat.getClass().getSimpleName();
+        for (int cps = 100; cps >= 0; cps--)
+        {
+          final Move [] mvts = etat.getValidMoves(etat.isWhiteActive());
+          etat.generateCaptures(prises);
+          etat.generateQuietMoves(calmes);
+          final Move [] tous = new Move [ prises.size() + calmes.size() ];
+          for (int i = prises.size(); --i >= 0; /* Pré-décrémenté */)
+          {
+            assertTrue(nomClasse, Move.capturedOf(prises.get(i)) != null);
+            tous[i] = Move.valueOf(prises.get(i));
+          }
+          for (int i = calmes.size(); --i >= 0; /* Pré-décrémenté */)
+          {
+            assertTrue(nomClasse, Move.capturedOf(calmes.get(i)) == null);
+            tous[prises.size() + i] = Move.valueOf(calmes.get(i));
+          }
+          sameMoves(nomClasse, mvts, tous);
+          if (mvts.length == 0)
+          {
+            break;
+          }
+          etat = etat.derive(mvts[randomizer.nextInt(mvts.length)], true);
+        }
+      }
+    }
+  }
+
+  /**
+   * Teste l'équivalence entre la génération dans une liste de mouvements et la liste des mouvements
+   * valides, au cours de parties aléatoires.
+   */
+  @Test
+  public void testGenerateMoves()
+  {
+    final Random randomizer = new Random(2000);
+    final MoveList liste = new MoveList(1);
+    for (final BoardFactory.Type t : BoardFactory.Type.values())
+    {
+      for (int p = 20; p >= 0; p--)
+      {
+        MoveGenerator etat = BoardFactory.valueOf(t, BoardFactory.State.STARTING);
+        final String nomClasse = etat.getClass().getSimpleName();
+        for (int cps = 100; cps >= 0; cps--)
+        {
+          final Move [] mvts = etat.getValidMoves(etat.isWhiteActive());
+          etat.generateMoves(liste);
+          sameMoves(nomClasse, mvts, liste.toArray());
+          if (mvts.length == 0)
+          {
+            break;
+          }
+          etat = etat.derive(mvts[randomizer.nextInt(mvts.length)], true);
+        }
+      }
+    }
+  }
+
   /**
    * Teste l'équivalence des méthodes de recherche des cases cibles d'une position.
    */
@@ -218,6 +342,69 @@ public final class MoveGeneratorTest
     }
   }
 
+  /**
+   * Teste les cartes des cases attaquées, y compris après modification sur place d'un état.
+   */
+  @Test
+  public void testGetAttackedSquares()
+  {
+    final Random randomizer = new Random(3000);
+    for (final BoardFactory.Type t : BoardFactory.Type.values())
+    {
+      for (int p = 20; p >= 0; p--)
+      {
+        MoveGenerator etat = BoardFactory.valueOf(t, BoardFactory.State.STARTING);
+        final SearchBoard recherche = new SearchBoard(etat);
+        final String nomClasse = etat.getClass().getSimpleName();
+        for (int cps = 100; cps >= 0; cps--)
+        {
+          final long [] pieces = new long [ Piece.values().length ];
+          long occupation = 0L;
+          for (final Square s : Square.values())
+          {
+            final Piece piece = etat.getPieceAt(s);
+            if (piece != null)
+            {
+              pieces[piece.ordinal()] |= 1L << s.getIndex();
+              occupation |= 1L << s.getIndex();
+            }
+          }
+          for (final boolean couleur : new boolean [] { true, false, })
+          {
+            long attendu = 0L;
+            for (final Square s : Square.values())
+            {
+              if (Bitboards.attackersOf(pieces, occupation, s.getIndex(), couleur) != 0L)
+              {
+                attendu |= 1L << s.getIndex();
+              }
+            }
+            assertEquals(nomClasse, attendu, etat.getAttackedSquares(couleur));
+            assertEquals(nomClasse, attendu, recherche.getAttackedSquares(couleur));
+          }
+          assertEquals(nomClasse,
+              etat.isAttacked(etat.getKingSquare(true), false), etat.isInCheck(true));
+          assertEquals(nomClasse,
+              etat.isAttacked(etat.getKingSquare(false), true), etat.isInCheck(false));
+
+          final Move [] mvts = etat.getValidMoves(etat.isWhiteActive());
+          if (mvts.length == 0)
+          {
+            break;
+          }
+          final Move mvt = mvts[randomizer.nextInt(mvts.length)];
+          // Un aller-retour sur place, puis le mouvement définitif...
+          recherche.getAttackedSquares(!etat.isWhiteActive());
+          recherche.makeMove(mvts[randomizer.nextInt(mvts.length)]);
+          recherche.getAttackedSquares(etat.isWhiteActive());
+          recherche.unmakeMove();
+          recherche.makeMove(mvt);
+          etat = etat.derive(mvt, true);
+        }
+      }
+    }
+  }
+
   /**
    * Teste l'équivalence des méthodes de recherche des cases cibles de fou.
    */
@@ -485,6 +672,161 @@ public final class MoveGeneratorTest
       }
       etatPrec = etat;
     }
+
+    // Les roques effectués sont conservés lors de la conversion en état de recherche...
+    final MoveGenerator roque = BoardFactory.valueOf(FASTEST, BoardFactory.State.STARTING)
+        .derive(new Move(WHITE_KNIGHT, Square.valueOf("g1"), Square.valueOf("f3")), true)
+        .derive(new Move(BLACK_KNIGHT, Square.valueOf("g8"), Square.valueOf("f6")), true)
+        .derive(new Move(WHITE_PAWN, Square.valueOf("g2"), Square.valueOf("g3")), true)
+        .derive(new Move(BLACK_PAWN, Square.valueOf("g7"), Square.valueOf("g6")), true)
+        .derive(new Move(WHITE_BISHOP, Square.valueOf("f1"), Square.valueOf("g2")), true)
+        .derive(new Move(BLACK_BISHOP, Square.valueOf("f8"), Square.valueOf("g7")), true)
+        .derive(new Move(WHITE_KING, Square.valueOf("e1"), Square.valueOf("g1")), true);
+    assertTrue(roque.isCastled(true));
+    assertTrue(new SearchBoard(roque).isCastled(true));
+    assertFalse(new SearchBoard(roque).isCastled(false));
+  }
+
+  /**
+   * Teste l'évaluation statique des échanges sur des positions types.
+   * 
+   * @throws FENException En cas d'erreur dans les positions de test.
+   */
+  @Test
+  public void testIsExchangeAtLeast() throws FENException
+  {
+    // Prise d'un pion non défendu...
+    SearchBoard etat = new SearchBoard(FENUtils.toBoard("4k3/8/8/4p3/8/8/8/4RK2 w - - 0 1"));
+    int mvt = idOf(WHITE_ROOK, "e1", "e5", BLACK_PAWN);
+    assertTrue(etat.isExchangeAtLeast(mvt, 100));
+    assertFalse(etat.isExchangeAtLeast(mvt, 101));
+
+    // ... défendu par un pion.
+    etat = new SearchBoard(FENUtils.toBoard("4k3/8/3p4/4p3/8/8/8/4RK2 w - - 0 1"));
+    assertTrue(etat.isExchangeAtLeast(mvt, 100 - 550));
+    assertFalse(etat.isExchangeAtLeast(mvt, 100 - 550 + 1));
+    assertFalse(etat.isExchangeAtLeast(mvt, 0));
+
+    // Tours doublées : la seconde reprend à travers la première.
+    etat = new SearchBoard(FENUtils.toBoard("4r2k/8/8/4p3/8/8/4R3/4R1K1 w - - 0 1"));
+    mvt = idOf(WHITE_ROOK, "e2", "e5", BLACK_PAWN);
+    assertTrue(etat.isExchangeAtLeast(mvt, 100));
+    assertFalse(etat.isExchangeAtLeast(mvt, 101));
+
+    // Le roi ne reprend que si la case n'est plus défendue.
+    etat = new SearchBoard(FENUtils.toBoard("8/8/3k4/4p3/8/8/8/4RK2 w - - 0 1"));
+    mvt = idOf(WHITE_ROOK, "e1", "e5", BLACK_PAWN);
+    assertFalse(etat.isExchangeAtLeast(mvt, 0));
+    etat = new SearchBoard(FENUtils.toBoard("8/8/3k4/4p3/8/2B5/8/4RK2 w - - 0 1"));
+    assertTrue(etat.isExchangeAtLeast(mvt, 100));
+
+    // Prise "en passant".
+    etat = new SearchBoard(FENUtils.toBoard("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 1"));
+    mvt = idOf(WHITE_PAWN, "e5", "d6", BLACK_PAWN);
+    assertTrue(etat.isExchangeAtLeast(mvt, 100));
+    assertFalse(etat.isExchangeAtLeast(mvt, 101));
+  }
+
+  /**
+   * Teste la validation d'identifiants de mouvements au cours de parties aléatoires, en proposant
+   * les mouvements de la position courante et ceux de la position précédente.
+   */
+  @Test
+  public void testIsValidMove()
+  {
+    final Random randomizer = new Random(3500);
+    for (final BoardFactory.Type t : BoardFactory.Type.values())
+    {
+      for (int p = 20; p >= 0; p--)
+      {
+        MoveGenerator etat = BoardFactory.valueOf(t, BoardFactory.State.STARTING);
+        final String nomClasse = etat.getClass().getSimpleName();
+        Move [] mvtsPrec = new Move [ 0 ];
+        for (int cps = 100; cps >= 0; cps--)
+        {
+          final Move [] mvts = etat.getValidMoves(etat.isWhiteActive());
+          final Set<Integer> valides = new HashSet<Integer>();
+          for (final Move m : mvts)
+          {
+            valides.add(Integer.valueOf(m.toId()));
+            assertTrue(nomClasse + ':' + m, etat.isValidMove(m.toId()));
+          }
+          for (final Move m : mvtsPrec)
+          {
+            final int id = m.toId();
+            assertEquals(nomClasse + ':' + m, valides.contains(Integer.valueOf(id)),
+                etat.isValidMove(id));
+          }
+          if (mvts.length == 0)
+          {
+            break;
+          }
+          mvtsPrec = mvts;
+          etat = etat.derive(mvts[randomizer.nextInt(mvts.length)], true);
+        }
+      }
+    }
+  }
+
+  /**
+   * Teste le passage de trait sans mouvement ("null move") des états de recherche.
+   * 
+   * @throws FENException En cas d'erreur dans les positions de test.
+   */
+  @Test
+  public void testNullMove() throws FENException
+  {
+    final String fen = "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3";
+    final SearchBoard etat = new SearchBoard(FENUtils.toBoard(fen));
+    final long cle = etat.zobristKey();
+    etat.makeNullMove();
+    assertFalse(etat.isWhiteActive());
+    assertEquals(null, etat.getEnPassant());
+    assertEquals(new SearchBoard(FENUtils.toBoard(
+        "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR b KQkq - 1 3")).zobristKey(),
+        etat.zobristKey());
+    assertEquals(1, etat.getPly());
+    etat.unmakeNullMove();
+    assertEquals(0, etat.getPly());
+    assertEquals(cle, etat.zobristKey());
+    assertEquals(fen, FENUtils.toFEN(etat));
+    assertTrue(etat.isValidMove(idOf(WHITE_PAWN, "e5", "f6", BLACK_PAWN)));
+
+    // Repérage des positions exposées au "zugzwang" (roi et pions seuls)...
+    assertTrue(etat.hasNonPawnMaterial(true));
+    final SearchBoard pions =
+        new SearchBoard(FENUtils.toBoard("4k3/4p3/8/8/8/8/3P4/3NK3 w - - 0 1"));
+    assertTrue(pions.hasNonPawnMaterial(true));
+    assertFalse(pions.hasNonPawnMaterial(false));
+  }
+
+  /**
+   * Teste le maintien du matériel, de la clé des pions et des sommes des tables de positions au fil
+   * des mouvements.
+   * 
+   * @throws FENException En cas d'erreur dans les positions de test.
+   */
+  @Test
+  public void testPieceSquareSums() throws FENException
+  {
+    final int [][] positions = new int [ PieceType.values().length ] [];
+    for (final PieceType t : PieceType.values())
+    {
+      positions[t.ordinal()] = new int [ 64 ];
+      for (int i = 64; --i >= 0; /* Pré-décrémenté */)
+      {
+        positions[t.ordinal()][i] = 1000 * t.ordinal() + i * (i % 7);
+      }
+    }
+    final PieceSquareTable table = new PieceSquareTable(positions);
+    assertEquals(1000 * PieceType.PAWN.ordinal() + 12 * 5, table.get(WHITE_PAWN, 12));
+    assertEquals(1000 * PieceType.PAWN.ordinal() + 12 * 5, table.get(BLACK_PAWN, 52));
+
+    final SearchBoard etat = new SearchBoard(FENUtils.toBoard(
+        "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1"));
+    assertEquals(8 * 100 + 2 * 300 + 2 * 350 + 2 * 550 + 1000, etat.getMaterial(true));
+    checkPieceSquareSums(etat, table, 3);
+    assertEquals(0, etat.getPly());
   }
 
   /**
@@ -535,6 +877,8 @@ public final class MoveGeneratorTest
           if (i > 0)
           {
             assertEquals(etats[i].getClass().getSimpleName(), etats[i - 1], etats[i]);
+            assertTrue(etats[i].getClass().getSimpleName(),
+                etats[i - 1].zobristKey() == etats[i].zobristKey());
             assertTrue(etats[i].getClass().getSimpleName(),
                 etats[i - 1].isCastled(true) == etats[i].isCastled(true));
             assertTrue(etats[i].getClass().getSimpleName(),
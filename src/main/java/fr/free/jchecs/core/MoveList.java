@@ -0,0 +1,175 @@
+/*
+ $Id$
+
+ Copyright (C) 2006-2007 by David Cotton
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU General Public License as published by the Free Software
+ Foundation; either version 2 of the License, or (at your option) any later
+ version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along with
+ this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package fr.free.jchecs.core;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Liste de mouvements, stockés sous la forme de leurs identifiants entiers (voir
+ * {@link Move#toId()}).
+ * <p>
+ * Une même instance est destinée à être réutilisée d'un appel à l'autre (typiquement une par niveau
+ * de l'arbre de recherche) : son alimentation n'entraîne aucune allocation. Cette classe n'est pas
+ * sûre vis-à-vis des threads.
+ * </p>
+ * 
+ * @author David Cotton
+ */
+public final class MoveList
+{
+  /** Capacité par défaut (le nombre maximum de coups légaux connu pour une position est 218). */
+  private static final int DEFAULT_CAPACITY = 256;
+
+  /** Identifiants des mouvements. */
+  private int [] _moves;
+
+  /** Buffer de travail utilisé pour les tris à base de {@link Comparator}. */
+  private Move [] _sortBuffer;
+
+  /** Nombre de mouvements dans la liste. */
+  private int _size;
+
+  /**
+   * Crée une nouvelle liste vide, de capacité par défaut.
+   */
+  public MoveList()
+  {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Crée une nouvelle liste vide.
+   * 
+   * @param pCapacite Capacité initiale (> 0).
+   */
+  public MoveList(final int pCapacite)
+  {
+    assert pCapacite > 0;
+
+    _moves = new int [ pCapacite ];
+  }
+
+  /**
+   * Ajoute un mouvement en fin de liste.
+   * 
+   * @param pId Identifiant du mouvement.
+   */
+  public void add(final int pId)
+  {
+    if (_size >= _moves.length)
+    {
+      final int [] extension = new int [ _moves.length * 2 ];
+      System.arraycopy(_moves, 0, extension, 0, _size);
+      _moves = extension;
+    }
+    _moves[_size++] = pId;
+  }
+
+  /**
+   * Vide la liste (sans libérer la mémoire).
+   */
+  public void clear()
+  {
+    _size = 0;
+  }
+
+  /**
+   * Renvoi l'identifiant du mouvement présent à une position de la liste.
+   * 
+   * @param pIndice Position dans la liste ([0, size()[).
+   * @return Identifiant du mouvement.
+   */
+  public int get(final int pIndice)
+  {
+    assert (pIndice >= 0) && (pIndice < _size);
+
+    return _moves[pIndice];
+  }
+
+  /**
+   * Renvoi le nombre de mouvements présents dans la liste.
+   * 
+   * @return Nombre de mouvements.
+   */
+  public int size()
+  {
+    return _size;
+  }
+
+  /**
+   * Trie la liste suivant une fonction de tri portant sur des instances de {@link Move}.
+   * <p>
+   * Les mouvements sont décodés le temps du tri : cette méthode n'est pas exempte d'allocations.
+   * </p>
+   * 
+   * @param pComparateur Fonction de tri.
+   */
+  public void sort(final Comparator<Move> pComparateur)
+  {
+    assert pComparateur != null;
+
+    if ((_sortBuffer == null) || (_sortBuffer.length < _size))
+    {
+      _sortBuffer = new Move [ _moves.length ];
+    }
+    for (int i = _size; --i >= 0; /* Pré-décrémenté */)
+    {
+      _sortBuffer[i] = Move.valueOf(_moves[i]);
+    }
+    Arrays.sort(_sortBuffer, 0, _size, pComparateur);
+    for (int i = _size; --i >= 0; /* Pré-décrémenté */)
+    {
+      _moves[i] = _sortBuffer[i].toId();
+      _sortBuffer[i] = null;
+    }
+  }
+
+  /**
+   * Echange deux mouvements de la liste.
+   * 
+   * @param pIndice1 Position du premier mouvement.
+   * @param pIndice2 Position du second mouvement.
+   */
+  public void swap(final int pIndice1, final int pIndice2)
+  {
+    assert (pIndice1 >= 0) && (pIndice1 < _size);
+    assert (pIndice2 >= 0) && (pIndice2 < _size);
+
+    final int tmp = _moves[pIndice1];
+    _moves[pIndice1] = _moves[pIndice2];
+    _moves[pIndice2] = tmp;
+  }
+
+  /**
+   * Renvoi une copie des mouvements de la liste, sous forme d'instances de {@link Move}.
+   * 
+   * @return Tableau des mouvements.
+   */
+  public Move [] toArray()
+  {
+    final Move [] res = new Move [ _size ];
+    for (int i = _size; --i >= 0; /* Pré-décrémenté */)
+    {
+      res[i] = Move.valueOf(_moves[i]);
+    }
+
+    return res;
+  }
+}
@@ -31,7 +31,9 @@ import java.io.IOException;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.regex.Pattern;
 
 import fr.free.jchecs.ai.EngineFactory;
@@ -153,87 +155,15 @@ public final class PGNUtils
             sb.append(' ').append(ligne);
             ligneLue = pFlux.readLine();
           }
-          // Nettoyage de la chaine...
-          int p = 0;
-          int prof = 0;
-          while (p < sb.length())
+          for (final String san : toSANStrings(sb))
           {
-            final char c = sb.charAt(p);
-            if ((c == '(') || (c == '{'))
+            try
             {
-              // Supprime les commentaires, et les propositions de nul...
-              prof++;
+              res.moveFromCurrent(toMove(res.getBoard(), san));
             }
-            if ((prof != 0) || (c == '+') || (c == '#'))
+            catch (final SANException e)
             {
-              // Supprime les marqueurs d'échecs et de mat.
-              sb.deleteCharAt(p);
-            }
-            else
-            {
-              if (c == 'O')
-              {
-                // Convertir les "o" majuscules en zéro...
-                sb.setCharAt(p, '0');
-              }
-              p++;
-            }
-            if ((c == '}') || (c == ')'))
-            {
-              prof--;
-            }
-          }
-          p = 0;
-          while (p < sb.length())
-          {
-            final char c = sb.charAt(p);
-            if (c == '.')
-            {
-              // Supprime les numéros de coups...
-              int deb = p - 1;
-              while ((deb >= 0) && Character.isDigit(sb.charAt(deb)))
-              {
-                deb--;
-              }
-              int fin = p + 1;
-              while ((fin < sb.length()) && ((" .".indexOf(sb.charAt(fin))) >= 0))
-              {
-                fin++;
-              }
-              sb.delete(deb + 1, fin);
-            }
-            else if (c == '$')
-            {
-              // Supprime les annotations numériques...
-              int fin = p + 1;
-              while ((fin < sb.length()) && Character.isDigit(sb.charAt(fin)))
-              {
-                fin++;
-              }
-              sb.delete(p, fin + 1);
-            }
-            else
-            {
-              p++;
-            }
-          }
-
-          for (final String mvt : SPLITTER.split(sb.toString()))
-          {
-            if ("*".equals(mvt) || "1-0".equals(mvt) || "0-1".equals(mvt) || "1/2-1/2".equals(mvt))
-            {
-              break;
-            }
-            if (mvt.length() > 0)
-            {
-              try
-              {
-                res.moveFromCurrent(toMove(res.getBoard(), toNormalizedSAN(mvt)));
-              }
-              catch (final SANException e)
-              {
-                throw new PGNException("Invalid PGN stream", e);
-              }
+              throw new PGNException("Invalid PGN stream", e);
             }
           }
 
@@ -392,4 +322,100 @@ public final class PGNUtils
     return sb.toString();
   }
 
+  /**
+   * Découpe la liste des mouvements d'une partie au format PGN en chaînes de mouvements SAN
+   * normalisées.
+   * <p>
+   * Les numéros de coups, commentaires, variantes, annotations et marqueurs d'échec sont ignorés ;
+   * le découpage s'arrête au résultat de la partie.
+   * </p>
+   * 
+   * @param pCoups Liste des mouvements, au format PGN.
+   * @return Chaînes de mouvements SAN normalisées, dans l'ordre de la partie.
+   */
+  public static String [] toSANStrings(final CharSequence pCoups)
+  {
+    assert pCoups != null;
+
+    final StringBuilder sb = new StringBuilder(pCoups);
+    // Nettoyage de la chaine...
+    int p = 0;
+    int prof = 0;
+    while (p < sb.length())
+    {
+      final char c = sb.charAt(p);
+      if ((c == '(') || (c == '{'))
+      {
+        // Supprime les commentaires, et les propositions de nul...
+        prof++;
+      }
+      if ((prof != 0) || (c == '+') || (c == '#'))
+      {
+        // Supprime les marqueurs d'échecs et de mat.
+        sb.deleteCharAt(p);
+      }
+      else
+      {
+        if (c == 'O')
+        {
+          // Convertir les "o" majuscules en zéro...
+          sb.setCharAt(p, '0');
+        }
+        p++;
+      }
+      if ((c == '}') || (c == ')'))
+      {
+        prof--;
+      }
+    }
+    p = 0;
+    while (p < sb.length())
+    {
+      final char c = sb.charAt(p);
+      if (c == '.')
+      {
+        // Supprime les numéros de coups...
+        int deb = p - 1;
+        while ((deb >= 0) && Character.isDigit(sb.charAt(deb)))
+        {
+          deb--;
+        }
+        int fin = p + 1;
+        while ((fin < sb.length()) && ((" .".indexOf(sb.charAt(fin))) >= 0))
+        {
+          fin++;
+        }
+        sb.delete(deb + 1, fin);
+      }
+      else if (c == '$')
+      {
+        // Supprime les annotations numériques...
+        int fin = p + 1;
+        while ((fin < sb.length()) && Character.isDigit(sb.charAt(fin)))
+        {
+          fin++;
+        }
+        sb.delete(p, fin + 1);
+      }
+      else
+      {
+        p++;
+      }
+    }
+
+    final List<String> res = new ArrayList<String>();
+    for (final String mvt : SPLITTER.split(sb.toString()))
+    {
+      if ("*".equals(mvt) || "1-0".equals(mvt) || "0-1".equals(mvt) || "1/2-1/2".equals(mvt))
+      {
+        break;
+      }
+      if (mvt.length() > 0)
+      {
+        res.add(toNormalizedSAN(mvt));
+      }
+    }
+
+    return res.toArray(new String [ res.size() ]);
+  }
 }
@@ -0,0 +1,391 @@
+/*
+ $Id$
+
+ Copyright (C) 2006-2007 by David Cotton
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU General Public License as published by the Free Software
+ Foundation; either version 2 of the License, or (at your option) any later
+ version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along with
+ this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package fr.free.jchecs.core;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Classe utilitaire dénombrant les feuilles de l'arbre des coups légaux ("perft"), afin de valider
+ * les générateurs de mouvements.
+ * <p>
+ * Les positions de référence et leurs décomptes sont fournis par l'énumération {@link Position}.
+ * </p>
+ * <p>
+ * La variante {@link #parallelPerft(MoveGenerator, int, int, PerftHash)} répartit les coups de la
+ * racine entre plusieurs threads partageant une même {@link PerftHash} : elle permet d'atteindre
+ * des profondeurs plus importantes et éprouve au passage la sûreté des représentations vis-à-vis
+ * des threads.
+ * </p>
+ * 
+ * @author David Cotton
+ */
+public final class Perft
+{
+  /**
+   * Classe utilitaire : ne pas intancier.
+   */
+  private Perft()
+  {
+    // Rien de spécifique...
+  }
+
+  /**
+   * Renvoi, pour chaque coup légal de l'état, le nombre de feuilles de l'arbre qu'il engendre
+   * ("divide"), afin de localiser une erreur de génération.
+   * 
+   * @param pEtat Etat de départ.
+   * @param pProfondeur Profondeur de l'arbre (>= 1).
+   * @return Nombre de feuilles par coup, dans l'ordre de génération.
+   */
+  public static Map<Move, Long> divide(final MoveGenerator pEtat, final int pProfondeur)
+  {
+    assert pEtat != null;
+    assert pProfondeur >= 1;
+
+    final Map<Move, Long> res = new LinkedHashMap<Move, Long>();
+    final MoveList [] listes = newLists(pProfondeur);
+    final MoveList coups = listes[pProfondeur - 1];
+    pEtat.generateMoves(coups);
+    final int nb = coups.size();
+    for (int i = 0; i < nb; i++)
+    {
+      final Move mvt = Move.valueOf(coups.get(i));
+      long n = 1;
+      if (pProfondeur > 1)
+      {
+        n = perft(pEtat.derive(mvt, true), pProfondeur - 1, listes, null);
+      }
+      res.put(mvt, Long.valueOf(n));
+    }
+
+    return res;
+  }
+
+  /**
+   * Crée les listes de mouvements réutilisées à chaque niveau de l'arbre.
+   * 
+   * @param pProfondeur Profondeur de l'arbre.
+   * @return Listes de mouvements, indicées par profondeur restante - 1.
+   */
+  private static MoveList [] newLists(final int pProfondeur)
+  {
+    assert pProfondeur >= 1;
+
+    final MoveList [] res = new MoveList [ pProfondeur ];
+    for (int i = pProfondeur; --i >= 0; /* Pré-décrémenté */)
+    {
+      res[i] = new MoveList();
+    }
+
+    return res;
+  }
+
+  /**
+   * Renvoi le nombre de feuilles de l'arbre des coups légaux, à partir d'un état, en répartissant
+   * les coups de la racine entre plusieurs threads.
+   * 
+   * @param pEtat Etat de départ.
+   * @param pProfondeur Profondeur de l'arbre (>= 1).
+   * @param pThreads Nombre de threads (>= 1).
+   * @param pTable Table des décomptes, partagée entre les threads.
+   * @return Nombre de feuilles.
+   * @throws InterruptedException Si le thread appelant est interrompu pendant le décompte.
+   */
+  public static long parallelPerft(final MoveGenerator pEtat, final int pProfondeur,
+      final int pThreads, final PerftHash pTable) throws InterruptedException
+  {
+    assert pEtat != null;
+    assert pProfondeur >= 1;
+    assert pThreads >= 1;
+    assert pTable != null;
+
+    if (pProfondeur == 1)
+    {
+      return perft(pEtat, pProfondeur);
+    }
+
+    final MoveList coups = new MoveList();
+    pEtat.generateMoves(coups);
+    final ExecutorService executeur = Executors.newFixedThreadPool(pThreads);
+    try
+    {
+      final List<Future<Long>> taches = new ArrayList<Future<Long>>(coups.size());
+      for (int i = 0; i < coups.size(); i++)
+      {
+        final MoveGenerator etat = pEtat.derive(Move.valueOf(coups.get(i)), true);
+        taches.add(executeur.submit(new Callable<Long>()
+        {
+          public Long call()
+          {
+            final int profondeur = pProfondeur - 1;
+            return Long.valueOf(perft(etat, profondeur, newLists(profondeur), pTable));
+          }
+        }));
+      }
+
+      long res = 0;
+      for (final Future<Long> f : taches)
+      {
+        res += f.get().longValue();
+      }
+
+      return res;
+    }
+    catch (final ExecutionException e)
+    {
+      final Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException)
+      {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error)
+      {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException(cause);
+    }
+    finally
+    {
+      executeur.shutdownNow();
+    }
+  }
+
+  /**
+   * Renvoi le nombre de feuilles de l'arbre des coups légaux, à partir d'un état.
+   * 
+   * @param pEtat Etat de départ.
+   * @param pProfondeur Profondeur de l'arbre (>= 1).
+   * @return Nombre de feuilles.
+   */
+  public static long perft(final MoveGenerator pEtat, final int pProfondeur)
+  {
+    assert pEtat != null;
+    assert pProfondeur >= 1;
+
+    return perft(pEtat, pProfondeur, newLists(pProfondeur), null);
+  }
+
+  /**
+   * Renvoi le nombre de feuilles de l'arbre des coups légaux, à partir d'un état.
+   * <p>
+   * Au dernier niveau, les coups sont simplement comptés sans être joués.
+   * </p>
+   * 
+   * @param pEtat Etat de départ.
+   * @param pProfondeur Profondeur de l'arbre (>= 1).
+   * @param pListes Listes de mouvements réutilisées à chaque niveau.
+   * @param pTable Table des décomptes déjà effectués (peut être à null).
+   * @return Nombre de feuilles.
+   */
+  private static long perft(final MoveGenerator pEtat, final int pProfondeur,
+      final MoveList [] pListes, final PerftHash pTable)
+  {
+    assert pEtat != null;
+    assert (pProfondeur >= 1) && (pProfondeur <= pListes.length);
+
+    long cle = 0;
+    if ((pTable != null) && (pProfondeur > 1))
+    {
+      cle = pEtat.zobristKey();
+      final long n = pTable.get(cle, pProfondeur);
+      if (n >= 0)
+      {
+        return n;
+      }
+    }
+
+    final MoveList coups = pListes[pProfondeur - 1];
+    pEtat.generateMoves(coups);
+    final int nb = coups.size();
+    if (pProfondeur == 1)
+    {
+      return nb;
+    }
+
+    long res = 0;
+    for (int i = 0; i < nb; i++)
+    {
+      res +=
+          perft(pEtat.derive(Move.valueOf(coups.get(i)), true), pProfondeur - 1, pListes, pTable);
+    }
+    if (pTable != null)
+    {
+      pTable.put(cle, pProfondeur, res);
+    }
+
+    return res;
+  }
+
+  /**
+   * Enumération des positions de référence, avec le nombre de feuilles attendu à chaque
+   * profondeur.
+   * <p>
+   * Les promotions étant limitées à la dame, les décomptes diffèrent des valeurs publiées dès
+   * qu'une promotion est possible dans l'arbre : ceux fournis ici ont été recoupés entre toutes
+   * les implémentations de {@link BoardFactory.Type}.
+   * </p>
+   */
+  public static enum Position
+  {
+    /** Position initiale. */
+    STARTING(FENUtils.STANDART_STARTING_FEN, 20, 400, 8902, 197281, 4865609, 119060324),
+
+    /** Position "Kiwipete" (roques, prises "en passant", clouages). */
+    KIWIPETE("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1", 48, 2039,
+        97862, 4074224, 193301718),
+
+    /** Finale de tours et pions ("en passant" révélant un échec horizontal). */
+    ROOK_ENDING("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", 14, 191, 2812, 43238, 674624,
+        11024419, 178447267),
+
+    /** Position riche en promotions et en échecs. */
+    PROMOTIONS_AND_CHECKS(
+        "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1", 6, 228, 8087, 320802,
+        11875685),
+
+    /** Position de milieu de partie avec promotion imminente. */
+    MIDDLE_GAME("rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8", 41, 1373, 54007,
+        1806790, 72590339),
+
+    /** Promotions multiples, avec et sans prise. */
+    PROMOTION("n1n5/PPPk4/8/8/8/8/4Kppp/5N1N b - - 0 1", 15, 210, 3253, 47828, 807048),
+
+    /** Prise "en passant" interdite par un clouage horizontal. */
+    EN_PASSANT_PIN("3k4/3p4/8/K1P4r/8/8/8/8 b - - 0 1", 18, 92, 1670, 10138, 185429, 1132035),
+
+    /** Prise "en passant" découvrant un échec. */
+    EN_PASSANT_DISCOVERED("8/8/4k3/8/2p5/8/B2P2K1/8 w - - 0 1", 13, 102, 1266, 10276, 135655,
+        1013750),
+
+    /** Prise "en passant" parant un échec. */
+    EN_PASSANT_CHECK("8/8/1k6/2b5/2pP4/8/5K2/8 b - d3 0 1", 15, 126, 1928, 13931, 206136,
+        1438912),
+
+    /** Prise "en passant" exposant le roi sur sa rangée. */
+    EN_PASSANT_RANK("8/8/8/8/k2Pp2Q/8/8/3K4 b - d3 0 1", 6, 136, 863, 20471, 117450, 2816892),
+
+    /** Petit roque donnant échec. */
+    SHORT_CASTLE_CHECK("5k2/8/8/8/8/8/8/4K2R w K - 0 1", 15, 66, 1198, 6399, 120330, 661072),
+
+    /** Grand roque donnant échec. */
+    LONG_CASTLE_CHECK("3k4/8/8/8/8/8/8/R3K3 w Q - 0 1", 16, 71, 1286, 7418, 141077, 803711),
+
+    /** Perte des droits de roque. */
+    CASTLE_RIGHTS("r3k2r/1b4bq/8/8/8/8/7B/R3K2R w KQkq - 0 1", 26, 1141, 27826, 1274206),
+
+    /** Roques empêchés par des cases attaquées. */
+    CASTLE_PREVENTED("r3k2r/8/3Q4/8/8/5q2/8/R3K2R b KQkq - 0 1", 44, 1494, 50509, 1720476),
+
+    /** Promotion parant un échec. */
+    PROMOTION_OUT_OF_CHECK("2K2r2/4P3/8/8/8/8/8/3k4 w - - 0 1", 5, 75, 694, 9674, 128641,
+        1783549),
+
+    /** Echec à la découverte. */
+    DISCOVERED_CHECK("8/8/1P2K3/8/2n5/1q6/8/5k2 b - - 0 1", 29, 165, 5160, 30674, 963213),
+
+    /** Auto-pat. */
+    SELF_STALEMATE("K1k5/8/P7/8/8/8/8/8 w - - 0 1", 2, 6, 13, 63, 331, 1924),
+
+    /** Echec double. */
+    DOUBLE_CHECK("8/8/2k5/5q2/5n2/8/5K2/8 b - - 0 1", 37, 183, 6559, 23527);
+
+    /** Chaîne FEN de la position. */
+    private final String _fen;
+
+    /** Nombre de feuilles attendu, indicé par profondeur - 1. */
+    private final long [] _nodes;
+
+    /**
+     * Instancie une position de référence.
+     * 
+     * @param pFEN Chaîne FEN de la position.
+     * @param pFeuilles Nombre de feuilles attendu aux profondeurs 1, 2, ...
+     */
+    private Position(final String pFEN, final long... pFeuilles)
+    {
+      assert pFEN != null;
+      assert pFeuilles.length > 0;
+
+      _fen = pFEN;
+      _nodes = pFeuilles;
+    }
+
+    /**
+     * Renvoi la chaîne FEN de la position.
+     * 
+     * @return Chaîne FEN.
+     */
+    public String getFEN()
+    {
+      return _fen;
+    }
+
+    /**
+     * Renvoi la profondeur maximale pour laquelle le nombre de feuilles est connu.
+     * 
+     * @return Profondeur maximale.
+     */
+    public int getMaxDepth()
+    {
+      return _nodes.length;
+    }
+
+    /**
+     * Renvoi le nombre de feuilles attendu à une profondeur.
+     * 
+     * @param pProfondeur Profondeur (de 1 à getMaxDepth()).
+     * @return Nombre de feuilles attendu.
+     */
+    public long getNodes(final int pProfondeur)
+    {
+      assert (pProfondeur >= 1) && (pProfondeur <= _nodes.length);
+
+      return _nodes[pProfondeur - 1];
+    }
+
+    /**
+     * Renvoi un état correspondant à la position, dans l'implémentation demandée.
+     * 
+     * @param pType Type d'implémentation.
+     * @return Etat correspondant.
+     */
+    public MoveGenerator toBoard(final BoardFactory.Type pType)
+    {
+      assert pType != null;
+
+      try
+      {
+        return BoardFactory.valueOf(pType, BoardFactory.State.EMPTY).derive(
+            FENUtils.toBoard(_fen));
+      }
+      catch (final FENException e)
+      {
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+}
@@ -0,0 +1,213 @@
+/*
+ $Id$
+
+ Copyright (C) 2006-2007 by David Cotton
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU General Public License as published by the Free Software
+ Foundation; either version 2 of the License, or (at your option) any later
+ version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along with
+ this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package fr.free.jchecs.core;
+
+import static fr.free.jchecs.core.BoardFactory.Type.FASTEST;
+
+import java.util.Map;
+
+/**
+ * Classe utilitaire validant et mesurant les générateurs de mouvements par dénombrement ("perft").
+ * <p>
+ * Usage :
+ * </p>
+ * <ul>
+ * <li><code>PerftBench [-threads n] [profondeur [type]]</code> : dénombre toutes les positions de
+ * référence jusqu'à la profondeur indiquée (5 par défaut), pour chaque type d'implémentation (ou
+ * seulement celui indiqué), et termine en erreur si un décompte diffère de celui attendu. Avec
+ * l'option <code>-threads</code>, les coups de la racine sont répartis entre n threads partageant
+ * une table des décomptes ;</li>
+ * <li><code>PerftBench -divide profondeur type "FEN"</code> : affiche le nombre de feuilles
+ * engendrées par chaque coup de la position, pour localiser une erreur de génération.</li>
+ * </ul>
+ * 
+ * @author David Cotton
+ */
+public final class PerftBench
+{
+  /** Profondeur par défaut. */
+  private static final int DEFAULT_DEPTH = 5;
+
+  /**
+   * Classe utilitaire : ne pas intancier.
+   */
+  private PerftBench()
+  {
+    // Rien de spécifique...
+  }
+
+  /**
+   * Dénombre les positions de référence sur un type d'implémentation.
+   * 
+   * @param pType Type d'implémentation.
+   * @param pProfondeur Profondeur maximale.
+   * @param pThreads Nombre de threads (0 pour un décompte séquentiel, sans table).
+   * @return Nombre de décomptes erronés.
+   * @throws InterruptedException En cas d'interruption d'un décompte parallèle.
+   */
+  private static int benchPerft(final BoardFactory.Type pType, final int pProfondeur,
+      final int pThreads) throws InterruptedException
+  {
+    assert pType != null;
+    assert pProfondeur >= 1;
+    assert pThreads >= 0;
+
+    int res = 0;
+    long total = 0;
+    long duree = 0;
+    System.out.println("Perft (" + pProfondeur + ") : " + pType.name() + ", threads = "
+        + pThreads);
+    for (final Perft.Position p : Perft.Position.values())
+    {
+      final MoveGenerator etat = p.toBoard(pType);
+      final int max = Math.min(pProfondeur, p.getMaxDepth());
+      final long debut = System.nanoTime();
+      final long n;
+      if (pThreads > 0)
+      {
+        n = Perft.parallelPerft(etat, max, pThreads, new PerftHash());
+      }
+      else
+      {
+        n = Perft.perft(etat, max);
+      }
+      final long fin = System.nanoTime();
+      final long attendu = p.getNodes(max);
+      total += n;
+      duree += fin - debut;
+      final StringBuilder ligne = new StringBuilder("  ");
+      ligne.append(p.name()).append('(').append(max).append(") = ").append(n);
+      ligne.append(" en ").append((fin - debut) / 1000000L).append("ms, ");
+      ligne.append(nodesPerSecond(n, fin - debut)).append(" noeuds/s");
+      if (n != attendu)
+      {
+        ligne.append(" *** ERREUR : ").append(attendu).append(" attendus");
+        res++;
+      }
+      System.out.println(ligne);
+    }
+    System.out.println("  Total = " + total + " en " + duree / 1000000L + "ms, "
+        + nodesPerSecond(total, duree) + " noeuds/s");
+
+    return res;
+  }
+
+  /**
+   * Affiche le nombre de feuilles engendrées par chaque coup d'une position.
+   * 
+   * @param pType Type d'implémentation.
+   * @param pProfondeur Profondeur de l'arbre.
+   * @param pFEN Chaîne FEN de la position.
+   * @throws FENException Si la chaîne FEN est invalide.
+   */
+  private static void divide(final BoardFactory.Type pType, final int pProfondeur,
+      final String pFEN) throws FENException
+  {
+    assert pType != null;
+    assert pProfondeur >= 1;
+    assert pFEN != null;
+
+    final MoveGenerator etat =
+        BoardFactory.valueOf(pType, BoardFactory.State.EMPTY).derive(FENUtils.toBoard(pFEN));
+    final long debut = System.nanoTime();
+    final Map<Move, Long> res = Perft.divide(etat, pProfondeur);
+    final long fin = System.nanoTime();
+    long total = 0;
+    for (final Map.Entry<Move, Long> e : res.entrySet())
+    {
+      final Move mvt = e.getKey();
+      System.out.println(mvt.getFrom().getFENString() + mvt.getTo().getFENString() + ' '
+          + e.getValue());
+      total += e.getValue().longValue();
+    }
+    System.out.println("Coups = " + res.size() + ", feuilles = " + total + " en "
+        + (fin - debut) / 1000000L + "ms");
+  }
+
+  /**
+   * Lance les tests.
+   * 
+   * @param pArgs Arguments de la ligne de commande (voir la description de la classe).
+   * @throws FENException En cas de chaîne FEN invalide.
+   * @throws InterruptedException En cas d'interruption d'un décompte parallèle.
+   */
+  public static void main(final String [] pArgs) throws FENException, InterruptedException
+  {
+    if ((pArgs.length > 0) && "-divide".equals(pArgs[0]))
+    {
+      if (pArgs.length != 4)
+      {
+        System.err.println("Usage : PerftBench -divide profondeur type \"FEN\"");
+        System.exit(2);
+      }
+      divide(BoardFactory.Type.valueOf(pArgs[2]), Integer.parseInt(pArgs[1]), pArgs[3]);
+      return;
+    }
+
+    int debut = 0;
+    int threads = 0;
+    if ((pArgs.length > 1) && "-threads".equals(pArgs[0]))
+    {
+      threads = Integer.parseInt(pArgs[1]);
+      debut = 2;
+    }
+    int profondeur = DEFAULT_DEPTH;
+    if (pArgs.length > debut)
+    {
+      profondeur = Integer.parseInt(pArgs[debut]);
+    }
+    BoardFactory.Type seul = null;
+    if (pArgs.length > debut + 1)
+    {
+      seul = BoardFactory.Type.valueOf(pArgs[debut + 1]);
+    }
+
+    int erreurs = 0;
+    for (final BoardFactory.Type t : BoardFactory.Type.values())
+    {
+      if ((t == FASTEST) || ((seul != null) && (t != seul)))
+      {
+        continue;
+      }
+      erreurs += benchPerft(t, profondeur, threads);
+    }
+    if (erreurs > 0)
+    {
+      System.err.println("Perft : " + erreurs + " erreur(s)");
+      System.exit(1);
+    }
+  }
+
+  /**
+   * Renvoi le nombre de noeuds traités par seconde.
+   * 
+   * @param pNoeuds Nombre de noeuds.
+   * @param pDuree Durée, en nanosecondes.
+   * @return Noeuds par seconde.
+   */
+  private static long nodesPerSecond(final long pNoeuds, final long pDuree)
+  {
+    if (pDuree <= 0)
+    {
+      return 0;
+    }
+
+    return (long) (pNoeuds * 1000000000.0 / pDuree);
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ $Id$
+
+ Copyright (C) 2006-2007 by David Cotton
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU General Public License as published by the Free Software
+ Foundation; either version 2 of the License, or (at your option) any later
+ version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along with
+ this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package fr.free.jchecs.core;
+
+/**
+ * Table de hachage des décomptes de feuilles ("perft"), partagée sans verrou entre les threads.
+ * <p>
+ * Chaque entrée est composée de deux entiers longs : la donnée (profondeur et nombre de feuilles)
+ * et la clé "Zobrist" de la position combinée par "ou exclusif" avec cette donnée. Deux threads
+ * écrivant simultanément la même entrée peuvent la laisser incohérente, mais elle ne passe alors
+ * plus la vérification de la clé et est simplement ignorée : aucune synchronisation n'est
+ * nécessaire.
+ * </p>
+ * 
+ * @author David Cotton
+ */
+public final class PerftHash
+{
+  /** Nombre d'entrées par défaut (soit 16 Mo). */
+  public static final int DEFAULT_SIZE = 1 << 20;
+
+  /** Décalage de la profondeur dans la donnée d'une entrée. */
+  private static final int DEPTH_SHIFT = 56;
+
+  /** Masque du nombre de feuilles dans la donnée d'une entrée. */
+  private static final long NODES_MASK = (1L << DEPTH_SHIFT) - 1;
+
+  /** Constante de dispersion des profondeurs dans la table. */
+  private static final long DEPTH_SPREAD = 0x9E3779B97F4A7C15L;
+
+  /** Clés "Zobrist" des entrées, combinées avec leur donnée. */
+  private final long [] _keys;
+
+  /** Données des entrées. */
+  private final long [] _data;
+
+  /** Masque donnant l'indice d'une entrée. */
+  private final int _mask;
+
+  /**
+   * Crée une nouvelle table vide, de taille par défaut.
+   */
+  public PerftHash()
+  {
+    this(DEFAULT_SIZE);
+  }
+
+  /**
+   * Crée une nouvelle table vide.
+   * 
+   * @param pTaille Nombre d'entrées (puissance de 2).
+   */
+  public PerftHash(final int pTaille)
+  {
+    assert (pTaille > 0) && (Integer.bitCount(pTaille) == 1);
+
+    _keys = new long [ pTaille ];
+    _data = new long [ pTaille ];
+    _mask = pTaille - 1;
+  }
+
+  /**
+   * Renvoi le nombre de feuilles mémorisé pour une position et une profondeur.
+   * 
+   * @param pCle Clé "Zobrist" de la position.
+   * @param pProfondeur Profondeur (de 1 à 255).
+   * @return Nombre de feuilles, ou -1 si l'entrée est absente.
+   */
+  public long get(final long pCle, final int pProfondeur)
+  {
+    assert (pProfondeur > 0) && (pProfondeur < 256);
+
+    final int idx = indexOf(pCle, pProfondeur);
+    final long donnee = _data[idx];
+    if (((_keys[idx] ^ donnee) == pCle) && ((donnee >>> DEPTH_SHIFT) == pProfondeur))
+    {
+      return donnee & NODES_MASK;
+    }
+
+    return -1;
+  }
+
+  /**
+   * Renvoi l'indice de l'entrée correspondant à une position et une profondeur.
+   * 
+   * @param pCle Clé "Zobrist" de la position.
+   * @param pProfondeur Profondeur.
+   * @return Indice de l'entrée.
+   */
+  private int indexOf(final long pCle, final int pProfondeur)
+  {
+    final long h = pCle ^ (pProfondeur * DEPTH_SPREAD);
+
+    return (int) (h ^ (h >>> 32)) & _mask;
+  }
+
+  /**
+   * Mémorise le nombre de feuilles d'une position à une profondeur (en remplaçant l'entrée
+   * éventuellement présente).
+   * 
+   * @param pCle Clé "Zobrist" de la position.
+   * @param pProfondeur Profondeur (de 1 à 255).
+   * @param pFeuilles Nombre de feuilles (< 2^56).
+   */
+  public void put(final long pCle, final int pProfondeur, final long pFeuilles)
+  {
+    assert (pProfondeur > 0) && (pProfondeur < 256);
+    assert (pFeuilles >= 0) && (pFeuilles <= NODES_MASK);
+
+    final int idx = indexOf(pCle, pProfondeur);
+    final long donnee = ((long) pProfondeur << DEPTH_SHIFT) | pFeuilles;
+    _data[idx] = donnee;
+    _keys[idx] = pCle ^ donnee;
+  }
+}
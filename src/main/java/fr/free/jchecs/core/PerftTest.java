@@ -0,0 +1,158 @@
+/*
+ $Id$
+
+ Copyright (C) 2006-2007 by David Cotton
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU General Public License as published by the Free Software
+ Foundation; either version 2 of the License, or (at your option) any later
+ version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along with
+ this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package fr.free.jchecs.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import static fr.free.jchecs.core.BoardFactory.Type.FASTEST;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Tests unitaires du dénombrement des coups légaux ("perft").
+ * 
+ * @author David Cotton
+ */
+public final class PerftTest
+{
+  /** Nombre maximum de feuilles parcourues par test élémentaire, pour limiter la durée. */
+  private static final long MAX_NODES = 200000;
+
+  /** Nombre maximum de feuilles parcourues par test élémentaire en parallèle. */
+  private static final long MAX_PARALLEL_NODES = 1000000;
+
+  /** Nombre de threads utilisés par les tests en parallèle. */
+  private static final int THREADS = 8;
+
+  /**
+   * Pour que JUnit puisse instancier les tests.
+   */
+  public PerftTest()
+  {
+    // Rien de spécifique...
+  }
+
+  /**
+   * Teste la cohérence du mode "divide" avec le décompte global.
+   */
+  @Test
+  public void testDivide()
+  {
+    for (final BoardFactory.Type t : BoardFactory.Type.values())
+    {
+      if (t == FASTEST)
+      {
+        continue;
+      }
+      for (final Perft.Position p : Perft.Position.values())
+      {
+        final MoveGenerator etat = p.toBoard(t);
+        final Map<Move, Long> res = Perft.divide(etat, 2);
+        assertEquals(t + ":" + p, p.getNodes(1), res.size());
+        long total = 0;
+        for (final Long n : res.values())
+        {
+          total += n.longValue();
+        }
+        assertEquals(t + ":" + p, p.getNodes(2), total);
+      }
+    }
+  }
+
+  /**
+   * Teste la table des décomptes.
+   */
+  @Test
+  public void testHash()
+  {
+    final PerftHash table = new PerftHash(16);
+    final long cle = 0x0123456789ABCDEFL;
+    assertEquals(-1, table.get(cle, 3));
+    table.put(cle, 3, 97862);
+    assertEquals(97862, table.get(cle, 3));
+    assertEquals(-1, table.get(cle, 4));
+    assertEquals(-1, table.get(~cle, 3));
+    table.put(cle, 3, 0);
+    assertEquals(0, table.get(cle, 3));
+  }
+
+  /**
+   * Teste le dénombrement en parallèle des positions de référence, pour chaque type
+   * d'implémentation.
+   * <p>
+   * Les threads partagent à la fois les états et une table de petite taille, afin de multiplier
+   * les écritures concurrentes sur les mêmes entrées.
+   * </p>
+   */
+  @Test
+  public void testParallelPerft()
+  {
+    for (final BoardFactory.Type t : BoardFactory.Type.values())
+    {
+      if (t == FASTEST)
+      {
+        continue;
+      }
+      final PerftHash table = new PerftHash(1 << 10);
+      for (final Perft.Position p : Perft.Position.values())
+      {
+        int d = 1;
+        while ((d < p.getMaxDepth()) && (p.getNodes(d + 1) <= MAX_PARALLEL_NODES))
+        {
+          d++;
+        }
+        try
+        {
+          assertEquals(t + ":" + p + '(' + d + ')', p.getNodes(d),
+              Perft.parallelPerft(p.toBoard(t), d, THREADS, table));
+        }
+        catch (final InterruptedException e)
+        {
+          fail(e.toString());
+        }
+      }
+    }
+  }
+
+  /**
+   * Teste le dénombrement des positions de référence, pour chaque type d'implémentation.
+   */
+  @Test
+  public void testPerft()
+  {
+    for (final BoardFactory.Type t : BoardFactory.Type.values())
+    {
+      if (t == FASTEST)
+      {
+        continue;
+      }
+      for (final Perft.Position p : Perft.Position.values())
+      {
+        final MoveGenerator etat = p.toBoard(t);
+        for (int d = 1; (d <= p.getMaxDepth()) && (p.getNodes(d) <= MAX_NODES); d++)
+        {
+          assertEquals(t + ":" + p + '(' + d + ')', p.getNodes(d), Perft.perft(etat, d));
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ $Id$
+
+ Copyright (C) 2006-2007 by David Cotton
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU General Public License as published by the Free Software
+ Foundation; either version 2 of the License, or (at your option) any later
+ version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along with
+ this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package fr.free.jchecs.core;
+
+import static fr.free.jchecs.core.Constants.FILE_COUNT;
+import static fr.free.jchecs.core.Constants.RANK_COUNT;
+
+/**
+ * Table des bonus/malus liés à la position de chaque pièce ("piece-square table"), destinée aux
+ * fonctions d'évaluation.
+ * <p>
+ * La somme des valeurs des pièces présentes est maintenue au fil des mouvements par
+ * {@link SearchBoard#getPieceSquareSum(PieceSquareTable, Piece)}, ce qui évite de parcourir
+ * l'échiquier à chaque évaluation.
+ * </p>
+ * <p>
+ * Les instances de cette classe sont immuables : classe sûre vis-à-vis des threads.
+ * </p>
+ * 
+ * @author David Cotton
+ */
+public final class PieceSquareTable
+{
+  /** Nombre de cases de l'échiquier. */
+  private static final int SQUARE_COUNT = FILE_COUNT * RANK_COUNT;
+
+  /** Valeurs, indexées par l'ordinal de la pièce puis par l'indice de la case. */
+  private final int [] _values = new int [ Piece.values().length * SQUARE_COUNT ];
+
+  /**
+   * Crée une nouvelle table.
+   * 
+   * @param pPositions Bonus/Malus des pièces blanches de chaque type, indexés par l'ordinal du type
+   *          (voir {@link PieceType}) puis par l'indice de la case (null pour un type sans
+   *          bonus/malus). Les valeurs des pièces noires s'en déduisent par symétrie.
+   */
+  public PieceSquareTable(final int [][] pPositions)
+  {
+    assert pPositions != null;
+    assert pPositions.length == PieceType.values().length;
+
+    for (final Piece p : Piece.values())
+    {
+      final int [] positions = pPositions[p.getType().ordinal()];
+      if (positions != null)
+      {
+        assert positions.length == SQUARE_COUNT;
+        final int base = p.ordinal() * SQUARE_COUNT;
+        for (int i = SQUARE_COUNT; --i >= 0; /* Pré-décrémenté */)
+        {
+          if (p.isWhite())
+          {
+            _values[base + i] = positions[i];
+          }
+          else
+          {
+            _values[base + i] =
+                positions[((RANK_COUNT - 1) - i / FILE_COUNT) * FILE_COUNT + i % FILE_COUNT];
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Renvoi la valeur d'une pièce sur une case.
+   * 
+   * @param pPiece Pièce.
+   * @param pCase Indice de la case.
+   * @return Bonus/Malus de la pièce sur la case.
+   */
+  public int get(final Piece pPiece, final int pCase)
+  {
+    assert pPiece != null;
+
+    return get(pPiece.ordinal(), pCase);
+  }
+
+  /**
+   * Renvoi la valeur d'une pièce sur une case.
+   * 
+   * @param pOrdinal Ordinal de la pièce.
+   * @param pCase Indice de la case.
+   * @return Bonus/Malus de la pièce sur la case.
+   */
+  int get(final int pOrdinal, final int pCase)
+  {
+    assert (pCase >= 0) && (pCase < SQUARE_COUNT);
+
+    return _values[pOrdinal * SQUARE_COUNT + pCase];
+  }
+}
@@ -0,0 +1,412 @@
+/*
+ $Id$
+
+ Copyright (C) 2006-2007 by David Cotton
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU General Public License as published by the Free Software
+ Foundation; either version 2 of the License, or (at your option) any later
+ version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along with
+ this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package fr.free.jchecs.core;
+
+import static fr.free.jchecs.core.Constants.FILE_COUNT;
+import static fr.free.jchecs.core.PieceType.KING;
+import static fr.free.jchecs.core.PieceType.PAWN;
+
+/**
+ * Représentation modifiable d'un état de la partie, réservée aux moteurs de recherche.
+ * <p>
+ * Contrairement aux autres implémentations, les mouvements sont appliqués sur place par
+ * {@link #makeMove(Move)} et annulés par {@link #unmakeMove()}, grâce à une pile conservant la
+ * pièce prise, les droits de roque, la case "en passant", les compteurs et la clé "Zobrist" de
+ * chaque demi-coup joué : aucun objet n'est créé lors du parcours de l'arbre de recherche.
+ * </p>
+ * <p>
+ * Les méthodes "derive" restent disponibles et renvoient des instances immuables. Cette classe
+ * n'est pas sûre vis-à-vis des threads : chaque recherche doit disposer de sa propre instance.
+ * </p>
+ * 
+ * @author David Cotton
+ */
+public final class SearchBoard extends BitmapsBoard
+{
+  /** Identifiant de la classe pour la sérialisation. */
+  private static final long serialVersionUID = 4207551312618032094L;
+
+  /** Taille initiale de la pile d'annulation. */
+  private static final int INITIAL_CAPACITY = 64;
+
+  /** Masque du droit de grand roque des blancs dans les drapeaux mémorisés. */
+  private static final int WHITE_CASTLE_LONG = 1;
+
+  /** Masque du droit de petit roque des blancs dans les drapeaux mémorisés. */
+  private static final int WHITE_CASTLE_SHORT = 2;
+
+  /** Masque du droit de grand roque des noirs dans les drapeaux mémorisés. */
+  private static final int BLACK_CASTLE_LONG = 4;
+
+  /** Masque du droit de petit roque des noirs dans les drapeaux mémorisés. */
+  private static final int BLACK_CASTLE_SHORT = 8;
+
+  /** Masque de l'indicateur de roque effectué par les blancs dans les drapeaux mémorisés. */
+  private static final int WHITE_CASTLED = 16;
+
+  /** Masque de l'indicateur de roque effectué par les noirs dans les drapeaux mémorisés. */
+  private static final int BLACK_CASTLED = 32;
+
+  /** Décalage de l'indice (+1) de la case "en passant" dans les drapeaux mémorisés. */
+  private static final int EN_PASSANT_SHIFT = 6;
+
+  /** Pile des identifiants des mouvements joués. */
+  private int [] _moves = new int [ INITIAL_CAPACITY ];
+
+  /** Pile des pièces prises par les mouvements joués (null si aucune). */
+  private Piece [] _captures = new Piece [ INITIAL_CAPACITY ];
+
+  /** Pile des drapeaux (roques et case "en passant") précédant chaque mouvement. */
+  private int [] _flags = new int [ INITIAL_CAPACITY ];
+
+  /** Pile des compteurs de demi-coups précédant chaque mouvement. */
+  private int [] _halfmoves = new int [ INITIAL_CAPACITY ];
+
+  /** Pile des clés "Zobrist" précédant chaque mouvement. */
+  private long [] _keys = new long [ INITIAL_CAPACITY ];
+
+  /** Nombre de mouvements dans la pile. */
+  private int _ply;
+
+  /**
+   * Crée une nouvelle instance, initialisée à partir de l'état reçu en paramètre.
+   * 
+   * @param pEtat Etat initial.
+   */
+  public SearchBoard(final Board pEtat)
+  {
+    super(pEtat);
+  }
+
+  /**
+   * Renvoi le dernier mouvement joué (et non encore annulé) sur l'instance.
+   * 
+   * @return Identifiant du mouvement (voir {@link Move#toId()}), ou 0 si aucun mouvement n'a été
+   *         joué ou s'il s'agissait d'un passage de trait.
+   */
+  public int getLastMove()
+  {
+    if (_ply == 0)
+    {
+      return 0;
+    }
+
+    return _moves[_ply - 1];
+  }
+
+  /**
+   * Renvoi la somme des valeurs d'une table de positions pour les pièces d'un type et d'une
+   * couleur.
+   * <p>
+   * Les sommes sont ensuite maintenues par {@link #makeMove(int)} et {@link #unmakeMove()}, pour
+   * un coût proportionnel au nombre de pièces déplacées : l'échiquier n'est parcouru que lors du
+   * premier appel pour une table (un seul jeu de sommes est conservé à la fois).
+   * </p>
+   * 
+   * @param pTable Table de positions.
+   * @param pPiece Pièce.
+   * @return Somme des valeurs de la table pour les pièces présentes.
+   */
+  public int getPieceSquareSum(final PieceSquareTable pTable, final Piece pPiece)
+  {
+    return pieceSquareSum(pTable, pPiece);
+  }
+
+  /**
+   * Renvoi le nombre de mouvements joués (et non encore annulés) sur l'instance.
+   * 
+   * @return Profondeur de la pile d'annulation.
+   */
+  public int getPly()
+  {
+    assert _ply >= 0;
+    return _ply;
+  }
+
+  /**
+   * Joue un mouvement sur place, en mémorisant de quoi l'annuler.
+   * <p>
+   * Le trait est systématiquement transmis à l'adversaire, comme pour un appel à
+   * <code>derive(pMouvement, true)</code>.
+   * </p>
+   * 
+   * @param pMouvement Mouvement à jouer.
+   */
+  public void makeMove(final Move pMouvement)
+  {
+    assert pMouvement != null;
+
+    makeMove(pMouvement.toId());
+  }
+
+  /**
+   * Joue sur place le mouvement correspondant à un identifiant (voir {@link Move#toId()}), en
+   * mémorisant de quoi l'annuler.
+   * 
+   * @param pMouvement Identifiant du mouvement à jouer.
+   */
+  public void makeMove(final int pMouvement)
+  {
+    if (_ply >= _moves.length)
+    {
+      grow();
+    }
+
+    final Piece piece = Move.pieceOf(pMouvement);
+    final int iDst = Move.toOf(pMouvement);
+    final Square ep = getEnPassant();
+    Piece prise = getPieceAt(Square.valueOf(iDst));
+    if ((piece.getType() == PAWN) && (Square.valueOf(iDst) == ep))
+    {
+      if (piece.isWhite())
+      {
+        prise = getPieceAt(Square.valueOf(iDst - FILE_COUNT));
+      }
+      else
+      {
+        prise = getPieceAt(Square.valueOf(iDst + FILE_COUNT));
+      }
+    }
+
+    int drapeaux = 0;
+    if (canCastleLong(true))
+    {
+      drapeaux |= WHITE_CASTLE_LONG;
+    }
+    if (canCastleShort(true))
+    {
+      drapeaux |= WHITE_CASTLE_SHORT;
+    }
+    if (canCastleLong(false))
+    {
+      drapeaux |= BLACK_CASTLE_LONG;
+    }
+    if (canCastleShort(false))
+    {
+      drapeaux |= BLACK_CASTLE_SHORT;
+    }
+    if (isCastled(true))
+    {
+      drapeaux |= WHITE_CASTLED;
+    }
+    if (isCastled(false))
+    {
+      drapeaux |= BLACK_CASTLED;
+    }
+    if (ep != null)
+    {
+      drapeaux |= (ep.getIndex() + 1) << EN_PASSANT_SHIFT;
+    }
+
+    _moves[_ply] = pMouvement;
+    _captures[_ply] = prise;
+    _flags[_ply] = drapeaux;
+    _halfmoves[_ply] = getHalfmoveCount();
+    _keys[_ply] = zobristKey();
+    _ply++;
+
+    play(pMouvement, true);
+  }
+
+  /**
+   * Passe le trait à l'adversaire sans jouer de mouvement ("null move"), en mémorisant de quoi
+   * l'annuler par {@link #unmakeNullMove()}.
+   * <p>
+   * Seule une éventuelle case "en passant" disparaît. Le roi de la couleur ayant le trait ne doit
+   * pas être en échec.
+   * </p>
+   */
+  public void makeNullMove()
+  {
+    assert !isInCheck(isWhiteActive());
+
+    if (_ply >= _moves.length)
+    {
+      grow();
+    }
+
+    final Square ep = getEnPassant();
+    int drapeaux = 0;
+    if (ep != null)
+    {
+      drapeaux |= (ep.getIndex() + 1) << EN_PASSANT_SHIFT;
+    }
+
+    _moves[_ply] = 0;
+    _captures[_ply] = null;
+    _flags[_ply] = drapeaux;
+    _halfmoves[_ply] = getHalfmoveCount();
+    _keys[_ply] = zobristKey();
+    _ply++;
+
+    passTurn();
+  }
+
+  /**
+   * Annule le dernier mouvement joué par {@link #makeMove(Move)}.
+   */
+  public void unmakeMove()
+  {
+    assert _ply > 0;
+
+    _ply--;
+    final int mvt = _moves[_ply];
+    final Piece prise = _captures[_ply];
+    _captures[_ply] = null;
+    final int drapeaux = _flags[_ply];
+
+    final Piece piece = Move.pieceOf(mvt);
+    final boolean trait = piece.isWhite();
+    final int iSrc = Move.fromOf(mvt);
+    final int iDst = Move.toOf(mvt);
+    final int ep = (drapeaux >>> EN_PASSANT_SHIFT) - 1;
+
+    // Replace la pièce jouée (un pion, en cas de promotion) et l'éventuelle pièce prise...
+    removePiece(iDst);
+    setPiece(piece, iSrc);
+    if (prise != null)
+    {
+      if ((piece.getType() == PAWN) && (iDst == ep))
+      {
+        if (trait)
+        {
+          setPiece(prise, iDst - FILE_COUNT);
+        }
+        else
+        {
+          setPiece(prise, iDst + FILE_COUNT);
+        }
+      }
+      else
+      {
+        setPiece(prise, iDst);
+      }
+    }
+    // ... la tour en cas de roque, et la position du roi...
+    if (piece.getType() == KING)
+    {
+      setKingSquare(trait, Square.valueOf(iSrc));
+      if (iSrc % FILE_COUNT == 4)
+      {
+        final int base = iDst - iDst % FILE_COUNT;
+        if (iDst % FILE_COUNT == 2)
+        {
+          setPiece(removePiece(base + 3), base);
+        }
+        else if (iDst % FILE_COUNT == 6)
+        {
+          setPiece(removePiece(base + FILE_COUNT - 3), base + FILE_COUNT - 1);
+        }
+      }
+    }
+
+    // Restaure l'état de la partie...
+    setCastleLong(true, (drapeaux & WHITE_CASTLE_LONG) != 0);
+    setCastleShort(true, (drapeaux & WHITE_CASTLE_SHORT) != 0);
+    setCastleLong(false, (drapeaux & BLACK_CASTLE_LONG) != 0);
+    setCastleShort(false, (drapeaux & BLACK_CASTLE_SHORT) != 0);
+    setCastled(true, (drapeaux & WHITE_CASTLED) != 0);
+    setCastled(false, (drapeaux & BLACK_CASTLED) != 0);
+    if (ep >= 0)
+    {
+      setEnPassant(Square.valueOf(ep));
+    }
+    else
+    {
+      setEnPassant(null);
+    }
+    if (isWhiteActive())
+    {
+      setFullmoveNumber(getFullmoveNumber() - 1);
+    }
+    setWhiteActive(!isWhiteActive());
+    setHalfmoveCount(_halfmoves[_ply]);
+    restoreZobristKey(_keys[_ply]);
+  }
+
+  /**
+   * Annule le dernier passage de trait effectué par {@link #makeNullMove()}.
+   */
+  public void unmakeNullMove()
+  {
+    assert _ply > 0;
+    assert _moves[_ply - 1] == 0;
+
+    _ply--;
+    final int ep = (_flags[_ply] >>> EN_PASSANT_SHIFT) - 1;
+    if (ep >= 0)
+    {
+      setEnPassant(Square.valueOf(ep));
+    }
+    else
+    {
+      setEnPassant(null);
+    }
+    if (isWhiteActive())
+    {
+      setFullmoveNumber(getFullmoveNumber() - 1);
+    }
+    setWhiteActive(!isWhiteActive());
+    setHalfmoveCount(_halfmoves[_ply]);
+    restoreZobristKey(_keys[_ply]);
+  }
+
+  /**
+   * Double la capacité de la pile d'annulation.
+   */
+  private void grow()
+  {
+    final int l = _moves.length * 2;
+
+    final int [] mvts = new int [ l ];
+    System.arraycopy(_moves, 0, mvts, 0, _ply);
+    _moves = mvts;
+    final Piece [] prises = new Piece [ l ];
+    System.arraycopy(_captures, 0, prises, 0, _ply);
+    _captures = prises;
+    final int [] drapeaux = new int [ l ];
+    System.arraycopy(_flags, 0, drapeaux, 0, _ply);
+    _flags = drapeaux;
+    final int [] demiCoups = new int [ l ];
+    System.arraycopy(_halfmoves, 0, demiCoups, 0, _ply);
+    _halfmoves = demiCoups;
+    final long [] cles = new long [ l ];
+    System.arraycopy(_keys, 0, cles, 0, _ply);
+    _keys = cles;
+  }
+
+  /**
+   * Renvoi une instance de recherche correspondant à un état, pour les fonctions d'évaluation.
+   * 
+   * @param pEtat Etat du jeu.
+   * @return L'état lui-même s'il s'agit déjà d'une instance de recherche, sinon une nouvelle
+   *         instance initialisée à partir de celui-ci.
+   */
+  public static SearchBoard valueOf(final Board pEtat)
+  {
+    assert pEtat != null;
+
+    if (pEtat instanceof SearchBoard)
+    {
+      return (SearchBoard) pEtat;
+    }
+
+    return new SearchBoard(pEtat);
+  }
+}
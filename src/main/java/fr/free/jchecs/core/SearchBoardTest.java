@@ -0,0 +1,131 @@
+/*
+ $Id$
+
+ Copyright (C) 2006-2007 by David Cotton
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU General Public License as published by the Free Software
+ Foundation; either version 2 of the License, or (at your option) any later
+ version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along with
+ this program; if not, write to the Free Software Foundation, Inc., 51 Franklin
+ Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package fr.free.jchecs.core;
+
+import static org.junit.Assert.assertEquals;
+
+import static fr.free.jchecs.core.BoardFactory.Type.BITMAPS;
+
+import org.junit.Test;
+
+/**
+ * Tests unitaires des mouvements joués et annulés sur place par {@link SearchBoard}.
+ * 
+ * @author David Cotton
+ */
+public final class SearchBoardTest
+{
+  /** Nombre maximum de feuilles parcourues par test élémentaire, pour limiter la durée. */
+  private static final long MAX_NODES = 200000;
+
+  /** Profondeur maximale des décomptes. */
+  private static final int MAX_DEPTH = 4;
+
+  /** Positions de référence testées (roques, prises "en passant" et promotions). */
+  private static final Perft.Position [] POSITIONS = {
+      Perft.Position.STARTING, Perft.Position.KIWIPETE, Perft.Position.EN_PASSANT_PIN,
+      Perft.Position.EN_PASSANT_DISCOVERED, Perft.Position.EN_PASSANT_CHECK,
+      Perft.Position.EN_PASSANT_RANK, Perft.Position.PROMOTION,
+      Perft.Position.PROMOTIONS_AND_CHECKS, Perft.Position.PROMOTION_OUT_OF_CHECK,
+  };
+
+  /**
+   * Pour que JUnit puisse instancier les tests.
+   */
+  public SearchBoardTest()
+  {
+    // Rien de spécifique...
+  }
+
+  /**
+   * Renvoi le nombre de feuilles de l'arbre des coups légaux, en jouant et annulant chaque
+   * mouvement sur place, et vérifie que l'état est intégralement restauré après chaque annulation.
+   * 
+   * @param pEtat Etat de départ, restauré au retour.
+   * @param pProfondeur Profondeur de l'arbre (>= 1).
+   * @param pListes Listes de mouvements réutilisées à chaque niveau.
+   * @return Nombre de feuilles.
+   */
+  private static long perft(final SearchBoard pEtat, final int pProfondeur,
+      final MoveList [] pListes)
+  {
+    final MoveList coups = pListes[pProfondeur - 1];
+    pEtat.generateMoves(coups);
+    final int nb = coups.size();
+    final String fen = FENUtils.toFEN(pEtat);
+    final long cle = pEtat.zobristKey();
+    final int hachage = pEtat.hashCode();
+    final int ply = pEtat.getPly();
+
+    long res = 0;
+    for (int i = 0; i < nb; i++)
+    {
+      final int mvt = coups.get(i);
+      pEtat.makeMove(mvt);
+      assertEquals(ply + 1, pEtat.getPly());
+      assertEquals(mvt, pEtat.getLastMove());
+      if (pProfondeur == 1)
+      {
+        res++;
+      }
+      else
+      {
+        res += perft(pEtat, pProfondeur - 1, pListes);
+      }
+      pEtat.unmakeMove();
+      assertEquals(ply, pEtat.getPly());
+      assertEquals(fen, FENUtils.toFEN(pEtat));
+      assertEquals(cle, pEtat.zobristKey());
+      assertEquals(hachage, pEtat.hashCode());
+    }
+
+    return res;
+  }
+
+  /**
+   * Teste le dénombrement des positions de référence en jouant les mouvements sur place, par
+   * comparaison avec les décomptes attendus et ceux obtenus par les méthodes "derive".
+   */
+  @Test
+  public void testPerft()
+  {
+    for (final Perft.Position p : POSITIONS)
+    {
+      final MoveGenerator reference = p.toBoard(BITMAPS);
+      final SearchBoard etat = new SearchBoard(reference);
+      final String fen = FENUtils.toFEN(etat);
+      for (int d = 1; (d <= MAX_DEPTH) && (d <= p.getMaxDepth()) && (p.getNodes(d) <= MAX_NODES);
+          d++)
+      {
+        final MoveList [] listes = new MoveList [ d ];
+        for (int i = d; --i >= 0; /* Pré-décrémenté */)
+        {
+          listes[i] = new MoveList();
+        }
+        final long n = perft(etat, d, listes);
+        assertEquals(p + "(" + d + ')', p.getNodes(d), n);
+        assertEquals(p + "(" + d + ')', Perft.perft(reference, d), n);
+        assertEquals(0, etat.getPly());
+        assertEquals(fen, FENUtils.toFEN(etat));
+        assertEquals(reference.zobristKey(), etat.zobristKey());
+        assertEquals(reference.hashCode(), etat.hashCode());
+      }
+    }
+  }
+}
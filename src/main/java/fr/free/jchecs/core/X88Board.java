@@ -43,9 +43,6 @@ import static fr.free.jchecs.core.PieceType.ROOK;
  */
 final class X88Board extends AbstractMoveGenerator
 {
-  /** Indice du dernier élément valide dans les buffer de travail des cases. */
-  private static int S_nbBufferedSquares;
-
   /** Identifiant de la classe pour la sérialisation. */
   private static final long serialVersionUID = 7427708516011286821L;
 
@@ -70,21 +67,14 @@ final class X88Board extends AbstractMoveGenerator
   /** Liste de cases cibles vides. */
   private static final Square [] NO_SQUARE = new Square [ 0 ];
 
-  /**
-   * Buffer de travail pour optimiser la recherche des cibles de mouvements.
-   * <p>
-   * L'utilisation d'un buffer statique optimise les performances mais nécessite de faire très
-   * attention à la synchronisation pour que la classe reste sûre vis-à-vis des threads.
-   * </p>
-   */
-  // 27 est le nombre maximum de cases cibles pour une pièce (une dame, dans le meilleur des cas).
-  private static final int [] SQUARES_BUFFER = new int [ 27 ];
+  /** Nombre maximum de cases cibles pour une pièce (une dame, dans le meilleur des cas). */
+  private static final int MAX_TARGETS = 27;
 
   /** Description du plateau. */
   private final Piece [] _pieces = new Piece [ FILE_COUNT * RANK_COUNT * 2 - FILE_COUNT ];
 
-  /** Clé de hachage. */
-  private int _hashCode;
+  /** Clé "Zobrist" (les 32 bits de poids faible donnent la clé de hachage). */
+  private long _zobristKey;
 
   /**
    * Crée une nouvelle instance, initialisée à partir de l'état reçu en paramètre.
@@ -99,7 +89,7 @@ final class X88Board extends AbstractMoveGenerator
     {
       _pieces[s.getRank() * 16 + s.getFile()] = pEtat.getPieceAt(s);
     }
-    _hashCode = super.hashCode();
+    _zobristKey = super.zobristKey();
   }
 
   /**
@@ -112,19 +102,24 @@ final class X88Board extends AbstractMoveGenerator
     super(pEtat);
 
     System.arraycopy(pEtat._pieces, 0, _pieces, 0, _pieces.length);
-    _hashCode = pEtat._hashCode;
+    _zobristKey = pEtat._zobristKey;
   }
 
   /**
-   * Ajoute au buffer interne toutes les cases cibles des mouvements possibles (y compris ceux
+   * Ajoute à un buffer toutes les cases cibles des mouvements possibles (y compris ceux
    * mettant le roi en échec) pour la pièce contenue par une case.
    * 
+   * @param pCibles Buffer recevant les indices des cases cibles.
+   * @param pNombre Nombre de cases déjà présentes dans le buffer.
    * @param pOrigine Indice de la case à l'origine du mouvement.
+   * @return Nombre de cases présentes dans le buffer après l'ajout.
    */
-  private void addAllTargets(final int pOrigine)
+  private int addAllTargets(final int [] pCibles, final int pNombre, final int pOrigine)
   {
     assert (pOrigine & X88) == 0;
 
+    int nb = pNombre;
+
     final Piece piece = _pieces[pOrigine];
     if (piece != null)
     {
@@ -132,41 +127,49 @@ final class X88Board extends AbstractMoveGenerator
       switch (piece.getType())
       {
         case BISHOP :
-          addBishopTargets(pOrigine, trait);
+          nb = addBishopTargets(pCibles, nb, pOrigine, trait);
           break;
         case KING :
-          addKingTargets(pOrigine, trait);
+          nb = addKingTargets(pCibles, nb, pOrigine, trait);
           break;
         case KNIGHT :
-          addKnightTargets(pOrigine, trait);
+          nb = addKnightTargets(pCibles, nb, pOrigine, trait);
           break;
         case PAWN :
-          addPawnTargets(pOrigine, trait);
+          nb = addPawnTargets(pCibles, nb, pOrigine, trait);
           break;
         case QUEEN :
-          addBishopTargets(pOrigine, trait);
-          addRookTargets(pOrigine, trait);
+          nb = addBishopTargets(pCibles, nb, pOrigine, trait);
+          nb = addRookTargets(pCibles, nb, pOrigine, trait);
           break;
         case ROOK :
-          addRookTargets(pOrigine, trait);
+          nb = addRookTargets(pCibles, nb, pOrigine, trait);
           break;
         default :
           assert false;
       }
     }
+
+    return nb;
   }
 
   /**
-   * Ajoute au buffer interne toutes les cases cibles possibles d'un mouvement de type "fou" d'une
+   * Ajoute à un buffer toutes les cases cibles possibles d'un mouvement de type "fou" d'une
    * certaine couleur (y compris ceux mettant le roi en échec) à partir d'une case.
    * 
+   * @param pCibles Buffer recevant les indices des cases cibles.
+   * @param pNombre Nombre de cases déjà présentes dans le buffer.
    * @param pOrigine Indice de la case à l'origine du mouvement.
    * @param pBlanc Positionné à vrai si la recherche concerne les blancs.
+   * @return Nombre de cases présentes dans le buffer après l'ajout.
    */
-  private void addBishopTargets(final int pOrigine, final boolean pBlanc)
+  private int addBishopTargets(final int [] pCibles, final int pNombre, final int pOrigine,
+      final boolean pBlanc)
   {
     assert (pOrigine & X88) == 0;
 
+    int nb = pNombre;
+
     // Mouvements / prise vers le haut/gauche...
     int dst = pOrigine + 15;
     while ((dst & X88) == 0)
@@ -174,13 +177,13 @@ final class X88Board extends AbstractMoveGenerator
       final Piece p = _pieces[dst];
       if (p == null)
       {
-        SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+        pCibles[nb++] = dst;
       }
       else
       {
         if (p.isWhite() != pBlanc)
         {
-          SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+          pCibles[nb++] = dst;
         }
         break;
       }
@@ -194,13 +197,13 @@ final class X88Board extends AbstractMoveGenerator
       final Piece p = _pieces[dst];
       if (p == null)
       {
-        SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+        pCibles[nb++] = dst;
       }
       else
       {
         if (p.isWhite() != pBlanc)
         {
-          SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+          pCibles[nb++] = dst;
         }
         break;
       }
@@ -214,13 +217,13 @@ final class X88Board extends AbstractMoveGenerator
       final Piece p = _pieces[dst];
       if (p == null)
       {
-        SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+        pCibles[nb++] = dst;
       }
       else
       {
         if (p.isWhite() != pBlanc)
         {
-          SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+          pCibles[nb++] = dst;
         }
         break;
       }
@@ -234,31 +237,39 @@ final class X88Board extends AbstractMoveGenerator
       final Piece p = _pieces[dst];
       if (p == null)
       {
-        SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+        pCibles[nb++] = dst;
       }
       else
       {
         if (p.isWhite() != pBlanc)
         {
-          SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+          pCibles[nb++] = dst;
         }
         break;
       }
       dst -= 15;
     }
+
+    return nb;
   }
 
   /**
-   * Ajoute au buffer interne la liste des cases pouvant être atteintes par un mouvement de type
+   * Ajoute à un buffer la liste des cases pouvant être atteintes par un mouvement de type
    * roi.
    * 
+   * @param pCibles Buffer recevant les indices des cases cibles.
+   * @param pNombre Nombre de cases déjà présentes dans le buffer.
    * @param pOrigine Indice de la case à l'origine du mouvement.
    * @param pBlanc A vrai pour indiquer une recherche sur les blancs.
+   * @return Nombre de cases présentes dans le buffer après l'ajout.
    */
-  private void addKingTargets(final int pOrigine, final boolean pBlanc)
+  private int addKingTargets(final int [] pCibles, final int pNombre, final int pOrigine,
+      final boolean pBlanc)
   {
     assert (pOrigine & X88) == 0;
 
+    int nb = pNombre;
+
     boolean testerRoque = false;
     for (final int km : KING_MOVES)
     {
@@ -268,7 +279,7 @@ final class X88Board extends AbstractMoveGenerator
         final Piece p = _pieces[dst];
         if ((p == null) || (p.isWhite() != pBlanc))
         {
-          SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+          pCibles[nb++] = dst;
           testerRoque = true;
         }
       }
@@ -281,7 +292,7 @@ final class X88Board extends AbstractMoveGenerator
         final Piece t = _pieces[pOrigine + 3];
         if ((t != null) && (t.getType() == ROOK) && (t.isWhite() == pBlanc))
         {
-          SQUARES_BUFFER[S_nbBufferedSquares++] = pOrigine + 2;
+          pCibles[nb++] = pOrigine + 2;
         }
       }
       if (canCastleLong(pBlanc) && (_pieces[pOrigine - 1] == null)
@@ -290,23 +301,31 @@ final class X88Board extends AbstractMoveGenerator
         final Piece t = _pieces[pOrigine - 4];
         if ((t != null) && (t.getType() == ROOK) && (t.isWhite() == pBlanc))
         {
-          SQUARES_BUFFER[S_nbBufferedSquares++] = pOrigine - 2;
+          pCibles[nb++] = pOrigine - 2;
         }
       }
     }
+
+    return nb;
   }
 
   /**
-   * Ajoute au buffer interne la liste des cases pouvant être atteintes par un mouvement de type
+   * Ajoute à un buffer la liste des cases pouvant être atteintes par un mouvement de type
    * cavalier.
    * 
+   * @param pCibles Buffer recevant les indices des cases cibles.
+   * @param pNombre Nombre de cases déjà présentes dans le buffer.
    * @param pOrigine Indice de la case à l'origine du mouvement.
    * @param pBlanc A vrai pour indiquer une recherche sur les blancs.
+   * @return Nombre de cases présentes dans le buffer après l'ajout.
    */
-  private void addKnightTargets(final int pOrigine, final boolean pBlanc)
+  private int addKnightTargets(final int [] pCibles, final int pNombre, final int pOrigine,
+      final boolean pBlanc)
   {
     assert (pOrigine & X88) == 0;
 
+    int nb = pNombre;
+
     for (final int km : KNIGHT_MOVES)
     {
       final int dst = pOrigine + km;
@@ -315,23 +334,31 @@ final class X88Board extends AbstractMoveGenerator
         final Piece p = _pieces[dst];
         if ((p == null) || (p.isWhite() != pBlanc))
         {
-          SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+          pCibles[nb++] = dst;
         }
       }
     }
+
+    return nb;
   }
 
   /**
-   * Ajoute au buffer interne la liste des cases pouvant être atteintes par un mouvement de type
+   * Ajoute à un buffer la liste des cases pouvant être atteintes par un mouvement de type
    * pion.
    * 
+   * @param pCibles Buffer recevant les indices des cases cibles.
+   * @param pNombre Nombre de cases déjà présentes dans le buffer.
    * @param pOrigine Indice de la case à l'origine du mouvement.
    * @param pBlanc A vrai pour indiquer une recherche sur les blancs.
+   * @return Nombre de cases présentes dans le buffer après l'ajout.
    */
-  private void addPawnTargets(final int pOrigine, final boolean pBlanc)
+  private int addPawnTargets(final int [] pCibles, final int pNombre, final int pOrigine,
+      final boolean pBlanc)
   {
     assert (pOrigine & X88) == 0;
 
+    int nb = pNombre;
+
     final int ySrc = pOrigine >>> 4;
     if (pBlanc)
     {
@@ -340,11 +367,11 @@ final class X88Board extends AbstractMoveGenerator
         // Mouvement de 1...
         if (_pieces[pOrigine + 16] == null)
         {
-          SQUARES_BUFFER[S_nbBufferedSquares++] = pOrigine + 16;
+          pCibles[nb++] = pOrigine + 16;
           // Mouvement initial de 2
           if ((ySrc == 1) && (_pieces[pOrigine + 32] == null))
           {
-            SQUARES_BUFFER[S_nbBufferedSquares++] = pOrigine + 32;
+            pCibles[nb++] = pOrigine + 32;
           }
         }
         final int xSrc = pOrigine & 0xF;
@@ -356,7 +383,7 @@ final class X88Board extends AbstractMoveGenerator
           if (((pDest != null) && (!pDest.isWhite()))
               || (Square.valueOf(FROM_X88[iDest]) == getEnPassant()))
           {
-            SQUARES_BUFFER[S_nbBufferedSquares++] = iDest;
+            pCibles[nb++] = iDest;
           }
         }
         if (xSrc < FILE_COUNT - 1)
@@ -367,7 +394,7 @@ final class X88Board extends AbstractMoveGenerator
           if (((pDest != null) && (!pDest.isWhite()))
               || (Square.valueOf(FROM_X88[iDest]) == getEnPassant()))
           {
-            SQUARES_BUFFER[S_nbBufferedSquares++] = iDest;
+            pCibles[nb++] = iDest;
           }
         }
       }
@@ -379,11 +406,11 @@ final class X88Board extends AbstractMoveGenerator
         // Mouvement de 1...
         if (_pieces[pOrigine - 16] == null)
         {
-          SQUARES_BUFFER[S_nbBufferedSquares++] = pOrigine - 16;
+          pCibles[nb++] = pOrigine - 16;
           // Mouvement initial de 2
           if ((ySrc == RANK_COUNT - 2) && (_pieces[pOrigine - 32] == null))
           {
-            SQUARES_BUFFER[S_nbBufferedSquares++] = pOrigine - 32;
+            pCibles[nb++] = pOrigine - 32;
           }
         }
         final int xSrc = pOrigine & 0xF;
@@ -395,7 +422,7 @@ final class X88Board extends AbstractMoveGenerator
           if (((pDest != null) && pDest.isWhite())
               || (Square.valueOf(FROM_X88[iDest]) == getEnPassant()))
           {
-            SQUARES_BUFFER[S_nbBufferedSquares++] = iDest;
+            pCibles[nb++] = iDest;
           }
         }
         if (xSrc < FILE_COUNT - 1)
@@ -406,24 +433,32 @@ final class X88Board extends AbstractMoveGenerator
           if (((pDest != null) && pDest.isWhite())
               || (Square.valueOf(FROM_X88[iDest]) == getEnPassant()))
           {
-            SQUARES_BUFFER[S_nbBufferedSquares++] = iDest;
+            pCibles[nb++] = iDest;
           }
         }
       }
     }
+
+    return nb;
   }
 
   /**
-   * Ajoute au buffer interne toutes les cases cibles possibles d'un mouvement de type "tour" d'une
+   * Ajoute à un buffer toutes les cases cibles possibles d'un mouvement de type "tour" d'une
    * certaine couleur (y compris ceux mettant le roi en échec) à partir d'une case.
    * 
+   * @param pCibles Buffer recevant les indices des cases cibles.
+   * @param pNombre Nombre de cases déjà présentes dans le buffer.
    * @param pOrigine Indice de la case à l'origine du mouvement.
    * @param pBlanc Mis à vrai pour rechercher pour les blancs.
+   * @return Nombre de cases présentes dans le buffer après l'ajout.
    */
-  private void addRookTargets(final int pOrigine, final boolean pBlanc)
+  private int addRookTargets(final int [] pCibles, final int pNombre, final int pOrigine,
+      final boolean pBlanc)
   {
     assert (pOrigine & X88) == 0;
 
+    int nb = pNombre;
+
     // Mouvements / prise vers la gauche...
     int dst = pOrigine - 1;
     while ((dst & X88) == 0)
@@ -431,13 +466,13 @@ final class X88Board extends AbstractMoveGenerator
       final Piece p = _pieces[dst];
       if (p == null)
       {
-        SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+        pCibles[nb++] = dst;
       }
       else
       {
         if (p.isWhite() != pBlanc)
         {
-          SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+          pCibles[nb++] = dst;
         }
         break;
       }
@@ -451,13 +486,13 @@ final class X88Board extends AbstractMoveGenerator
       final Piece p = _pieces[dst];
       if (p == null)
       {
-        SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+        pCibles[nb++] = dst;
       }
       else
       {
         if (p.isWhite() != pBlanc)
         {
-          SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+          pCibles[nb++] = dst;
         }
         break;
       }
@@ -471,13 +506,13 @@ final class X88Board extends AbstractMoveGenerator
       final Piece p = _pieces[dst];
       if (p == null)
       {
-        SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+        pCibles[nb++] = dst;
       }
       else
       {
         if (p.isWhite() != pBlanc)
         {
-          SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+          pCibles[nb++] = dst;
         }
         break;
       }
@@ -491,18 +526,68 @@ final class X88Board extends AbstractMoveGenerator
       final Piece p = _pieces[dst];
       if (p == null)
       {
-        SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+        pCibles[nb++] = dst;
       }
       else
       {
         if (p.isWhite() != pBlanc)
         {
-          SQUARES_BUFFER[S_nbBufferedSquares++] = dst;
+          pCibles[nb++] = dst;
         }
         break;
       }
       dst -= 16;
     }
+
+    return nb;
+  }
+
+  /**
+   * Ajoute à un buffer toutes les cases cibles des mouvements valides à partir d'une case.
+   * 
+   * @param pCibles Buffer recevant les indices des cases cibles.
+   * @param pOrigine Indice de la case à l'origine du mouvement.
+   * @return Nombre de cases présentes dans le buffer.
+   */
+  private int addValidTargets(final int [] pCibles, final int pOrigine)
+  {
+    assert (pOrigine & X88) == 0;
+
+    int nb = 0;
+
+    final Piece piece = _pieces[pOrigine];
+    if (piece != null)
+    {
+      final Square origine = Square.valueOf(FROM_X88[pOrigine]);
+      final int nbTotal = addAllTargets(pCibles, 0, pOrigine);
+      final boolean trait = piece.isWhite();
+      final boolean controle = mayLeaveInCheck(piece, origine);
+      for (int t = 0; t < nbTotal; t++)
+      {
+        final int idxCible = pCibles[t];
+        final Square cible = Square.valueOf(FROM_X88[idxCible]);
+        boolean valide = !controle || !isInCheckAfter(piece, origine, cible);
+        if (valide && (piece.getType() == KING) && (origine.getFile() == 4))
+        {
+          final int delta = 4 - cible.getFile();
+          if ((delta == 2) || (delta == -2))
+          {
+            // Elimine le roque si le roi est en échec ou s'il le serait sur la case
+            // intermédiaire...
+            valide =
+                !isInCheck(trait)
+                    && !isInCheckAfter(piece, origine,
+                        Square.valueOf(4 - (delta / 2), cible.getRank()));
+          }
+        }
+        if (valide)
+        {
+          pCibles[nb++] = idxCible;
+        }
+      }
+    }
+
+    return nb;
   }
 
   /**
@@ -536,7 +621,7 @@ final class X88Board extends AbstractMoveGenerator
     {
       final boolean t = !isWhiteActive();
       res.setWhiteActive(t);
-      res._hashCode ^= ZOBRIST_WHITE_ACTIVE;
+      res._zobristKey ^= ZOBRIST_KEY_WHITE_ACTIVE;
       if (t)
       {
         res.setFullmoveNumber(getFullmoveNumber() + 1);
@@ -561,7 +646,7 @@ final class X88Board extends AbstractMoveGenerator
     assert res._pieces[i88Src] == piece;
     res._pieces[i88Src] = null;
     final int pieceOrdinal = piece.ordinal();
-    res._hashCode ^= ZOBRIST_PIECE_POSITION[pieceOrdinal][iSrc];
+    res._zobristKey ^= ZOBRIST_KEY_PIECE_POSITION[pieceOrdinal][iSrc];
     final Square dst = pMouvement.getTo();
     final int iDst = dst.getIndex();
     final int xDst = dst.getFile();
@@ -570,10 +655,10 @@ final class X88Board extends AbstractMoveGenerator
     final Piece pieceDst = _pieces[i88Dst];
     if (pieceDst != null)
     {
-      res._hashCode ^= ZOBRIST_PIECE_POSITION[pieceDst.ordinal()][iDst];
+      res._zobristKey ^= ZOBRIST_KEY_PIECE_POSITION[pieceDst.ordinal()][iDst];
     }
     res._pieces[i88Dst] = piece;
-    res._hashCode ^= ZOBRIST_PIECE_POSITION[pieceOrdinal][iDst];
+    res._zobristKey ^= ZOBRIST_KEY_PIECE_POSITION[pieceOrdinal][iDst];
     // ... éxécute un mouvement spécifique de type "roque" et gère le suivi des rois ...
     if (typePiece == KING)
     {
@@ -590,9 +675,9 @@ final class X88Board extends AbstractMoveGenerator
           assert tour.getType() == ROOK;
           res._pieces[i88] = null;
           final int tourOrdinal = tour.ordinal();
-          res._hashCode ^= ZOBRIST_PIECE_POSITION[tourOrdinal][i];
+          res._zobristKey ^= ZOBRIST_KEY_PIECE_POSITION[tourOrdinal][i];
           res._pieces[i88 + 3] = tour;
-          res._hashCode ^= ZOBRIST_PIECE_POSITION[tourOrdinal][i + 3];
+          res._zobristKey ^= ZOBRIST_KEY_PIECE_POSITION[tourOrdinal][i + 3];
           res.setCastled(trait, true);
         }
         else if (xDst == 6)
@@ -605,9 +690,9 @@ final class X88Board extends AbstractMoveGenerator
           assert tour.getType() == ROOK;
           res._pieces[i88] = null;
           final int tourOrdinal = tour.ordinal();
-          res._hashCode ^= ZOBRIST_PIECE_POSITION[tourOrdinal][i];
+          res._zobristKey ^= ZOBRIST_KEY_PIECE_POSITION[tourOrdinal][i];
           res._pieces[i88 - 2] = tour;
-          res._hashCode ^= ZOBRIST_PIECE_POSITION[tourOrdinal][i - 2];
+          res._zobristKey ^= ZOBRIST_KEY_PIECE_POSITION[tourOrdinal][i - 2];
           res.setCastled(trait, true);
         }
       }
@@ -620,11 +705,11 @@ final class X88Board extends AbstractMoveGenerator
         res.setCastleShort(trait, false);
         if (trait)
         {
-          res._hashCode ^= ZOBRIST_WHITE_CASTLE_SHORT;
+          res._zobristKey ^= ZOBRIST_KEY_WHITE_CASTLE_SHORT;
         }
         else
         {
-          res._hashCode ^= ZOBRIST_BLACK_CASTLE_SHORT;
+          res._zobristKey ^= ZOBRIST_KEY_BLACK_CASTLE_SHORT;
         }
       }
     }
@@ -635,11 +720,11 @@ final class X88Board extends AbstractMoveGenerator
         res.setCastleLong(trait, false);
         if (trait)
         {
-          res._hashCode ^= ZOBRIST_WHITE_CASTLE_LONG;
+          res._zobristKey ^= ZOBRIST_KEY_WHITE_CASTLE_LONG;
         }
         else
         {
-          res._hashCode ^= ZOBRIST_BLACK_CASTLE_LONG;
+          res._zobristKey ^= ZOBRIST_KEY_BLACK_CASTLE_LONG;
         }
       }
     }
@@ -660,8 +745,8 @@ final class X88Board extends AbstractMoveGenerator
         if (yDst == RANK_COUNT - 1)
         {
           res._pieces[i88Dst] = WHITE_QUEEN;
-          res._hashCode ^= ZOBRIST_PIECE_POSITION[pieceOrdinal][iDst];
-          res._hashCode ^= ZOBRIST_PIECE_POSITION[WHITE_QUEEN.ordinal()][iDst];
+          res._zobristKey ^= ZOBRIST_KEY_PIECE_POSITION[pieceOrdinal][iDst];
+          res._zobristKey ^= ZOBRIST_KEY_PIECE_POSITION[WHITE_QUEEN.ordinal()][iDst];
         }
         else if ((ySrc == 1) && (yDst == 3))
         {
@@ -672,7 +757,7 @@ final class X88Board extends AbstractMoveGenerator
           final int epDst = iDst - FILE_COUNT;
           final int ep88Dst = i88Dst - 16;
           res._pieces[ep88Dst] = null;
-          res._hashCode ^= ZOBRIST_PIECE_POSITION[_pieces[ep88Dst].ordinal()][epDst];
+          res._zobristKey ^= ZOBRIST_KEY_PIECE_POSITION[_pieces[ep88Dst].ordinal()][epDst];
         }
       }
       else
@@ -681,8 +766,8 @@ final class X88Board extends AbstractMoveGenerator
         if (yDst == 0)
         {
           res._pieces[i88Dst] = BLACK_QUEEN;
-          res._hashCode ^= ZOBRIST_PIECE_POSITION[pieceOrdinal][iDst];
-          res._hashCode ^= ZOBRIST_PIECE_POSITION[BLACK_QUEEN.ordinal()][iDst];
+          res._zobristKey ^= ZOBRIST_KEY_PIECE_POSITION[pieceOrdinal][iDst];
+          res._zobristKey ^= ZOBRIST_KEY_PIECE_POSITION[BLACK_QUEEN.ordinal()][iDst];
         }
         else if ((ySrc == RANK_COUNT - 2) && (yDst == RANK_COUNT - 4))
         {
@@ -693,7 +778,7 @@ final class X88Board extends AbstractMoveGenerator
           final int epDst = iDst + FILE_COUNT;
           final int ep88Dst = i88Dst + 16;
           res._pieces[ep88Dst] = null;
-          res._hashCode ^= ZOBRIST_PIECE_POSITION[_pieces[ep88Dst].ordinal()][epDst];
+          res._zobristKey ^= ZOBRIST_KEY_PIECE_POSITION[_pieces[ep88Dst].ordinal()][epDst];
         }
       }
     }
@@ -701,11 +786,11 @@ final class X88Board extends AbstractMoveGenerator
     final Square epFinal = res.getEnPassant();
     if ((epOrig != null) && ((epFinal == null) || (!epOrig.equals(epFinal))))
     {
-      res._hashCode ^= ZOBRIST_EN_PASSANT[epOrig.getFile()];
+      res._zobristKey ^= ZOBRIST_KEY_EN_PASSANT[epOrig.getFile()];
     }
     if ((epFinal != null) && ((epOrig == null) || (!epFinal.equals(epOrig))))
     {
-      res._hashCode ^= ZOBRIST_EN_PASSANT[epFinal.getFile()];
+      res._zobristKey ^= ZOBRIST_KEY_EN_PASSANT[epFinal.getFile()];
     }
 
     return res;
@@ -765,25 +850,12 @@ final class X88Board extends AbstractMoveGenerator
     assert pOrigine != null;
 
     final int idx = pOrigine.getRank() * 16 + pOrigine.getFile();
-    final Piece piece = _pieces[idx];
-    if (piece != null)
+    if (_pieces[idx] != null)
     {
-      final Square [] res;
+      final int [] cibles = new int [ MAX_TARGETS ];
+      final int nb = addAllTargets(cibles, 0, idx);
 
-      synchronized (SQUARES_BUFFER)
-      {
-        S_nbBufferedSquares = 0;
-
-        addAllTargets(idx);
-
-        res = new Square [ S_nbBufferedSquares ];
-        for (int t = S_nbBufferedSquares; --t >= 0; /* Pré-décrémenté */)
-        {
-          res[t] = Square.valueOf(FROM_X88[SQUARES_BUFFER[t]]);
-        }
-      }
-
-      return res;
+      return toSquares(cibles, nb);
     }
 
     return NO_SQUARE;
@@ -801,22 +873,11 @@ final class X88Board extends AbstractMoveGenerator
   {
     assert pOrigine != null;
 
-    final Square [] res;
+    final int [] cibles = new int [ MAX_TARGETS ];
+    final int nb = addBishopTargets(
+        cibles, 0, pOrigine.getRank() * 16 + pOrigine.getFile(), pBlanc);
 
-    synchronized (SQUARES_BUFFER)
-    {
-      S_nbBufferedSquares = 0;
-
-      addBishopTargets(pOrigine.getRank() * 16 + pOrigine.getFile(), pBlanc);
-
-      res = new Square [ S_nbBufferedSquares ];
-      for (int t = S_nbBufferedSquares; --t >= 0; /* Pré-décrémenté */)
-      {
-        res[t] = Square.valueOf(FROM_X88[SQUARES_BUFFER[t]]);
-      }
-    }
-
-    return res;
+    return toSquares(cibles, nb);
   }
 
   /**
@@ -830,22 +891,10 @@ final class X88Board extends AbstractMoveGenerator
   {
     assert pOrigine != null;
 
-    final Square [] res;
-
-    synchronized (SQUARES_BUFFER)
-    {
-      S_nbBufferedSquares = 0;
-
-      addKingTargets(pOrigine.getRank() * 16 + pOrigine.getFile(), pBlanc);
-
-      res = new Square [ S_nbBufferedSquares ];
-      for (int t = S_nbBufferedSquares; --t >= 0; /* Pré-décrémenté */)
-      {
-        res[t] = Square.valueOf(FROM_X88[SQUARES_BUFFER[t]]);
-      }
-    }
+    final int [] cibles = new int [ MAX_TARGETS ];
+    final int nb = addKingTargets(cibles, 0, pOrigine.getRank() * 16 + pOrigine.getFile(), pBlanc);
 
-    return res;
+    return toSquares(cibles, nb);
   }
 
   /**
@@ -859,22 +908,11 @@ final class X88Board extends AbstractMoveGenerator
   {
     assert pOrigine != null;
 
-    final Square [] res;
+    final int [] cibles = new int [ MAX_TARGETS ];
+    final int nb = addKnightTargets(
+        cibles, 0, pOrigine.getRank() * 16 + pOrigine.getFile(), pBlanc);
 
-    synchronized (SQUARES_BUFFER)
-    {
-      S_nbBufferedSquares = 0;
-
-      addKnightTargets(pOrigine.getRank() * 16 + pOrigine.getFile(), pBlanc);
-
-      res = new Square [ S_nbBufferedSquares ];
-      for (int t = S_nbBufferedSquares; --t >= 0; /* Pré-décrémenté */)
-      {
-        res[t] = Square.valueOf(FROM_X88[SQUARES_BUFFER[t]]);
-      }
-    }
-
-    return res;
+    return toSquares(cibles, nb);
   }
 
   /**
@@ -888,22 +926,10 @@ final class X88Board extends AbstractMoveGenerator
   {
     assert pOrigine != null;
 
-    final Square [] res;
-
-    synchronized (SQUARES_BUFFER)
-    {
-      S_nbBufferedSquares = 0;
-
-      addPawnTargets(pOrigine.getRank() * 16 + pOrigine.getFile(), pBlanc);
+    final int [] cibles = new int [ MAX_TARGETS ];
+    final int nb = addPawnTargets(cibles, 0, pOrigine.getRank() * 16 + pOrigine.getFile(), pBlanc);
 
-      res = new Square [ S_nbBufferedSquares ];
-      for (int t = S_nbBufferedSquares; --t >= 0; /* Pré-décrémenté */)
-      {
-        res[t] = Square.valueOf(FROM_X88[SQUARES_BUFFER[t]]);
-      }
-    }
-
-    return res;
+    return toSquares(cibles, nb);
   }
 
   /**
@@ -946,24 +972,12 @@ final class X88Board extends AbstractMoveGenerator
   {
     assert pOrigine != null;
 
-    final Square [] res;
-
-    synchronized (SQUARES_BUFFER)
-    {
-      S_nbBufferedSquares = 0;
-
-      final int idx = pOrigine.getRank() * 16 + pOrigine.getFile();
-      addBishopTargets(idx, pBlanc);
-      addRookTargets(idx, pBlanc);
-
-      res = new Square [ S_nbBufferedSquares ];
-      for (int t = S_nbBufferedSquares; --t >= 0; /* Pré-décrémenté */)
-      {
-        res[t] = Square.valueOf(FROM_X88[SQUARES_BUFFER[t]]);
-      }
-    }
+    final int [] cibles = new int [ MAX_TARGETS ];
+    final int idx = pOrigine.getRank() * 16 + pOrigine.getFile();
+    int nb = addBishopTargets(cibles, 0, idx, pBlanc);
+    nb = addRookTargets(cibles, nb, idx, pBlanc);
 
-    return res;
+    return toSquares(cibles, nb);
   }
 
   /**
@@ -978,22 +992,10 @@ final class X88Board extends AbstractMoveGenerator
   {
     assert pOrigine != null;
 
-    final Square [] res;
-
-    synchronized (SQUARES_BUFFER)
-    {
-      S_nbBufferedSquares = 0;
-
-      addRookTargets(pOrigine.getRank() * 16 + pOrigine.getFile(), pBlanc);
-
-      res = new Square [ S_nbBufferedSquares ];
-      for (int t = S_nbBufferedSquares; --t >= 0; /* Pré-décrémenté */)
-      {
-        res[t] = Square.valueOf(FROM_X88[SQUARES_BUFFER[t]]);
-      }
-    }
+    final int [] cibles = new int [ MAX_TARGETS ];
+    final int nb = addRookTargets(cibles, 0, pOrigine.getRank() * 16 + pOrigine.getFile(), pBlanc);
 
-    return res;
+    return toSquares(cibles, nb);
   }
 
   /**
@@ -1004,6 +1006,7 @@ final class X88Board extends AbstractMoveGenerator
    */
   public Move [] getValidMoves(final boolean pTrait)
   {
+    final int [] cibles = new int [ MAX_TARGETS ];
     Move [] tmp = new Move [ 45 ];
     int nb = 0;
     int lTmp = tmp.length;
@@ -1016,22 +1019,25 @@ final class X88Board extends AbstractMoveGenerator
         if ((p != null) && (p.isWhite() == pTrait))
         {
           final Square orig = Square.valueOf(FROM_X88[i88]);
-          for (final Square dst : getValidTargets(orig))
+          final int nbCibles = addValidTargets(cibles, i88);
+          for (int c = 0; c < nbCibles; c++)
           {
+            final int iDst = cibles[c];
+            final Square dst = Square.valueOf(FROM_X88[iDst]);
             final Piece prise;
             if ((p.getType() != PAWN) || (dst != getEnPassant()))
             {
-              prise = _pieces[dst.getRank() * 16 + dst.getFile()];
+              prise = _pieces[iDst];
             }
             else
             {
               if (pTrait)
               {
-                prise = _pieces[dst.getRank() * 16 + dst.getFile() - 16];
+                prise = _pieces[iDst - 16];
               }
               else
               {
-                prise = _pieces[dst.getRank() * 16 + dst.getFile() + 16];
+                prise = _pieces[iDst + 16];
               }
             }
             tmp[nb++] = new Move(p, orig, dst, prise);
@@ -1065,66 +1071,10 @@ final class X88Board extends AbstractMoveGenerator
   {
     assert pOrigine != null;
 
-    final int iSrc = pOrigine.getRank() * 16 + pOrigine.getFile();
-    final Piece piece = _pieces[iSrc];
-    if (piece != null)
-    {
-      synchronized (SQUARES_BUFFER)
-      {
-        S_nbBufferedSquares = 0;
-        addAllTargets(iSrc);
-        int nbFinal = S_nbBufferedSquares;
-        final boolean trait = piece.isWhite();
-        for (int t = S_nbBufferedSquares; --t >= 0; /* Pré-décrémenté */)
-        {
-          final int idxCible = SQUARES_BUFFER[t];
-          final Square cible = Square.valueOf(FROM_X88[idxCible]);
-          final Piece prise = _pieces[idxCible];
-          if (derive(new Move(piece, pOrigine, cible, prise), false).isInCheck(trait))
-          {
-            SQUARES_BUFFER[t] = -1;
-            nbFinal--;
-          }
-          else if ((piece.getType() == KING) && (pOrigine.getFile() == 4))
-          {
-            final int delta = 4 - cible.getFile();
-            if ((delta == 2) || (delta == -2))
-            {
-              // Elimine le roque si le roi est en échec ou s'il le serait sur la case
-              // intermédiaire...
-              if (isInCheck(trait)
-                  || derive(
-                      new Move(piece, pOrigine, Square.valueOf(4 - (delta / 2), cible.getRank())),
-                      false).isInCheck(trait))
-              {
-                SQUARES_BUFFER[t] = -1;
-                nbFinal--;
-              }
-            }
-          }
-        }
-        assert (nbFinal >= 0) && (nbFinal <= S_nbBufferedSquares);
-
-        if (nbFinal == 0)
-        {
-          return NO_SQUARE;
-        }
-
-        final Square [] res = new Square [ nbFinal ];
-        for (int t = S_nbBufferedSquares; --t >= 0; /* Pré-décrémenté */)
-        {
-          final int idx = SQUARES_BUFFER[t];
-          if (idx >= 0)
-          {
-            res[--nbFinal] = Square.valueOf(FROM_X88[idx]);
-          }
-        }
-
-        return res;
-      }
-    }
+    final int [] cibles = new int [ MAX_TARGETS ];
+    final int nb = addValidTargets(cibles, pOrigine.getRank() * 16 + pOrigine.getFile());
 
-    return NO_SQUARE;
+    return toSquares(cibles, nb);
   }
 
   /**
@@ -1135,225 +1085,44 @@ final class X88Board extends AbstractMoveGenerator
   @Override
   public int hashCode()
   {
-    assert _hashCode == super.hashCode();
-    return _hashCode;
+    assert (int) _zobristKey == super.hashCode();
+    return (int) _zobristKey;
   }
 
   /**
-   * Indique si une case est attaquée par une couleur.
+   * Convertit le contenu d'un buffer d'indices en liste de cases.
    * 
-   * @param pCible Case cible.
-   * @param pCouleur Positionné à "true" pour tester l'attaque par les blancs.
-   * @return Vrai si la case est attaquée.
+   * @param pCibles Buffer contenant les indices des cases.
+   * @param pNombre Nombre de cases présentes dans le buffer.
+   * @return Liste des cases.
    */
-  public boolean isAttacked(final Square pCible, final boolean pCouleur)
+  private static Square [] toSquares(final int [] pCibles, final int pNombre)
   {
-    assert pCible != null;
-
-    final int iSrc = pCible.getRank() * 16 + pCible.getFile();
-    Piece p = null;
-    int dst = iSrc - 1;
-    // Gauche
-    while ((p == null) && ((dst & X88) == 0))
-    {
-      p = _pieces[dst];
-      dst--;
-    }
-    if ((p != null) && (p.isWhite() == pCouleur))
-    {
-      final PieceType t = p.getType();
-      if ((t == ROOK) || (t == QUEEN))
-      {
-        return true;
-      }
-    }
-
-    p = null;
-    dst = iSrc + 1;
-    // Droite
-    while ((p == null) && ((dst & X88) == 0))
-    {
-      p = _pieces[dst];
-      dst++;
-    }
-    if ((p != null) && (p.isWhite() == pCouleur))
-    {
-      final PieceType t = p.getType();
-      if ((t == ROOK) || (t == QUEEN))
-      {
-        return true;
-      }
-    }
+    assert (pNombre >= 0) && (pNombre <= pCibles.length);
 
-    p = null;
-    dst = iSrc - 16;
-    // Bas
-    while ((p == null) && ((dst & X88) == 0))
-    {
-      p = _pieces[dst];
-      dst -= 16;
-    }
-    if ((p != null) && (p.isWhite() == pCouleur))
+    if (pNombre == 0)
     {
-      final PieceType t = p.getType();
-      if ((t == ROOK) || (t == QUEEN))
-      {
-        return true;
-      }
+      return NO_SQUARE;
     }
 
-    p = null;
-    dst = iSrc + 16;
-    // Haut
-    while ((p == null) && ((dst & X88) == 0))
+    final Square [] res = new Square [ pNombre ];
+    for (int t = pNombre; --t >= 0; /* Pré-décrémenté */)
     {
-      p = _pieces[dst];
-      dst += 16;
-    }
-    if ((p != null) && (p.isWhite() == pCouleur))
-    {
-      final PieceType t = p.getType();
-      if ((t == ROOK) || (t == QUEEN))
-      {
-        return true;
-      }
+      res[t] = Square.valueOf(FROM_X88[pCibles[t]]);
     }
 
-    p = null;
-    dst = iSrc - 17;
-    // Bas / Gauche
-    while ((p == null) && ((dst & X88) == 0))
-    {
-      p = _pieces[dst];
-      dst -= 17;
-    }
-    if ((p != null) && (p.isWhite() == pCouleur))
-    {
-      final PieceType t = p.getType();
-      if ((t == BISHOP) || (t == QUEEN))
-      {
-        return true;
-      }
-    }
-
-    p = null;
-    dst = iSrc + 15;
-    // Haut / Gauche
-    while ((p == null) && ((dst & X88) == 0))
-    {
-      p = _pieces[dst];
-      dst += 15;
-    }
-    if ((p != null) && (p.isWhite() == pCouleur))
-    {
-      final PieceType t = p.getType();
-      if ((t == BISHOP) || (t == QUEEN))
-      {
-        return true;
-      }
-    }
-
-    p = null;
-    dst = iSrc + 17;
-    // Haut / Droit
-    while ((p == null) && ((dst & X88) == 0))
-    {
-      p = _pieces[dst];
-      dst += 17;
-    }
-    if ((p != null) && (p.isWhite() == pCouleur))
-    {
-      final PieceType t = p.getType();
-      if ((t == BISHOP) || (t == QUEEN))
-      {
-        return true;
-      }
-    }
-
-    p = null;
-    dst = iSrc - 15;
-    // Bas / Droit
-    while ((p == null) && ((dst & X88) == 0))
-    {
-      p = _pieces[dst];
-      dst -= 15;
-    }
-    if ((p != null) && (p.isWhite() == pCouleur))
-    {
-      final PieceType t = p.getType();
-      if ((t == BISHOP) || (t == QUEEN))
-      {
-        return true;
-      }
-    }
-
-    // Cavalier
-    for (final int km : KNIGHT_MOVES)
-    {
-      dst = iSrc + km;
-      if ((dst & X88) == 0)
-      {
-        p = _pieces[dst];
-        if ((p != null) && (p.isWhite() == pCouleur) && (p.getType() == KNIGHT))
-        {
-          return true;
-        }
-      }
-    }
-
-    // Roi
-    for (final int km : KING_MOVES)
-    {
-      dst = iSrc + km;
-      if ((dst & X88) == 0)
-      {
-        p = _pieces[dst];
-        if ((p != null) && (p.isWhite() == pCouleur) && (p.getType() == KING))
-        {
-          return true;
-        }
-      }
-    }
-
-    // Pions...
-    if (pCouleur)
-    {
-      final int ySrc = pCible.getRank();
-      if (ySrc > 1)
-      {
-        final int xSrc = pCible.getFile();
-        if (((xSrc > 0) && (_pieces[iSrc - 17] == WHITE_PAWN))
-            || ((xSrc < FILE_COUNT - 1) && (_pieces[iSrc - 15] == WHITE_PAWN)))
-        {
-          return true;
-        }
-      }
-    }
-    else
-    {
-      final int ySrc = pCible.getRank();
-      if (ySrc < RANK_COUNT - 2)
-      {
-        final int xSrc = pCible.getFile();
-        if (((xSrc > 0) && (_pieces[iSrc + 15] == BLACK_PAWN))
-            || ((xSrc < FILE_COUNT - 1) && (_pieces[iSrc + 17] == BLACK_PAWN)))
-        {
-          return true;
-        }
-      }
-    }
-
-    return false;
+    return res;
   }
 
   /**
-   * Indique si le roi d'une couleur est en échec.
+   * Surcharge du calcul de la clé "Zobrist", tenue à jour à chaque mouvement.
    * 
-   * @param pCouleur Positionné à "true" pour tester l'échec sur les blancs, à "false" sinon.
-   * @return Vrai si le roi est en échec.
+   * @return Clé "Zobrist" de l'état.
    */
-  public boolean isInCheck(final boolean pCouleur)
+  @Override
+  public long zobristKey()
   {
-    return isAttacked(getKingSquare(pCouleur), !pCouleur);
+    assert _zobristKey == super.zobristKey();
+    return _zobristKey;
   }
 }
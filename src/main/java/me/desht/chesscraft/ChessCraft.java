@@ -1,7 +1,9 @@
 package me.desht.chesscraft;
 
 import com.sk89q.worldedit.bukkit.WorldEditPlugin;
+import fr.free.jchecs.ai.EngineFactory;
 import me.desht.chesscraft.chess.*;
+import me.desht.chesscraft.chess.ai.AIExecutor;
 import me.desht.chesscraft.chess.ai.AIFactory;
 import me.desht.chesscraft.citizens.CitizensUtil;
 import me.desht.chesscraft.commands.*;
@@ -130,6 +132,8 @@ public class ChessCraft extends JavaPlugin implements ConfigurationListener, Plu
 
 		fx = new SpecialFX(getConfig().getConfigurationSection("effects"));
 
+		EngineFactory.setHelperThreadsLimit(getConfig().getInt("ai.max_helper_threads"));
+
 		persistence.reload();
 
 		if (sms != null) {
@@ -163,6 +167,7 @@ public class ChessCraft extends JavaPlugin implements ConfigurationListener, Plu
 		ChessGameManager gm = ChessGameManager.getManager();
 
 		AIFactory.getInstance().clearDown();
+		AIExecutor.shutdown();
 		for (ChessGame game : gm.listGames()) {
 			game.tick();
 		}
@@ -342,6 +347,8 @@ public class ChessCraft extends JavaPlugin implements ConfigurationListener, Plu
 		cmds.registerCommand(new BoardDeletionCommand());
 		cmds.registerCommand(new BoardStyleSaveCommand());
 		cmds.registerCommand(new BoardStyleSetCommand());
+		cmds.registerCommand(new BuildBookCommand());
+		cmds.registerCommand(new AIStatsCommand());
 		cmds.registerCommand(new ClaimVictoryCommand());
 		cmds.registerCommand(new CreateGameCommand());
 		cmds.registerCommand(new DeleteGameCommand());
@@ -455,6 +462,10 @@ public class ChessCraft extends JavaPlugin implements ConfigurationListener, Plu
 			}
 		} else if (key.equals("entity_volume") && isProtocolLibEnabled()) {
 			ProtocolLibIntegration.setEntityVolume((Double) newVal);
+		} else if (key.equals("ai.max_helper_threads")) {
+			EngineFactory.setHelperThreadsLimit((Integer) newVal);
+		} else if (key.equals("ai.worker_threads")) {
+			AIExecutor.setPoolSize((Integer) newVal);
 		}
 	}
 
@@ -14,9 +14,10 @@ public class DirectoryStructure {
 	private static File pluginDir = new File("plugins", "ChessCraft"); //$NON-NLS-1$ //$NON-NLS-2$
 	private static JARUtil jarUtil;
 
-	private static File pgnDir, boardStyleDir, pieceStyleDir, schematicsDir;
+	private static File pgnDir, boardStyleDir, pieceStyleDir, schematicsDir, booksDir;
 	private static File dataDir, gamePersistDir, boardPersistDir, languagesDir, resultsDir;
 	private static final String pgnFoldername = "pgn"; //$NON-NLS-1$
+	private static final String booksFoldername = "books"; //$NON-NLS-1$
 	private static final String boardStyleFoldername = "board_styles"; //$NON-NLS-1$
 	private static final String pieceStyleFoldername = "piece_styles"; //$NON-NLS-1$
 	private static final String schematicsFoldername = "schematics"; //$NON-NLS-1$
@@ -49,6 +50,10 @@ public class DirectoryStructure {
 		return pgnDir;
 	}
 
+	public static File getBooksDirectory() {
+		return booksDir;
+	}
+
 	public static File getBoardStyleDirectory() {
 		return boardStyleDir;
 	}
@@ -84,6 +89,7 @@ public class DirectoryStructure {
 	private static void setupDirectoryStructure() {
 		// directories
 		pgnDir = new File(pluginDir, pgnFoldername);
+		booksDir = new File(pluginDir, booksFoldername);
 		boardStyleDir = new File(pluginDir, boardStyleFoldername);
 		pieceStyleDir = new File(pluginDir, pieceStyleFoldername);
 		dataDir = new File(pluginDir, datasaveFoldername);
@@ -100,6 +106,8 @@ public class DirectoryStructure {
 		createDir(pluginDir);
 		// [plugins]/ChessCraft/pgn
 		createDir(pgnDir);
+		// [plugins]/ChessCraft/books
+		createDir(booksDir);
 		// [plugins]/ChessCraft/lang
 		createDir(languagesDir);
 		// [plugins]/ChessCraft/board_styles
@@ -0,0 +1,197 @@
+package me.desht.chesscraft.chess.ai;
+
+import chesspresso.Chess;
+import me.desht.chesscraft.ChessCraft;
+import me.desht.dhutils.Debugger;
+import me.desht.dhutils.LogUtils;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author desht
+ *
+ * A bounded pool of worker threads shared by all running AIs.  Pending searches are queued in
+ * order of the thinking AI's remaining clock time, so games which are short of time get a worker
+ * first.  When more AIs want to think than there are workers, the excess simply wait in the queue
+ * rather than all competing for the CPU at once.
+ */
+public class AIExecutor {
+	private static final long SHUTDOWN_WAIT = 5000L;
+
+	private static AIExecutor instance;
+
+	private final ThreadPoolExecutor executor;
+	private final AtomicLong sequence = new AtomicLong();
+
+	private AIExecutor(int poolSize) {
+		final AtomicInteger threadCount = new AtomicInteger();
+		ThreadFactory factory = new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "ChessCraft AI worker #" + threadCount.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			}
+		};
+		int n = getEffectiveSize(poolSize);
+		executor = new ThreadPoolExecutor(n, n, 0L, TimeUnit.MILLISECONDS, new PriorityBlockingQueue<Runnable>(), factory);
+		Debugger.getInstance().debug("AI executor started with " + n + " worker thread(s)");
+	}
+
+	public static synchronized AIExecutor getInstance() {
+		if (instance == null) {
+			instance = new AIExecutor(ChessCraft.getInstance().getConfig().getInt("ai.worker_threads", -1));
+		}
+		return instance;
+	}
+
+	/**
+	 * Get the shared executor without starting it.
+	 *
+	 * @return the executor, or null if no AI search has started it yet
+	 */
+	public static synchronized AIExecutor getInstanceIfStarted() {
+		return instance;
+	}
+
+	/**
+	 * Shut down the shared executor, if it has been started.  Searches still running get a few seconds
+	 * to finish (they should already have been aborted); after that, the workers are interrupted.
+	 * Called on disable.
+	 */
+	public static synchronized void shutdown() {
+		if (instance == null) {
+			return;
+		}
+		ThreadPoolExecutor executor = instance.executor;
+		instance = null;
+		executor.shutdown();
+		try {
+			if (!executor.awaitTermination(SHUTDOWN_WAIT, TimeUnit.MILLISECONDS)) {
+				LogUtils.warning("AI worker threads did not finish in time; interrupting them");
+				executor.shutdownNow();
+			}
+		} catch (InterruptedException e) {
+			executor.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Change the number of worker threads.  Takes effect immediately if the executor is running.
+	 *
+	 * @param poolSize the new number of workers; zero or less means one less than the number of cores
+	 */
+	public static synchronized void setPoolSize(int poolSize) {
+		if (instance == null) {
+			return;
+		}
+		ThreadPoolExecutor executor = instance.executor;
+		int n = getEffectiveSize(poolSize);
+		if (n > executor.getMaximumPoolSize()) {
+			executor.setMaximumPoolSize(n);
+			executor.setCorePoolSize(n);
+		} else {
+			executor.setCorePoolSize(n);
+			executor.setMaximumPoolSize(n);
+		}
+		Debugger.getInstance().debug("AI executor resized to " + n + " worker thread(s)");
+	}
+
+	private static int getEffectiveSize(int poolSize) {
+		return poolSize > 0 ? poolSize : Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+	}
+
+	/**
+	 * Queue a search for the given AI.  Must be called from the main thread, since the AI's game clock
+	 * is consulted to prioritise the search.
+	 *
+	 * @param ai the AI which needs to think
+	 * @return a handle which may be used to cancel the search
+	 */
+	public AITask submit(ChessAI ai) {
+		long remaining = ai.getChessCraftGame().getClock().getRemainingTime(ai.isWhite() ? Chess.WHITE : Chess.BLACK);
+		AITask task = new AITask(ai, remaining);
+		if (executor.getActiveCount() >= executor.getMaximumPoolSize()) {
+			Debugger.getInstance().debug(ai.gameDetails + "all AI workers busy, search queued behind " + executor.getQueue().size() + " other(s)");
+		}
+		executor.execute(task);
+		return task;
+	}
+
+	public int getPoolSize() {
+		return executor.getMaximumPoolSize();
+	}
+
+	public int getActiveCount() {
+		return executor.getActiveCount();
+	}
+
+	public int getQueuedCount() {
+		return executor.getQueue().size();
+	}
+
+	/**
+	 * A queued or running AI search.  Searches are ordered by the AI's remaining clock time at the
+	 * point they were queued, and then first-come first-served.
+	 */
+	public class AITask extends FutureTask<Void> implements Comparable<AITask> {
+		private final ChessAI ai;
+		private final long remaining;
+		private final long seq;
+		private final AtomicBoolean started = new AtomicBoolean(false);
+
+		private AITask(ChessAI ai, long remaining) {
+			super(ai, null);
+			this.ai = ai;
+			this.remaining = remaining;
+			this.seq = sequence.getAndIncrement();
+		}
+
+		@Override
+		public void run() {
+			if (started.compareAndSet(false, true)) {
+				super.run();
+			}
+		}
+
+		/**
+		 * Cancel this search if no worker has picked it up yet.
+		 *
+		 * @return true if the search will not run (any more), false if it is currently running
+		 */
+		public boolean cancelIfPending() {
+			if (started.compareAndSet(false, true)) {
+				cancel(false);
+				executor.remove(this);
+				return true;
+			}
+			return isDone();
+		}
+
+		@Override
+		protected void done() {
+			if (isCancelled()) {
+				return;
+			}
+			try {
+				get();
+			} catch (ExecutionException e) {
+				LogUtils.warning(ai.gameDetails + "AI search failed: " + e.getCause().getMessage(), e.getCause());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		@Override
+		public int compareTo(AITask other) {
+			if (remaining != other.remaining) {
+				return remaining < other.remaining ? -1 : 1;
+			}
+			return seq < other.seq ? -1 : (seq == other.seq ? 0 : 1);
+		}
+	}
+}
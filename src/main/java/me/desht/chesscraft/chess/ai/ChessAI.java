@@ -1,6 +1,7 @@
 package me.desht.chesscraft.chess.ai;
 
 import chesspresso.Chess;
+import fr.free.jchecs.ai.SearchStatistics;
 import me.desht.chesscraft.ChessCraft;
 import me.desht.chesscraft.Messages;
 import me.desht.chesscraft.chess.ChessGame;
@@ -31,7 +32,8 @@ public abstract class ChessAI implements Runnable {
 	public enum PendingAction { NONE, MOVED, DRAW_OFFERED, DRAW_ACCEPTED, DRAW_DECLINED }
 
 	private boolean active = false;
-	private BukkitTask aiTask;
+	private volatile BukkitTask delayTask;
+	private volatile AIExecutor.AITask aiTask;
 	private boolean hasFailed = false;
 	private PendingAction pendingAction = PendingAction.NONE;
 	private int pendingFrom, pendingTo;
@@ -70,6 +72,25 @@ public abstract class ChessAI implements Runnable {
 
 	public abstract void notifyTimeControl(TimeControl timeControl);
 
+	/**
+	 * Ask any search currently running in run() to give up as soon as possible, so that its CPU is freed
+	 * immediately.  The default implementation does nothing; subclasses whose search can be interrupted
+	 * should override this.  Called from the main thread when the AI is deactivated or deleted.
+	 */
+	protected void abortSearch() {
+	}
+
+	/**
+	 * Get statistics for the AI's most recent search: nodes searched, depth reached, transposition table
+	 * usage, principal variation and so on.  The default implementation returns null; subclasses whose
+	 * engine can report statistics should override this.
+	 *
+	 * @return the last search's statistics, or null if none are available
+	 */
+	public SearchStatistics getLastSearchStatistics() {
+		return null;
+	}
+
 	/**
 	 * Perform the implementation-specfic steps needed to update the AI's internal game model with
 	 * the given move.  Square indices are always in Chesspresso sqi format.
@@ -241,22 +262,35 @@ public abstract class ChessAI implements Runnable {
 	}
 
 	/**
-	 * Tell the AI to start thinking.  This will call a run() method, implemented in subclasses,
-	 * which will analyze the current board position and culminate by calling aiHasMoved() with the
-	 * AI's next move.
+	 * Tell the AI to start thinking.  After the configured minimum wait, this queues a call to the
+	 * run() method, implemented in subclasses, on the shared AI worker pool.  That will analyze the
+	 * current board position and culminate by calling aiHasMoved() with the AI's next move.
 	 */
 	private void startThinking() {
 		long delay = ChessCraft.getInstance().getConfig().getInt("ai.min_move_wait", 0);
-		aiTask = Bukkit.getScheduler().runTaskLaterAsynchronously(ChessCraft.getInstance(), this, delay * 20L);
+		delayTask = Bukkit.getScheduler().runTaskLater(ChessCraft.getInstance(), new Runnable() {
+			@Override
+			public void run() {
+				delayTask = null;
+				aiTask = AIExecutor.getInstance().submit(ChessAI.this);
+			}
+		}, delay * 20L);
 	}
 
 	/**
 	 * Tell the AI to stop thinking.
 	 */
 	private void stopThinking() {
-		if (Bukkit.getScheduler().isCurrentlyRunning(aiTask.getTaskId())) {
-			Debugger.getInstance().debug(gameDetails + "forcing shutdown for AI task #" + aiTask);
-			aiTask.cancel();
+		if (delayTask != null) {
+			delayTask.cancel();
+			delayTask = null;
+		}
+		if (aiTask == null) {
+			return;
+		}
+		if (!aiTask.cancelIfPending()) {
+			Debugger.getInstance().debug(gameDetails + "forcing shutdown for running AI search");
+			abortSearch();
 		}
 		aiTask = null;
 	}
@@ -282,6 +316,10 @@ public abstract class ChessAI implements Runnable {
 		setActive(false);
 		movePiece(fromSqi, toSqi, false);
 		Debugger.getInstance().debug(gameDetails + "aiHasMoved: " + fromSqi + "->" + toSqi);
+		SearchStatistics stats = getLastSearchStatistics();
+		if (stats != null) {
+			Debugger.getInstance().debug(gameDetails + stats);
+		}
 
 		// Moving directly isn't thread-safe: we'd end up altering the Minecraft world from a separate thread,
 		// which is Very Bad.  So we just note the move made now, and let the ChessGame object check for it on
@@ -1,21 +1,37 @@
 package me.desht.chesscraft.chess.ai;
 
+import chesspresso.Chess;
 import fr.free.jchecs.ai.Engine;
 import fr.free.jchecs.ai.EngineFactory;
+import fr.free.jchecs.ai.SearchStatistics;
 import fr.free.jchecs.core.*;
 import me.desht.chesscraft.ChessCraft;
+import me.desht.chesscraft.DirectoryStructure;
 import me.desht.chesscraft.Messages;
 import me.desht.chesscraft.chess.ChessGame;
 import me.desht.chesscraft.chess.TimeControl;
 import me.desht.chesscraft.exceptions.ChessException;
+import me.desht.dhutils.Debugger;
+import me.desht.dhutils.LogUtils;
 import org.bukkit.configuration.ConfigurationSection;
 
+import java.io.File;
+import java.io.IOException;
+
 /**
  * @author des
  *
  */
 public class JChecsAI extends ChessAI {
 
+	// time budgeting: moves assumed to remain in a "game in" control, multiple of the average
+	// per-move time allowed for a single search, margin kept for scheduling latency (ms), and
+	// minimal search time (ms)
+	private static final int GAME_IN_MOVES_TO_GO = 30;
+	private static final int HARD_FACTOR = 3;
+	private static final long SAFETY_MARGIN = 500L;
+	private static final long MIN_SEARCH_TIME = 100L;
+
 	private final Game jChecsGame;
 
 	public JChecsAI(String name, ChessGame chessCraftGame, Boolean isWhite, ConfigurationSection params) {
@@ -47,7 +63,29 @@ public class JChecsAI extends ChessAI {
 		}
 		int searchDepth = params.getInt("depth", 1);
 		moteur.setSearchDepthLimit(searchDepth);
+		if (params.contains("hash_size")) {
+			moteur.setHashSize(Math.max(1, params.getInt("hash_size")));
+		}
+		moteur.setThreads(Math.max(1, params.getInt("threads", 1)));
+		moteur.setNullMoveEnabled(params.getBoolean("null_move", true));
+		moteur.setLateMoveReductionsEnabled(params.getBoolean("late_move_reductions", true));
+		moteur.setAspirationWindowsEnabled(params.getBoolean("aspiration_windows", true));
 		moteur.setOpeningsEnabled(ChessCraft.getInstance().getConfig().getBoolean("ai.use_opening_book", false));
+		if (params.contains("book")) {
+			// Polyglot .bin book, relative to the plugin's books directory unless absolute
+			File book = new File(params.getString("book"));
+			if (!book.isAbsolute()) {
+				book = new File(DirectoryStructure.getBooksDirectory(), params.getString("book"));
+			}
+			try {
+				moteur.setOpeningsBook(book);
+			} catch (IOException e) {
+				LogUtils.warning("AI " + getName() + ": can't use opening book " + book + ": " + e.getMessage());
+			}
+		}
+		if (params.contains("book_depth")) {
+			moteur.setOpeningsDepth(Math.max(0, params.getInt("book_depth")));
+		}
 		ai.setEngine(moteur);
 
 		return jChecsGame;
@@ -58,9 +96,30 @@ public class JChecsAI extends ChessAI {
 	 */
 	@Override
 	public void shutdown() {
+		abortSearch();
 		jChecsGame.getPlayer(isWhite()).setEngine(null);
 	}
 
+	/* (non-Javadoc)
+	 * @see me.desht.chesscraft.chess.ai.ChessAI#abortSearch()
+	 */
+	@Override
+	protected void abortSearch() {
+		final Engine engine = jChecsGame.getPlayer(isWhite()).getEngine();
+		if (engine != null) {
+			engine.abort();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see me.desht.chesscraft.chess.ai.ChessAI#getLastSearchStatistics()
+	 */
+	@Override
+	public SearchStatistics getLastSearchStatistics() {
+		final Engine engine = jChecsGame.getPlayer(isWhite()).getEngine();
+		return engine == null ? null : engine.getLastSearchStatistics();
+	}
+
 	/* (non-Javadoc)
 	 * @see me.desht.chesscraft.chess.ai.AbstractAI#run()
 	 */
@@ -69,7 +128,21 @@ public class JChecsAI extends ChessAI {
 		try {
 			final MoveGenerator plateau = jChecsGame.getBoard();
 			final Engine engine = jChecsGame.getPlayer(isWhite()).getEngine();
+			if (engine == null) {
+				// AI already shut down
+				return;
+			}
 			final fr.free.jchecs.core.Move m = engine.getMoveFor(plateau);
+			if (m == null) {
+				// search aborted: the AI has been deactivated or deleted meanwhile
+				Debugger.getInstance().debug(gameDetails + "search aborted");
+				return;
+			}
+			if (jChecsGame.getBoard() != plateau) {
+				// position changed during the search (e.g. move undone): the result is stale
+				Debugger.getInstance().debug(gameDetails + "position changed during search, move " + m + " dropped");
+				return;
+			}
 			aiHasMoved(m.getFrom().getIndex(), m.getTo().getIndex());
 		} catch (Exception e) {
 			aiHasFailed(e);
@@ -101,6 +174,38 @@ public class JChecsAI extends ChessAI {
 
 	@Override
 	public void notifyTimeControl(TimeControl timeControl) {
-		// do nothing here... JChecs doesn't support time controls
+		final Engine engine = jChecsGame.getPlayer(isWhite()).getEngine();
+		if (engine == null) {
+			return;
+		}
+
+		long remaining;
+		int movesToGo;
+		long increment = 0L;
+		switch (timeControl.getControlType()) {
+		case MOVE_IN:
+			remaining = timeControl.getTotalTime();
+			movesToGo = 1;
+			break;
+		case GAME_IN:
+			remaining = getChessCraftGame().getClock().getRemainingTime(isWhite() ? Chess.WHITE : Chess.BLACK);
+			movesToGo = GAME_IN_MOVES_TO_GO;
+			break;
+		case ROLLOVER:
+			remaining = getChessCraftGame().getClock().getRemainingTime(isWhite() ? Chess.WHITE : Chess.BLACK);
+			movesToGo = Math.max(1, timeControl.getCurrentPhase().getMoves());
+			increment = timeControl.getCurrentPhase().getIncrement();
+			break;
+		default:
+			// no time control: plain fixed-depth search
+			engine.setTimeLimits(0L, 0L);
+			return;
+		}
+
+		// keep a margin for scheduling latency, and never budget less than a minimal search
+		remaining = Math.max(MIN_SEARCH_TIME, remaining - SAFETY_MARGIN);
+		long hard = Math.max(MIN_SEARCH_TIME, Math.min(remaining, remaining / movesToGo * HARD_FACTOR + increment));
+		long soft = Math.max(MIN_SEARCH_TIME, Math.min(hard / 2, remaining / movesToGo + increment / 2));
+		engine.setTimeLimits(soft, hard);
 	}
 }
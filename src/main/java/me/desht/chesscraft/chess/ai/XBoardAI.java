@@ -210,21 +210,22 @@ public class XBoardAI extends ChessAI {
 
 		@Override
 		public void run() {
-			ExecutorService executor = Executors.newFixedThreadPool(1);
-
-			Callable<Void> readTask = new Callable<Void>() {
+			FutureTask<Void> readTask = new FutureTask<Void>(new Callable<Void>() {
 				@Override
 				public Void call() throws Exception {
 					readLines();
 					return null;
 				}
-			};
+			});
 
-			Future<Void> future = executor.submit(readTask);
+			// a one-off thread, which ends as soon as the engine finishes (or fails) reporting its features
+			Thread reader = new Thread(readTask, "ChessCraft xboard feature reader");
+			reader.setDaemon(true);
+			reader.start();
 			try {
 				// we give the AI engine 2 seconds to reply to the "protover" command
 				// with a list of features
-				future.get(2000, TimeUnit.MILLISECONDS);
+				readTask.get(2000, TimeUnit.MILLISECONDS);
 
 				// now it's safe to finish AI init
 
@@ -242,6 +243,7 @@ public class XBoardAI extends ChessAI {
 					aiHasFailed(new ChessException("This xboard engine doesn't support the 'setboard' feature"));
 				}
 			} catch (Exception e) {
+				readTask.cancel(true);
 				aiHasFailed(e);
 			}
 		}
@@ -26,6 +26,10 @@ public class AIChessPlayer extends ChessPlayer {
 		ai = AIFactory.getInstance().getNewAI(game, id, colour == Chess.WHITE);
 	}
 
+	public ChessAI getAI() {
+		return ai;
+	}
+
 	@Override
 	public void promptForFirstMove() {
 		ai.setActive(true);
@@ -0,0 +1,97 @@
+package me.desht.chesscraft.commands;
+
+import chesspresso.Chess;
+import fr.free.jchecs.ai.SearchStatistics;
+import me.desht.chesscraft.Messages;
+import me.desht.chesscraft.chess.ChessGame;
+import me.desht.chesscraft.chess.ChessGameManager;
+import me.desht.chesscraft.chess.ai.AIExecutor;
+import me.desht.chesscraft.chess.ai.ChessAI;
+import me.desht.chesscraft.chess.player.AIChessPlayer;
+import me.desht.chesscraft.chess.player.ChessPlayer;
+import me.desht.chesscraft.exceptions.ChessException;
+import me.desht.dhutils.MessagePager;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+
+import java.util.List;
+
+public class AIStatsCommand extends ChessAbstractCommand {
+
+	public AIStatsCommand() {
+		super("chess ai stats", 0, 1);
+		setPermissionNode("chesscraft.commands.ai.stats");
+		setUsage("/chess ai stats [<game>]");
+	}
+
+	@Override
+	public boolean execute(Plugin plugin, CommandSender sender, String[] args) throws ChessException {
+		ChessGame game;
+		if (args.length >= 1) {
+			game = ChessGameManager.getManager().getGame(args[0]);
+		} else {
+			notFromConsole(sender);
+			game = ChessGameManager.getManager().getCurrentGame((Player) sender, true);
+		}
+
+		MessagePager pager = MessagePager.getPager(sender).clear().setParseColours(true);
+
+		boolean found = false;
+		for (int colour : new int[] { Chess.WHITE, Chess.BLACK }) {
+			ChessPlayer cp = game.getPlayer(colour);
+			if (cp instanceof AIChessPlayer) {
+				found = true;
+				showStats(pager, ((AIChessPlayer) cp).getAI());
+			}
+		}
+		if (!found) {
+			throw new ChessException(Messages.getString("ChessCommandExecutor.aiStatsNoAI", game.getName()));
+		}
+
+		AIExecutor executor = AIExecutor.getInstanceIfStarted();
+		if (executor == null) {
+			pager.add(Messages.getString("ChessCommandExecutor.aiStatsWorkersNotStarted"));
+		} else {
+			pager.add(Messages.getString("ChessCommandExecutor.aiStatsWorkers",
+			                             executor.getActiveCount(), executor.getPoolSize(), executor.getQueuedCount()));
+		}
+
+		pager.showPage();
+		return true;
+	}
+
+	private void showStats(MessagePager pager, ChessAI ai) {
+		SearchStatistics stats = ai.getLastSearchStatistics();
+		if (stats == null) {
+			pager.add(Messages.getString("ChessCommandExecutor.aiStatsNone", ai.getDisplayName()));
+		} else if (stats.isFromOpenings()) {
+			pager.add(Messages.getString("ChessCommandExecutor.aiStatsOpenings", ai.getDisplayName(),
+			                             stats.getPrincipalVariationSAN()));
+		} else {
+			pager.add(Messages.getString("ChessCommandExecutor.aiStatsSearch", ai.getDisplayName(),
+			                             stats.getDepth(), stats.getScore(), stats.getElapsedTime()));
+			String bullet = MessagePager.BULLET;
+			pager.add(bullet + Messages.getString("ChessCommandExecutor.aiStatsNodes",
+			                                      stats.getNodes(), stats.getNodesPerSecond(), stats.getQuiescenceNodes()));
+			pager.add(bullet + Messages.getString("ChessCommandExecutor.aiStatsTransposition",
+			                                      stats.getTranspositionProbes(), stats.getTranspositionHits(),
+			                                      stats.getTranspositionCutoffs()));
+			pager.add(bullet + Messages.getString("ChessCommandExecutor.aiStatsCaches",
+			                                      stats.getEvaluationCacheHitRate(), stats.getPawnHashHitRate()));
+			pager.add(bullet + Messages.getString("ChessCommandExecutor.aiStatsCutoffs",
+			                                      stats.getCutoffs(), stats.getFirstMoveCutoffRate()));
+			pager.add(bullet + Messages.getString("ChessCommandExecutor.aiStatsPV", stats.getPrincipalVariationSAN()));
+		}
+	}
+
+	@Override
+	public List<String> onTabComplete(Plugin plugin, CommandSender sender, String[] args) {
+		if (args.length == 1) {
+			return getGameCompletions(plugin, sender, args[0]);
+		} else {
+			showUsage(sender);
+			return noCompletions(sender);
+		}
+	}
+}
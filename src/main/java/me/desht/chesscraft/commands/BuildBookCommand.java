@@ -0,0 +1,98 @@
+package me.desht.chesscraft.commands;
+
+import fr.free.jchecs.ai.OpeningBookBuilder;
+import me.desht.chesscraft.ChessCraft;
+import me.desht.chesscraft.DirectoryStructure;
+import me.desht.chesscraft.Messages;
+import me.desht.chesscraft.exceptions.ChessException;
+import me.desht.dhutils.LogUtils;
+import me.desht.dhutils.MiscUtil;
+import org.bukkit.Bukkit;
+import org.bukkit.command.CommandSender;
+import org.bukkit.plugin.Plugin;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class BuildBookCommand extends ChessAbstractCommand {
+
+	private static final String DEFAULT_BOOK_NAME = "chesscraft.book";
+
+	// only one build at a time: it is CPU-hungry, and two builds would race on the output file
+	private static final AtomicBoolean building = new AtomicBoolean(false);
+
+	public BuildBookCommand() {
+		super("chess admin buildbook", 0, 1);
+		setPermissionNode("chesscraft.commands.admin.buildbook");
+		setUsage("/chess admin buildbook [<book-file>]");
+	}
+
+	@Override
+	public boolean execute(Plugin plugin, final CommandSender sender, String[] args) throws ChessException {
+		String name = args.length > 0 ? args[0] : DEFAULT_BOOK_NAME;
+		if (name.contains("/") || name.contains("\\") || name.endsWith(".bin")) {
+			throw new ChessException(Messages.getString("ChessCommandExecutor.bookBadName", name));
+		}
+		final File bookFile = new File(DirectoryStructure.getBooksDirectory(), name);
+		File[] pgnFiles = DirectoryStructure.getPGNDirectory().listFiles(OpeningBookBuilder.PGN_FILTER);
+		final List<File> files = pgnFiles == null ? Arrays.<File>asList() : Arrays.asList(pgnFiles);
+
+		if (!building.compareAndSet(false, true)) {
+			throw new ChessException(Messages.getString("ChessCommandExecutor.bookBuildRunning"));
+		}
+
+		final int depth = Math.max(1, plugin.getConfig().getInt("ai.book_builder.depth", OpeningBookBuilder.DEFAULT_DEPTH));
+		final int minCount = Math.max(1, plugin.getConfig().getInt("ai.book_builder.min_count", 1));
+		final int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+		MiscUtil.statusMessage(sender, Messages.getString("ChessCommandExecutor.bookBuildStarted", bookFile.getName(), files.size()));
+
+		Bukkit.getScheduler().runTaskAsynchronously(ChessCraft.getInstance(), new Runnable() {
+			@Override
+			public void run() {
+				String message;
+				try {
+					OpeningBookBuilder builder = new OpeningBookBuilder(depth, OpeningBookBuilder.DEFAULT_CAPACITY);
+					builder.addFiles(files, threads);
+					// write to a temporary file first, so that AIs never load a half-written book
+					File tmp = new File(bookFile.getParentFile(), bookFile.getName() + ".tmp");
+					int positions = builder.write(new FileOutputStream(tmp), minCount);
+					if ((bookFile.exists() && !bookFile.delete()) || !tmp.renameTo(bookFile)) {
+						throw new IOException("can't rename " + tmp + " to " + bookFile);
+					}
+					message = Messages.getString("ChessCommandExecutor.bookBuilt", bookFile.getName(),
+					                             builder.getGamesCount(), positions, builder.getErrorsCount());
+				} catch (IOException e) {
+					LogUtils.warning("Can't build opening book " + bookFile + ": " + e.getMessage());
+					message = Messages.getString("ChessCommandExecutor.bookBuildFailed", bookFile.getName(), e.getMessage());
+				} catch (InterruptedException e) {
+					message = Messages.getString("ChessCommandExecutor.bookBuildFailed", bookFile.getName(), e.getMessage());
+				} finally {
+					building.set(false);
+				}
+				final String result = message;
+				Bukkit.getScheduler().runTask(ChessCraft.getInstance(), new Runnable() {
+					@Override
+					public void run() {
+						MiscUtil.statusMessage(sender, result);
+					}
+				});
+			}
+		});
+
+		return true;
+	}
+
+	@Override
+	public List<String> onTabComplete(Plugin plugin, CommandSender sender, String[] args) {
+		if (args.length == 1) {
+			return filterPrefix(sender, Arrays.asList(DEFAULT_BOOK_NAME), args[0]);
+		} else {
+			showUsage(sender);
+			return noCompletions(sender);
+		}
+	}
+}